@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of a read-only check over a {@link FlatAst}, against the same check over the Node
+ * tree.
+ *
+ * <ul>
+ *   <li>{@link #nodeTraversal}: a {@link NodeTraversal} that counts the names of the tree;
+ *   <li>{@link #flatAstTraversal}: a {@link FlatAstTraversal} that counts the names of the copy;
+ *   <li>{@link #build}: building the copy, which a check pays once per compilation.
+ * </ul>
+ *
+ * <p>Run with {@code java -jar target/benchmarks/closure-compiler-benchmarks.jar
+ * FlatAstBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatAstBenchmark {
+  /** Functions in the parsed file. */
+  @Param({"2000"})
+  public int functions;
+
+  private Compiler compiler;
+  private Node root;
+  private FlatAst ast;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < functions; i++) {
+      js.append("var value").append(i).append(" = {'key': ").append(i).append("};\n");
+      js.append("function f").append(i).append("(a, b) {\n");
+      js.append("  var x = a.length + value").append(i).append(".key;\n");
+      js.append("  for (var j = 0; j < x; j++) { b.push(j, 'item' + j); }\n");
+      js.append("  return x > b.length ? a.slice(1) : String(b);\n");
+      js.append("}\n");
+    }
+    compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    Node script = compiler.parse(SourceFile.fromCode("input.js", js.toString()));
+    // Like the AST of a compilation, the nodes are not allocated in the order of a traversal.
+    root = script.cloneTree();
+    ast = FlatAst.build(root);
+  }
+
+  @Benchmark
+  public int nodeTraversal() {
+    final int[] names = new int[1];
+    NodeTraversal.traverseEs6(
+        compiler,
+        root,
+        new NodeTraversal.AbstractPostOrderCallback() {
+          @Override
+          public void visit(NodeTraversal t, Node n, Node parent) {
+            if (n.isName()) {
+              names[0]++;
+            }
+          }
+        });
+    return names[0];
+  }
+
+  @Benchmark
+  public int flatAstTraversal() {
+    final int[] names = new int[1];
+    FlatAstTraversal.traverse(
+        compiler,
+        ast,
+        new FlatAstTraversal.AbstractPostOrderCallback() {
+          @Override
+          public void visit(FlatAstTraversal t, int n, int parent) {
+            if (t.getAst().getToken(n) == Token.NAME) {
+              names[0]++;
+            }
+          }
+        });
+    return names[0];
+  }
+
+  @Benchmark
+  public FlatAst build() {
+    return FlatAst.build(root);
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the require resolver over a {@link SyntheticNodeModules} project.
+ *
+ * <p>Each benchmark covers one step of preprocessing the project, for all of its requires at
+ * once:
+ *
+ * <ul>
+ *   <li>{@link #resolve}: require.resolve of every require, without the resolution cache;
+ *   <li>{@link #replaceRequire}: replacing every require of a file that already has a global
+ *       variable, which is what most requires of a real project are;
+ *   <li>{@link #wrapJson}: building the wrapper of every .json file;
+ *   <li>{@link #emitOutput}: printing the project with all of its requires inlined;
+ *   <li>{@link #preprocess}: compiling main.js with in-process resolution, which is what
+ *       preprocessorWrapper.py runs for a project.
+ * </ul>
+ *
+ * <p>Build with {@code mvn -P benchmarks install} and run with {@code java -jar
+ * target/benchmarks/closure-compiler-benchmarks.jar}. The shape of the project is set with the
+ * parameters, e.g. {@code -p width=8 -p depth=2 -p duplicateRatio=0.5}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequireResolverBenchmark {
+  /** Requires per .js file. */
+  @Param({"4"})
+  public int width;
+
+  /** Levels of packages below main.js. */
+  @Param({"3"})
+  public int depth;
+
+  /** Chance that a require names a package that was required before. */
+  @Param({"0.3"})
+  public double duplicateRatio;
+
+  /** Chance that a new package is a .json file. */
+  @Param({"0.2"})
+  public double jsonRatio;
+
+  private File root;
+  private SyntheticNodeModules project;
+  private NodeRequireResolver resolver;
+  // Every require call of the project, with the file it is in as its source.
+  private final List<Node> requires = new ArrayList<>();
+  private Node inlined;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    root = Files.createTempDir().getCanonicalFile();
+    project = SyntheticNodeModules.generate(root, width, depth, duplicateRatio, jsonRatio, 42);
+
+    List<String> files = new ArrayList<>(project.getJsFiles());
+    files.add(project.getMain().getPath());
+    Compiler parser = new Compiler();
+    parser.initOptions(new CompilerOptions());
+    resolver = new NodeRequireResolver(options());
+    for (String file : files) {
+      Node script = parser.parse(SourceFile.fromFile(file, UTF_8));
+      collectRequires(script);
+    }
+    // Every file gets its variable, so replaceRequire takes the path of a file required before.
+    for (Node require : requires) {
+      String path = resolver.getRequirePath(resolver.findModuleName(require), require);
+      if (resolver.findVarName(path).isEmpty()) {
+        resolver.assignVarName(path);
+      }
+    }
+
+    Compiler compiler = preprocessProject();
+    inlined = compiler.getJsRoot();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    MoreFiles.deleteRecursively(root.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  public void resolve(Blackhole blackhole) {
+    for (Node require : requires) {
+      blackhole.consume(
+          resolver.resolveModule(
+              resolver.requireDirectory(require), resolver.findModuleName(require)));
+    }
+  }
+
+  @Benchmark
+  public void replaceRequire(Blackhole blackhole) {
+    for (Node require : requires) {
+      blackhole.consume(resolver.replaceRequire(require));
+    }
+  }
+
+  @Benchmark
+  public void wrapJson(Blackhole blackhole) {
+    Node require = IR.call(IR.name("require"), IR.string("data.json"));
+    for (String path : project.getJsonFiles()) {
+      blackhole.consume(resolver.wrapJSON(path, resolver.findVarName(path), require));
+    }
+  }
+
+  @Benchmark
+  public String emitOutput() {
+    return new CodePrinter.Builder(inlined).build();
+  }
+
+  @Benchmark
+  public String preprocess() {
+    return preprocessProject().toSource();
+  }
+
+  private Compiler preprocessProject() {
+    CompilerOptions options = options();
+    options.setResolveInProcess("true");
+    CompilationLevel.WHITESPACE_ONLY.setOptionsForCompilationLevel(options);
+    Compiler compiler = new Compiler(System.err);
+    Result result =
+        compiler.compile(
+            ImmutableList.<SourceFile>of(),
+            ImmutableList.of(SourceFile.fromFile(project.getMain().getPath(), UTF_8)),
+            options);
+    if (!result.success) {
+      throw new IllegalStateException("The synthetic project did not compile");
+    }
+    return compiler;
+  }
+
+  private CompilerOptions options() {
+    CompilerOptions options = new CompilerOptions();
+    options.setDFSLog(new File(root, "DFSMapping.txt").getPath());
+    options.setReqResLog(new File(root, "resreqlog.txt").getPath());
+    options.setResetRRL("true");
+    options.setRRLogLevel("off");
+    options.setNJSSource(root.getPath());
+    options.setRequireResolveCache("false");
+    return options;
+  }
+
+  private void collectRequires(Node n) {
+    if (n.isCall() && resolver.isRequireCallee(n.getFirstChild())) {
+      requires.add(n);
+    }
+    for (Node c = n.getFirstChild(); c != null; c = c.getNext()) {
+      collectRequires(c);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A project with a generated node_modules folder, for benchmarking the require resolver.
+ *
+ * <p>The project has a main.js that requires {@code width} packages. Every .js package requires
+ * {@code width} more, down to {@code depth} levels below main.js, where the packages require
+ * nothing. Each require names an existing package with a chance of {@code duplicateRatio}, so
+ * the file already has a global variable, and otherwise a new package, which is a .json file with
+ * a chance of {@code jsonRatio}. The packages are all in the node_modules folder of the project,
+ * the way npm installs them; a third of them point at their code with the "main" of their
+ * package.json, the others use index.js.
+ *
+ * <p>The same arguments always generate the same project.
+ */
+final class SyntheticNodeModules {
+  private final File root;
+  private final int width;
+  private final int depth;
+  private final double duplicateRatio;
+  private final double jsonRatio;
+  private final Random random;
+
+  // What a require may name: the package, or the .json file in it.
+  private final List<String> modules = new ArrayList<>();
+  private final List<String> jsFiles = new ArrayList<>();
+  private final List<String> jsonFiles = new ArrayList<>();
+  private int requires = 0;
+
+  private SyntheticNodeModules(
+      File root, int width, int depth, double duplicateRatio, double jsonRatio, long seed) {
+    this.root = root;
+    this.width = width;
+    this.depth = depth;
+    this.duplicateRatio = duplicateRatio;
+    this.jsonRatio = jsonRatio;
+    this.random = new Random(seed);
+  }
+
+  /** Generates a project in {@code root}, which should be empty. */
+  static SyntheticNodeModules generate(
+      File root, int width, int depth, double duplicateRatio, double jsonRatio, long seed)
+      throws IOException {
+    SyntheticNodeModules project =
+        new SyntheticNodeModules(root, width, depth, duplicateRatio, jsonRatio, seed);
+    project.write(project.getMain(), project.jsFile("main", 0));
+    return project;
+  }
+
+  /** The entry point of the project. */
+  File getMain() {
+    return new File(root, "main.js");
+  }
+
+  File getRoot() {
+    return root;
+  }
+
+  /** The .js files of the packages, not main.js. */
+  ImmutableList<String> getJsFiles() {
+    return ImmutableList.copyOf(jsFiles);
+  }
+
+  ImmutableList<String> getJsonFiles() {
+    return ImmutableList.copyOf(jsonFiles);
+  }
+
+  /** Number of require calls in the project, main.js included. */
+  int getRequires() {
+    return requires;
+  }
+
+  // The code of a .js file at level, which writes out the packages it requires first.
+  private String jsFile(String name, int level) throws IOException {
+    StringBuilder code = new StringBuilder();
+    List<String> dependencies = new ArrayList<>();
+    if (level < depth) {
+      for (int i = 0; i < width; i++) {
+        dependencies.add(dependency(level + 1));
+      }
+    }
+    for (int i = 0; i < dependencies.size(); i++) {
+      code.append("var dep").append(i).append(" = require('").append(dependencies.get(i));
+      code.append("');\n");
+    }
+    requires += dependencies.size();
+    code.append("var name = '").append(name).append("';\n");
+    code.append("function describe(value, depth) {\n");
+    code.append("  if (depth > 3) { return String(value); }\n");
+    code.append("  var parts = [];\n");
+    code.append("  for (var key in value) {\n");
+    code.append("    parts.push(key + ': ' + describe(value[key], depth + 1));\n");
+    code.append("  }\n");
+    code.append("  return name + ' {' + parts.join(', ') + '}';\n");
+    code.append("}\n");
+    code.append("exports.name = name;\n");
+    code.append("exports.describe = function() {\n");
+    code.append("  return describe({");
+    for (int i = 0; i < dependencies.size(); i++) {
+      code.append(i == 0 ? "" : ", ").append("dep").append(i).append(": dep").append(i);
+    }
+    code.append("}, 0);\n");
+    code.append("};\n");
+    return code.toString();
+  }
+
+  // What a require at level names: an existing module, or a package written out now.
+  private String dependency(int level) throws IOException {
+    if (!modules.isEmpty() && random.nextDouble() < duplicateRatio) {
+      return modules.get(random.nextInt(modules.size()));
+    }
+    String name = "pkg-" + modules.size();
+    File directory = new File(root, "node_modules/" + name);
+    String module;
+    if (random.nextDouble() < jsonRatio) {
+      module = name + "/data.json";
+      modules.add(module);
+      write(new File(directory, "package.json"), "{\"name\": \"" + name + "\"}");
+      File json = new File(directory, "data.json");
+      write(
+          json,
+          "{\"name\": \"" + name + "\", \"level\": " + level + ", \"tags\": [\"a\", \"b\", \"c\"],"
+              + " \"nested\": {\"enabled\": true, \"ratio\": 0.5, \"none\": null}}");
+      jsonFiles.add(json.getPath());
+    } else {
+      module = name;
+      modules.add(module);
+      // Every third package has a "main", the others are found through index.js.
+      boolean main = modules.size() % 3 == 0;
+      File js = new File(directory, main ? "lib/" + name + ".js" : "index.js");
+      write(
+          new File(directory, "package.json"),
+          "{\"name\": \"" + name + "\"" + (main ? ", \"main\": \"lib/" + name + ".js\"" : "") + "}");
+      jsFiles.add(js.getPath());
+      write(js, jsFile(name, level));
+    }
+    return module;
+  }
+
+  private void write(File file, String content) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.asCharSink(file, UTF_8).write(content);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.parsing;
+
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.SourceFile;
+import com.google.javascript.rhino.Node;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of parsing a file like the ones of a resolved project, where the same few names,
+ * such as exports, module and require, and the same module names occur over and over.
+ *
+ * <p>The compiler is shared by the parses, as it is by the files of a compilation. Run it with
+ * {@code -prof gc} for the memory the scanner allocates per parse, in gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+  /** Modules in the parsed file. */
+  @Param({"500"})
+  public int modules;
+
+  private Compiler compiler;
+  private String code;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < modules; i++) {
+      js.append("var module$").append(i).append(" = (function(module, exports) {\n");
+      js.append("  var util = require('./util');\n");
+      js.append("  var path = require('path');\n");
+      js.append("  function describe(value, depth) {\n");
+      js.append("    if (depth > 3) { return String(value); }\n");
+      js.append("    var parts = [];\n");
+      js.append("    for (var key in value) {\n");
+      js.append("      parts.push(key + ': ' + describe(value[key], depth + 1));\n");
+      js.append("    }\n");
+      js.append("    return util.format('%s {%s}', path.basename(module.id), parts.join(', '));\n");
+      js.append("  }\n");
+      js.append("  exports.describe = describe;\n");
+      js.append("  module.exports.name = 'module").append(i).append("';\n");
+      js.append("  return module.exports;\n");
+      js.append("})({exports: {}}, {});\n");
+    }
+    code = js.toString();
+    compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+  }
+
+  @Benchmark
+  public Node parse() {
+    return compiler.parse(SourceFile.fromCode("input.js", code));
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.rhino;
+
+import com.google.javascript.jscomp.Compiler;
+import com.google.javascript.jscomp.CompilerOptions;
+import com.google.javascript.jscomp.SourceFile;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the memory and lookup cost of the properties of {@link Node}.
+ *
+ * <ul>
+ *   <li>{@link #annotate}: a copy of a parsed file with the props the passes typically set, such as
+ *       IS_CONSTANT_NAME, FREE_CALL, SIDE_EFFECT_FLAGS and ORIGINALNAME_PROP. Run it with {@code
+ *       -prof gc}: its gc.alloc.rate.norm is the heap the nodes and their props take, in bytes per
+ *       copy of the file, since it allocates nothing else;
+ *   <li>{@link #getBooleanProp}, {@link #getIntProp}, {@link #getProp}: a lookup of props on every
+ *       node of the annotated copy, most of which do not have the prop.
+ * </ul>
+ *
+ * <p>Run with {@code java -jar target/benchmarks/closure-compiler-benchmarks.jar
+ * NodePropertyBenchmark -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodePropertyBenchmark {
+  /** Functions in the parsed file. */
+  @Param({"200"})
+  public int functions;
+
+  private Node parsed;
+  private Node annotated;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < functions; i++) {
+      js.append("var CONST_").append(i).append(" = {'key': ").append(i);
+      js.append(", other: [1, 2]};\n");
+      js.append("function f").append(i).append("(a, b) {\n");
+      js.append("  var x = a.length + CONST_").append(i).append(".key;\n");
+      js.append("  for (var j = 0; j < x; j++) { b.push(j, 'item' + j); }\n");
+      js.append("  return helper(x, b) ? a.slice(1) : String(b);\n");
+      js.append("}\n");
+    }
+    js.append("function helper(x, y) { return x > y.length; }\n");
+    Compiler compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    parsed = compiler.parse(SourceFile.fromCode("input.js", js.toString()));
+    annotated = annotate();
+  }
+
+  @Benchmark
+  public Node annotate() {
+    Node copy = parsed.cloneTree();
+    int changeTime = 1;
+    for (Node n = copy; n != null; n = next(n)) {
+      switch (n.getToken()) {
+        case NAME:
+          if (n.getString().startsWith("CONST_")) {
+            n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+          } else if (n.getParent().isFunction()) {
+            n.putProp(Node.ORIGINALNAME_PROP, n.getString());
+          }
+          break;
+        case CALL:
+          n.putBooleanProp(Node.FREE_CALL, n.getFirstChild().isName());
+          n.putIntProp(Node.SIDE_EFFECT_FLAGS, 3);
+          break;
+        case STRING_KEY:
+          n.putBooleanProp(Node.QUOTED_PROP, n.getString().equals("key"));
+          break;
+        case INC:
+          n.putBooleanProp(Node.INCRDECR_PROP, true);
+          break;
+        case FUNCTION:
+          n.putIntProp(Node.CHANGE_TIME, changeTime++);
+          break;
+        default:
+          break;
+      }
+    }
+    return copy;
+  }
+
+  @Benchmark
+  public int getBooleanProp() {
+    int count = 0;
+    for (Node n = annotated; n != null; n = next(n)) {
+      if (n.getBooleanProp(Node.IS_CONSTANT_NAME)) {
+        count++;
+      }
+      if (n.getBooleanProp(Node.FREE_CALL)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int getIntProp() {
+    int sum = 0;
+    for (Node n = annotated; n != null; n = next(n)) {
+      sum += n.getIntProp(Node.SIDE_EFFECT_FLAGS) + n.getIntProp(Node.CHANGE_TIME);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int getProp() {
+    int count = 0;
+    for (Node n = annotated; n != null; n = next(n)) {
+      if (n.getProp(Node.ORIGINALNAME_PROP) != null) {
+        count++;
+      }
+      if (n.getJSDocInfo() != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // The next node of a pre-order traversal, without recursion.
+  private static Node next(Node n) {
+    if (n.hasChildren()) {
+      return n.getFirstChild();
+    }
+    while (n != null && n.getNext() == null) {
+      n = n.getParent();
+    }
+    return n == null ? null : n.getNext();
+  }
+}
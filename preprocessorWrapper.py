@@ -10,6 +10,7 @@ NSRC = "D:/Sefcom/NodeJS_code/node-v6.13.0"
 JAVA = "java"
 lang_out = "ECMASCRIPT_2015"
 node_source_resolve = "false"
+resolve_in_process = "false"
 
 # THIS IS THE FILE NAME ASSIGNER. IT HELPS WITH KEEPING THE NAMES THE SAME
 def fileNamesAssigner(fileNames,dirName,d2):
@@ -83,7 +84,7 @@ def closureCall(fileNames):
   command = [JAVA,"-jar",CCJAR,"--module_resolution","NODE","--compilation_level","WHITESPACE_ONLY","--formatting",
       "PRETTY_PRINT","--language_out",lang_out,"--js",fileNames["fnClean"],"--js_output_file",fileNames["of"],"--reset_rrl","true",
       "--require_resolve_log_location",fileNames["l1"],"--DFS_tracking_log_location",fileNames["dl1"],"--nodejs_source",NSRC,
-	  "--resolve_NSC",node_source_resolve]
+	  "--resolve_NSC",node_source_resolve,"--resolve_in_process",resolve_in_process]
   return command
 def commandCall(command):
   com = subprocess.Popen(command,stdout=subprocess.PIPE,stderr=subprocess.PIPE)
@@ -97,8 +98,8 @@ def callCommands(file_name,dir_name):
     fileNames = fileNameAssigner(file_name,dir_name)
     createDir(fileNames["out_dir"])
     print("[ INFO ] CLOSURE CALL \""+file_name+"\"")
+    # The output declares its global variables already (--declare_globals), so varPrepender is not needed
     commandCall( closureCall(fileNames) )
-    varPrepender.filePrepender(fileNames["of"],fileNames["dl1"],"false")
   except Exception, e:
     print("There was an exception in CallCommand for file: "+file_name)
     print(e)
@@ -142,7 +143,7 @@ def readFileAndCall(multifile,multidir,outdir):
 
 # This reads and keeps the command line arguments
 # clOpt are kept to only the below functions, so the code could be called from other python scripts.
-clOpt = {"mf":"","mod":"","file_name":"","od":"","nsr":node_source_resolve}
+clOpt = {"mf":"","mod":"","file_name":"","od":"","nsr":node_source_resolve,"rip":resolve_in_process}
 clOptFound = 0
 def checkArgs(a0,a1):
   global clOpt, clOptFound
@@ -167,6 +168,10 @@ def checkArgs(a0,a1):
     if(a1 == ""): print("ERROR: No file was specified after the node source resolve option")
     clOpt["nsr"]=a1
     clOptFound = 1
+  elif(a0L == "--resolve_in_process" or a0L == "-rip"):
+    if(a1 == ""): print("ERROR: No value was specified after the resolve in process option")
+    clOpt["rip"]=a1
+    clOptFound = 1
   elif(a0L == "--node_source_location" or a0L == "--node_source" or a0L == "-nsrc"):
     global NSRC
     if(a1 == ""): print("ERROR: No file was specified after the node source location option")
@@ -185,6 +190,7 @@ def checkArgs(a0,a1):
 		  "  --file, --js, -f:\n\t This tells the program that you want to pre-process the specified file.\n" +\
 		  "  --output_directory, --outdir, -od:\n\t This tells the program the output directory to put all files created by the preprocessor.\n" +\
 		  "  --node_source_resolve, -nsr:\n\t This tells the program to resolve internal modules [True or False] (modules compiled into Node.js)\n" +\
+		  "  --resolve_in_process, -rip:\n\t This tells the program to compile required files inside one JVM [True or False] instead of one JVM per file\n" +\
 		  "  --node_source_location, --node_source, -nsrc:\n\t This tells the program where to find the source code for internal modules (modules compiled into Node.js)\n\t" +\
 	          " I recommend changing the hardcoded default at the top of this file for this one.\n" +\
 		  "  --closure_compiler_jar, --require_resolver_jar, -ccjar, -rrjar:\n\t This tells the program where to find the Require Resolver JAR.\n\t" +\
@@ -204,6 +210,7 @@ def readCLoptions():
 if __name__ == "__main__":
   readCLoptions()
   node_source_resolve = clOpt["nsr"]
+  resolve_in_process = clOpt["rip"]
   if(clOpt["file_name"] != ""):
     callCommands(clOpt["file_name"].replace("\n",""),clOpt["od"].replace("\n",""))
   if(clOpt["mf"] != ""):
@@ -154,6 +154,9 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
   private Charset inputCharset;
 
+  // Whether the input files are read through a memory mapping, see SourceFile.Mapped.
+  private boolean mapInputs;
+
   // NOTE(nicksantos): JSCompiler has always used ASCII as the default
   // output charset. This was done to solve legacy problems with
   // bad proxies, etc. We are not sure if these issues are still problems,
@@ -376,6 +379,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     legacyOutputCharset = options.outputCharset = getLegacyOutputCharset();
     outputCharset2 = getOutputCharset2();
     inputCharset = getInputCharset();
+    mapInputs = options.getMapInputs();
 
     if (config.jsOutputFile.length() > 0) {
       if (config.skipNormalOutputs) {
@@ -642,7 +646,11 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
           }
         }
       } else if (!"-".equals(filename)) {
-        SourceFile newFile = SourceFile.fromFile(filename, inputCharset);
+        SourceFile newFile =
+            SourceFile.builder()
+                .withCharset(inputCharset)
+                .withMemoryMapping(mapInputs)
+                .buildFromFile(filename);
         inputs.add(newFile);
       } else {
         if (!allowStdIn) {
@@ -970,6 +978,11 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     }
     checkState(compiler.getOptions().outputJs == OutputJs.NORMAL);
 
+    if (module == null && escaper == null && compiler.getOptions().getStreamOutput()) { // JAMES
+      // Print the code straight to out so it is never all in memory at once.
+      writeWrapped(out, compiler, null, wrapper, codePlaceholder, null);
+      return;
+    }
     String code = module == null ? compiler.toSource() : compiler.toSource(module);
     writeOutput(out, compiler, code, wrapper, codePlaceholder, escaper);
   }
@@ -982,35 +995,42 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       String wrapper, String codePlaceholder,
       @Nullable Function<String, String> escaper)
       throws IOException {
-    int pos = wrapper.indexOf(codePlaceholder);
-    if (pos != -1) {
-      String prefix = "";
+    writeWrapped(out, compiler, code, wrapper, codePlaceholder, escaper);
+  }
 
-      if (pos > 0) {
-        prefix = wrapper.substring(0, pos);
-        out.append(prefix);
-      }
+  /**
+   * Writes the wrapper around the code, or around the whole AST of the compiler printed straight
+   * to out if code is null.
+   */
+  private static void writeWrapped(Appendable out, @Nullable Compiler compiler,
+      @Nullable String code, String wrapper, String codePlaceholder,
+      @Nullable Function<String, String> escaper)
+      throws IOException {
+    int pos = wrapper.indexOf(codePlaceholder);
+    String prefix = pos != -1 ? wrapper.substring(0, pos) : "";
+    out.append(prefix);
 
-      out.append(escaper == null ? code : escaper.apply(code));
+    if (code == null) {
+      compiler.toSource(out);
+    } else {
+      out.append(pos != -1 && escaper != null ? escaper.apply(code) : code);
+    }
 
+    if (pos != -1) {
       int suffixStart = pos + codePlaceholder.length();
       if (suffixStart != wrapper.length()) {
         // Something after placeholder?
         out.append(wrapper.substring(suffixStart));
       }
-      // Make sure we always end output with a line feed.
-      out.append('\n');
 
       // If we have a source map, adjust its offsets to match
       // the code WITHIN the wrapper.
       if (compiler != null && compiler.getSourceMap() != null) {
         compiler.getSourceMap().setWrapperPrefix(prefix);
       }
-
-    } else {
-      out.append(code);
-      out.append('\n');
     }
+    // Make sure we always end output with a line feed.
+    out.append('\n');
   }
 
   /**
@@ -1059,6 +1079,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     B options = createOptions();
 
     List<SourceFile> externs = createExterns(options);
+    options.setRequireResolverExterns(externs); // JAMES
 
     List<JSModule> modules = null;
     Result result = null;
@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.javascript.jscomp.deps.ModuleLoader;
 import com.google.javascript.jscomp.parsing.Config;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
+import com.google.javascript.jscomp.parsing.parser.InternTable;
 import com.google.javascript.jscomp.parsing.parser.trees.Comment;
 import com.google.javascript.jscomp.type.ReverseAbstractInterpreter;
 import com.google.javascript.rhino.ErrorReporter;
@@ -386,6 +387,12 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
    */
   abstract Config getParserConfig(ConfigContext context);
 
+  /**
+   * Returns the table of the strings of the identifiers and literals of the parsed inputs, which
+   * makes the same name one String in all of them.
+   */
+  abstract InternTable getParserInternTable();
+
   /**
    * Normalizes the types of AST nodes in the given tree, and
    * annotates any nodes to which the coding convention applies so that passes
@@ -466,6 +473,10 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
 
   abstract CompilerOptions getOptions();
 
+  /** The tracker of --tracer_mode, null if it is off. */
+  @Nullable
+  abstract PerformanceTracker getPerformanceTracker();
+
   abstract FeatureSet getFeatureSet();
 
   abstract void setFeatureSet(FeatureSet fs);
@@ -28,13 +28,6 @@ import com.google.javascript.rhino.TokenStream;
 import java.util.HashMap;
 import java.util.Map;
 
-// JAMES (ME)
-import java.io.File;import java.io.InputStream;
-import java.io.InputStreamReader;import java.io.BufferedReader;import java.io.FileReader;
-import java.util.List;import java.util.ArrayList;
-import java.io.BufferedWriter;import java.io.FileWriter;import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-
 /**
  * CodeGenerator generates codes from a parse tree, sending it to the specified
  * CodeConsumer.
@@ -71,7 +64,6 @@ public class CodeGenerator {
 
   protected CodeGenerator(CodeConsumer consumer, CompilerOptions options) {
     cc = consumer;
-    initRequireResolver(options); // JAMES
 
     this.outputCharsetEncoder = new OutputCharsetEncoder(options.getOutputCharset());
     this.preferSingleQuotes = options.preferSingleQuotes;
@@ -824,13 +816,6 @@ public class CodeGenerator {
         // then the call must not a FREE_CALL annotation. If it does, then
         // that means it was originally an call without an explicit this and
         // that must be preserved.
-		// START JAMES (ME)
-        Node tempNode = forwardCheckNodeRequire(first);
-        if(tempNode != null){
-          n = tempNode;
-          break;
-        }
-        // END JAMES ME
         if (isIndirectEval(first) || (n.getBooleanProp(Node.FREE_CALL) && NodeUtil.isGet(first))) {
           add("(0,");
           addExpr(first, NodeUtil.precedence(Token.COMMA), Context.OTHER);
@@ -2021,548 +2006,4 @@ public class CodeGenerator {
         }
     }
   }
-
-  // Code added by James Hutchins to replace node "requires"
-  // JAMES
-  public Node replaceRequire(Node n){
-    //ReqResLog("Replace require was called for: ");
-    // Node Set up (NOT SURE IF I ACTUALLY NEED THESE)
-    Node finalNode = null;
-    Node currNode = n;
-    // Gets file location and extension
-    String modName = findModuleName(currNode);
-    if(modName==null) return null;
-    String path = getRequirePath(modName,currNode);
-    if(path==null) return null;
-    // See if file has a variable already
-    String DFSVar = findVarName(path);
-    if(!DFSVar.equals("")){ // If it does replace it with variable name... DONE
-      ReqResLog("The variable was found, replacing require with variable\n");
-      // TODO check if js, json, or other
-      add(DFSVar+".exports"); // TODO preseve the stuff attached (so var x = require("mod").x1, .x1 would be "attached")
-      currNode = currNode.getFirstChild().getNext(); // FIRST ATTEMPT TO GET TO ATTACHED CHILD
-      return currNode;
-    }
-    DFSVar = assignVarName(path);
-    ReqResLog("Replace require was called for: ");
-    ReqResLog(path+"\n");
-    String extension = path.substring(path.lastIndexOf("."),path.length());
-
-    // Call wrappers based on type
-    if(extension.equalsIgnoreCase(".js")){
-      wrapJavaScript(path,DFSVar);
-    }else if(extension.equalsIgnoreCase(".json")){
-      wrapJSON(path,DFSVar);
-    }else if (extension.equalsIgnoreCase(".node")){
-      ReqResLog("[ Important ] .node is a valid file type, but I do not have a wrapper for it\n");
-      currNode = null;
-    }else if (extension.equalsIgnoreCase(".mjs")){
-      ReqResLog("[ Important ] .mjs is used for experimental modules. I do not have a wrapper for it\n");
-    }else{
-      ReqResLog("This is an unsupported file type\n");
-    }
-
-    return currNode;
-  }
-  // These are the wrappers
-  public void wrapJavaScript(String path,String DFSVar){
-    // Wrapper Creation
-    String startWrapper = "(function(){\n" +
-            "\t\tvar module = { exports: {} };\n" +
-            "\t\t"+DFSVar+" = module;\n" +
-            "\t\t(function(exports, module, __filename, __dirname) {\n\n";
-    String beforePaths = "\n\n\t\t})(module.exports,module,";
-    String afterPaths = ";\n\t\treturn module.exports\n\t}())";
-
-    // using path start a new closure compiler instance to get the code
-    String pathString = "\""+path+"\"";
-    String dirString = "\""+path.substring(0,path.lastIndexOf("/"))+"\"";
-    String code = compileCode(path); // TODO see if we need a better way to do this
-
-    // Actually adding the wrapper to the file
-    add(startWrapper);
-    add(code); // Code to be wrapped...
-    add(beforePaths);
-    add(pathString); // Full path + file name
-    add(",");
-    add(dirString); // Full path
-    add(")");
-    add(afterPaths);
-  }
-  public void wrapJSON(String path, String DFSVar){
-    // This still seems wrong, so we will need to test it I think
-    // IF we could use the below that would be great
-    //Compiler.processJsonInputs(path);
-    //TODO convert this to JavaScript
-    String code = readFile(path);
-    String aV = "function(){\n";
-    String globalVar = "\t"+DFSVar+" = { exports: {} };\n";
-    String JSON = "\t"+DFSVar+".exports = JSON.parse";
-    String codeToWrite = code.replace("\r\n","").replace("\n","");//.replace("'","\\\'");
-    codeToWrite = codeToWrite.replace("\\\\","/"); //TODO Test
-    codeToWrite = codeToWrite.replace("\'","\\'"); //TODO test
-
-    add(aV);
-    add(globalVar);
-    add(JSON);
-    add("(");
-    add("\n");
-    add("'"+codeToWrite+"'"); // Code to be wrapped...
-    add("\n");
-    add("\t);");
-    add("\n");
-    add("\treturn "+DFSVar+".exports;");
-    add("}()");
-
-    storeCurrentDFSRequireResults(); // Store JSON variable (only needed if last variable)
-  }
-  // These are for finding the file that needs to be added
-  public String getRequirePath(String m, Node n){// throws java.io.IOException{
-    String path = "";String out = "";
-    // Create Command and input
-    String req = "require.resolve(\""+m+"\");\n.exit\n";
-    String[] command = {this.nodePref,"--interactive"};//,req};
-    // Get Directory to run the command in
-    String currentPath = n.getSourceFileName(); // Need to get current path
-    int index = currentPath.lastIndexOf("/");
-    currentPath = currentPath.substring(0,index+1);
-    // Call Command
-    out = callCommand(command,currentPath,req);
-    // Process output into path
-    path = out.substring(3,out.lastIndexOf('>')-2);
-    path = builtInModCheck(m,path);
-    if(path == null) return path;
-    // Make path use foward slash
-    path = path.replace("\\\\","\\").replace("\\","/");
-    return path;
-  }
-  public String builtInModCheck(String m, String path){
-    if(m.equalsIgnoreCase(path)){
-      ReqResLog("This might be a source module: ");
-      if(!this.resolveNJSSC){return null;}
-      ReqResLog(m);ReqResLog("\n");
-      path = this.sourceNodeCode+"\\lib"+"\\"+m+".js"; // pathToNative+file-seporator+moduleName+.js
-      checkFileExistance(path,m); // TODO make it so it checks c coded modules. And change variable name?
-    }
-    String errorString = "rror: Cannot find module '";
-    if(path.startsWith(errorString)) {
-      ReqResLog("This might be a internal source module: ");
-      if(!this.resolveNJSSC){return null;}
-      String temp = path.split("'")[1];
-      if (temp.startsWith("internal/")) {
-        ReqResLog(temp);ReqResLog("\n");
-        path = this.sourceNodeCode+"\\lib" + "\\" + temp + ".js";
-      } else {
-        // async_hooks is the reason for this. It gives the error message an internal/ does, but is not an internal/
-        path = this.sourceNodeCode+"\\lib" + "\\" + temp + ".js";
-        checkFileExistance(path,temp);
-      }
-    }
-    return path;
-  }
-  public boolean checkFileExistance(String path,String temp){
-    boolean exists = true;
-    try {
-      File f = new File(path);
-      if (!f.exists()) {
-        exists = false;
-        ReqResLog(temp);
-        ReqResLog(" DOES NOT appear to exist\n[ VERY IMPORTANT ] A path may need to be provided\n");
-      }
-      //f.close();
-    } catch (Exception e) {
-      exists = false;
-      ReqResLog(temp);
-      ReqResLog(" DOES NOT appear to exist\n");
-    }
-    return exists;
-  }
-  public String findModuleName(Node n){
-    String modName = "";
-    n = n.getFirstChild().getNext();
-    if(n.getToken() != Token.STRING){
-      ReqResLog("[ Very Important ]: REQUIRE There appears to have been a dynamic require of some sort.\n\t"+
-              "Currently we do not handle these\n");
-      return null; // For now ignore requires that do not use strings.
-    }
-    modName = n.getString().replace("\\\\","\\").replace("\\","/");
-    return modName;
-  }
-  // This checks to see if it is require or module.require
-  public Node forwardCheckNodeRequire(Node first){
-    Node n = null;
-    if(first != null){
-      Node tempNode = first; Token tempToken = first.getToken();
-      // Checks to see if GETPROP is module.
-      if(tempToken == Token.GETPROP) {
-        //while(tempToken == Token.GETPROP){tempNode = tempNode.getFirstChild();tempToken = tempNode.getToken();} // Inside child_process there is a double get_prop. I thought get prop is something.something, so not sure how that worked
-        tempNode = tempNode.getFirstChild();tempToken = tempNode.getToken();
-        if(tempToken == Token.NAME) {
-          if (tempNode.getOriginalName() != null) {
-            if (tempNode.getString().compareTo("module") == 0 || tempNode.getOriginalName().compareTo("module") == 0) {
-              tempNode = tempNode.getNext();
-              tempToken = tempNode.getToken();
-            }
-          } else if (tempNode.getString().compareTo("module") == 0) {
-            tempNode = tempNode.getNext();
-            tempToken = tempNode.getToken();
-          }
-        }
-      }
-      // Checks to see if NAME OR STRING is require
-      if (tempToken == Token.NAME) {
-        if(tempNode.getOriginalName() != null) {
-          if (tempNode.getString().compareTo("require") == 0 || tempNode.getOriginalName().compareTo("require") == 0) {
-            n = replaceRequire(tempNode.getParent());
-          }
-        }else if (tempNode.getString().compareTo("require") == 0){
-          n = replaceRequire(tempNode.getParent());
-        }
-      }else if(tempToken == Token.STRING){ // Apparently require is a STRING when it is part of module.require
-        if(tempNode.getOriginalName() != null) {
-          if (tempNode.getString().compareTo("require") == 0 || tempNode.getOriginalName().compareTo("require") == 0) {
-            n = replaceRequire(tempNode.getParent().getParent());
-          }
-        }else if (tempNode.getString().compareTo("require") == 0){
-          n = replaceRequire(tempNode.getParent().getParent());
-        }
-      }
-    }
-    return n;
-  }
-  // This calls a command given the command in String[], a path for the directory, and inputs not able to be stored in the "command"
-  public String callCommand(String[] cmd,String path,String input){
-    String out = "";
-    // Convert Commands to list for ProcessBuilder # If I uses Runtime.exec then it needs String[]
-    List<String> cmdList = new ArrayList<String>();
-    for(int i=0;i<cmd.length;i++){ cmdList.add(cmd[i]); }
-    try{
-      // THESE TWO LINES APPEAR TO BE EQUEVALENT
-      //Process proc = Runtime.getRuntime().exec(cmd,null,new File(currentPath));
-      ProcessBuilder p = new ProcessBuilder(cmdList);p.directory(new File(path));Process proc = p.start();
-
-      // Writes commands that are not arguments to the process
-      proc.getOutputStream().write(input.getBytes("UTF-8"));
-      String temp = "";for(int i = 0;i<cmd.length;i++){ temp = temp+" "+cmd[i];}
-      ReqResLog("Calling command: "+temp+"\n");
-      proc.getOutputStream().close();
-
-      // Read results
-      out = readInput(proc.getInputStream());
-      if(out == ""){
-        ReqResLog(readInput(proc.getErrorStream()));
-        ReqResLog("\n");
-      }
-    }catch (Exception e){
-      out = "An error occurred inside callCommand (CodeGenerator.java)";
-      ReqResLog(out+":\n");
-      ReqResLog(e.toString());
-      ReqResLog("\n");
-    }
-    return out;
-  }
-  public String readInput(InputStream in){
-    String s = null; String out = "";
-    try{
-      BufferedReader stdInput = new BufferedReader(new InputStreamReader(in));
-      while ((s = stdInput.readLine()) != null) {
-        if(out.equals("")){
-          out = s;
-        }else {
-          out = out + "\n" + s;
-        }
-      }
-    }catch (Exception e){
-      out = "An error occurred inside readInput (CodeGenerator.java)";
-      ReqResLog(out+":\n");
-      ReqResLog(e.toString());
-      ReqResLog("\n");
-    }
-    return out;
-  }
-  // This reads raw file into the script
-  public String readFile(String path){
-    String code = "";
-    String sc = null;
-    try{
-      BufferedReader br = new BufferedReader(new FileReader(path));
-      while (( sc = br.readLine()) != null) {
-        if(code.equals("")){
-          code = sc;
-        }else{
-          code = code+"\n"+sc;
-        }
-      }
-    }catch (Exception e){
-      String out = "An error occurred inside makeSourceFile (CodeGenerator.java)";
-      ReqResLog(out+":\n");
-      ReqResLog(e.toString());
-      ReqResLog("\n");
-    }
-    return code;
-  }
-  // This creates a new instance of closure compiler and runs the new JS threw it. (It also calls get command)
-  public String compileCode(String path){
-    String code = "//code";
-    // TODO replace "java" with path to java var... in fact change the third one to var also
-    // TODO replace hardcoded path with Variable path
-    // TODO see if I (need to) can I call it without console commands
-    storeCurrentDFSRequireResults();
-    String[] command = getCommand(path);
-    String out = callCommand(command,this.jarLoc.split("/target/")[0],"\n");// Huh... wonder why it was not working. "D:\\Sefcom\\closure\\closure-compiler-myAttempt","\n");
-    code = out;
-    getCurrentDFSRequireResults();
-    return code;
-  }
-  public String[] getCommand(String path){
-    // TODO Change "java" and <location of jar> to varriables.
-    // TODO add new options
-    if(this.nodePref.equalsIgnoreCase("node")) {
-      String[] command = {
-              "java", "-jar", this.jarLoc,
-              "--module_resolution", "NODE", "--js", path,"--compilation_level",this.compLevel, "--formatting",
-              "PRETTY_PRINT","--language_out",this.langOut,"--require_resolve_log_location", this.reqreslogloc,
-              "--nodejs_source", this.sourceNodeCode, "--DFS_tracking_log_location", this.dfsResultFilename,
-              "--resolve_NSC",String.valueOf(this.resolveNJSSC)
-      };
-      return command;
-    }else {
-      String[] command = {
-              "java", "-jar", this.jarLoc,
-              "--module_resolution", "NODE", "--js", path,"--compilation_level",this.compLevel, "--formatting",
-              "PRETTY_PRINT","--language_out",this.langOut,"--require_resolve_log_location", this.reqreslogloc,
-              "--nodejs_source", this.sourceNodeCode, "--DFS_tracking_log_location", this.dfsResultFilename,
-              "--node_exe_path", this.nodePref,"--resolve_NSC",String.valueOf(this.resolveNJSSC)
-      };
-      return command;
-    }
-  }
-  // These are the logging varriables and functions
-  private PrintWriter rrl = null;
-  private String reqreslogloc = null;
-  public void initReqResLog(boolean logReset){
-    // Assign log name if one does not exist
-    if(this.reqreslogloc == null){ this.reqreslogloc = ("../resreqlog.txt"); }
-    // If we need to reset the log, do that
-    if(logReset){
-      try{
-        this.rrl = new PrintWriter(new BufferedWriter(new FileWriter(this.reqreslogloc,false)));
-        String msg = "Log file \""+this.reqreslogloc+"\" has been reset.";
-        this.rrl.println(msg);
-        this.rrl.close();
-      }catch (Exception e){
-        String out = "An error occurred inside initReqResLog > file (CodeGenerator.java)";
-        System.out.println(out);
-        System.out.println(e);
-      }
-    }
-  }
-  public void reInLog(){
-    try {
-      this.rrl = new PrintWriter(new BufferedWriter(new FileWriter(this.reqreslogloc, true)));
-    } catch (Exception e) {
-      String out = "An error occurred inside reInLog (CodeGenerator.java)";
-      System.out.println(out);
-      System.out.println(e);
-    }
-  }
-  public void ReqResLog(String s){
-    if(this.reqreslogloc == null){
-      System.out.print(s);
-    }else{
-      try {
-        reInLog();
-        this.rrl.print(s);
-        this.rrl.close();
-      } catch (Exception e) {
-        String out = "An error occurred inside ReqResLog (CodeGenerator.java)";
-        System.out.println(out);
-        System.out.println(e);
-      }
-    }
-  }
-  // These are the loop resolving specifics
-  private int currentVar = 0;
-  private String baseVarName = "globalVariable_SHYDNUTN_";// Stands for Global Variable: Sure Hope You Did Not Use This Name: ID Number
-  private List<String> filesToVar = new ArrayList<String>();
-  private String dfsResultFilename = null;
-  public String varNameCreation(int x){
-    String name = null;
-    if(x >= 0 && x < 10){
-      name = baseVarName+"00"+String.valueOf(x);
-    }else if(x >= 10 && x < 100){
-      name = baseVarName+"0"+String.valueOf(x);
-    }else if(x >= 100){
-      name = baseVarName+String.valueOf(x);
-    }else{
-      ReqResLog("An invalid number was used to try and create a global variable. ");
-      ReqResLog("The number was: "+String.valueOf(x));
-    }
-    //ReqResLog("INFO: a variable "+name+" was created to handle ");
-    return name;
-  }
-  public String assignVarName(String fn){
-    this.filesToVar.add(fn);
-    currentVar++;
-    return varNameCreation(currentVar-1);
-  }
-  public String findVarName(String absoluteFileName){
-    absoluteFileName = absoluteFileName.replace("\\\\","\\").replace("\\","/");
-    if(this.filesToVar.size() > currentVar) {
-      ReqResLog("filesToVar.length: " + String.valueOf(this.filesToVar.size()) + " vs currentVar: " + String.valueOf(currentVar)+"\n");
-    }
-    for(int i=0;i<this.filesToVar.size();i++) {
-      if (absoluteFileName.equalsIgnoreCase(this.filesToVar.get(i))) {
-        ReqResLog(absoluteFileName + "==" + this.filesToVar.get(i)+"\n");
-        return varNameCreation(i);
-      }
-    }
-    ReqResLog(absoluteFileName+" did not have a variable already.\n");
-    return "";
-  }
-  public void initDFSRR(boolean logReset){
-    if(dfsResultFilename == null) { this.dfsResultFilename = "../DFSMapping.txt"; }
-    if(logReset){
-      storeCurrentDFSRequireResults();
-    }else{
-      getCurrentDFSRequireResults();
-    }
-  }
-  public void getCurrentDFSRequireResults(){
-    BufferedReader dfsResults = (BufferedReader) openFile("open",this.dfsResultFilename,false);
-    if(dfsResults == null){
-      ReqResLog("Could not retrieve DFS results\n");
-      return;
-    }
-    try{
-      // Read line
-      String line = dfsResults.readLine();
-      // Store first line (number of variables so far in a temp variable as to not mess with quality checks
-      int totalTemp = 0;
-      if(line != null){ totalTemp = Integer.parseInt(line); }
-      else{ ReqResLog("DFS Results was empty"); return; }
-      // Create a temp int to figure out when we are past variables we already read in
-      int temp = 0;
-      line = dfsResults.readLine();
-      // While the file is not empty read in results and make sure they make sense
-      while(line != null){
-        // If temp pass total number of variables something is wrong
-        if(temp > totalTemp){ ReqResLog("Something is off about currentVar"); }
-        // If temp is less than this.currentVar, then it should already be in the filesToVar. Make sure it is
-        if(temp < this.currentVar){
-          if(!this.filesToVar.get(temp).equalsIgnoreCase(line)) {
-            ReqResLog("Something is off about filesToVar");
-          }
-        }else { // Add new variables to list
-          this.filesToVar.add(line);
-        }
-        // Increment so loop continues (correctly)
-        temp++;
-        line = dfsResults.readLine();
-      }
-      // Update current count of variable
-      this.currentVar = totalTemp;
-      // Close file object
-      dfsResults.close();
-    } catch (Exception e){
-      ReqResLog("An error occurred inside getCurrentDFSRequireResults (CodeGenerator.java)\n");
-      ReqResLog(e.toString());
-    }
-  }
-  public void storeCurrentDFSRequireResults(){
-    PrintWriter dfsResults = (PrintWriter) openFile("write",this.dfsResultFilename,false);
-    try {
-      dfsResults.print(String.valueOf(currentVar));
-      dfsResults.print("\n");
-      for(int i=0;i<this.filesToVar.size();i++) {
-        dfsResults.print(this.filesToVar.get(i).replace("\\\\","\\").replace("\\","/"));
-        dfsResults.print("\n");
-      }
-    } catch (Exception e){
-      ReqResLog("An error occurred inside storeCurrentDFSRequireResults (CodeGenerator.java)\n");
-      ReqResLog(e.toString());
-    } finally {
-      dfsResults.close();
-    }
-  }
-  public Object openFile(String mode, String filename, boolean append){
-    Object file = null;
-    if(mode.equalsIgnoreCase("write") || mode.equalsIgnoreCase("w")){
-      try {
-        file = new PrintWriter(new BufferedWriter(new FileWriter(filename, append)));
-      } catch (Exception e) {
-        String out = "An error occurred inside openFile (CodeGenerator.java)\n" +
-                "\t While trying to open a file to write to\n";
-        ReqResLog(out);
-        ReqResLog(e.toString());
-      }
-    }else if(mode.equalsIgnoreCase("open") || mode.equalsIgnoreCase("o")){
-      try {
-        file = new BufferedReader(new FileReader(filename));
-      }catch (Exception e) {
-        String out = "An error occurred inside openFile (CodeGenerator.java)\n" +
-                "\t While trying to open a file to read from\n";
-        ReqResLog(out);
-        ReqResLog(e.toString());
-      }
-    }
-    return file;
-  }
-  // This will take in options and initialize all the values
-  private String sourceNodeCode = null;
-  private String nodePref = null;
-  public void initRequireResolver(CompilerOptions options){
-    // Assign values to Global Variables
-    initGlobals(options);
-    // Reset the log?
-    boolean logReset = options.getResetRRL();
-    initReqResLog(logReset);
-    initDFSRR(logReset);// TODO add own boolean?
-
-    // Any important or missed varialbes need to be checked here
-    if(this.sourceNodeCode == null) {
-      ReqResLog("Please enter the absolute path to the source code of Nodejs."+
-              "\n[Important] Unless you are me the code will not work without this.\n");
-      this.sourceNodeCode = "D:\\Sefcom\\NodeJS_code\\node-master";
-    }
-  }
-  public String getJarLoc(){
-    String temp = null;
-    try {
-      temp = CodeGenerator.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath();
-      if(System.getProperty("os.name").toLowerCase().contains("windows")){
-        // I only tested on a windows machine (I think it will work without removing the / on Linux)
-        //ReqResLog("This is a windows machine");
-        temp = temp.substring(1);
-      }
-      //ReqResLog("\nThe JAR is: ");
-      //ReqResLog(temp);
-      //ReqResLog("\n");
-    }catch (Exception e) {
-      String out = "An error occurred inside getJarLoc (CodeGenerator.java)\n";
-      ReqResLog(out);
-      ReqResLog(e.toString());
-    }
-    return temp;
-  }
-  private String langOut = "ECMASCRIPT_2015";
-  private String compLevel = "WHITESPACE_ONLY";//"SIMPLE";//"WHITESPACE_ONLY";
-  private boolean resolveNJSSC = false;
-  private String jarLoc = null;
-  public void initGlobals(CompilerOptions options){
-    // Used for log location
-    this.reqreslogloc = options.getReqResLog();
-    this.dfsResultFilename = options.getDFSLog();
-    this.sourceNodeCode = options.getNJSSource();
-    this.nodePref = options.getNodePref();
-    this.resolveNJSSC = options.getNJSSBoolean();
-    this.jarLoc = getJarLoc();
-    //this.langOut = options.getLanguageOut();
-    //this.compLevel = options.getCompLevel(); // TODO complevel
-    /* TODO
-       Get Path of this JAR
-       Get working directory
-       Get Java (var)
-    */
-  }
 }
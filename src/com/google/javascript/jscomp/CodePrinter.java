@@ -33,6 +33,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import javax.annotation.Nullable;
 
 /**
  * CodePrinter prints out JS code in either pretty format or compact format.
@@ -40,6 +41,9 @@ import java.util.List;
  * @see CodeGenerator
  */
 public final class CodePrinter {
+  /** Characters of code {@link Builder#writeTo} collects before writing them out. */
+  static final int OUTPUT_CHUNK_SIZE = 64 * 1024;
+
   // There are two separate CodeConsumers, one for pretty-printing and
   // another for compact printing.
 
@@ -57,6 +61,15 @@ public final class CodePrinter {
     protected int lineLength = 0;
     protected int lineIndex = 0;
 
+    // When streaming, the code is written to output a chunk at a time, once the printer can no
+    // longer change it, and only the rest is kept in code.
+    @Nullable private Appendable output = null;
+    private int chunkSize = 0;
+    @Nullable private IOException outputException = null;
+    // The lengths of the lines written to output, and of the written part of the current line.
+    private final List<Integer> writtenLineLengths = new ArrayList<>();
+    private int writtenLineLength = 0;
+
     MappedCodePrinter(
         int lineLengthThreshold,
         boolean createSrcMap,
@@ -129,14 +142,87 @@ public final class CodePrinter {
       }
     }
 
+    /**
+     * Makes the printer write the code to output whenever more than chunkSize characters of it
+     * are kept, instead of keeping all of it until {@link #getCode}.
+     */
+    void streamTo(Appendable output, int chunkSize) {
+      checkState(code.length() == 0);
+      this.output = output;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    boolean continueProcessing() {
+      return outputException == null;
+    }
+
+    /**
+     * Returns the position in code up to which the printer no longer changes anything, so the
+     * code before it can be written out. The last character is kept for {@link #getLastChar}.
+     */
+    int getFlushablePosition() {
+      return code.length() - 1;
+    }
+
+    /** Reports that the first count characters of code were written out and removed. */
+    void flushed(int count) {
+    }
+
+    /** Writes out the code the printer no longer changes, if enough of it has been kept. */
+    protected final void maybeFlush() {
+      if (output != null && code.length() > chunkSize) {
+        flush(getFlushablePosition());
+      }
+    }
+
+    /**
+     * Writes out the rest of the code after {@link #endFile}.
+     *
+     * @throws IOException if writing to the output failed, now or for an earlier chunk.
+     */
+    void finish() throws IOException {
+      checkState(output != null);
+      flush(code.length());
+      if (outputException != null) {
+        throw outputException;
+      }
+    }
+
+    private void flush(int end) {
+      if (end <= 0 || outputException != null) {
+        return;
+      }
+      try {
+        output.append(code, 0, end);
+      } catch (IOException e) {
+        // Stops the CodeGenerator, the exception is thrown by finish().
+        outputException = e;
+        return;
+      }
+      if (createSrcMap) {
+        int lineStart = 0;
+        for (int i = 0; i < end; i++) {
+          if (code.charAt(i) == '\n') {
+            writtenLineLengths.add(writtenLineLength + i - lineStart);
+            writtenLineLength = 0;
+            lineStart = i + 1;
+          }
+        }
+        writtenLineLength += end - lineStart;
+      }
+      code.delete(0, end);
+      flushed(end);
+    }
+
     /**
      * Generates the source map from the given code consumer,
      * appending the information it saved to the SourceMap
      * object given.
      */
-    void generateSourceMap(String code, SourceMap map) {
+    void generateSourceMap(SourceMap map) {
       if (createSrcMap) {
-        List<Integer> lineLengths = computeLineLengths(code);
+        List<Integer> lineLengths = computeLineLengths();
         for (Mapping mapping : allMappings) {
           map.addMapping(
               mapping.node, mapping.start, adjustEndPosition(lineLengths, mapping.end));
@@ -226,16 +312,19 @@ public final class CodePrinter {
       return lineIndex;
     }
 
-    /** Calculates length of each line in compiled code. */
-    private static ImmutableList<Integer> computeLineLengths(String code) {
-      ImmutableList.Builder<Integer> builder = ImmutableList.<Integer>builder();
+    /** Calculates length of each line in compiled code, including the code written out. */
+    private ImmutableList<Integer> computeLineLengths() {
+      ImmutableList.Builder<Integer> builder =
+          ImmutableList.<Integer>builder().addAll(writtenLineLengths);
+      int written = writtenLineLength;
       int lineStartPos = 0;
-      int lineEndPos = code.indexOf('\n');
+      int lineEndPos = code.indexOf("\n");
       while (lineEndPos > -1) {
-        builder.add(lineEndPos - lineStartPos);
+        builder.add(written + lineEndPos - lineStartPos);
+        written = 0;
         // Next line starts where current line ends + 1 to skip "\n" character.
         lineStartPos = lineEndPos + 1;
-        lineEndPos = code.indexOf('\n', lineStartPos);
+        lineEndPos = code.indexOf("\n", lineStartPos);
       }
       return builder.build();
     }
@@ -316,6 +405,7 @@ public final class CodePrinter {
         lineIndex += newlines;
         lineLength = str.length() - str.lastIndexOf('\n');
       }
+      maybeFlush();
     }
 
     /**
@@ -368,6 +458,7 @@ public final class CodePrinter {
         code.append('\n');
         lineIndex++;
         lineLength = 0;
+        maybeFlush();
       }
     }
 
@@ -526,25 +617,20 @@ public final class CodePrinter {
       }
       SourceFile src = (SourceFile) staticSrc;
 
-      String srcCode;
-      try {
-        srcCode = src.getCode();
-      } catch (IOException e) {
-        return null;
-      }
-
       int offset;
       try {
         offset = n.getSourceOffset();
       } catch (IllegalArgumentException e) {
         return null;
       }
-      int endOffset = offset + n.getLength();
-      if (offset < 0 || endOffset > srcCode.length()) {
+
+      // Only the range of the literal, a file whose code was released after the parse does not
+      // decode all of it for every number.
+      try {
+        return src.getCodeRange(offset, offset + n.getLength());
+      } catch (IOException e) {
         return null;
       }
-
-      return srcCode.substring(offset, endOffset);
     }
   }
 
@@ -596,6 +682,7 @@ public final class CodePrinter {
         lineIndex += newlines;
         lineLength = str.length() - str.lastIndexOf('\n');
       }
+      maybeFlush();
     }
 
     /**
@@ -610,6 +697,28 @@ public final class CodePrinter {
         lineLength = 0;
         lineIndex++;
         lineStartPosition = code.length();
+        maybeFlush();
+      }
+    }
+
+    /**
+     * maybeCutLine may still break the current line at the preferred position, and endFile may
+     * undo the previous cut, so only the lines before them can be written out.
+     */
+    @Override
+    int getFlushablePosition() {
+      int position = prevCutPosition > 0 ? prevLineStartPosition : lineStartPosition;
+      return Math.min(position, code.length() - 1);
+    }
+
+    @Override
+    void flushed(int count) {
+      lineStartPosition -= count;
+      preferredBreakPosition -= count;
+      if (prevCutPosition > 0) {
+        // 0 means there is no previous cut.
+        prevCutPosition -= count;
+        prevLineStartPosition -= count;
       }
     }
 
@@ -817,6 +926,27 @@ public final class CodePrinter {
      * Generates the source code and returns it.
      */
     public String build() {
+      MappedCodePrinter mcp = print(null);
+      String code = mcp.getCode();
+      if (sourceMap != null) {
+        mcp.generateSourceMap(sourceMap);
+      }
+      return code;
+    }
+
+    /**
+     * Generates the source code and writes it to out a chunk at a time, so only about
+     * {@link #OUTPUT_CHUNK_SIZE} characters of it are kept in memory, however long it is.
+     */
+    public void writeTo(Appendable out) throws IOException {
+      MappedCodePrinter mcp = print(out);
+      mcp.finish();
+      if (sourceMap != null) {
+        mcp.generateSourceMap(sourceMap);
+      }
+    }
+
+    private MappedCodePrinter print(@Nullable Appendable out) {
       if (root == null) {
         throw new IllegalStateException(
             "Cannot build without root node being specified");
@@ -826,12 +956,13 @@ public final class CodePrinter {
           root,
           Format.fromOptions(options, outputTypes, prettyPrint),
           options,
-          sourceMap,
+          sourceMap != null,
           tagAsTypeSummary,
           tagAsExterns,
           tagAsStrict,
           lineBreak,
-          codeGeneratorFactory);
+          codeGeneratorFactory,
+          out);
     }
   }
 
@@ -854,20 +985,23 @@ public final class CodePrinter {
     }
   }
 
-  /** Converts a tree to JS code */
-  private static String toSource(
+  /**
+   * Converts a tree to JS code, which is kept in the returned printer or, if out is not null,
+   * written to out except for the last chunk.
+   */
+  private static MappedCodePrinter toSource(
       Node root,
       Format outputFormat,
       CompilerOptions options,
-      SourceMap sourceMap,
+      boolean createSourceMap,
       boolean tagAsTypeSummary,
       boolean tagAsExterns,
       boolean tagAsStrict,
       boolean lineBreak,
-      CodeGeneratorFactory codeGeneratorFactory) {
+      CodeGeneratorFactory codeGeneratorFactory,
+      @Nullable Appendable out) {
     checkState(options.sourceMapDetailLevel != null);
 
-    boolean createSourceMap = (sourceMap != null);
     MappedCodePrinter mcp =
         outputFormat == Format.COMPACT
         ? new CompactCodePrinter(
@@ -880,6 +1014,9 @@ public final class CodePrinter {
             options.lineLengthThreshold,
             createSourceMap,
             options.sourceMapDetailLevel);
+    if (out != null) {
+      mcp.streamTo(out, OUTPUT_CHUNK_SIZE);
+    }
     CodeGenerator cg = codeGeneratorFactory.getCodeGenerator(outputFormat, mcp);
 
     if (tagAsExterns) {
@@ -894,13 +1031,6 @@ public final class CodePrinter {
 
     cg.add(root);
     mcp.endFile();
-
-    String code = mcp.getCode();
-
-    if (createSourceMap) {
-      mcp.generateSourceMap(code, sourceMap);
-    }
-
-    return code;
+    return mcp;
   }
 }
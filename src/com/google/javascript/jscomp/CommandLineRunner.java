@@ -19,6 +19,7 @@ package com.google.javascript.jscomp;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Ascii;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
@@ -57,6 +58,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -847,7 +849,161 @@ public class CommandLineRunner extends
             + "All functionality can be done with commandline options."
             + "Commandline options take priotiry."
     )
-    private String reqresconfig = null; // JAMES END
+    private String reqresconfig = null;
+
+    @Option(
+      name = "--resolve_in_process",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true required files are compiled inside this JVM instead of by a new "
+            + "java -jar process for every dependency."
+    )
+    private String resolveInProcess = "false";
+
+    @Option(
+      name = "--parallel_resolve",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true every required file is resolved and compiled up front, in parallel "
+            + "and inside this JVM, before the requires are replaced."
+    )
+    private String parallelResolve = "false";
+
+    @Option(
+      name = "--native_resolve",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is false require.resolve is done by calling node instead of in Java. "
+            + "True by default; it used to be false, so set it to false to keep resolving "
+            + "through node."
+    )
+    private String nativeResolve = "true";
+
+    @Option(
+      name = "--require_resolve_cache",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true require.resolve answers are kept in requireResolveCache.bin next to "
+            + "the DFS log and reused by later runs while the files they depend on are unchanged."
+    )
+    private String requireResolveCache = "true";
+
+    @Option(
+      name = "--json_as_literal",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true a required .json file is put in the output as an object literal "
+            + "instead of a string given to JSON.parse."
+    )
+    private String jsonAsLiteral = "false";
+
+    @Option(
+      name = "--multi_entry",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true every --js file is an entry point with its own output in "
+            + "--module_output_path_prefix, and the files several of them require are compiled "
+            + "once into prelude.js, which has to be loaded before any of them."
+    )
+    private String multiEntry = "false";
+
+    @Option(
+      name = "--declare_globals",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true (the default) the output starts with the var declaration of every "
+            + "global variable in the DFS log, so it does not need varPrepender.py. The compilations "
+            + "of required files are started with false."
+    )
+    private String declareGlobals = "true";
+
+    @Option(
+      name = "--watch",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true the compiler does not exit after the compilation, but compiles "
+            + "again whenever the content of an input or of a required file changes. Required "
+            + "files that did not change are not compiled again."
+    )
+    private String watch = "false";
+
+    @Option(
+      name = "--compiled_module_cache",
+      usage =
+          "Folder to keep the compiled code of required files in, by the hash of their content, "
+            + "so a file is only compiled once for all the projects that use the same folder. "
+            + "Off if empty (the default). Several processes may share the folder."
+    )
+    private String compiledModuleCache = "";
+
+    @Option(
+      name = "--compiled_module_cache_size",
+      usage =
+          "Size in MB the --compiled_module_cache folder is kept under by deleting the least "
+            + "recently used files. 256 by default."
+    )
+    private String compiledModuleCacheSize = "256";
+
+    @Option(
+      name = "--require_resolve_report",
+      usage =
+          "File to write a JSON report of the require resolution to: for every required file "
+            + "its depth, how often it was required, the time spent resolving, compiling and "
+            + "inlining it, how it was compiled and the bytes read and emitted, plus counters "
+            + "such as unique and duplicate requires and subprocesses started. Off if empty "
+            + "(the default). With --tracer_mode the same numbers are added to the tracer report."
+    )
+    private String requireResolveReport = "";
+
+    @Option(
+      name = "--stream_output",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true the output is written to --js_output_file a chunk at a time while "
+            + "it is printed, instead of being collected in memory first, so very large resolved "
+            + "bundles do not run out of memory. Not used with --module or an "
+            + "--output_wrapper with %output|jsstring%."
+    )
+    private String streamOutput = "false";
+
+    @Option(
+      name = "--map_inputs",
+      usage =
+          "True or False"
+            + "This must be fully typed out if used."
+            + "If this is true the UTF-8 input files are read through a memory mapping, and "
+            + "their code is dropped once they are parsed and read again only for the source "
+            + "excerpts of the error messages, so very large inputs take less heap."
+    )
+    private String mapInputs = "false";
+
+    @Option(
+      name = "--var_path_case",
+      usage =
+          "ignore, exact or auto. "
+            + "Whether two required paths that only differ in case get the same global variable. "
+            + "ignore (the default) is right for Windows and macOS, exact for most Linux file "
+            + "systems, and auto checks the file system the DFS log is on."
+    )
+    private String varPathCase = "ignore";
+
+    @Option(
+      name = "--rr_log_level",
+      usage =
+          "trace, info, important, very_important or off. "
+            + "Messages of the require resolve log below this level are not written. "
+            + "trace (the default) writes everything and off does not open the log at all."
+    )
+    private String rrLogLevel = "trace"; // JAMES END
 
     @Option(name = "--error_format", usage = "Specifies format for error messages.")
     private ErrorFormatOption errorFormat = ErrorFormatOption.STANDARD;
@@ -1319,6 +1475,14 @@ public class CommandLineRunner extends
 
   private boolean runCompiler = false;
 
+  /** Whether the modules were made up by --multi_entry, with a prelude that needs an input. */
+  private boolean multiEntryPrelude = false;
+
+  // Kept between the compilations of --watch.
+  private static final long WATCH_INTERVAL_MILLIS = 500;
+  private final RequireModuleStore moduleStore = new RequireModuleStore();
+  private final Set<String> watchedInputs = new LinkedHashSet<>();
+
   /**
    * Cached error stream to avoid passing it as a parameter to helper
    * functions.
@@ -1627,6 +1791,9 @@ public class CommandLineRunner extends
         }
       }
 
+      multiEntryPrelude =
+          flags.multiEntry.equalsIgnoreCase("true") && flags.module.isEmpty() && mixedSources != null;
+
       if (!flags.renaming
           && flags.compilationLevelParsed == CompilationLevel.ADVANCED_OPTIMIZATIONS) {
         reportError("ERROR - renaming cannot be disabled when ADVANCED_OPTIMIZATIONS is used.");
@@ -1646,7 +1813,7 @@ public class CommandLineRunner extends
           .setJsOutputFile(flags.jsOutputFile)
           .setSaveAfterChecksFileName(flags.saveAfterChecksFile)
           .setContinueSavedCompilationFileName(flags.continueSavedCompilationFile)
-          .setModule(flags.module)
+          .setModule(multiEntryPrelude ? multiEntryModules(mixedSources) : flags.module)
           .setVariableMapOutputFile(flags.variableMapOutputFile)
           .setCreateNameMapFiles(flags.createNameMapFiles)
           .setPropertyMapOutputFile(flags.propertyMapOutputFile)
@@ -1698,6 +1865,54 @@ public class CommandLineRunner extends
     }
   }
 
+  /**
+   * The modules of --multi_entry: a "prelude" module, for what the entry points share, and one
+   * module per source that depends on it, named after the file.
+   */
+  @VisibleForTesting
+  static List<String> multiEntryModules(List<FlagEntry<JsSourceType>> sources) {
+    List<String> modules = new ArrayList<>();
+    modules.add("prelude:1");
+    Set<String> names = new HashSet<>();
+    names.add("prelude");
+    for (FlagEntry<JsSourceType> source : sources) {
+      String name = new File(source.getValue()).getName();
+      if (name.endsWith(".js")) {
+        name = name.substring(0, name.length() - ".js".length());
+      }
+      name = name.replaceAll("[^a-zA-Z0-9_$.-]", "_");
+      if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+        name = "_" + name;
+      }
+      String unique = name;
+      for (int i = 2; !names.add(unique); i++) {
+        unique = name + "_" + i;
+      }
+      modules.add(unique + ":1:prelude");
+    }
+    return modules;
+  }
+
+  @Override
+  protected List<SourceFile> createInputs(
+      List<FlagEntry<JsSourceType>> files,
+      List<JsonFileSpec> jsonFiles,
+      boolean allowStdIn,
+      List<JsModuleSpec> jsModuleSpecs)
+      throws IOException {
+    List<SourceFile> inputs = super.createInputs(files, jsonFiles, allowStdIn, jsModuleSpecs);
+    for (FlagEntry<JsSourceType> file : files) {
+      if (!file.getValue().equals("-")) {
+        watchedInputs.add(file.getValue());
+      }
+    }
+    if (multiEntryPrelude && !jsModuleSpecs.isEmpty()) {
+      // The root module may not be empty, so the prelude starts out with a fill file.
+      inputs.add(0, SourceFile.fromCode(Compiler.createFillFileName("prelude"), ""));
+    }
+    return inputs;
+  }
+
   @Override
   protected CompilerOptions createOptions() {
     CompilerOptions options = new CompilerOptions();
@@ -1880,7 +2095,25 @@ public class CommandLineRunner extends
     options.setNJSSource(flags.nss);
     options.setNJSSBoolean(flags.resolveNSC);
     options.setNodePref(flags.node_pref);
-    options.setReqResConfig(flags.reqresconfig); // James END
+    options.setReqResConfig(flags.reqresconfig);
+    options.setResolveInProcess(flags.resolveInProcess);
+    options.setParallelResolve(flags.parallelResolve);
+    options.setNativeResolve(flags.nativeResolve);
+    options.setRequireResolveCache(flags.requireResolveCache);
+    options.setJsonAsLiteral(flags.jsonAsLiteral);
+    options.setMultiEntry(flags.multiEntry);
+    options.setDeclareGlobals(flags.declareGlobals);
+    options.setCompiledModuleCache(flags.compiledModuleCache);
+    options.setCompiledModuleCacheSize(flags.compiledModuleCacheSize);
+    options.setRequireResolveReport(flags.requireResolveReport);
+    options.setStreamOutput(flags.streamOutput);
+    options.setMapInputs(flags.mapInputs);
+    options.setCompLevel(String.valueOf(flags.compilationLevelParsed));
+    if (flags.watch.equalsIgnoreCase("true")) {
+      options.setRequireModuleStore(moduleStore);
+    }
+    options.setVarPathCase(flags.varPathCase);
+    options.setRRLogLevel(flags.rrLogLevel); // James END
 
     if (!flags.renaming) {
       options.setVariableRenaming(VariableRenamingPolicy.OFF);
@@ -1890,6 +2123,41 @@ public class CommandLineRunner extends
     return options;
   }
 
+  /**
+   * With --watch, compiles again every time the content of an input or of a file it requires
+   * changes, until the process is stopped.
+   */
+  @Override
+  protected int doRun() throws IOException {
+    if (!flags.watch.equalsIgnoreCase("true")) {
+      return super.doRun();
+    }
+    PrintStream err = getErrorPrintStream();
+    RequireWatcher watcher = new RequireWatcher(WATCH_INTERVAL_MILLIS);
+    while (true) {
+      long start = System.nanoTime();
+      int result = super.doRun();
+      Map<String, String> compiled = moduleStore.getDigests();
+      Set<String> paths = new LinkedHashSet<>(watchedInputs);
+      paths.addAll(compiled.keySet());
+      watcher.watch(paths, compiled);
+      err.println(
+          "Compiled in "
+              + (System.nanoTime() - start) / 1000000
+              + " ms with exit code "
+              + result
+              + ", watching "
+              + watcher.size()
+              + " files for changes");
+      try {
+        err.println("Changed: " + Joiner.on(", ").join(watcher.awaitChanges()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return result;
+      }
+    }
+  }
+
   @Override
   protected Compiler createCompiler() {
     return new Compiler(getErrorPrintStream());
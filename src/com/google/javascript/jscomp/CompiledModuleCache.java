@@ -0,0 +1,231 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * The compiled code of required files on disk, addressed by their content
+ * (--compiled_module_cache).
+ *
+ * <p>A file is stored under the hash of its content, the options and externs it is compiled with
+ * and {@link #RESOLVER_VERSION}, not under its path, so the same version of a package is only
+ * compiled once for every project that requires it with the same options. What is stored is the code a compilation of
+ * the file printed, before its own requires were inlined, which {@link
+ * NodeRequireResolver#parseCompiledCode} turns back into scripts.
+ *
+ * <p>Several processes may use the same folder at once. An entry is written to a temporary file
+ * and then renamed, so it is either complete or missing. Reading an entry updates its
+ * modification time, and once the folder grows past its size the least recently used entries are
+ * deleted by whichever process holds the lock file at the time; a reader that loses an entry
+ * this way simply compiles the file again.
+ */
+final class CompiledModuleCache {
+  /** Changed whenever the code required files are compiled to changes. */
+  static final int RESOLVER_VERSION = 1;
+
+  static final String LOCK_FILE = "cache.lock";
+  private static final String SUFFIX = ".js";
+  private static final String TEMP_SUFFIX = ".tmp";
+  // Temporary files this old were left by a process that died while writing them.
+  private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+  // Evicting goes below the limit, so that it does not happen again right away.
+  private static final double EVICT_TO = 0.75;
+
+  // The caches opened by open, one per folder.
+  private static final Map<File, CompiledModuleCache> openCaches = new HashMap<>();
+
+  private final File directory;
+  private final long maxBytes;
+  // Bytes in the folder as far as this process knows: what it found plus what it added since.
+  private final AtomicLong size = new AtomicLong();
+
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  @VisibleForTesting
+  CompiledModuleCache(File directory, long maxBytes) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    size.set(totalSize(list(SUFFIX)));
+  }
+
+  /** Returns the cache in {@code directory}, creating the folder if it does not exist. */
+  static synchronized CompiledModuleCache open(String directory, long maxBytes) {
+    File folder = new File(directory).getAbsoluteFile();
+    CompiledModuleCache cache = openCaches.get(folder);
+    if (cache == null) {
+      folder.mkdirs();
+      cache = new CompiledModuleCache(folder, maxBytes);
+      openCaches.put(folder, cache);
+    }
+    return cache;
+  }
+
+  /**
+   * The hash of what the files of one compilation are compiled with, for {@link #key}.
+   *
+   * @param options the options from {@link CompilerOptions#serializeForCompiledModuleCache}
+   */
+  static String settings(byte[] options, List<SourceFile> externs) throws IOException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(RESOLVER_VERSION);
+    hasher.putInt(options.length).putBytes(options);
+    hasher.putInt(externs.size());
+    for (SourceFile extern : externs) {
+      hasher.putString(extern.getName(), UTF_8).putByte((byte) 0);
+      hasher.putString(extern.getCode(), UTF_8).putByte((byte) 0);
+    }
+    return hasher.hash().toString();
+  }
+
+  /** The name an entry is stored under. */
+  static String key(String code, String settings) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(settings, UTF_8).putByte((byte) 0);
+    hasher.putString(code, UTF_8);
+    return hasher.hash().toString();
+  }
+
+  /** The compiled code stored under {@code key}, null if there is none. */
+  @Nullable
+  String get(String key) {
+    File file = new File(directory, key + SUFFIX);
+    try {
+      String code = Files.asCharSource(file, UTF_8).read();
+      // Now the most recently used, unless another process just evicted it.
+      file.setLastModified(System.currentTimeMillis());
+      hits.incrementAndGet();
+      return code;
+    } catch (IOException e) {
+      misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /** Stores the compiled code of a file, and evicts old entries if the folder is too large. */
+  void put(String key, String compiled) throws IOException {
+    // Counted in bytes, like the files evict() adds up.
+    byte[] bytes = compiled.getBytes(UTF_8);
+    File temp = File.createTempFile("put-" + key, TEMP_SUFFIX, directory);
+    try {
+      Files.write(bytes, temp);
+      java.nio.file.Files.move(
+          temp.toPath(),
+          new File(directory, key + SUFFIX).toPath(),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      temp.delete();
+    }
+    if (size.addAndGet(bytes.length) > maxBytes) {
+      evict();
+    }
+  }
+
+  /**
+   * Deletes the least recently used entries until the folder is well below its size, unless
+   * another process is doing so already.
+   */
+  @VisibleForTesting
+  synchronized void evict() throws IOException {
+    try (FileChannel channel =
+            FileChannel.open(
+                new File(directory, LOCK_FILE).toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock = channel.tryLock()) {
+      if (lock == null) {
+        return;
+      }
+      File[] entries = list(SUFFIX);
+      long total = totalSize(entries);
+      Arrays.sort(
+          entries,
+          new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+              return Long.compare(a.lastModified(), b.lastModified());
+            }
+          });
+      long target = (long) (maxBytes * EVICT_TO);
+      for (int i = 0; i < entries.length && total > target; i++) {
+        long length = entries[i].length();
+        if (entries[i].delete()) {
+          total -= length;
+        }
+      }
+      size.set(total);
+
+      long now = System.currentTimeMillis();
+      for (File temp : list(TEMP_SUFFIX)) {
+        if (now - temp.lastModified() > STALE_TEMP_MILLIS) {
+          temp.delete();
+        }
+      }
+    }
+  }
+
+  int getHits() {
+    return hits.get();
+  }
+
+  int getMisses() {
+    return misses.get();
+  }
+
+  private File[] list(final String suffix) {
+    File[] files =
+        directory.listFiles(
+            new FileFilter() {
+              @Override
+              public boolean accept(File file) {
+                return file.getName().endsWith(suffix);
+              }
+            });
+    return files == null ? new File[0] : files;
+  }
+
+  private static long totalSize(File[] entries) {
+    long total = 0;
+    for (File entry : entries) {
+      total += entry.length();
+    }
+    return total;
+  }
+}
@@ -27,6 +27,7 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.primitives.Ints;
 import com.google.debugging.sourcemap.SourceMapConsumerV3;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.jscomp.CompilerOptions.DevMode;
@@ -41,6 +42,7 @@ import com.google.javascript.jscomp.parsing.Config;
 import com.google.javascript.jscomp.parsing.ParserRunner;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet.Feature;
+import com.google.javascript.jscomp.parsing.parser.InternTable;
 import com.google.javascript.jscomp.parsing.parser.trees.Comment;
 import com.google.javascript.jscomp.resources.ResourceLoader;
 import com.google.javascript.jscomp.type.ChainableReverseAbstractInterpreter;
@@ -131,6 +133,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   // The externs inputs
   private List<CompilerInput> externs;
 
+  // Extern inputs made by the caller, used by init instead of the extern files it is given.
+  private List<CompilerInput> externInputs = null;
+
   // The JS source modules
   private List<JSModule> modules;
 
@@ -222,6 +227,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   private JSTypeRegistry typeRegistry;
   private volatile Config parserConfig = null;
   private volatile Config externsParserConfig = null;
+  private final InternTable parserInternTable = new InternTable();
+  // Parses the inputs in parallel during parseInputs, or null.
+  private PrebuildAst prebuildAst;
 
   private ReverseAbstractInterpreter abstractInterpreter;
   private TypeValidator typeValidator;
@@ -513,7 +521,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     checkFirstModule(modules);
     fillEmptyModules(modules);
 
-    this.externs = makeExternInputs(externs);
+    this.externs = externInputs != null ? externInputs : makeExternInputs(externs);
 
     // Generate the module graph, and report any errors in the module
     // specification as errors.
@@ -562,6 +570,14 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
   }
 
+  /**
+   * Makes {@link #initModules} use these extern inputs instead of making new ones from the extern
+   * files, so that a caller running many compilations can parse its externs only once.
+   */
+  void setExternInputs(List<CompilerInput> externInputs) {
+    this.externInputs = externInputs;
+  }
+
   private <T extends SourceFile> List<CompilerInput> makeExternInputs(List<T> externSources) {
     List<CompilerInput> inputs = new ArrayList<>(externSources.size());
     for (SourceFile file : externSources) {
@@ -812,7 +828,8 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   /**
    * Perform compiler passes for stage 2 of compilation.
    *
-   * <p>Stage 2 consists primarily of optimization passes.
+   * <p>Stage 2 consists primarily of optimization passes, followed by the passes that prepare the
+   * AST for printing.
    *
    * <p>{@code stage1Passes()} must be called before this method is called.
    *
@@ -831,6 +848,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
             if (options.shouldOptimize()) {
               performOptimizations();
             }
+            if (!hasErrors()) {
+              performFinalizations();
+            }
             return null;
           }
         });
@@ -1735,12 +1755,13 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     Tracer tracer = newTracer(PassNames.PARSE_INPUTS);
     beforePass(PassNames.PARSE_INPUTS);
+    if (options.numParallelThreads > 1) {
+      prebuildAst = new PrebuildAst(this, options.numParallelThreads);
+    }
 
     try {
       // Parse externs sources.
-      if (options.numParallelThreads > 1) {
-        new PrebuildAst(this, options.numParallelThreads).prebuild(externs);
-      }
+      prebuild(externs);
       for (CompilerInput input : externs) {
         Node n = input.getAstRoot(this);
         if (hasErrors()) {
@@ -1749,6 +1770,12 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
         externsRoot.addChildToBack(n);
       }
 
+      // Parse all the inputs now, unless only the ones the entry points need are kept: the module
+      // processing and the ordering below use their ASTs.
+      if (!options.getDependencyOptions().shouldPruneDependencies()) {
+        prebuild(inputs);
+      }
+
       if (options.transformAMDToCJSModules) {
         processAMDModules();
       }
@@ -1832,9 +1859,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       }
 
       // Build the AST.
-      if (options.numParallelThreads > 1) {
-        new PrebuildAst(this, options.numParallelThreads).prebuild(inputs);
-      }
+      prebuild(inputs);
 
       for (CompilerInput input : inputs) {
         Node n = input.getAstRoot(this);
@@ -1877,11 +1902,22 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       }
       return externAndJsRoot;
     } finally {
+      if (prebuildAst != null) {
+        prebuildAst.close();
+        prebuildAst = null;
+      }
       afterPass(PassNames.PARSE_INPUTS);
       stopTracer(tracer, PassNames.PARSE_INPUTS);
     }
   }
 
+  /** Parses the inputs in parallel if the options allow more than one thread. */
+  private void prebuild(List<CompilerInput> inputsToParse) {
+    if (prebuildAst != null) {
+      prebuildAst.prebuild(inputsToParse);
+    }
+  }
+
   void orderInputsWithLargeStack() {
     runInCompilerThread(new Callable<Void>() {
       @Override
@@ -2164,9 +2200,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
         filteredInputs.add(input);
       }
     }
-    if (options.numParallelThreads > 1) {
-      new PrebuildAst(this, options.numParallelThreads).prebuild(filteredInputs);
-    }
+    prebuild(filteredInputs);
     for (CompilerInput input : filteredInputs) {
       input.setCompiler(this);
       // Call getRequires to force regex-based dependency parsing to happen.
@@ -2250,32 +2284,59 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
         new Callable<String>() {
           @Override
           public String call() throws Exception {
-            Tracer tracer = newTracer("toSource");
-            try {
-              CodeBuilder cb = new CodeBuilder();
-              if (jsRoot != null) {
-                int i = 0;
-                if (options.shouldPrintExterns()) {
-                  for (Node scriptNode = externsRoot.getFirstChild();
-                      scriptNode != null;
-                      scriptNode = scriptNode.getNext()) {
-                    toSource(cb, i++, scriptNode);
-                  }
-                }
-                for (Node scriptNode = jsRoot.getFirstChild();
-                    scriptNode != null;
-                    scriptNode = scriptNode.getNext()) {
-                  toSource(cb, i++, scriptNode);
-                }
-              }
-              return cb.toString();
-            } finally {
-              stopTracer(tracer, "toSource");
-            }
+            CodeBuilder cb = new CodeBuilder();
+            toSource(cb);
+            return cb.toString();
           }
         });
   }
 
+  /**
+   * Converts the parse tree back to JS code like {@link #toSource()}, but writes it to out a
+   * chunk at a time instead of collecting all of it in memory first.
+   */
+  public void toSource(final Appendable out) throws IOException {
+    try {
+      runInCompilerThread(
+          new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              toSource(new CodeBuilder(out));
+              return null;
+            }
+          });
+    } catch (RuntimeException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /** Writes the externs, if they are printed, and the main parse tree to cb. */
+  private void toSource(CodeBuilder cb) {
+    Tracer tracer = newTracer("toSource");
+    try {
+      if (jsRoot != null) {
+        int i = 0;
+        if (options.shouldPrintExterns()) {
+          for (Node scriptNode = externsRoot.getFirstChild();
+              scriptNode != null;
+              scriptNode = scriptNode.getNext()) {
+            toSource(cb, i++, scriptNode);
+          }
+        }
+        for (Node scriptNode = jsRoot.getFirstChild();
+            scriptNode != null;
+            scriptNode = scriptNode.getNext()) {
+          toSource(cb, i++, scriptNode);
+        }
+      }
+    } finally {
+      stopTracer(tracer, "toSource");
+    }
+  }
+
   /**
    * Converts the parse tree for a module back to JS code.
    */
@@ -2352,16 +2413,20 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
             // if LanguageMode is strict, only print 'use strict'
             // for the first input file
-            String code = toSource(root, sourceMap, inputSeqNum == 0);
-            if (!code.isEmpty()) {
-              cb.append(code);
-
+            CodePrinter.Builder printer = newCodePrinter(root, sourceMap, inputSeqNum == 0);
+            long start = cb.getTotalLength();
+            if (cb.isStreaming()) {
+              printer.writeTo(cb);
+            } else {
+              cb.append(printer.build());
+            }
+            long length = cb.getTotalLength() - start;
+            if (length > 0) {
               // In order to avoid parse ambiguity when files are concatenated
               // together, all files should end in a semi-colon. Do a quick
               // heuristic check if there's an obvious semi-colon already there.
-              int length = code.length();
-              char lastChar = code.charAt(length - 1);
-              char secondLastChar = length >= 2 ? code.charAt(length - 2) : '\0';
+              char lastChar = cb.charFromEnd(1);
+              char secondLastChar = length >= 2 ? cb.charFromEnd(2) : '\0';
               boolean hasSemiColon = lastChar == ';' || (lastChar == '\n' && secondLastChar == ';');
               if (!hasSemiColon) {
                 cb.append(";");
@@ -2386,6 +2451,10 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    * Generates JavaScript source code for an AST.
    */
   private String toSource(Node n, SourceMap sourceMap, boolean firstOutput) {
+    return newCodePrinter(n, sourceMap, firstOutput).build();
+  }
+
+  private CodePrinter.Builder newCodePrinter(Node n, SourceMap sourceMap, boolean firstOutput) {
     CodePrinter.Builder builder = new CodePrinter.Builder(n);
     builder.setTypeRegistry(getTypeIRegistry());
     builder.setCompilerOptions(options);
@@ -2393,7 +2462,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     builder.setTagAsExterns(n.isFromExterns());
     builder.setTagAsTypeSummary(!n.isFromExterns() && options.shouldGenerateTypedExterns());
     builder.setTagAsStrict(firstOutput && options.shouldEmitUseStrict());
-    return builder.build();
+    return builder;
   }
 
   /**
@@ -2457,27 +2526,65 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
    * Stores a buffer of text to which more can be appended.  This is just like a
    * StringBuilder except that we also track the number of lines.
    */
-  public static class CodeBuilder {
+  public static class CodeBuilder implements Appendable {
+    // Characters kept of the text written to out, for endsWith and charFromEnd.
+    private static final int STREAMED_TAIL = 2;
+
     private final StringBuilder sb = new StringBuilder();
+    @Nullable private final Appendable out;
+    private long totalLength = 0;
     private int lineCount = 0;
     private int colCount = 0;
     private final Set<String> uniqueLicenses = new HashSet<>();
 
+    public CodeBuilder() {
+      this.out = null;
+    }
+
+    /**
+     * Creates a builder that writes all text to out as it is appended, and only keeps the last
+     * characters of it.
+     */
+    CodeBuilder(Appendable out) {
+      this.out = out;
+    }
+
     /** Removes all text, but leaves the line count unchanged. */
     void reset() {
+      checkState(out == null);
       sb.setLength(0);
+      totalLength = 0;
     }
 
     /** Appends the given string to the text buffer. */
     CodeBuilder append(String str) {
-      sb.append(str);
+      try {
+        return append((CharSequence) str);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public CodeBuilder append(CharSequence str) throws IOException {
+      if (out != null) {
+        out.append(str);
+        sb.append(str);
+        if (sb.length() > STREAMED_TAIL) {
+          sb.delete(0, sb.length() - STREAMED_TAIL);
+        }
+      } else {
+        sb.append(str);
+      }
+      totalLength += str.length();
 
       // Adjust the line and column information for the new text.
-      int index = -1;
-      int lastIndex = index;
-      while ((index = str.indexOf('\n', index + 1)) >= 0) {
-        ++lineCount;
-        lastIndex = index;
+      int lastIndex = -1;
+      for (int index = 0; index < str.length(); index++) {
+        if (str.charAt(index) == '\n') {
+          ++lineCount;
+          lastIndex = index;
+        }
       }
 
       if (lastIndex == -1) {
@@ -2490,15 +2597,42 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
       return this;
     }
 
+    @Override
+    public CodeBuilder append(CharSequence str, int start, int end) throws IOException {
+      return append(str.subSequence(start, end));
+    }
+
+    @Override
+    public CodeBuilder append(char c) throws IOException {
+      return append(String.valueOf(c));
+    }
+
     /** Returns all text in the text buffer. */
     @Override
     public String toString() {
+      checkState(out == null, "The text was written out");
       return sb.toString();
     }
 
     /** Returns the length of the text buffer. */
     public int getLength() {
-      return sb.length();
+      return Ints.saturatedCast(totalLength);
+    }
+
+    /** Returns the length of all text appended, including the text written out. */
+    long getTotalLength() {
+      return totalLength;
+    }
+
+    /** Whether the text is written out as it is appended. */
+    boolean isStreaming() {
+      return out != null;
+    }
+
+    /** Returns the character i positions before the end of the text, 1 being the last one. */
+    char charFromEnd(int i) {
+      checkState(i <= totalLength && (out == null || i <= STREAMED_TAIL));
+      return sb.charAt(sb.length() - i);
     }
 
     /** Returns the (zero-based) index of the last line in the text buffer. */
@@ -2513,7 +2647,8 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
     /** Determines whether the text ends with the given suffix. */
     boolean endsWith(String suffix) {
-      return (sb.length() > suffix.length())
+      checkState(out == null || suffix.length() <= STREAMED_TAIL);
+      return (totalLength > suffix.length())
           && suffix.equals(sb.substring(sb.length() - suffix.length()));
     }
 
@@ -2540,6 +2675,19 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     phaseOptimizer = null;
   }
 
+  /** Runs the passes that prepare the AST for printing, see {@link PassConfig#getFinalizations}. */
+  void performFinalizations() {
+    List<PassFactory> finalizations = getPassConfig().getFinalizations();
+    if (finalizations.isEmpty()) {
+      return;
+    }
+
+    phaseOptimizer = createPhaseOptimizer();
+    phaseOptimizer.consume(finalizations);
+    phaseOptimizer.process(externsRoot, jsRoot);
+    phaseOptimizer = null;
+  }
+
   @Override
   void setCssRenamingMap(CssRenamingMap map) {
     options.cssRenamingMap = map;
@@ -2795,6 +2943,11 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
   }
 
+  @Override
+  InternTable getParserInternTable() {
+    return parserInternTable;
+  }
+
   protected Config createConfig(Config.LanguageMode mode, Config.StrictMode strictMode) {
     Config config =
         ParserRunner.createConfig(
@@ -2823,6 +2976,10 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
   @Override
   public void report(JSError error) {
+    if (PrebuildAst.bufferError(error)) {
+      // Reported in the order of the inputs once they are all parsed.
+      return;
+    }
     CheckLevel level = error.getDefaultLevel();
     if (warningsGuard != null) {
       CheckLevel newLevel = warningsGuard.level(error);
@@ -3127,6 +3284,11 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     return options;
   }
 
+  @Override
+  PerformanceTracker getPerformanceTracker() {
+    return tracker;
+  }
+
   FunctionInformationMap getFunctionalInformationMap() {
     return functionInformationMap;
   }
@@ -37,6 +37,8 @@ import com.google.javascript.jscomp.resources.ResourceLoader;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.SourcePosition;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -382,15 +384,20 @@ public class CompilerOptions implements Serializable {
     this.legacyCodeCompile = legacy;
   }
 
-  // TODO(bradfordcsmith): Investigate how can we use multi-threads as default.
-  int numParallelThreads = 1;
+  /** The most threads the compiler uses by default, whatever the number of processors. */
+  static final int MAX_DEFAULT_PARALLEL_THREADS = 8;
+
+  // One thread per processor, so that the inputs are parsed in parallel on a multi-core machine.
+  int numParallelThreads =
+      Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_PARALLEL_THREADS);
 
   /**
    * Sets the level of parallelism for compilation passes that can exploit multi-threading.
    *
    * <p>Some compiler passes may take advantage of multi-threading, for example, parsing inputs.
    * This sets the level of parallelism. The compiler will not start more than this number of
-   * threads.
+   * threads. It defaults to the number of processors, up to {@value #MAX_DEFAULT_PARALLEL_THREADS};
+   * 1 does everything on the thread of the compilation.
    *
    * @param parallelism up to this number of parallel threads may be created.
    */
@@ -3019,6 +3026,20 @@ public class CompilerOptions implements Serializable {
             .add("nodejslibsource",getNJSSource())
             .add("dfsLog",getDFSLog())
             .add("node_pref",getNodePref())
+            .add("resolveInProcess",getResolveInProcess())
+            .add("parallelResolve",getParallelResolve())
+            .add("nativeResolve",getNativeResolve())
+            .add("requireResolveCache",getRequireResolveCache())
+            .add("jsonAsLiteral",getJsonAsLiteral())
+            .add("multiEntry",getMultiEntry())
+            .add("declareGlobals",getDeclareGlobals())
+            .add("compiledModuleCache",getCompiledModuleCache())
+            .add("compiledModuleCacheSize",getCompiledModuleCacheSize())
+            .add("requireResolveReport",getRequireResolveReport())
+            .add("streamOutput",getStreamOutput())
+            .add("mapInputs",getMapInputs())
+            .add("varPathCase",getVarPathCase())
+            .add("rrLogLevel",getRRLogLevel())
             .add("reqresconfig",getReqResConfig()) // JAMES (TODO) END
             .toString();
 
@@ -3445,6 +3466,183 @@ public class CompilerOptions implements Serializable {
   public String getNodePref() {return node_path;}
   public void setNodePref(String path) { this.node_path = path; }
 
+  private boolean resolveInProcess = false;
+  public boolean getResolveInProcess() { return resolveInProcess; }
+  public void setResolveInProcess(String b) {
+    if (b.equalsIgnoreCase("true")) { this.resolveInProcess = true; }
+  }
+
+  private boolean parallelResolve = false;
+  public boolean getParallelResolve() { return parallelResolve; }
+  public void setParallelResolve(String b) {
+    if (b.equalsIgnoreCase("true")) { this.parallelResolve = true; }
+  }
+
+  private boolean nativeResolve = true;
+  public boolean getNativeResolve() { return nativeResolve; }
+  public void setNativeResolve(String b) {
+    if (b.equalsIgnoreCase("false")) { this.nativeResolve = false; }
+  }
+
+  private boolean requireResolveCache = true;
+  public boolean getRequireResolveCache() { return requireResolveCache; }
+  public void setRequireResolveCache(String b) {
+    if (b.equalsIgnoreCase("false")) { this.requireResolveCache = false; }
+  }
+
+  private boolean jsonAsLiteral = false;
+  public boolean getJsonAsLiteral() { return jsonAsLiteral; }
+  public void setJsonAsLiteral(String b) {
+    if (b.equalsIgnoreCase("true")) { this.jsonAsLiteral = true; }
+  }
+
+  private boolean multiEntry = false;
+  public boolean getMultiEntry() { return multiEntry; }
+  public void setMultiEntry(String b) {
+    if (b.equalsIgnoreCase("true")) { this.multiEntry = true; }
+  }
+
+  private boolean declareGlobals = true;
+  public boolean getDeclareGlobals() { return declareGlobals; }
+  public void setDeclareGlobals(String b) {
+    if (b.equalsIgnoreCase("false")) { this.declareGlobals = false; }
+  }
+
+  private String compiledModuleCache = "";
+  public String getCompiledModuleCache() { return compiledModuleCache; }
+  public void setCompiledModuleCache(String b) { this.compiledModuleCache = b; }
+
+  private int compiledModuleCacheSize = 256; // MB
+  public int getCompiledModuleCacheSize() { return compiledModuleCacheSize; }
+  public void setCompiledModuleCacheSize(String b) { this.compiledModuleCacheSize = Integer.parseInt(b); }
+
+  private String requireResolveReport = "";
+  public String getRequireResolveReport() { return requireResolveReport; }
+  public void setRequireResolveReport(String path) { this.requireResolveReport = path; }
+
+  private boolean streamOutput = false;
+  public boolean getStreamOutput() { return streamOutput; }
+  public void setStreamOutput(String b) {
+    if (b.equalsIgnoreCase("true")) { this.streamOutput = true; }
+  }
+
+  private boolean mapInputs = false;
+  public boolean getMapInputs() { return mapInputs; }
+  public void setMapInputs(String b) {
+    if (b.equalsIgnoreCase("true")) { this.mapInputs = true; }
+  }
+
+  // Part of the key of the compiled module cache, there is no other record of it in the options
+  private String compLevel = "SIMPLE_OPTIMIZATIONS";
+  public String getCompLevel() { return compLevel; }
+  public void setCompLevel(String b) { this.compLevel = b; }
+
+  private String varPathCase = "ignore";
+  public String getVarPathCase() { return varPathCase; }
+  public void setVarPathCase(String b) { this.varPathCase = b; }
+
+  private String rrLogLevel = "trace";
+  public String getRRLogLevel() { return rrLogLevel; }
+  public void setRRLogLevel(String b) { this.rrLogLevel = b; }
+
+  private transient RequireResolverLog requireResolverLog = null;
+  RequireResolverLog getRequireResolverLog() { return requireResolverLog; }
+  void setRequireResolverLog(RequireResolverLog log) { this.requireResolverLog = log; }
+
+  private transient RequireResolutionCache requireResolutionCache = null;
+  RequireResolutionCache getRequireResolutionCache() { return requireResolutionCache; }
+  void setRequireResolutionCache(RequireResolutionCache cache) {
+    this.requireResolutionCache = cache;
+  }
+
+  // Started by the outermost compilation, shared with the compilations of required files
+  private transient RequireResolverMetrics requireResolverMetrics = null;
+  RequireResolverMetrics getRequireResolverMetrics() { return requireResolverMetrics; }
+  void setRequireResolverMetrics(RequireResolverMetrics metrics) {
+    this.requireResolverMetrics = metrics;
+  }
+
+  // Kept by the command line runner between the compilations of --watch
+  private transient RequireModuleStore requireModuleStore = null;
+  RequireModuleStore getRequireModuleStore() { return requireModuleStore; }
+  void setRequireModuleStore(RequireModuleStore store) { this.requireModuleStore = store; }
+
+  // Shared by the compilations of one in-process resolution, see InProcessRequireCompiler
+  private transient List<SourceFile> requireResolverExterns = null;
+  public List<SourceFile> getRequireResolverExterns() { return requireResolverExterns; }
+  public void setRequireResolverExterns(List<SourceFile> externs) {
+    this.requireResolverExterns = externs;
+  }
+
+  private transient NodeResolverProcess nodeResolverProcess = null;
+  NodeResolverProcess getNodeResolverProcess() { return nodeResolverProcess; }
+  void setNodeResolverProcess(NodeResolverProcess process) { this.nodeResolverProcess = process; }
+
+  private transient InProcessRequireCompiler inProcessRequireCompiler = null;
+  InProcessRequireCompiler getInProcessRequireCompiler() { return inProcessRequireCompiler; }
+  void setInProcessRequireCompiler(InProcessRequireCompiler compiler) {
+    this.inProcessRequireCompiler = compiler;
+  }
+
+  /**
+   * Returns a copy of these options for the compilation of a required file, as a compilation adds
+   * to the warnings guard of its options. The handlers and the state shared by the compilations of
+   * one resolution, such as the log and the in-process compiler, are shared with the copy.
+   */
+  @GwtIncompatible("ObjectOutputStream")
+  CompilerOptions copyForRequiredFile() {
+    CompilerOptions copy = serializedCopy();
+    copy.customPasses = customPasses;
+    copy.aliasHandler = aliasHandler;
+    copy.errorHandler = errorHandler;
+    copy.requireResolverLog = requireResolverLog;
+    copy.requireResolutionCache = requireResolutionCache;
+    copy.requireResolverMetrics = requireResolverMetrics;
+    copy.requireModuleStore = requireModuleStore;
+    copy.requireResolverExterns = requireResolverExterns;
+    copy.nodeResolverProcess = nodeResolverProcess;
+    copy.inProcessRequireCompiler = inProcessRequireCompiler;
+    return copy;
+  }
+
+  /**
+   * Returns these options serialized without what says where a project is rather than how its
+   * files are compiled: the paths of the resolver's logs, caches and sources. The warnings guard is
+   * left out too, as it holds the guards of the last compilation. Two projects with the same
+   * options get the same bytes, which is what the {@link CompiledModuleCache} is keyed on.
+   */
+  @GwtIncompatible("ObjectOutputStream")
+  byte[] serializeForCompiledModuleCache() {
+    CompilerOptions copy = serializedCopy();
+    copy.warningsGuard = new ComposeWarningsGuard();
+    copy.ReqResLog = null;
+    copy.DFSLog = null;
+    copy.nodejs_source = null;
+    copy.node_path = null;
+    copy.compiledModuleCache = "";
+    copy.requireResolveReport = "";
+    copy.ReqResConfig = null;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      copy.serialize(bytes);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not serialize the compiler options", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /** A copy of these options without any of their transient state. */
+  @GwtIncompatible("ObjectOutputStream")
+  private CompilerOptions serializedCopy() {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      serialize(bytes);
+      return deserialize(new ByteArrayInputStream(bytes.toByteArray()));
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Could not copy the compiler options", e);
+    }
+  }
+
   // TODO make this config file work. Plan is to read in config file assigning values in it. Then I use the flags from
   //      the command line if they exist and overwrite the value with those.
   private String ReqResConfig = null;
@@ -216,6 +216,13 @@ public final class DefaultPassConfig extends PassConfig {
     return passes;
   }
 
+  @Override
+  protected List<PassFactory> getFinalizations() {
+    List<PassFactory> passes = new ArrayList<>();
+    passes.add(nodeRequireInlining);
+    return passes;
+  }
+
   private void addNewTypeCheckerPasses(List<PassFactory> checks, CompilerOptions options) {
     if (options.getNewTypeInference()) {
       checks.add(symbolTableForNewTypeInference);
@@ -3561,6 +3568,20 @@ public final class DefaultPassConfig extends PassConfig {
           return new Es6RewriteScriptsToModules(compiler);
         }
 
+        @Override
+        protected FeatureSet featureSet() {
+          return ES_NEXT;
+        }
+      };
+
+  /** Replaces Node.js require() calls with the code of the files they load. */
+  private final HotSwapPassFactory nodeRequireInlining =
+      new HotSwapPassFactory(PassNames.NODE_REQUIRE_INLINING) {
+        @Override
+        protected HotSwapCompilerPass create(AbstractCompiler compiler) {
+          return new NodeRequireInliningPass(compiler);
+        }
+
         @Override
         protected FeatureSet featureSet() {
           return ES_NEXT;
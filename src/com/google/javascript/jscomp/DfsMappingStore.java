@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The DFS mapping: the files that were given a global variable, in the order they were given
+ * one, shared by every process taking part in a resolution.
+ *
+ * <p>The file starts with an 8 byte header, a magic number and the number of entries, followed by
+ * the entries themselves, each one the length of a UTF-8 encoded path and the path. All numbers
+ * are big-endian ints. New entries are only ever appended, and the count in the header is updated
+ * after they are written, so a reader never sees half an entry.
+ *
+ * <p>A store remembers how many entries it has in common with the file and where they end. Before
+ * a child process is started, {@link #append} writes only the entries the child does not know
+ * about, and afterwards {@link #load} maps just the part of the file the child added. The whole
+ * mapping is never rewritten or re-read while a resolution is running.
+ */
+final class DfsMappingStore {
+  static final int MAGIC = 0x44465331; // "DFS1"
+  static final int HEADER_SIZE = 8;
+  private static final int COUNT_OFFSET = 4;
+
+  private final File file;
+
+  // Number of entries that are both in the file and in the table, and the offset they end at.
+  private int synced = 0;
+  private long end = HEADER_SIZE;
+
+  DfsMappingStore(File file) {
+    this.file = file;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  /** Number of entries this store knows to be in the file. */
+  int getSynced() {
+    return synced;
+  }
+
+  /** Empties the mapping. */
+  void reset() throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(0);
+      raf.writeInt(MAGIC);
+      raf.writeInt(0);
+    }
+    synced = 0;
+    end = HEADER_SIZE;
+  }
+
+  /**
+   * Adds the entries that were appended to the file since the last sync to {@code table}.
+   *
+   * @return the number of entries that were added
+   */
+  int load(RequireVariableTable table) throws IOException {
+    if (!file.isFile()) {
+      return 0;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel()) {
+      if (channel.size() < HEADER_SIZE) {
+        return 0;
+      }
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      channel.read(header, 0);
+      header.flip();
+      if (header.getInt() != MAGIC) {
+        throw new IOException(file + " is not a DFS mapping (it may be from an older version)");
+      }
+      int count = header.getInt();
+      if (count < synced) {
+        throw new IOException(file + " lost entries while it was in use");
+      }
+      if (count == synced) {
+        return 0;
+      }
+      MappedByteBuffer entries =
+          channel.map(FileChannel.MapMode.READ_ONLY, end, channel.size() - end);
+      int added = 0;
+      for (int i = synced; i < count; i++) {
+        byte[] path = new byte[entries.getInt()];
+        entries.get(path);
+        // The table may already hold what this store wrote itself.
+        if (i >= table.size()) {
+          table.add(new String(path, UTF_8));
+          added++;
+        }
+      }
+      synced = count;
+      end += entries.position();
+      return added;
+    } catch (RuntimeException e) {
+      throw new IOException("Could not read " + file, e);
+    }
+  }
+
+  /** Appends the entries of {@code table} the file does not have yet, then commits the count. */
+  void append(RequireVariableTable table) throws IOException {
+    if (synced == table.size() && file.isFile()) {
+      return;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        FileChannel channel = raf.getChannel()) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      if (channel.size() >= HEADER_SIZE) {
+        channel.read(header, 0);
+        header.flip();
+      }
+      if (channel.size() < HEADER_SIZE || (header.getInt() != MAGIC && synced == 0)) {
+        // A new file, or one in the old text format that could not be loaded.
+        raf.setLength(0);
+        raf.writeInt(MAGIC);
+        raf.writeInt(0);
+      } else if (header.getInt(0) != MAGIC || header.getInt(COUNT_OFFSET) != synced) {
+        throw new IOException(file + " was changed by another process since it was last read");
+      }
+      int size = 0;
+      byte[][] paths = new byte[table.size() - synced][];
+      for (int i = 0; i < paths.length; i++) {
+        paths[i] = normalize(table.get(synced + i)).getBytes(UTF_8);
+        size += 4 + paths[i].length;
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(size);
+      for (byte[] path : paths) {
+        buffer.putInt(path.length);
+        buffer.put(path);
+      }
+      buffer.flip();
+      long position = end;
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+      ByteBuffer count = ByteBuffer.allocate(4);
+      count.putInt(table.size());
+      count.flip();
+      channel.write(count, COUNT_OFFSET);
+      synced = table.size();
+      end = position;
+    }
+  }
+
+  private static String normalize(String path) {
+    return path.replace("\\\\", "\\").replace('\\', '/');
+  }
+}
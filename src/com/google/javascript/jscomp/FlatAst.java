@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only copy of an AST as parallel int arrays, for checks that only read the AST.
+ *
+ * <p>The nodes of the copy are ints: node i is the i-th node of a pre-order traversal of the
+ * tree it was built from, and -1 is no node. So the root is 0, the first child of a node is the
+ * node after it, and a subtree is a range of nodes, which {@link FlatAstTraversal} reads in order
+ * instead of chasing the pointers of the Node objects. The strings of the nodes are kept once in
+ * a pool.
+ *
+ * <p>The copy is not updated when the tree changes.
+ */
+public final class FlatAst {
+  public static final int NO_NODE = -1;
+
+  private static final Token[] TOKENS = Token.values();
+
+  // The ordinal of the token of each node.
+  private final int[] tokens;
+  private final int[] parents;
+  private final int[] firstChildren;
+  private final int[] nextSiblings;
+  // The source position of each node, encoded as by Node#getSourcePosition.
+  private final int[] sourcePositions;
+  // The index in the pool of the string of each node, of the source file name for a SCRIPT, or -1.
+  private final int[] stringIndices;
+  private final String[] strings;
+  // The nodes the copy was built from, for reporting errors.
+  private final Node[] nodes;
+
+  private FlatAst(
+      int[] tokens,
+      int[] parents,
+      int[] firstChildren,
+      int[] nextSiblings,
+      int[] sourcePositions,
+      int[] stringIndices,
+      String[] strings,
+      Node[] nodes) {
+    this.tokens = tokens;
+    this.parents = parents;
+    this.firstChildren = firstChildren;
+    this.nextSiblings = nextSiblings;
+    this.sourcePositions = sourcePositions;
+    this.stringIndices = stringIndices;
+    this.strings = strings;
+    this.nodes = nodes;
+  }
+
+  /** Builds the copy of the tree under root, in one traversal. */
+  public static FlatAst build(Node root) {
+    return new Builder().build(checkNotNull(root));
+  }
+
+  /** The number of nodes. */
+  public int size() {
+    return tokens.length;
+  }
+
+  public Token getToken(int n) {
+    return TOKENS[tokens[n]];
+  }
+
+  /** Returns the parent of n, or -1 for the root. */
+  public int getParent(int n) {
+    return parents[n];
+  }
+
+  /** Returns the first child of n, or -1. */
+  public int getFirstChild(int n) {
+    return firstChildren[n];
+  }
+
+  /** Returns the next sibling of n, or -1. */
+  public int getNext(int n) {
+    return nextSiblings[n];
+  }
+
+  public boolean hasChildren(int n) {
+    return firstChildren[n] != NO_NODE;
+  }
+
+  /** Returns the line of n, or -1 if it has no source position. */
+  public int getLineno(int n) {
+    int position = sourcePositions[n];
+    return position == -1 ? -1 : position >>> Node.COLUMN_BITS;
+  }
+
+  /** Returns the 0-based column of n, or -1 if it has no source position. */
+  public int getCharno(int n) {
+    int position = sourcePositions[n];
+    return position == -1 ? -1 : position & Node.COLUMN_MASK;
+  }
+
+  /**
+   * Returns the string of n, as {@link Node#getString}, or the source file name if n is a SCRIPT.
+   * Returns null for the other nodes.
+   */
+  @Nullable
+  public String getString(int n) {
+    int index = stringIndices[n];
+    return index == -1 ? null : strings[index];
+  }
+
+  /** Returns the node n was copied from. */
+  public Node getNode(int n) {
+    return nodes[n];
+  }
+
+  private static final class Builder {
+    private int size = 0;
+    private int[] tokens = new int[64];
+    private int[] parents = new int[64];
+    private int[] firstChildren = new int[64];
+    private int[] nextSiblings = new int[64];
+    private int[] sourcePositions = new int[64];
+    private int[] stringIndices = new int[64];
+    private Node[] nodes = new Node[64];
+    private final Map<String, Integer> stringPool = new HashMap<>();
+
+    FlatAst build(Node root) {
+      Node n = root;
+      int parent = NO_NODE;
+      while (true) {
+        int index = add(n, parent);
+        if (n.hasChildren()) {
+          firstChildren[index] = index + 1;
+          parent = index;
+          n = n.getFirstChild();
+          continue;
+        }
+        // Go up to the first node with a next sibling, which is the next node.
+        while (index != 0 && nodes[index].getNext() == null) {
+          index = parents[index];
+        }
+        if (index == 0) {
+          break;
+        }
+        nextSiblings[index] = size;
+        parent = parents[index];
+        n = nodes[index].getNext();
+      }
+
+      String[] pool = new String[stringPool.size()];
+      for (Map.Entry<String, Integer> entry : stringPool.entrySet()) {
+        pool[entry.getValue()] = entry.getKey();
+      }
+      return new FlatAst(
+          Arrays.copyOf(tokens, size),
+          Arrays.copyOf(parents, size),
+          Arrays.copyOf(firstChildren, size),
+          Arrays.copyOf(nextSiblings, size),
+          Arrays.copyOf(sourcePositions, size),
+          Arrays.copyOf(stringIndices, size),
+          pool,
+          Arrays.copyOf(nodes, size));
+    }
+
+    private int add(Node n, int parent) {
+      if (size == tokens.length) {
+        int capacity = size * 2;
+        tokens = Arrays.copyOf(tokens, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        sourcePositions = Arrays.copyOf(sourcePositions, capacity);
+        stringIndices = Arrays.copyOf(stringIndices, capacity);
+        nodes = Arrays.copyOf(nodes, capacity);
+      }
+      int index = size++;
+      tokens[index] = n.getToken().ordinal();
+      parents[index] = parent;
+      firstChildren[index] = NO_NODE;
+      nextSiblings[index] = NO_NODE;
+      sourcePositions[index] = n.getSourcePosition();
+      String string = n.hasString() ? n.getString() : n.isScript() ? n.getSourceFileName() : null;
+      stringIndices[index] = string == null ? -1 : intern(string);
+      nodes[index] = n;
+      return index;
+    }
+
+    private int intern(String string) {
+      Integer index = stringPool.get(string);
+      if (index == null) {
+        index = stringPool.size();
+        stringPool.put(string, index);
+      }
+      return index;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.javascript.jscomp.FlatAst.NO_NODE;
+
+import com.google.common.base.Strings;
+import com.google.javascript.rhino.Token;
+
+/**
+ * A traversal of a {@link FlatAst}, with the callbacks of {@link NodeTraversal} for the nodes of
+ * the flat copy, so that a read-only check moves over by replacing its Nodes with ints.
+ *
+ * <p>Unlike NodeTraversal, it has no scopes, and it visits the children of every node in order:
+ * the name of a function declaration comes after the function, not before it.
+ */
+public final class FlatAstTraversal {
+  private final AbstractCompiler compiler;
+  private final FlatAst ast;
+  private final Callback callback;
+
+  /** The current node, or -1 */
+  private int curNode = NO_NODE;
+
+  /** The current source file name */
+  private String sourceName = "";
+
+  /** Callback for traversals of a flat AST, see {@link NodeTraversal.Callback}. */
+  public interface Callback {
+    /**
+     * Visits a node in pre order (before visiting its children) and decides whether this node's
+     * children should be traversed.
+     *
+     * @param parent the parent of n, or -1 for the root of the traversal
+     * @return whether the children of this node should be visited
+     */
+    boolean shouldTraverse(FlatAstTraversal t, int n, int parent);
+
+    /**
+     * Visits a node in postorder (after its children have been visited). A node is visited only
+     * if all its parents should be traversed.
+     */
+    void visit(FlatAstTraversal t, int n, int parent);
+  }
+
+  /** Abstract callback to visit all nodes in postorder. */
+  public abstract static class AbstractPostOrderCallback implements Callback {
+    @Override
+    public final boolean shouldTraverse(FlatAstTraversal t, int n, int parent) {
+      return true;
+    }
+  }
+
+  /** Abstract callback to visit all nodes in preorder. */
+  public abstract static class AbstractPreOrderCallback implements Callback {
+    @Override
+    public final void visit(FlatAstTraversal t, int n, int parent) {}
+  }
+
+  /**
+   * Abstract callback to visit all nodes but not traverse into function
+   * bodies.
+   */
+  public abstract static class AbstractShallowCallback implements Callback {
+    @Override
+    public final boolean shouldTraverse(FlatAstTraversal t, int n, int parent) {
+      // We do want to traverse the name of a named function, but we don't
+      // want to traverse the arguments or body.
+      FlatAst ast = t.getAst();
+      return parent == NO_NODE
+          || ast.getToken(parent) != Token.FUNCTION
+          || n == ast.getFirstChild(parent);
+    }
+  }
+
+  public FlatAstTraversal(AbstractCompiler compiler, FlatAst ast, Callback callback) {
+    this.compiler = compiler;
+    this.ast = ast;
+    this.callback = callback;
+  }
+
+  /** Traverses the whole flat AST. */
+  public static void traverse(AbstractCompiler compiler, FlatAst ast, Callback callback) {
+    new FlatAstTraversal(compiler, ast, callback).traverse(0);
+  }
+
+  /** Traverses the subtree under root, without recursion. */
+  public void traverse(int root) {
+    try {
+      sourceName = findSourceName(root);
+      int n = root;
+      int parent = NO_NODE;
+      while (true) {
+        if (ast.getToken(n) == Token.SCRIPT) {
+          sourceName = Strings.nullToEmpty(ast.getString(n));
+        }
+        curNode = n;
+        if (callback.shouldTraverse(this, n, parent)) {
+          if (ast.hasChildren(n)) {
+            parent = n;
+            n = ast.getFirstChild(n);
+            continue;
+          }
+          callback.visit(this, n, parent);
+        }
+        // Visit the parents that have no more children to traverse.
+        while (n != root && ast.getNext(n) == NO_NODE) {
+          n = parent;
+          parent = n == root ? NO_NODE : ast.getParent(n);
+          curNode = n;
+          callback.visit(this, n, parent);
+        }
+        if (n == root) {
+          break;
+        }
+        n = ast.getNext(n);
+      }
+    } catch (Error | Exception unexpectedException) {
+      throwUnexpectedException(unexpectedException);
+    }
+  }
+
+  private String findSourceName(int n) {
+    for (int cur = n; cur != NO_NODE; cur = ast.getParent(cur)) {
+      if (ast.getToken(cur) == Token.SCRIPT) {
+        return Strings.nullToEmpty(ast.getString(cur));
+      }
+    }
+    return "";
+  }
+
+  private void throwUnexpectedException(Throwable unexpectedException) {
+    String message = unexpectedException.getMessage();
+    if (curNode != NO_NODE) {
+      message +=
+          "\n  Node(" + ast.getToken(curNode) + "): " + sourceName + ":"
+          + ast.getLineno(curNode) + ":" + ast.getCharno(curNode);
+    }
+    compiler.throwInternalError(message, unexpectedException);
+  }
+
+  public AbstractCompiler getCompiler() {
+    return compiler;
+  }
+
+  public FlatAst getAst() {
+    return ast;
+  }
+
+  /** Returns the node currently being traversed. */
+  public int getCurrentNode() {
+    return curNode;
+  }
+
+  /**
+   * Gets the current line number, or zero if it cannot be determined.
+   */
+  public int getLineNumber() {
+    for (int cur = curNode; cur != NO_NODE; cur = ast.getParent(cur)) {
+      int line = ast.getLineno(cur);
+      if (line >= 0) {
+        return line;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the current char number, or zero if it cannot be determined.
+   */
+  public int getCharno() {
+    for (int cur = curNode; cur != NO_NODE; cur = ast.getParent(cur)) {
+      int charno = ast.getCharno(cur);
+      if (charno >= 0) {
+        return charno;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the current input source name.
+   *
+   * @return A string that may be empty, but not null
+   */
+  public String getSourceName() {
+    return sourceName;
+  }
+
+  /** Reports a diagnostic (error or warning) at a node of the flat AST. */
+  public void report(int n, DiagnosticType diagnosticType, String... arguments) {
+    compiler.report(JSError.make(ast.getNode(n), diagnosticType, arguments));
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.Node;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Compiles the files found by the require resolver inside the current JVM.
+ *
+ * <p>Without this every required .js file is handed to a child {@code java -jar} process, which
+ * then has to start a JVM, load the default externs and re-read the DFS mapping before it can
+ * do any work. Here every dependency gets a fresh {@link Compiler} and its own copy of the {@link
+ * CompilerOptions}. The externs are parsed once, by the first dependency, and every later one
+ * gets a copy of that tree instead of parsing them again. The table of files that already have a
+ * global variable is shared by the whole resolution. The {@link NodeRequireInliningPass} of a
+ * dependency finds this object on the options and recurses into it instead of spawning a process.
+ */
+final class InProcessRequireCompiler {
+  private final CompilerOptions options;
+  private final RequireExterns externs;
+
+  // Absolute paths of the files that were assigned a global variable, in DFS order. This table is
+  // shared with every NodeRequireResolver taking part in the resolution.
+  private final RequireVariableTable filesToVar;
+
+  // Number of compilations that are currently running, used to tell the outermost one apart.
+  private int depth = 0;
+
+  InProcessRequireCompiler(
+      CompilerOptions options, List<SourceFile> externs, RequireVariableTable filesToVar) {
+    this.options = options;
+    this.externs = new RequireExterns(externs);
+    this.filesToVar = filesToVar;
+  }
+
+  RequireVariableTable getFilesToVar() {
+    return filesToVar;
+  }
+
+  /** Whether a dependency is being compiled right now. */
+  boolean isCompiling() {
+    return depth > 0;
+  }
+
+  /**
+   * Compiles the file at {@code path} with a copy of the options and returns the root of its
+   * scripts, with its own requires inlined already, or null if it did not compile.
+   */
+  @Nullable
+  Node compile(String path) {
+    Compiler compiler = new Compiler(System.err);
+    // The parent is already on a compiler thread with a large stack, and a new thread per
+    // dependency would be left behind idle once its compilation is done.
+    compiler.disableThreads();
+    externs.addTo(compiler);
+    depth++;
+    try {
+      // Compiler.initOptions adds to the warnings guard of the options it is given.
+      Result result =
+          compiler.compile(
+              ImmutableList.<SourceFile>of(),
+              ImmutableList.of(SourceFile.fromFile(path, UTF_8)),
+              options.copyForRequiredFile());
+      if (!result.success) {
+        return null;
+      }
+      return compiler.getJsRoot();
+    } finally {
+      depth--;
+    }
+  }
+}
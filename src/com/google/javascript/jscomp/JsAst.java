@@ -155,6 +155,7 @@ public class JsAst implements SourceAst {
           compiler.getParserConfig(sourceFile.isExtern()
               ? AbstractCompiler.ConfigContext.EXTERNS
               : AbstractCompiler.ConfigContext.DEFAULT),
+          compiler.getParserInternTable(),
           reporter);
       root = result.ast;
       features = result.features;
@@ -191,6 +192,9 @@ public class JsAst implements SourceAst {
     // Set the source name so that the compiler passes can track
     // the source file and module.
     root.setStaticSourceFile(sourceFile);
+
+    // Now that the AST is built, the code is only read again if it is needed.
+    sourceFile.releaseCodeAfterParse();
   }
 
   @GwtIncompatible("ObjectinputStream")
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The JavaScript modules of a Node.js source tree (--nodejs_source), by the name they are
+ * required with: {@code fs} for lib/fs.js, {@code internal/util} for lib/internal/util.js.
+ *
+ * <p>The lib folder is walked once per JVM, so finding the source of a core module is a lookup
+ * instead of a path built from the module name and checked on disk for every require. The files
+ * are then compiled like any other required file, so with --compiled_module_cache the compiled
+ * core library is reused by every run that uses the same Node.js source.
+ */
+final class NodeCoreLibraryIndex {
+  // The indexes built by of, one per source tree.
+  private static final Map<File, NodeCoreLibraryIndex> indexes = new HashMap<>();
+
+  private final ImmutableMap<String, String> modules;
+
+  private NodeCoreLibraryIndex(ImmutableMap<String, String> modules) {
+    this.modules = modules;
+  }
+
+  /** Returns the index of the Node.js source tree at {@code sourceRoot}. */
+  static synchronized NodeCoreLibraryIndex of(String sourceRoot) {
+    File root = new File(sourceRoot).getAbsoluteFile();
+    NodeCoreLibraryIndex index = indexes.get(root);
+    if (index == null) {
+      index = build(new File(root, "lib"));
+      indexes.put(root, index);
+    }
+    return index;
+  }
+
+  /** Indexes the .js files under {@code lib}, which may not exist. */
+  @VisibleForTesting
+  static NodeCoreLibraryIndex build(File lib) {
+    ImmutableMap.Builder<String, String> modules = ImmutableMap.builder();
+    addModules(lib, "", modules);
+    return new NodeCoreLibraryIndex(modules.build());
+  }
+
+  private static void addModules(
+      File directory, String prefix, ImmutableMap.Builder<String, String> modules) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (file.isDirectory()) {
+        addModules(file, prefix + name + "/", modules);
+      } else if (name.endsWith(".js")) {
+        modules.put(
+            prefix + name.substring(0, name.length() - ".js".length()),
+            file.getPath().replace('\\', '/'));
+      }
+    }
+  }
+
+  /** The file of the module required as {@code name}, null if the source tree has none. */
+  @Nullable
+  String getPath(String name) {
+    return modules.get(name);
+  }
+
+  int size() {
+    return modules.size();
+  }
+}
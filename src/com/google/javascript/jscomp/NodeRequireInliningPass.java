@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+
+/**
+ * Replaces the Node.js {@code require()} and {@code module.require()} calls that name a file
+ * with the code of that file, wrapped so it gets its own {@code module} and {@code exports}.
+ *
+ * <p>The first require of a file is replaced with a function that runs the compiled file and
+ * stores its {@code module} in a global variable, every later one with the {@code exports} of
+ * that variable:
+ *
+ * <pre>
+ * var a = require('./a');  =>  var a = function() { ... globalVariable_SHYDNUTN_000 = module; ... }();
+ * var b = require('./a');  =>  var b = globalVariable_SHYDNUTN_000.exports;
+ * </pre>
+ *
+ * <p>Requires that cannot be resolved, or that name something other than a .js or .json file,
+ * are left alone. This runs after the optimizations, so the code generator only prints the tree.
+ *
+ * <p>With --parallel_resolve the files are all resolved and compiled in parallel first (see
+ * {@link RequireModuleGraph}), and only put together here. With --multi_entry the files that
+ * several chunks require are then moved into the first chunk (see {@link SharedRequirePrelude}).
+ *
+ * <p>Last, the outermost compilation declares every global variable of the DFS mapping at the
+ * start of its output, which varPrepender.py used to prepend to the printed file:
+ *
+ * <pre>
+ * var globalVariable_SHYDNUTN_000, globalVariable_SHYDNUTN_001;
+ * </pre>
+ *
+ * <p>With --require_resolve_report or --tracer_mode it also reports what each required file took
+ * (see {@link RequireResolverMetrics}).
+ */
+final class NodeRequireInliningPass implements HotSwapCompilerPass {
+  private final AbstractCompiler compiler;
+  private NodeRequireResolver resolver;
+
+  NodeRequireInliningPass(AbstractCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  @Override
+  public void process(Node externs, Node root) {
+    inlineRequires(root);
+    if (compiler.getOptions().getMultiEntry()) {
+      new SharedRequirePrelude(compiler).process(root);
+    }
+    declareGlobals(root);
+    RequireResolverMetrics metrics = resolver.finishMetrics();
+    PerformanceTracker tracker = compiler.getPerformanceTracker();
+    if (metrics != null && tracker != null) {
+      tracker.recordRequireResolution(metrics);
+    }
+  }
+
+  @Override
+  public void hotSwapScript(Node scriptRoot, Node originalRoot) {
+    inlineRequires(scriptRoot);
+  }
+
+  private void inlineRequires(Node root) {
+    if (resolver == null) {
+      // Created even if there is nothing to resolve, as it starts the log and the DFS mapping.
+      resolver = new NodeRequireResolver(compiler.getOptions());
+      resolver.buildModuleGraph(root);
+    }
+    for (Node replacement : resolver.inlineRequires(root)) {
+      NodeUtil.markNewScopesChanged(replacement, compiler);
+      compiler.reportChangeToEnclosingScope(replacement);
+    }
+  }
+
+  /** Declares the global variables of the required files at the start of the first script. */
+  private void declareGlobals(Node root) {
+    Node declarations = resolver.globalDeclarations();
+    Node script = root.getFirstChild();
+    if (declarations == null || script == null) {
+      return;
+    }
+    script.addChildToFront(declarations.useSourceInfoFromForTree(script));
+    compiler.reportChangeToEnclosingScope(declarations);
+  }
+}
@@ -0,0 +1,841 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.jscomp.RequireResolverLog.Level;
+import com.google.javascript.jscomp.deps.FileSystemNodeModuleResolver;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the Node.js {@code require()} calls of one compilation and builds the module wrappers
+ * that replace them. This used to live in {@link CodeGenerator} and ran while the code was being
+ * printed; it is now driven by {@link NodeRequireInliningPass}.
+ */
+final class NodeRequireResolver {
+
+  NodeRequireResolver(CompilerOptions options) {
+    initRequireResolver(options);
+  }
+
+  // Code added by James Hutchins to replace node "requires"
+  // JAMES
+  // Replaces the require calls under root in source order (the order the files get their variables in). Returns the replacements
+  public List<Node> inlineRequires(Node root){
+    final List<Node> requires = new ArrayList<Node>();
+    NodeUtil.visitPreOrder(root, new NodeUtil.Visitor() {
+      @Override
+      public void visit(Node n) {
+        if(n.isCall() && isRequireCallee(n.getFirstChild())){ requires.add(n); }
+      }
+    });
+    List<Node> replacements = new ArrayList<Node>();
+    for(Node require : requires){
+      Node replacement = replaceRequire(require);
+      if(replacement != null){
+        require.replaceWith(replacement);
+        replacements.add(replacement);
+      }
+    }
+    return replacements;
+  }
+  // With --parallel_resolve every file root depends on is resolved and compiled before anything is inlined
+  public CompiledModuleCache getCompiledModuleCache(){ return this.compiledModuleCache; }
+  public RequireResolverMetrics getMetrics(){ return this.metrics; }
+  // Ends the metrics of the outermost compilation and writes them to --require_resolve_report. Null for the compilations of required files
+  public RequireResolverMetrics finishMetrics(){
+    if(this.metrics == null || (this.inProcessCompiler != null && this.inProcessCompiler.isCompiling())) return null;
+    this.metrics.finish();
+    if(!this.reportLocation.isEmpty()){
+      try{
+        this.metrics.writeReport(this.reportLocation);
+      }catch (IOException e){
+        ReqResLog(Level.IMPORTANT,"An error occurred inside finishMetrics (NodeRequireResolver.java): "+e,null,this.reportLocation,-1);
+      }
+    }
+    return this.metrics;
+  }
+  public void buildModuleGraph(Node root){
+    if(this.moduleGraph == null) return;
+    long start = reqResLogEnabled(Level.INFO) ? System.nanoTime() : 0;
+    this.moduleGraph.build(root);
+    if(start != 0){ ReqResLog(Level.INFO,"Built the module graph of "+this.moduleGraph.size()+" files",null,null,System.nanoTime()-start); }
+  }
+  // Returns what the require call n should be replaced with, or null to leave it as it is
+  public Node replaceRequire(Node n){
+    // Gets file location and extension
+    String modName = findModuleName(n);
+    if(modName==null) return null;
+    String path = getRequirePath(modName,n);
+    if(path==null){
+      if(this.metrics != null){ this.metrics.recordRequire(null,false); }
+      return null;
+    }
+    // See if file has a variable already
+    String DFSVar = findVarName(path);
+    if(!DFSVar.equals("")){ // If it does replace it with variable name... DONE
+      ReqResLog(Level.TRACE,"The variable was found, replacing require with variable",modName,path,-1);
+      if(this.metrics != null){ this.metrics.recordRequire(path,true); }
+      // TODO check if js, json, or other
+      return IR.getprop(IR.name(DFSVar),"exports").useSourceInfoIfMissingFromForTree(n);
+    }
+    String extension = path.substring(path.lastIndexOf(".")+1);
+
+    // Call wrappers based on type
+    if(extension.equalsIgnoreCase("js")){
+      DFSVar = assignVarName(path);
+      ReqResLog(Level.INFO,"Replace require was called",modName,path,-1);
+      if(this.metrics == null) return wrapJavaScript(path,DFSVar,n);
+      this.metrics.recordRequire(path,false);
+      this.metrics.enterRequire(path);
+      Node wrapper = wrapJavaScript(path,DFSVar,n);
+      this.metrics.exitRequire(path,wrapper);
+      return wrapper;
+    }else if(extension.equalsIgnoreCase("json")){
+      DFSVar = assignVarName(path);
+      ReqResLog(Level.INFO,"Replace require was called",modName,path,-1);
+      if(this.metrics == null) return wrapJSON(path,DFSVar,n);
+      this.metrics.recordRequire(path,false);
+      this.metrics.enterRequire(path);
+      long start = System.nanoTime();
+      Node wrapper = wrapJSON(path,DFSVar,n);
+      this.metrics.recordCompile(path,RequireResolverMetrics.COMPILED_BY_JSON,System.nanoTime()-start,new File(path).length());
+      this.metrics.exitRequire(path,wrapper);
+      return wrapper;
+    }else if (extension.equalsIgnoreCase("node")){
+      ReqResLog(Level.IMPORTANT,".node is a valid file type, but I do not have a wrapper for it",modName,path,-1);
+    }else if (extension.equalsIgnoreCase("mjs")){
+      ReqResLog(Level.IMPORTANT,".mjs is used for experimental modules. I do not have a wrapper for it",modName,path,-1);
+    }else{
+      ReqResLog(Level.IMPORTANT,"This is an unsupported file type",modName,path,-1);
+    }
+    return null;
+  }
+  // These are the wrappers
+  /*
+   (function(){
+     var module = { exports: {} };
+     DFSVar = module;
+     (function(exports, module, __filename, __dirname) {
+       <compiled code of path>
+     })(module.exports,module,"path","dir");
+     return module.exports
+   }())
+  */
+  public Node wrapJavaScript(String path,String DFSVar,Node require){
+    String dir = path.lastIndexOf("/") < 0 ? "" : path.substring(0,path.lastIndexOf("/"));
+    Node moduleFunction = IR.function(IR.name(""),
+            IR.paramList(IR.name("exports"),IR.name("module"),IR.name("__filename"),IR.name("__dirname")),
+            IR.block());
+    Node callModule = IR.call(moduleFunction,
+            IR.getprop(IR.name("module"),"exports"),IR.name("module"),IR.string(path),IR.string(dir));
+    callModule.putBooleanProp(Node.FREE_CALL,true);
+    Node wrapper = IR.call(IR.function(IR.name(""),IR.paramList(),IR.block(
+            IR.var(IR.name("module"),exportsObject()),
+            IR.exprResult(IR.assign(IR.name(DFSVar),IR.name("module"))),
+            IR.exprResult(callModule),
+            IR.returnNode(IR.getprop(IR.name("module"),"exports")))));
+    wrapper.putBooleanProp(Node.FREE_CALL,true);
+    wrapper.useSourceInfoIfMissingFromForTree(require);
+
+    // using path compile the file and move its code into the wrapper
+    Node body = moduleFunction.getLastChild();
+    Node compiled = compileCode(path); // TODO see if we need a better way to do this
+    if(compiled != null){
+      Set<String> directives = compiled.hasChildren() ? compiled.getFirstChild().getDirectives() : null;
+      if(directives != null && directives.contains("use strict")){
+        // Directives are not printed inside functions, so it has to be a statement again
+        body.addChildToBack(IR.exprResult(IR.string("use strict")).useSourceInfoFromForTree(require));
+      }
+      for(Node script = compiled.getFirstChild(); script != null; script = script.getNext()){
+        while(script.hasChildren()){ body.addChildToBack(script.removeFirstChild()); }
+      }
+    }
+    return wrapper;
+  }
+  /*
+   (function(){
+     DFSVar = { exports: {} };
+     DFSVar.exports = JSON.parse("<text of path>");   or   DFSVar.exports = <text of path>;
+     return DFSVar.exports;
+   }())
+  */
+  public Node wrapJSON(String path, String DFSVar, Node require){
+    // The text goes into a string node as it is, the printer escapes it in one pass while writing it out.
+    // With --json_as_literal it is parsed into the tree instead.
+    String code = readFile(path);
+    Node value = this.jsonAsLiteral ? parseJSONLiteral(path,code) : null;
+    if(value == null){ value = IR.call(IR.getprop(IR.name("JSON"),"parse"),IR.string(code)); }
+    Node wrapper = IR.call(IR.function(IR.name(""),IR.paramList(),IR.block(
+            IR.exprResult(IR.assign(IR.name(DFSVar),exportsObject())),
+            IR.exprResult(IR.assign(IR.getprop(IR.name(DFSVar),"exports"),value)),
+            IR.returnNode(IR.getprop(IR.name(DFSVar),"exports")))));
+    wrapper.putBooleanProp(Node.FREE_CALL,true);
+    wrapper.useSourceInfoIfMissingFromForTree(require);
+
+    // Store JSON variable (only needed if last variable). In process the outermost compile stores it.
+    if(this.inProcessCompiler == null || !this.inProcessCompiler.isCompiling()){
+      storeCurrentDFSRequireResults();
+    }
+    return wrapper;
+  }
+  // The value of a JSON file as a literal, null if it is not plain JSON or JSON.parse would build something else
+  public Node parseJSONLiteral(String path, String code){
+    Compiler parser = new Compiler();
+    CompilerOptions parseOptions = new CompilerOptions();
+    parseOptions.setLanguageIn(LanguageMode.ECMASCRIPT_NEXT);
+    parser.initOptions(parseOptions);
+    // In parens so an object is not read as a block, like Compiler.processJsonInputs does
+    Node script = parser.parse(SourceFile.fromCode(path,"("+code+")"));
+    if(parser.hasErrors() || !script.hasOneChild() || !script.getFirstChild().isExprResult()
+        || !isJSONValue(script.getFirstFirstChild())){
+      ReqResLog(Level.INFO,"The JSON file is not plain JSON, it is left to JSON.parse",null,path,-1);
+      return null;
+    }
+    return script.getFirstFirstChild().detach();
+  }
+  // The same nodes RewriteJsonToModule accepts (it is not a full validator either), without "__proto__" keys:
+  // in a literal those set the prototype, JSON.parse makes them an own property
+  private static boolean isJSONValue(Node n){
+    switch(n.getToken()){
+      case OBJECTLIT:
+        for(Node key = n.getFirstChild(); key != null; key = key.getNext()){
+          if(!key.isStringKey() || !key.isQuotedString() || key.getString().equals("__proto__")
+              || !isJSONValue(key.getFirstChild())){
+            return false;
+          }
+        }
+        return true;
+      case ARRAYLIT:
+        for(Node c = n.getFirstChild(); c != null; c = c.getNext()){
+          if(!isJSONValue(c)){ return false; }
+        }
+        return true;
+      case NEG:
+        return n.getFirstChild().isNumber();
+      case NUMBER:
+      case STRING:
+      case TRUE:
+      case FALSE:
+      case NULL:
+        return true;
+      default:
+        return false;
+    }
+  }
+  // { exports: {} }
+  private static Node exportsObject(){
+    return IR.objectlit(IR.propdef(IR.stringKey("exports"),IR.objectlit()));
+  }
+  // These are for finding the file that needs to be added
+  public String getRequirePath(String m, Node n){// throws java.io.IOException{
+    // Get Directory to resolve from
+    String currentPath = requireDirectory(n);
+    // With --parallel_resolve everything was resolved while the module graph was built
+    if(this.moduleGraph != null && this.moduleGraph.isResolved(currentPath,m)){
+      return this.moduleGraph.getResolved(currentPath,m);
+    }
+    // Otherwise the node helper answers every require of this file in one batch
+    if(this.nativeResolver == null){ prefetchRequirePaths(n); }
+    return resolveModule(currentPath,m);
+  }
+  // Resolves m from the directory currentPath. The module graph calls this from several threads.
+  public String resolveModule(String currentPath, String m){
+    long start = reqResLogEnabled(Level.TRACE) || this.metrics != null ? System.nanoTime() : 0;
+    // Answers from earlier requires (or earlier runs over the same files) are reused
+    if(this.resolutionCache != null){
+      RequireResolutionCache.Entry cached = this.resolutionCache.lookup(currentPath,m);
+      if(cached != null){
+        if(start != 0){ ReqResLog(Level.TRACE,"Resolved from the cache",m,cached.getPath(),System.nanoTime()-start); }
+        return recordResolution(resolvedModulePath(m,cached.getPath()),start,true);
+      }
+    }
+    String path = null;
+    Set<String> dependencies = null;
+    if(this.nativeResolver != null){
+      // Resolve without starting node when we can
+      dependencies = new HashSet<String>();
+      path = this.nativeResolver.resolve(currentPath,m,dependencies);
+    }else{
+      // There is only one node helper, so one question at a time
+      try{
+        synchronized(this.nodeResolver){
+          path = this.nodeResolver.resolve(currentPath,m);
+        }
+      }catch (IOException e){
+        ReqResLog(Level.IMPORTANT,"An error occurred inside resolveModule (NodeRequireResolver.java): "+e);
+        return null;
+      }
+      // Make path use foward slash
+      if(path != null){ path = path.replace("\\\\","\\").replace("\\","/"); }
+      dependencies = RequireResolutionCache.nodeLookupDependencies(currentPath,path);
+    }
+    if(this.resolutionCache != null){ this.resolutionCache.put(currentPath,m,path,dependencies); }
+    if(start != 0){ ReqResLog(Level.TRACE,"Resolved",m,path,System.nanoTime()-start); }
+    return recordResolution(resolvedModulePath(m,path),start,false);
+  }
+  private String recordResolution(String path, long start, boolean fromCache){
+    if(this.metrics != null){ this.metrics.recordResolution(path,System.nanoTime()-start,fromCache); }
+    return path;
+  }
+  // False when require.resolve is asked of the node helper
+  public boolean resolvesNatively(){
+    return this.nativeResolver != null;
+  }
+  // Directory require.resolve runs in for a node of the current file
+  public String requireDirectory(Node n){
+    String currentPath = n.getSourceFileName(); // Need to get current path
+    int index = currentPath.lastIndexOf("/");
+    return currentPath.substring(0,index+1);
+  }
+  // Turns what require.resolve gave (null if the module was not found) into the file to wrap
+  public String resolvedModulePath(String m, String path){
+    if(path == null){
+      // Node could not find it, so it might be one of the internal/ modules
+      return internalSourceModulePath(m);
+    }
+    if(path.equals(m) || FileSystemNodeModuleResolver.isCoreModule(path)){
+      return sourceModulePath(m.startsWith("node:") ? m.substring("node:".length()) : m);
+    }
+    return path;
+  }
+  // Sends every string require of n's file to the node helper, so they are resolved in one round trip
+  private Set<String> prefetchedFiles = new HashSet<String>();
+  public void prefetchRequirePaths(Node n){
+    Node script = NodeUtil.getEnclosingScript(n);
+    if(script == null || !this.prefetchedFiles.add(script.getSourceFileName())) return;
+    Map<String,List<String>> requests = new LinkedHashMap<String,List<String>>();
+    collectRequireNames(script,requests);
+    prefetchRequirePaths(requests);
+  }
+  public void prefetchRequirePaths(Map<String,List<String>> requests){
+    try{
+      synchronized(this.nodeResolver){
+        this.nodeResolver.resolveAll(requests);
+      }
+    }catch (IOException e){
+      ReqResLog(Level.IMPORTANT,"An error occurred inside prefetchRequirePaths (NodeRequireResolver.java): "+e);
+    }
+  }
+  public void collectRequireNames(Node n, Map<String,List<String>> requests){
+    if(n.isCall() && isRequireCallee(n.getFirstChild())){
+      Node arg = n.getSecondChild();
+      if(arg != null && arg.isString()){
+        String dir = requireDirectory(n);
+        if(!requests.containsKey(dir)){ requests.put(dir,new ArrayList<String>()); }
+        String name = arg.getString().replace("\\\\","\\").replace("\\","/");
+        if(this.resolutionCache == null || !this.resolutionCache.contains(dir,name)){
+          requests.get(dir).add(name);
+        }
+      }
+    }
+    for(Node c = n.getFirstChild(); c != null; c = c.getNext()){
+      collectRequireNames(c,requests);
+    }
+  }
+  // This checks to see if it is require(...) or module.require(...)
+  public boolean isRequireCallee(Node callee){
+    if(callee.isGetProp()){
+      Node obj = callee.getFirstChild();
+      return obj.isName() && isNamed(obj,"module") && isNamed(obj.getNext(),"require");
+    }
+    return callee.isName() && isNamed(callee,"require");
+  }
+  private static boolean isNamed(Node n, String name){
+    return n.getString().equals(name) || name.equals(n.getOriginalName());
+  }
+  // Path to the Node.js source of a module compiled into node (null if those are not resolved)
+  public String sourceModulePath(String m){
+    if(!this.resolveNJSSC){
+      ReqResLog(Level.TRACE,"This might be a source module, but they are not resolved",m,null,-1);
+      return null;
+    }
+    String path = coreLibrary().getPath(m); // TODO make it so it checks c coded modules.
+    if(path == null){
+      ReqResLog(Level.VERY_IMPORTANT,"The source module DOES NOT appear to exist. A path may need to be provided",m,null,-1);
+    }else{
+      ReqResLog(Level.INFO,"This is a source module",m,path,-1);
+    }
+    return path;
+  }
+  // Path to the Node.js source of a module node could not find (null if those are not resolved)
+  public String internalSourceModulePath(String temp){
+    if(!this.resolveNJSSC){
+      ReqResLog(Level.TRACE,"This might be a internal source module, but they are not resolved",temp,null,-1);
+      return null;
+    }
+    // internal/ modules, and async_hooks, which gives the error message an internal/ does, but is not an internal/
+    String path = coreLibrary().getPath(temp);
+    if(path != null){ ReqResLog(Level.INFO,"This is a internal source module",temp,path,-1); }
+    return path;
+  }
+  // The modules of --nodejs_source, indexed the first time one is needed
+  private NodeCoreLibraryIndex coreLibrary = null;
+  private synchronized NodeCoreLibraryIndex coreLibrary(){
+    if(this.coreLibrary == null){
+      this.coreLibrary = NodeCoreLibraryIndex.of(this.sourceNodeCode);
+      ReqResLog(Level.INFO,"Indexed "+this.coreLibrary.size()+" modules of the Node.js source",null,this.sourceNodeCode,-1);
+    }
+    return this.coreLibrary;
+  }
+  public String findModuleName(Node n){
+    String modName = "";
+    n = n.getSecondChild();
+    if(n == null) return null; // require() without a name
+    if(n.getToken() != Token.STRING){
+      ReqResLog(Level.VERY_IMPORTANT,"REQUIRE There appears to have been a dynamic require of some sort. "+
+              "Currently we do not handle these",null,n.getSourceFileName(),-1);
+      return null; // For now ignore requires that do not use strings.
+    }
+    modName = n.getString().replace("\\\\","\\").replace("\\","/");
+    return modName;
+  }
+  // This calls a command given the command in String[], a path for the directory, and inputs not able to be stored in the "command"
+  public String callCommand(String[] cmd,String path,String input){
+    String out = "";
+    // Convert Commands to list for ProcessBuilder # If I uses Runtime.exec then it needs String[]
+    List<String> cmdList = new ArrayList<String>();
+    for(int i=0;i<cmd.length;i++){ cmdList.add(cmd[i]); }
+    try{
+      // THESE TWO LINES APPEAR TO BE EQUEVALENT
+      //Process proc = Runtime.getRuntime().exec(cmd,null,new File(currentPath));
+      ProcessBuilder p = new ProcessBuilder(cmdList);p.directory(new File(path));Process proc = p.start();
+      if(this.metrics != null){ this.metrics.recordSubprocess(); }
+
+      // Writes commands that are not arguments to the process
+      proc.getOutputStream().write(input.getBytes("UTF-8"));
+      if(reqResLogEnabled(Level.TRACE)){
+        ReqResLog(Level.TRACE,"Calling command: "+String.join(" ",cmd));
+      }
+      proc.getOutputStream().close();
+
+      // Read results
+      out = readInput(proc.getInputStream());
+      if(out.isEmpty()){
+        ReqResLog(Level.IMPORTANT,"The command printed nothing, its errors were: "+readInput(proc.getErrorStream()));
+      }
+    }catch (Exception e){
+      out = "An error occurred inside callCommand (NodeRequireResolver.java)";
+      ReqResLog(Level.IMPORTANT,out+": "+e);
+    }
+    return out;
+  }
+  public String readInput(InputStream in){
+    String out = "";
+    try{
+      out = readLines(new InputStreamReader(in),8192);
+    }catch (Exception e){
+      out = "An error occurred inside readInput (NodeRequireResolver.java)";
+      ReqResLog(Level.IMPORTANT,out+": "+e);
+    }
+    return out;
+  }
+  // This reads raw file into the script
+  public String readFile(String path){
+    String code = "";
+    try(Reader in = Files.newBufferedReader(Paths.get(path),UTF_8)){
+      code = readLines(in,(int)Math.min(new File(path).length(),Integer.MAX_VALUE - 8));
+    }catch (Exception e){
+      String out = "An error occurred inside makeSourceFile (NodeRequireResolver.java)";
+      ReqResLog(Level.IMPORTANT,out+": "+e,null,path,-1);
+    }
+    return code;
+  }
+  // Everything in, with \r\n and \r turned into \n and the last line break dropped (the lines joined with \n).
+  // Copies chunks into one buffer, so big files and outputs take linear time.
+  private static String readLines(Reader in, int sizeHint) throws IOException{
+    StringBuilder out = new StringBuilder(sizeHint);
+    char[] chunk = new char[8192];
+    boolean afterCR = false;
+    for(int n = in.read(chunk); n != -1; n = in.read(chunk)){
+      int run = 0;
+      for(int i=0;i<n;i++){
+        char c = chunk[i];
+        if(c == '\r' || (c == '\n' && afterCR)){
+          out.append(chunk,run,i-run);
+          if(c == '\r'){ out.append('\n'); }
+          run = i+1;
+        }
+        afterCR = c == '\r';
+      }
+      out.append(chunk,run,n-run);
+    }
+    if(out.length() > 0 && out.charAt(out.length()-1) == '\n'){ out.setLength(out.length()-1); }
+    return out.toString();
+  }
+  // This compiles the file (in process or in a new instance of closure compiler) and returns the root of its scripts, null if it failed
+  public Node compileCode(String path){
+    long start = reqResLogEnabled(Level.INFO) || this.metrics != null ? System.nanoTime() : 0;
+    if(this.moduleGraph != null && this.moduleGraph.contains(path)){
+      // Compiled already, only its own requires are left to inline (it is not attached yet, so nothing to report)
+      Node root = this.moduleGraph.takeCompiled(path);
+      if(root != null){
+        if(root.hasChildren() && this.emitUseStrict){ root.getFirstChild().setDirectives(ImmutableSet.of("use strict")); }
+        inlineRequires(root);
+      }
+      storeCurrentDFSRequireResults();
+      if(start != 0){ ReqResLog(Level.INFO,"Inlined required file from the module graph",null,path,System.nanoTime()-start); }
+      return root;
+    }
+    if(this.inProcessCompiler != null){
+      Node root = this.inProcessCompiler.compile(path);
+      // The requires of the file were inlined while it compiled, their time is theirs
+      if(this.metrics != null){
+        this.metrics.recordCompile(path,RequireResolverMetrics.COMPILED_BY_IN_PROCESS,
+                System.nanoTime()-start-this.metrics.childRequireNanos(),new File(path).length());
+      }
+      if(root != null && root.hasChildren() && this.emitUseStrict){
+        // What the printer would have started the code with
+        root.getFirstChild().setDirectives(ImmutableSet.of("use strict"));
+      }
+      // The dependency shares filesToVar, so there is nothing to read back
+      if(!this.inProcessCompiler.isCompiling()){ storeCurrentDFSRequireResults(); }
+      if(start != 0){ ReqResLog(Level.INFO,"Compiled required file in process",null,path,System.nanoTime()-start); }
+      return root;
+    }
+    // TODO replace "java" with path to java var... in fact change the third one to var also
+    // TODO replace hardcoded path with Variable path
+    // TODO see if I (need to) can I call it without console commands
+    storeCurrentDFSRequireResults();
+    // The child appends to the same log, so everything before it has to be in the file already
+    if(this.rrLog != null){ this.rrLog.flush(); }
+    String[] command = getCommand(path);
+    String out = callCommand(command,this.jarLoc.split("/target/")[0],"\n");// Huh... wonder why it was not working. "D:\\Sefcom\\closure\\closure-compiler-myAttempt","\n");
+    getCurrentDFSRequireResults();
+    if(this.metrics != null){
+      this.metrics.recordCompile(path,RequireResolverMetrics.COMPILED_BY_CHILD_PROCESS,System.nanoTime()-start,new File(path).length());
+    }
+    if(start != 0){ ReqResLog(Level.INFO,"Compiled required file in a child process",null,path,System.nanoTime()-start); }
+    return parseCompiledCode(path,out);
+  }
+  // Turns what the child process printed back into an AST (a root with one script)
+  public Node parseCompiledCode(String path, String code){
+    Compiler parser = new Compiler();
+    CompilerOptions parseOptions = new CompilerOptions();
+    parseOptions.setLanguageIn(LanguageMode.ECMASCRIPT_NEXT);
+    parser.initOptions(parseOptions);
+    Node script = parser.parse(SourceFile.fromCode(path,code));
+    if(parser.hasErrors()){
+      ReqResLog(Level.IMPORTANT,"The code printed for the required file could not be parsed, it is left out",null,path,-1);
+      return null;
+    }
+    return IR.root(script);
+  }
+  public String[] getCommand(String path){
+    // TODO Change "java" and <location of jar> to varriables.
+    // TODO add new options
+    if(this.nodePref.equalsIgnoreCase("node")) {
+      String[] command = {
+              "java", "-jar", this.jarLoc,
+              "--module_resolution", "NODE", "--js", path,"--compilation_level",this.compLevel, "--formatting",
+              "PRETTY_PRINT","--language_out",this.langOut,"--require_resolve_log_location", this.reqreslogloc,
+              "--nodejs_source", this.sourceNodeCode, "--DFS_tracking_log_location", this.dfsResultFilename,
+              "--resolve_NSC",String.valueOf(this.resolveNJSSC),"--native_resolve",String.valueOf(this.nativeResolve),
+              "--require_resolve_cache",String.valueOf(this.resolutionCache != null),
+              "--json_as_literal",String.valueOf(this.jsonAsLiteral),"--declare_globals","false",
+              "--var_path_case",this.varPathCase,"--rr_log_level",this.rrLogLevel.name()
+      };
+      return command;
+    }else {
+      String[] command = {
+              "java", "-jar", this.jarLoc,
+              "--module_resolution", "NODE", "--js", path,"--compilation_level",this.compLevel, "--formatting",
+              "PRETTY_PRINT","--language_out",this.langOut,"--require_resolve_log_location", this.reqreslogloc,
+              "--nodejs_source", this.sourceNodeCode, "--DFS_tracking_log_location", this.dfsResultFilename,
+              "--node_exe_path", this.nodePref,"--resolve_NSC",String.valueOf(this.resolveNJSSC),
+              "--native_resolve",String.valueOf(this.nativeResolve),
+              "--require_resolve_cache",String.valueOf(this.resolutionCache != null),
+              "--json_as_literal",String.valueOf(this.jsonAsLiteral),"--declare_globals","false",
+              "--var_path_case",this.varPathCase,"--rr_log_level",this.rrLogLevel.name()
+      };
+      return command;
+    }
+  }
+  // These are the logging varriables and functions
+  private RequireResolverLog rrLog = null;
+  private Level rrLogLevel = Level.TRACE;
+  private String reqreslogloc = null;
+  public void initReqResLog(boolean logReset){
+    // Assign log name if one does not exist
+    if(this.reqreslogloc == null){ this.reqreslogloc = ("../resreqlog.txt"); }
+    // The log is opened once (and reset then, if we need to)
+    if(this.rrLog == null){
+      this.rrLog = RequireResolverLog.open(this.reqreslogloc,logReset,this.rrLogLevel);
+    }
+  }
+  public boolean reqResLogEnabled(Level level){
+    return this.rrLog == null || this.rrLog.isEnabled(level);
+  }
+  public void ReqResLog(String s){
+    ReqResLog(Level.INFO,s,null,null,-1);
+  }
+  public void ReqResLog(Level level, String s){
+    ReqResLog(level,s,null,null,-1);
+  }
+  // module, path and duration (in nanoseconds) are left out of the line when they are null or negative
+  public void ReqResLog(Level level, String s, String module, String path, long duration){
+    if(this.rrLog == null){
+      // Nothing was set up yet
+      if(level.compareTo(this.rrLogLevel) >= 0){ System.err.println("[" + level + "] " + s); }
+      return;
+    }
+    this.rrLog.log(level,s,module,path,duration);
+  }
+  // These are the loop resolving specifics
+  private String baseVarName = "globalVariable_SHYDNUTN_";// Stands for Global Variable: Sure Hope You Did Not Use This Name: ID Number
+  // Files with a variable in DFS order, indexed by path (the id of a file is the number in its variable)
+  private RequireVariableTable filesToVar = new RequireVariableTable(true);
+  private String dfsResultFilename = null;
+  private DfsMappingStore dfsStore = null;
+  public String varNameCreation(int x){
+    String name = null;
+    if(x >= 0 && x < 10){
+      name = baseVarName+"00"+String.valueOf(x);
+    }else if(x >= 10 && x < 100){
+      name = baseVarName+"0"+String.valueOf(x);
+    }else if(x >= 100){
+      name = baseVarName+String.valueOf(x);
+    }else{
+      ReqResLog(Level.IMPORTANT,"An invalid number was used to try and create a global variable. The number was: "+String.valueOf(x));
+    }
+    //ReqResLog("INFO: a variable "+name+" was created to handle ");
+    return name;
+  }
+  // var globalVariable_SHYDNUTN_000, ...; for every file in the DFS mapping, or null if there are none.
+  // Only the outermost compilation declares them, the code of required files is put inside its output
+  public Node globalDeclarations(){
+    if(!this.declareGlobals || (this.inProcessCompiler != null && this.inProcessCompiler.isCompiling())) return null;
+    int count = this.filesToVar.size();
+    if(count == 0) return null;
+    Node var = new Node(Token.VAR);
+    for(int i = 0; i < count; i++){
+      var.addChildToBack(IR.name(varNameCreation(i)));
+    }
+    return var;
+  }
+  public String assignVarName(String fn){
+    return varNameCreation(this.filesToVar.add(fn));
+  }
+  public String findVarName(String absoluteFileName){
+    // Hash lookup on the normalized path (case folded unless --var_path_case says otherwise)
+    int id = this.filesToVar.indexOf(absoluteFileName);
+    if(id >= 0){ return varNameCreation(id); }
+    ReqResLog(Level.TRACE,"The file did not have a variable already",null,absoluteFileName,-1);
+    return "";
+  }
+  public void initDFSRR(boolean logReset){
+    if(dfsResultFilename == null) { this.dfsResultFilename = "../DFSMapping.txt"; }
+    this.dfsStore = new DfsMappingStore(new File(this.dfsResultFilename));
+    if(logReset){
+      try{
+        this.dfsStore.reset();
+      }catch (IOException e){
+        ReqResLog(Level.IMPORTANT,"An error occurred inside initDFSRR (NodeRequireResolver.java): "+e);
+      }
+    }else{
+      getCurrentDFSRequireResults();
+    }
+  }
+  // Reads only the variables other processes appended since the last time
+  public void getCurrentDFSRequireResults(){
+    try{
+      this.dfsStore.load(this.filesToVar);
+    } catch (Exception e){
+      ReqResLog(Level.IMPORTANT,"An error occurred inside getCurrentDFSRequireResults (NodeRequireResolver.java): "+e);
+    }
+  }
+  // Appends the variables assigned since the last time, the file is never rewritten
+  public void storeCurrentDFSRequireResults(){
+    try {
+      this.dfsStore.append(this.filesToVar);
+    } catch (Exception e){
+      ReqResLog(Level.IMPORTANT,"An error occurred inside storeCurrentDFSRequireResults (NodeRequireResolver.java): "+e);
+    }
+  }
+  public Object openFile(String mode, String filename, boolean append){
+    Object file = null;
+    if(mode.equalsIgnoreCase("write") || mode.equalsIgnoreCase("w")){
+      try {
+        file = new PrintWriter(new BufferedWriter(new FileWriter(filename, append)));
+      } catch (Exception e) {
+        ReqResLog(Level.IMPORTANT,"An error occurred inside openFile (NodeRequireResolver.java) while trying to open a file to write to: "+e,null,filename,-1);
+      }
+    }else if(mode.equalsIgnoreCase("open") || mode.equalsIgnoreCase("o")){
+      try {
+        file = new BufferedReader(new FileReader(filename));
+      }catch (Exception e) {
+        ReqResLog(Level.IMPORTANT,"An error occurred inside openFile (NodeRequireResolver.java) while trying to open a file to read from: "+e,null,filename,-1);
+      }
+    }
+    return file;
+  }
+  // This will take in options and initialize all the values
+  private String sourceNodeCode = null;
+  private String nodePref = null;
+  private InProcessRequireCompiler inProcessCompiler = null;
+  public void initRequireResolver(CompilerOptions options){
+    // Assign values to Global Variables
+    initGlobals(options);
+    // Files compiled in process share the state of the generator that started the resolution
+    this.inProcessCompiler = options.getInProcessRequireCompiler();
+    // The outermost compilation starts the metrics (--require_resolve_report or --tracer_mode), the ones of required files add to them
+    if(this.inProcessCompiler == null){
+      this.metrics = !options.getRequireResolveReport().isEmpty() || options.getTracerMode().isOn() ? new RequireResolverMetrics() : null;
+      options.setRequireResolverMetrics(this.metrics);
+    }else{
+      this.metrics = options.getRequireResolverMetrics();
+    }
+    // One log per JVM
+    this.rrLog = options.getRequireResolverLog();
+    if(this.inProcessCompiler != null){
+      initReqResLog(false);
+      if(this.dfsResultFilename == null) { this.dfsResultFilename = "../DFSMapping.txt"; }
+      this.filesToVar = this.inProcessCompiler.getFilesToVar();
+    }else{
+      this.filesToVar = RequireVariableTable.create(
+              RequireVariableTable.CaseFolding.fromString(options.getVarPathCase()),
+              new File(this.dfsResultFilename == null ? "../DFSMapping.txt" : this.dfsResultFilename).getAbsoluteFile().getParentFile());
+      // Reset the log?
+      boolean logReset = options.getResetRRL();
+      initReqResLog(logReset);
+      initDFSRR(logReset);// TODO add own boolean?
+    }
+    options.setRequireResolverLog(this.rrLog);
+
+    // Any important or missed varialbes need to be checked here
+    if(this.sourceNodeCode == null) {
+      ReqResLog(Level.IMPORTANT,"Please enter the absolute path to the source code of Nodejs. "+
+              "Unless you are me the code will not work without this.");
+      this.sourceNodeCode = "D:\\Sefcom\\NodeJS_code\\node-master";
+    }
+    // One resolution cache per JVM, kept next to the DFS log between runs
+    if(options.getRequireResolveCache()){
+      this.resolutionCache = options.getRequireResolutionCache();
+      if(this.resolutionCache == null){
+        this.resolutionCache = RequireResolutionCache.nextTo(this.dfsResultFilename);
+        options.setRequireResolutionCache(this.resolutionCache);
+      }
+      // With --watch the files may have changed since the last compilation in this JVM
+      if(this.inProcessCompiler == null && options.getRequireModuleStore() != null){ this.resolutionCache.reverify(); }
+    }
+    // Compiled files shared by every project that uses the folder
+    if(!options.getCompiledModuleCache().isEmpty()){
+      this.compiledModuleCache = CompiledModuleCache.open(options.getCompiledModuleCache(),options.getCompiledModuleCacheSize()*1024L*1024L);
+    }
+    // Resolve and compile the whole require graph up front, on every core (--watch keeps it between compilations,
+    // and files are only compiled on their own, which the compiled module cache needs)
+    if(this.inProcessCompiler == null
+            && (options.getParallelResolve() || options.getRequireModuleStore() != null || this.compiledModuleCache != null)){
+      this.moduleGraph = new RequireModuleGraph(this, options, options.getRequireResolverExterns());
+    }
+    // Start an in-process resolution instead of calling java -jar for every dependency
+    if(this.inProcessCompiler == null && options.getResolveInProcess()){
+      this.inProcessCompiler = new InProcessRequireCompiler(
+              options, options.getRequireResolverExterns(), this.filesToVar);
+      options.setInProcessRequireCompiler(this.inProcessCompiler);
+    }
+  }
+  public String getJarLoc(){
+    String temp = null;
+    try {
+      temp = NodeRequireResolver.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath();
+      if(System.getProperty("os.name").toLowerCase().contains("windows")){
+        // I only tested on a windows machine (I think it will work without removing the / on Linux)
+        //ReqResLog("This is a windows machine");
+        temp = temp.substring(1);
+      }
+      //ReqResLog("\nThe JAR is: ");
+      //ReqResLog(temp);
+      //ReqResLog("\n");
+    }catch (Exception e) {
+      ReqResLog(Level.IMPORTANT,"An error occurred inside getJarLoc (NodeRequireResolver.java): "+e);
+    }
+    return temp;
+  }
+  private String langOut = "ECMASCRIPT_2015";
+  private String compLevel = "WHITESPACE_ONLY";//"SIMPLE";//"WHITESPACE_ONLY";
+  private boolean resolveNJSSC = false;
+  private boolean nativeResolve = true;
+  private String varPathCase = "ignore";
+  private FileSystemNodeModuleResolver nativeResolver = null;
+  private NodeResolverProcess nodeResolver = null;
+  private RequireResolutionCache resolutionCache = null;
+  private RequireModuleGraph moduleGraph = null;
+  private CompiledModuleCache compiledModuleCache = null;
+  private RequireResolverMetrics metrics = null;
+  private String jarLoc = null;
+  private boolean emitUseStrict = false;
+  private boolean jsonAsLiteral = false;
+  private boolean declareGlobals = true;
+  private String reportLocation = "";
+  public void initGlobals(CompilerOptions options){
+    // Used for log location
+    this.reqreslogloc = options.getReqResLog();
+    this.dfsResultFilename = options.getDFSLog();
+    this.sourceNodeCode = options.getNJSSource();
+    this.nodePref = options.getNodePref();
+    this.resolveNJSSC = options.getNJSSBoolean();
+    this.nativeResolve = options.getNativeResolve();
+    this.varPathCase = options.getVarPathCase();
+    this.rrLogLevel = Level.fromString(options.getRRLogLevel());
+    this.emitUseStrict = options.shouldEmitUseStrict();
+    this.jsonAsLiteral = options.getJsonAsLiteral();
+    this.declareGlobals = options.getDeclareGlobals();
+    this.reportLocation = options.getRequireResolveReport();
+    if(this.nativeResolve){
+      this.nativeResolver = FileSystemNodeModuleResolver.fromEnvironment();
+    }else{
+      // One node helper per JVM, shared by every generator
+      this.nodeResolver = options.getNodeResolverProcess();
+      if(this.nodeResolver == null){
+        this.nodeResolver = new NodeResolverProcess(this.nodePref);
+        options.setNodeResolverProcess(this.nodeResolver);
+      }
+    }
+    this.jarLoc = getJarLoc();
+    //this.langOut = options.getLanguageOut();
+    //this.compLevel = options.getCompLevel(); // TODO complevel
+    /* TODO
+       Get Path of this JAR
+       Get working directory
+       Get Java (var)
+    */
+  }
+}
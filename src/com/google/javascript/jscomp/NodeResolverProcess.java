@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A long-lived {@code node} process that answers {@code require.resolve} questions.
+ *
+ * <p>The helper is started once per JVM and is fed batches of (directory, module name) pairs. A
+ * request frame is a line holding the number of pairs followed by one JSON array per pair, and the
+ * response frame is the same count followed by one JSON object per pair, in request order: either
+ * {@code {"path": ...}} or {@code {"error": ...}}. Answers are remembered, so asking again for a
+ * pair that was part of an earlier batch never goes to the process.
+ *
+ * <p>If a round trip fails, the process is restarted and the batch sent again once. Only when that
+ * fails too is the helper given up on for the rest of the JVM.
+ */
+final class NodeResolverProcess {
+  /**
+   * The helper script. Module._resolveFilename is used instead of createRequire so that old node
+   * versions (the ones the Node.js source is usually checked out for) work too.
+   */
+  private static final String SCRIPT =
+      "var Module = require('module'), path = require('path');"
+          + "var rl = require('readline').createInterface({input: process.stdin, terminal: false});"
+          + "var pending = -1, batch = [];"
+          + "rl.on('line', function(line) {"
+          + "  if (pending < 0) { pending = parseInt(line, 10); batch = []; }"
+          + "  else { batch.push(JSON.parse(line)); pending--; }"
+          + "  if (pending !== 0) { return; }"
+          + "  var out = [String(batch.length)];"
+          + "  batch.forEach(function(request) {"
+          + "    var parent = new Module(path.join(request[0], 'index.js'), null);"
+          + "    parent.filename = parent.id;"
+          + "    parent.paths = Module._nodeModulePaths(request[0]);"
+          + "    try {"
+          + "      out.push(JSON.stringify({path: Module._resolveFilename(request[1], parent)}));"
+          + "    } catch (e) {"
+          + "      out.push(JSON.stringify({error: String(e.message)}));"
+          + "    }"
+          + "  });"
+          + "  pending = -1;"
+          + "  process.stdout.write(out.join('\\n') + '\\n');"
+          + "});"
+          + "rl.on('close', function() { process.exit(0); });";
+
+  private final String nodeExecutable;
+  private final Gson gson = new Gson();
+  private final JsonParser parser = new JsonParser();
+
+  /** Resolved paths keyed by {@link #key}; a null value means node could not find the module. */
+  private final Map<String, String> answers = new HashMap<>();
+
+  private Process process = null;
+  private Writer toNode = null;
+  private BufferedReader fromNode = null;
+  private boolean broken = false;
+
+  NodeResolverProcess(String nodeExecutable) {
+    this.nodeExecutable = nodeExecutable;
+  }
+
+  private static String key(String directory, String moduleName) {
+    return directory + '\0' + moduleName;
+  }
+
+  /** Whether {@link #resolve} can answer without talking to the process. */
+  boolean isKnown(String directory, String moduleName) {
+    return answers.containsKey(key(directory, moduleName));
+  }
+
+  /**
+   * Resolves every pair that has not been resolved yet in a single round trip.
+   *
+   * @param requests module names keyed by the directory they are required from
+   */
+  void resolveAll(Map<String, List<String>> requests) throws IOException {
+    Map<String, String[]> batch = new LinkedHashMap<>();
+    for (Map.Entry<String, List<String>> entry : requests.entrySet()) {
+      for (String moduleName : entry.getValue()) {
+        String key = key(entry.getKey(), moduleName);
+        if (!answers.containsKey(key)) {
+          batch.put(key, new String[] {entry.getKey(), moduleName});
+        }
+      }
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    List<String> results = roundTrip(new ArrayList<>(batch.values()));
+    int i = 0;
+    for (String key : batch.keySet()) {
+      answers.put(key, results.get(i++));
+    }
+  }
+
+  /**
+   * Returns what {@code require.resolve(moduleName)} gives in {@code directory}: a path, the name
+   * itself for modules compiled into node, or null when the module cannot be found.
+   */
+  @Nullable
+  String resolve(String directory, String moduleName) throws IOException {
+    String key = key(directory, moduleName);
+    if (!answers.containsKey(key)) {
+      Map<String, List<String>> single = new HashMap<>();
+      List<String> names = new ArrayList<>();
+      names.add(moduleName);
+      single.put(directory, names);
+      resolveAll(single);
+    }
+    return answers.get(key);
+  }
+
+  private List<String> roundTrip(List<String[]> batch) throws IOException {
+    if (broken) {
+      throw new IOException("The node resolver process is no longer running");
+    }
+    try {
+      return exchange(batch);
+    } catch (IOException | RuntimeException e) {
+      close();
+    }
+    // The process may have died on its own (killed, out of memory); start a new one.
+    try {
+      return exchange(batch);
+    } catch (IOException | RuntimeException e) {
+      broken = true;
+      close();
+      throw e instanceof IOException ? (IOException) e : new IOException(e);
+    }
+  }
+
+  private List<String> exchange(List<String[]> batch) throws IOException {
+    ensureStarted();
+    StringBuilder frame = new StringBuilder();
+    frame.append(batch.size()).append('\n');
+    for (String[] request : batch) {
+      frame.append(gson.toJson(request)).append('\n');
+    }
+    toNode.write(frame.toString());
+    toNode.flush();
+
+    String header = fromNode.readLine();
+    if (header == null || Integer.parseInt(header.trim()) != batch.size()) {
+      throw new IOException("Unexpected response from the node resolver process: " + header);
+    }
+    List<String> results = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      String line = fromNode.readLine();
+      if (line == null) {
+        throw new IOException("The node resolver process stopped answering");
+      }
+      JsonObject response = parser.parse(line).getAsJsonObject();
+      JsonElement path = response.get("path");
+      results.add(path == null ? null : path.getAsString());
+    }
+    return results;
+  }
+
+  private void ensureStarted() throws IOException {
+    if (process != null) {
+      return;
+    }
+    ProcessBuilder builder = new ProcessBuilder(nodeExecutable, "-e", SCRIPT);
+    builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+    process = builder.start();
+    toNode = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), UTF_8));
+    fromNode = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8));
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread() {
+              @Override
+              public void run() {
+                close();
+              }
+            });
+  }
+
+  /** Stops the helper. Closing its stdin makes it exit on its own. */
+  synchronized void close() {
+    if (process == null) {
+      return;
+    }
+    try {
+      toNode.close();
+    } catch (IOException e) {
+      // The process is going away anyway.
+    }
+    process.destroy();
+    process = null;
+  }
+}
@@ -120,6 +120,15 @@ public abstract class PassConfig {
    */
   protected abstract List<PassFactory> getOptimizations();
 
+  /**
+   * Gets the passes that run after the optimizations, in every compilation mode.
+   *
+   * They prepare the AST for printing, so the code generator only has to print it.
+   */
+  protected List<PassFactory> getFinalizations() {
+    return Collections.emptyList();
+  }
+
   /**
    * Gets a graph of the passes run. For debugging.
    */
@@ -254,6 +263,10 @@ public abstract class PassConfig {
       return delegate.getTranspileOnlyPasses();
     }
 
+    @Override protected List<PassFactory> getFinalizations() {
+      return delegate.getFinalizations();
+    }
+
     @Override TypedScopeCreator getTypedScopeCreator() {
       return delegate.getTypedScopeCreator();
     }
@@ -72,6 +72,7 @@ public final class PassNames {
   public static final String MINIMIZE_EXIT_POINTS = "minimizeExitPoints";
   public static final String MOVE_FUNCTION_DECLARATIONS = "moveFunctionDeclarations";
   public static final String NAME_ANONYMOUS_FUNCTIONS = "nameAnonymousFunctions";
+  public static final String NODE_REQUIRE_INLINING = "nodeRequireInlining";
   public static final String NORMALIZE = "normalize";
   public static final String OPTIMIZE_ARGUMENTS_ARRAY = "optimizeArgumentsArray";
   public static final String OPTIMIZE_CALLS = "optimizeCalls";
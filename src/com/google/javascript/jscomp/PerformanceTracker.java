@@ -95,6 +95,17 @@ public final class PerformanceTracker {
   /** Stats a single run of a compiler pass. */
   private final List<Stats> log = new ArrayList<>();
 
+  /** What the require resolution of the compilation took, if it was recorded. */
+  private RequireResolverMetrics requireResolverMetrics;
+
+  // The inputs parsed in parallel, the time their parses took, and the wall time of the parallel
+  // parses, summed over the lists of inputs, see PrebuildAst.
+  private int parallelParseInputs = 0;
+  private int parallelParseThreads = 0;
+  // The CPU time of the threads, -1 once a list is recorded without it.
+  private long parallelParseCpuTime = 0;
+  private long parallelParseWallTime = 0;
+
   PerformanceTracker(Node externsRoot, Node jsRoot, TracerMode mode, PrintStream printStream) {
     checkArgument(mode != TracerMode.OFF, "PerformanceTracker can't work without tracer data.");
     this.startTime = System.currentTimeMillis();
@@ -108,6 +119,24 @@ public final class PerformanceTracker {
     return this.codeChange;
   }
 
+  /** Adds the require resolution of the compilation to the report. */
+  void recordRequireResolution(RequireResolverMetrics metrics) {
+    this.requireResolverMetrics = metrics;
+  }
+
+  /**
+   * Adds a list of inputs parsed on the given number of threads to the report.
+   *
+   * @param cpuTime the CPU time the threads spent parsing, or -1 if it is not known
+   */
+  void recordParallelParse(int inputs, int threads, long cpuTime, long wallTime) {
+    this.parallelParseInputs += inputs;
+    this.parallelParseThreads = Math.max(this.parallelParseThreads, threads);
+    this.parallelParseCpuTime =
+        cpuTime < 0 || this.parallelParseCpuTime < 0 ? -1 : this.parallelParseCpuTime + cpuTime;
+    this.parallelParseWallTime += wallTime;
+  }
+
   void recordPassStart(String passName, boolean isOneTime) {
     this.currentPass.push(new Stats(passName, isOneTime));
     // In Compiler, toSource may be called after every pass X. We don't want it
@@ -410,6 +439,29 @@ public final class PerformanceTracker {
           stats.astDiff, stats.diff, stats.gzDiff, stats.astSize, stats.size, stats.gzSize));
     }
     this.output.print("\n");
+    if (this.parallelParseInputs > 0) {
+      this.output.print(Joiner.on("\n").join(
+          "Parallel parse:",
+          "#Inputs: " + this.parallelParseInputs,
+          "#Threads: " + this.parallelParseThreads,
+          "Wall time(ms): " + this.parallelParseWallTime,
+          ""));
+      if (this.parallelParseCpuTime >= 0) {
+        // The CPU time is about what the parses take on one thread, so the speedup is how many
+        // CPUs were busy parsing at once. It stays near 1 on a machine with one CPU.
+        this.output.print(Joiner.on("\n").join(
+            "CPU time(ms): " + this.parallelParseCpuTime,
+            "Speedup: "
+                + Math.round(
+                        100.0 * this.parallelParseCpuTime / Math.max(1, this.parallelParseWallTime))
+                    / 100.0,
+            ""));
+      }
+      this.output.print("\n");
+    }
+    if (this.requireResolverMetrics != null) {
+      this.requireResolverMetrics.printSummary(this.output);
+    }
     // this.output can be System.out, so don't close it to not lose subsequent
     // error messages. Flush to ensure that you will see the tracer report.
     try {
@@ -16,67 +16,201 @@
 
 package com.google.javascript.jscomp;
 
-import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A helper class to prebuild ASTs from a list of {@link CompilerInput}. Inputs are parsed into ASTs
  * the first time we try to get them. Get them all now using multiple threads, so they'll be parsed
  * in parallel and already available during the rest of the compilation.
+ *
+ * <p>The threads take the inputs one at a time from a shared queue, largest first, so that a
+ * thread that is done with a small file takes the next one instead of waiting for a large one.
+ *
+ * <p>The errors of the parses are buffered by input and reported in the order of the list once
+ * all the inputs are parsed, so they are the same whatever thread parsed what.
+ *
+ * <p>An input is only parsed by the first list it is part of, so a list can be prebuilt again once
+ * more inputs may have been added to it.
+ *
+ * <p>The threads are kept for the parses of a compilation and stopped by {@link #close}.
  */
 class PrebuildAst {
+  // The errors of the input the current thread is parsing, or null if it is not a thread of the
+  // pool.
+  private static final ThreadLocal<List<JSError>> bufferedErrors = new ThreadLocal<>();
+
   private final AbstractCompiler compiler;
   private final int numParallelThreads;
 
+  // Created on the first list with more than one input.
+  private ThreadPoolExecutor poolExecutor;
+  // The inputs of the lists that were prebuilt so far.
+  private final Set<CompilerInput> prebuilt =
+      Collections.newSetFromMap(new IdentityHashMap<CompilerInput, Boolean>());
+
   PrebuildAst(AbstractCompiler compiler, int numParalleThreads) {
     this.compiler = compiler;
     this.numParallelThreads = numParalleThreads;
   }
 
+  /**
+   * Buffers the error if the current thread is parsing an input of a {@link #prebuild}.
+   *
+   * @return whether the error was buffered, so that it should not be reported now
+   */
+  static boolean bufferError(JSError error) {
+    List<JSError> errors = bufferedErrors.get();
+    if (errors == null) {
+      return false;
+    }
+    errors.add(error);
+    return true;
+  }
+
   void prebuild(List<CompilerInput> inputList) {
-    ThreadFactory threadFactory = new ThreadFactory() {
-        @Override
-        public Thread newThread(Runnable r) {
-          Thread t =
-              new Thread(null, r, "jscompiler-PrebuildAst", CompilerExecutor.COMPILER_STACK_SIZE);
-          t.setDaemon(true);  // Do not prevent the JVM from exiting.
-          return t;
+    List<CompilerInput> toParse = new ArrayList<>();
+    for (CompilerInput input : inputList) {
+      if (prebuilt.add(input)) {
+        toParse.add(input);
+      }
+    }
+    final int size = toParse.size();
+    final int numThreads = Math.min(numParallelThreads, size);
+    if (numThreads < 2) {
+      // Parsing on this thread when the AST is first needed is as fast.
+      return;
+    }
+    long startTime = System.nanoTime();
+
+    final CompilerInput[] inputs = toParse.toArray(new CompilerInput[size]);
+    final Integer[] order = new Integer[size];
+    final long[] sizes = new long[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+      sizes[i] = inputs[i].getSourceFile().getSizeEstimate();
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        return Long.compare(sizes[b], sizes[a]);
+      }
+    });
+
+    @SuppressWarnings("unchecked")
+    final List<JSError>[] errors = new List[size];
+    final AtomicInteger next = new AtomicInteger();
+    final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    // The CPU time the threads spent parsing, or -1 if the JVM cannot tell.
+    final AtomicLong cpuNanos =
+        new AtomicLong(threadBean.isCurrentThreadCpuTimeSupported() ? 0 : -1);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final CountDownLatch done = new CountDownLatch(numThreads);
+    Runnable worker = new Runnable() {
+      @Override
+      public void run() {
+        long cpuStart = cpuNanos.get() < 0 ? -1 : threadBean.getCurrentThreadCpuTime();
+        try {
+          // TODO(moz): Support canceling all parsing on the first halting error
+          for (int i = next.getAndIncrement();
+              i < size && failure.get() == null;
+              i = next.getAndIncrement()) {
+            int index = order[i];
+            errors[index] = new ArrayList<>();
+            bufferedErrors.set(errors[index]);
+            inputs[index].getAstRoot(compiler);
+          }
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        } finally {
+          bufferedErrors.remove();
+          if (cpuStart >= 0) {
+            cpuNanos.addAndGet(threadBean.getCurrentThreadCpuTime() - cpuStart);
+          }
+          done.countDown();
         }
+      }
     };
-    ThreadPoolExecutor poolExecutor = new ThreadPoolExecutor(
-        numParallelThreads,
-        numParallelThreads,
-        Integer.MAX_VALUE,
-        TimeUnit.SECONDS,
-        new LinkedBlockingQueue<Runnable>(),
-        threadFactory);
-    ListeningExecutorService executorService = MoreExecutors.listeningDecorator(poolExecutor);
-    List<ListenableFuture<?>> futureList = new ArrayList<>(inputList.size());
-    // TODO(moz): Support canceling all parsing on the first halting error
-    for (final CompilerInput input : inputList) {
-      futureList.add(executorService.submit(new Runnable() {
-        @Override
-        public void run() {
-          input.getAstRoot(compiler);
-        }
-      }));
-    }
 
-    poolExecutor.shutdown();
+    ThreadPoolExecutor executor = getPoolExecutor();
+    for (int i = 0; i < numThreads; i++) {
+      executor.execute(worker);
+    }
     try {
-      Futures.allAsList(futureList).get();
-    } catch (InterruptedException | ExecutionException e) {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new RuntimeException(e);
     }
+
+    Throwable t = failure.get();
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    } else if (t instanceof Error) {
+      throw (Error) t;
+    } else if (t != null) {
+      throw new RuntimeException(t);
+    }
+
+    for (List<JSError> inputErrors : errors) {
+      for (JSError error : inputErrors) {
+        compiler.report(error);
+      }
+    }
+
+    PerformanceTracker tracker = compiler.getPerformanceTracker();
+    if (tracker != null) {
+      long cpuTime = cpuNanos.get();
+      tracker.recordParallelParse(
+          size,
+          numThreads,
+          cpuTime < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(cpuTime),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
   }
 
+  /** Stops the threads. */
+  void close() {
+    if (poolExecutor != null) {
+      poolExecutor.shutdown();
+      poolExecutor = null;
+    }
+  }
+
+  private ThreadPoolExecutor getPoolExecutor() {
+    if (poolExecutor == null) {
+      ThreadFactory threadFactory = new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread t =
+                new Thread(null, r, "jscompiler-PrebuildAst", CompilerExecutor.COMPILER_STACK_SIZE);
+            t.setDaemon(true);  // Do not prevent the JVM from exiting.
+            return t;
+          }
+      };
+      poolExecutor = new ThreadPoolExecutor(
+          numParallelThreads,
+          numParallelThreads,
+          Integer.MAX_VALUE,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          threadFactory);
+    }
+    return poolExecutor;
+  }
 }
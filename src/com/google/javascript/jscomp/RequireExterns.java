@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * The externs of the files that the require resolver compiles on its own. Each extern is parsed
+ * once, by the first compilation that needs it, and every compilation gets its own copy of the
+ * tree, since the passes change the externs they are given.
+ */
+final class RequireExterns {
+  private final ImmutableList<SourceFile> files;
+  private final ImmutableList<JsAst> asts;
+
+  RequireExterns(@Nullable List<SourceFile> externs) {
+    this.files = externs == null ? ImmutableList.<SourceFile>of() : ImmutableList.copyOf(externs);
+    ImmutableList.Builder<JsAst> asts = ImmutableList.builder();
+    for (SourceFile file : files) {
+      asts.add(new JsAst(file));
+    }
+    this.asts = asts.build();
+  }
+
+  ImmutableList<SourceFile> getFiles() {
+    return files;
+  }
+
+  /** Makes {@code compiler} use a copy of the parsed externs instead of parsing them again. */
+  void addTo(Compiler compiler) {
+    List<CompilerInput> inputs = new ArrayList<>(asts.size());
+    for (JsAst ast : asts) {
+      // The outermost compilation has reported any parse errors in the externs already.
+      inputs.add(new CompilerInput(new RecoverableJsAst(ast, false), /* isExtern= */ true));
+    }
+    compiler.setExternInputs(inputs);
+  }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.javascript.jscomp.RequireResolverLog.Level;
+import com.google.javascript.jscomp.deps.NodeRequireScanner;
+import com.google.javascript.rhino.Node;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Every file a compilation requires, directly or not, resolved and compiled in parallel before
+ * any require is inlined (--parallel_resolve).
+ *
+ * <p>Without this a required file is only resolved and compiled once the require naming it is
+ * reached, one file after the other. Here a file is queued on a pool of compiler threads as soon
+ * as it is found. Its requires are found by a {@link NodeRequireScanner} and resolved first, so
+ * the files they name are queued before it is compiled itself. Only a file with dynamic requires
+ * waits for its compiled output, where folding may have turned them into string literals. Each
+ * file is compiled exactly once, without the inlining pass, and with its own copy of the options,
+ * as a compilation adds to the warnings guard of its options.
+ *
+ * <p>With --compiled_module_cache a file whose content was compiled before, in any project, is
+ * parsed from the {@link CompiledModuleCache} instead. With --watch the files that did not change
+ * since the last compilation are taken from a {@link RequireModuleStore} without being scanned or
+ * parsed again.
+ *
+ * <p>{@link NodeRequireResolver} then takes the compiled scripts out of the graph while it inlines
+ * the requires in DFS order, so the global variables are numbered exactly as in a sequential run.
+ */
+final class RequireModuleGraph {
+  private final NodeRequireResolver resolver;
+  private final CompilerOptions options;
+  private final RequireExterns externs;
+  private final int threads;
+  @Nullable private final RequireModuleStore store;
+  @Nullable private final RequireResolverMetrics metrics;
+
+  // (directory, module name) -> what it resolved to, absent if it was not found.
+  private final ConcurrentMap<String, Optional<String>> resolved = new ConcurrentHashMap<>();
+  // Every .js file that was queued -> its compiled scripts, absent if it did not compile.
+  private final ConcurrentMap<String, Optional<Node>> compiled = new ConcurrentHashMap<>();
+  // Every file a require resolved to, compiled or not.
+  private final Set<String> queued = ConcurrentHashMap.newKeySet();
+  // One party for build() and one for every compilation that is queued or running.
+  private final Phaser pending = new Phaser(1);
+  private ExecutorService pool;
+  // What the files are compiled with, for the keys of the compiled module cache; null when there
+  // is no cache or it could not be computed.
+  @Nullable private String cacheSettings;
+
+  RequireModuleGraph(
+      NodeRequireResolver resolver, CompilerOptions options, @Nullable List<SourceFile> externs) {
+    this(resolver, options, externs, Runtime.getRuntime().availableProcessors());
+  }
+
+  @VisibleForTesting
+  RequireModuleGraph(
+      NodeRequireResolver resolver,
+      CompilerOptions options,
+      @Nullable List<SourceFile> externs,
+      int threads) {
+    this.resolver = resolver;
+    this.options = options;
+    this.externs = new RequireExterns(externs);
+    this.threads = threads;
+    this.store = options.getRequireModuleStore();
+    this.metrics = resolver.getMetrics();
+  }
+
+  /** Resolves the requires under {@code root} and compiles everything they lead to. */
+  void build(Node root) {
+    if (resolver.getCompiledModuleCache() != null) {
+      try {
+        cacheSettings =
+            CompiledModuleCache.settings(
+                options.serializeForCompiledModuleCache(), externs.getFiles());
+      } catch (IOException e) {
+        resolver.ReqResLog(
+            Level.IMPORTANT, "Not using the compiled module cache: " + e);
+      }
+    }
+    pool =
+        Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactory() {
+              private final AtomicInteger count = new AtomicInteger();
+
+              @Override
+              public Thread newThread(Runnable r) {
+                // Compilations recurse as deep as the AST, like on the compiler's own thread.
+                Thread thread =
+                    new Thread(
+                        null,
+                        r,
+                        "require-graph-" + count.incrementAndGet(),
+                        CompilerExecutor.COMPILER_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+    try {
+      resolveRequires(root);
+      pending.arriveAndAwaitAdvance();
+      if (store != null) {
+        store.retainAll(queued);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  boolean isResolved(String directory, String moduleName) {
+    return resolved.containsKey(key(directory, moduleName));
+  }
+
+  /** What the require resolved to, as {@link NodeRequireResolver#resolveModule} returns it. */
+  @Nullable
+  String getResolved(String directory, String moduleName) {
+    Optional<String> path = resolved.get(key(directory, moduleName));
+    return path == null ? null : path.orNull();
+  }
+
+  /** Whether {@code path} was compiled and not taken yet. */
+  boolean contains(String path) {
+    return compiled.containsKey(path);
+  }
+
+  /** Removes and returns the root of the compiled scripts of {@code path}, null if it failed. */
+  @Nullable
+  Node takeCompiled(String path) {
+    Optional<Node> root = compiled.remove(path);
+    return root == null ? null : root.orNull();
+  }
+
+  /** Number of files that were compiled and not taken yet. */
+  int size() {
+    return compiled.size();
+  }
+
+  private static String key(String directory, String moduleName) {
+    return directory + '\0' + moduleName;
+  }
+
+  private void resolveRequires(Node root) {
+    Map<String, List<String>> requests = new LinkedHashMap<>();
+    collectRequires(root, requests);
+    resolveRequires(requests);
+  }
+
+  private void resolveRequires(Map<String, List<String>> requests) {
+    if (!resolver.resolvesNatively()) {
+      resolver.prefetchRequirePaths(requests);
+    }
+    for (Map.Entry<String, List<String>> request : requests.entrySet()) {
+      String directory = request.getKey();
+      for (String moduleName : request.getValue()) {
+        if (isResolved(directory, moduleName)) {
+          continue;
+        }
+        String path = resolver.resolveModule(directory, moduleName);
+        resolved.put(key(directory, moduleName), Optional.fromNullable(path));
+        if (path == null || !queued.add(path)) {
+          continue;
+        }
+        if (path.toLowerCase(Locale.ROOT).endsWith(".js")) {
+          queue(path);
+        } else if (store != null) {
+          storeRead(path);
+        }
+      }
+    }
+  }
+
+  private void collectRequires(Node n, Map<String, List<String>> requests) {
+    if (n.isCall() && resolver.isRequireCallee(n.getFirstChild())) {
+      Node arg = n.getSecondChild();
+      if (arg != null && arg.isString()) {
+        addRequire(requests, resolver.requireDirectory(n), arg.getString());
+      }
+    }
+    for (Node c = n.getFirstChild(); c != null; c = c.getNext()) {
+      collectRequires(c, requests);
+    }
+  }
+
+  private static void addRequire(
+      Map<String, List<String>> requests, String directory, String moduleName) {
+    if (!requests.containsKey(directory)) {
+      requests.put(directory, new ArrayList<String>());
+    }
+    requests.get(directory).add(moduleName.replace("\\\\", "\\").replace("\\", "/"));
+  }
+
+  /** Records the hash of a required file that is inlined as it is, like JSON, for --watch. */
+  private void storeRead(String path) {
+    File file = new File(path);
+    if (!file.isFile()) {
+      return;
+    }
+    try {
+      store.putRead(path, RequireModuleStore.digest(Files.asCharSource(file, UTF_8).read()));
+    } catch (IOException e) {
+      resolver.ReqResLog(Level.IMPORTANT, "Could not read for --watch: " + e, null, path, -1);
+    }
+  }
+
+  private void queue(final String path) {
+    pending.register();
+    pool.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              long start = System.nanoTime();
+              String code = Files.asCharSource(new File(path), UTF_8).read();
+              // With --watch a file that did not change is taken from the last compilation.
+              String digest = store == null ? null : RequireModuleStore.digest(code);
+              RequireModuleStore.Module stored = store == null ? null : store.get(path, digest);
+              NodeRequireScanner scanner =
+                  stored == null ? NodeRequireScanner.scan(code) : stored.getRequires();
+              Map<String, List<String>> requests = new LinkedHashMap<>();
+              String directory = path.substring(0, path.lastIndexOf('/') + 1);
+              for (String moduleName : scanner.getRequires()) {
+                addRequire(requests, directory, moduleName);
+              }
+              resolveRequires(requests);
+
+              Node root;
+              if (stored == null) {
+                root = compile(path, code);
+                if (store != null) {
+                  store.put(path, digest, scanner, root);
+                }
+              } else {
+                long taken = System.nanoTime();
+                root = stored.getCompiled();
+                recordCompile(path, RequireResolverMetrics.COMPILED_BY_STORE, taken);
+              }
+              compiled.put(path, Optional.fromNullable(root));
+              resolver.ReqResLog(
+                  Level.TRACE,
+                  stored == null
+                      ? "Compiled for the module graph"
+                      : "Unchanged since the last compilation",
+                  null,
+                  path,
+                  System.nanoTime() - start);
+              if (root != null && scanner.hasDynamicRequires()) {
+                resolveRequires(root);
+              }
+            } catch (IOException | RuntimeException e) {
+              compiled.put(path, Optional.<Node>absent());
+              resolver.ReqResLog(
+                  Level.IMPORTANT, "Could not compile for the module graph: " + e, null, path, -1);
+            } finally {
+              pending.arriveAndDeregister();
+            }
+          }
+        });
+  }
+
+  private void recordCompile(String path, String compiledBy, long start) {
+    if (metrics != null) {
+      metrics.recordCompile(path, compiledBy, System.nanoTime() - start, new File(path).length());
+    }
+  }
+
+  @Nullable
+  private Node compile(String path, String code) {
+    long start = System.nanoTime();
+    CompiledModuleCache cache = cacheSettings == null ? null : resolver.getCompiledModuleCache();
+    String key = null;
+    if (cache != null) {
+      key = CompiledModuleCache.key(code, cacheSettings);
+      String cached = cache.get(key);
+      if (metrics != null) {
+        metrics.recordCompiledModuleCache(cached != null);
+      }
+      if (cached != null) {
+        Node root = resolver.parseCompiledCode(path, cached);
+        if (root != null) {
+          recordCompile(path, RequireResolverMetrics.COMPILED_BY_CACHE, start);
+          return root;
+        }
+      }
+    }
+
+    Compiler compiler = new Compiler(System.err);
+    compiler.disableThreads();
+    externs.addTo(compiler);
+    // The requires are inlined by the outermost compilation, once the whole graph is compiled.
+    // Compiler.initOptions adds to the warnings guard of the options it is given, so every
+    // compilation gets its own copy of them.
+    CompilerOptions options = this.options.copyForRequiredFile();
+    compiler.setPassConfig(
+        new PassConfig.PassConfigDelegate(new DefaultPassConfig(options)) {
+          @Override
+          protected List<PassFactory> getFinalizations() {
+            return ImmutableList.of();
+          }
+        });
+    Result result =
+        compiler.compile(
+            ImmutableList.<SourceFile>of(),
+            ImmutableList.of(SourceFile.fromCode(path, code)),
+            options);
+    recordCompile(path, RequireResolverMetrics.COMPILED_BY_GRAPH, start);
+    if (!result.success) {
+      return null;
+    }
+    if (cache != null) {
+      try {
+        cache.put(key, compiler.toSource());
+      } catch (IOException e) {
+        resolver.ReqResLog(
+            Level.IMPORTANT, "Could not store in the compiled module cache: " + e, null, path, -1);
+      }
+    }
+    return compiler.getJsRoot();
+  }
+}
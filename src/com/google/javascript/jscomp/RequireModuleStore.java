@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.deps.NodeRequireScanner;
+import com.google.javascript.rhino.Node;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the required files of a {@link RequireModuleGraph} between the compilations of --watch,
+ * keyed by the hash of their content, much like {@link PersistentInputStore} keeps the inputs of
+ * a worker by their digest.
+ *
+ * <p>A file whose content did not change since the last compilation is neither scanned nor
+ * compiled again: the graph takes its requires and a copy of its compiled scripts from here. Its
+ * requires are still resolved, which the {@link RequireResolutionCache} answers unless one of the
+ * directories or package.json files they depend on changed, and all requires are inlined again,
+ * as a change anywhere may renumber the global variables of the files after it in DFS order.
+ *
+ * <p>A store can be used from several threads at once.
+ */
+final class RequireModuleStore {
+  /** What is kept of one file. */
+  static final class Module {
+    private final String digest;
+    private final NodeRequireScanner requires;
+    // Never handed out, inlining changes the scripts it is given.
+    @Nullable private final Node compiled;
+
+    private Module(String digest, NodeRequireScanner requires, @Nullable Node compiled) {
+      this.digest = digest;
+      this.requires = requires;
+      this.compiled = compiled;
+    }
+
+    NodeRequireScanner getRequires() {
+      return requires;
+    }
+
+    /** A copy of the root of the compiled scripts, null if the file did not compile. */
+    @Nullable
+    Node getCompiled() {
+      return compiled == null ? null : compiled.cloneTree();
+    }
+  }
+
+  private final ConcurrentMap<String, Module> modules = new ConcurrentHashMap<>();
+  // Required files that are read as they are instead of compiled, like JSON, and their hash.
+  private final ConcurrentMap<String, String> readFiles = new ConcurrentHashMap<>();
+
+  /** The hash the content of a file is kept under. */
+  static String digest(String code) {
+    return Hashing.murmur3_128().hashString(code, UTF_8).toString();
+  }
+
+  /** What was kept of {@code path} if its content still has {@code digest}, null otherwise. */
+  @Nullable
+  Module get(String path, String digest) {
+    Module module = modules.get(path);
+    return module != null && module.digest.equals(digest) ? module : null;
+  }
+
+  /** Keeps a copy of the compiled scripts of {@code path}, replacing an older version. */
+  void put(String path, String digest, NodeRequireScanner requires, @Nullable Node compiled) {
+    modules.put(
+        path, new Module(digest, requires, compiled == null ? null : compiled.cloneTree()));
+  }
+
+  /**
+   * Records the hash of a required file that is not compiled, so that --watch notices when it
+   * changes too.
+   */
+  void putRead(String path, String digest) {
+    readFiles.put(path, digest);
+  }
+
+  /** Forgets the files that were not part of the last compilation. */
+  void retainAll(Iterable<String> paths) {
+    ImmutableSet<String> retained = ImmutableSet.copyOf(paths);
+    modules.keySet().retainAll(retained);
+    readFiles.keySet().retainAll(retained);
+  }
+
+  /**
+   * The files that are kept or were read, and the hash of the content they were compiled or read
+   * with.
+   */
+  ImmutableMap<String, String> getDigests() {
+    ImmutableMap.Builder<String, String> digests = ImmutableMap.builder();
+    for (Map.Entry<String, Module> module : modules.entrySet()) {
+      digests.put(module.getKey(), module.getValue().digest);
+    }
+    for (Map.Entry<String, String> file : readFiles.entrySet()) {
+      if (!modules.containsKey(file.getKey())) {
+        digests.put(file.getKey(), file.getValue());
+      }
+    }
+    return digests.build();
+  }
+}
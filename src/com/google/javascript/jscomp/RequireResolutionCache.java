@@ -0,0 +1,332 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Remembers what {@code require.resolve} answered for a (directory, module name) pair, in memory
+ * and across runs.
+ *
+ * <p>Every answer is stored with the modification times of the directories and package.json
+ * files it was derived from. An answer read from disk is only used again if none of those have
+ * changed, so a repeated run over an unchanged tree does not resolve anything.
+ *
+ * <p>The index file is small and binary: a string table followed by the entries, which refer to
+ * strings by their position in the table. It is merged with whatever is on disk and replaced
+ * atomically when saved, because the child processes of a resolution share the same file.
+ *
+ * <p>A cache can be used from several threads at once.
+ */
+final class RequireResolutionCache {
+  private static final int MAGIC = 0x52524331; // "RRC1"
+
+  /** Name of the index file, created next to the DFS mapping. */
+  static final String FILE_NAME = "requireResolveCache.bin";
+
+  // The caches created by nextTo, one per index file, saved when the JVM exits.
+  private static final Map<File, RequireResolutionCache> openCaches = new HashMap<>();
+
+  /** A cached answer. */
+  static final class Entry {
+    @Nullable private final String path;
+    private final ImmutableMap<String, Long> stamps;
+    // Whether the stamps were checked against the file system during this run.
+    private boolean verified;
+
+    Entry(@Nullable String path, ImmutableMap<String, Long> stamps, boolean verified) {
+      this.path = path;
+      this.stamps = stamps;
+      this.verified = verified;
+    }
+
+    /** The resolved path, the module name for core modules, or null if it was not found. */
+    @Nullable
+    String getPath() {
+      return path;
+    }
+  }
+
+  private final File file;
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private boolean dirty = false;
+
+  private int hits = 0;
+  private int misses = 0;
+
+  RequireResolutionCache(@Nullable File file) {
+    this.file = file;
+  }
+
+  /**
+   * Returns the cache stored next to {@code dfsLog}. The first call for a folder loads what an
+   * earlier run left there and makes sure the cache is saved when the JVM exits.
+   */
+  static synchronized RequireResolutionCache nextTo(String dfsLog) {
+    File parent = new File(dfsLog).getAbsoluteFile().getParentFile();
+    File file = new File(parent, FILE_NAME);
+    RequireResolutionCache cache = openCaches.get(file);
+    if (cache == null) {
+      cache = new RequireResolutionCache(file);
+      cache.load();
+      openCaches.put(file, cache);
+      final RequireResolutionCache toSave = cache;
+      Runtime.getRuntime()
+          .addShutdownHook(
+              new Thread() {
+                @Override
+                public void run() {
+                  try {
+                    toSave.save();
+                  } catch (IOException e) {
+                    System.err.println("Could not save the require resolution cache: " + e);
+                  }
+                }
+              });
+    }
+    return cache;
+  }
+
+  private static String key(String directory, String moduleName) {
+    return directory + '\0' + moduleName;
+  }
+
+  /** Returns the cached answer if it is still valid, or null on a miss. */
+  @Nullable
+  synchronized Entry lookup(String directory, String moduleName) {
+    Entry entry = getValid(key(directory, moduleName));
+    if (entry == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return entry;
+  }
+
+  /** Whether there is a valid answer for the pair, without counting it as a lookup. */
+  synchronized boolean contains(String directory, String moduleName) {
+    return getValid(key(directory, moduleName)) != null;
+  }
+
+  @Nullable
+  private Entry getValid(String key) {
+    Entry entry = entries.get(key);
+    if (entry != null && !entry.verified) {
+      if (isCurrent(entry.stamps)) {
+        entry.verified = true;
+      } else {
+        entries.remove(key);
+        dirty = true;
+        entry = null;
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Makes every answer check the modification times it depends on again before it is used, for
+   * a compilation that starts after files may have changed.
+   */
+  synchronized void reverify() {
+    for (Entry entry : entries.values()) {
+      entry.verified = false;
+    }
+  }
+
+  /** Remembers an answer together with the files and directories it depends on. */
+  void put(String directory, String moduleName, @Nullable String path, Set<String> dependencies) {
+    ImmutableMap.Builder<String, Long> stamps = ImmutableMap.builder();
+    for (String dependency : dependencies) {
+      stamps.put(dependency, new File(dependency).lastModified());
+    }
+    Entry entry = new Entry(path, stamps.build(), true);
+    synchronized (this) {
+      entries.put(key(directory, moduleName), entry);
+      dirty = true;
+    }
+  }
+
+  /**
+   * What an answer from a node process is assumed to depend on, since node does not say which
+   * files it looked at: every folder on the node_modules walk and the folder of the result.
+   */
+  static Set<String> nodeLookupDependencies(String directory, @Nullable String path) {
+    Set<String> dependencies = new LinkedHashSet<>();
+    for (File dir = new File(directory).getAbsoluteFile(); dir != null; dir = dir.getParentFile()) {
+      dependencies.add(dir.getPath());
+      dependencies.add(new File(dir, "node_modules").getPath());
+    }
+    if (path != null && new File(path).isAbsolute()) {
+      File parent = new File(path).getParentFile();
+      dependencies.add(parent.getPath());
+      dependencies.add(new File(parent, "package.json").getPath());
+    }
+    return dependencies;
+  }
+
+  synchronized int getHits() {
+    return hits;
+  }
+
+  synchronized int getMisses() {
+    return misses;
+  }
+
+  @VisibleForTesting
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private static boolean isCurrent(Map<String, Long> stamps) {
+    for (Map.Entry<String, Long> stamp : stamps.entrySet()) {
+      // lastModified() is 0 for files that do not exist, which is also what was recorded for
+      // the ones that did not exist back then.
+      if (new File(stamp.getKey()).lastModified() != stamp.getValue()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Reads the index file, keeping what is already in memory. */
+  synchronized void load() {
+    if (file == null || !file.isFile()) {
+      return;
+    }
+    Map<String, Entry> loaded = read(file);
+    for (Map.Entry<String, Entry> entry : loaded.entrySet()) {
+      if (!entries.containsKey(entry.getKey())) {
+        entries.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /** Writes the index file if anything changed, merged with entries other processes added. */
+  synchronized void save() throws IOException {
+    if (file == null || !dirty) {
+      return;
+    }
+    Map<String, Entry> merged = new LinkedHashMap<>();
+    if (file.isFile()) {
+      merged.putAll(read(file));
+    }
+    merged.putAll(entries);
+
+    File temp = File.createTempFile(FILE_NAME, ".tmp", file.getAbsoluteFile().getParentFile());
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        write(merged, out);
+      }
+      Files.move(
+          temp.toPath(),
+          file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      temp.delete();
+    }
+    dirty = false;
+  }
+
+  private static void write(Map<String, Entry> entries, DataOutputStream out) throws IOException {
+    // Directories show up in many entries, so every string is written once.
+    Map<String, Integer> strings = new HashMap<>();
+    List<String> table = new ArrayList<>();
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      intern(entry.getKey(), strings, table);
+      if (entry.getValue().path != null) {
+        intern(entry.getValue().path, strings, table);
+      }
+      for (String dependency : entry.getValue().stamps.keySet()) {
+        intern(dependency, strings, table);
+      }
+    }
+
+    out.writeInt(MAGIC);
+    out.writeInt(table.size());
+    for (String s : table) {
+      out.writeUTF(s);
+    }
+    out.writeInt(entries.size());
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      Entry value = entry.getValue();
+      out.writeInt(strings.get(entry.getKey()));
+      out.writeInt(value.path == null ? -1 : strings.get(value.path));
+      out.writeInt(value.stamps.size());
+      for (Map.Entry<String, Long> stamp : value.stamps.entrySet()) {
+        out.writeInt(strings.get(stamp.getKey()));
+        out.writeLong(stamp.getValue());
+      }
+    }
+  }
+
+  private static void intern(String s, Map<String, Integer> strings, List<String> table) {
+    if (!strings.containsKey(s)) {
+      strings.put(s, table.size());
+      table.add(s);
+    }
+  }
+
+  /** Reads an index file. A file that is missing, old or damaged is treated as empty. */
+  private static Map<String, Entry> read(File file) {
+    Map<String, Entry> entries = new LinkedHashMap<>();
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        return entries;
+      }
+      String[] table = new String[in.readInt()];
+      for (int i = 0; i < table.length; i++) {
+        table[i] = in.readUTF();
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String key = table[in.readInt()];
+        int path = in.readInt();
+        int stampCount = in.readInt();
+        ImmutableMap.Builder<String, Long> stamps = ImmutableMap.builder();
+        for (int j = 0; j < stampCount; j++) {
+          stamps.put(table[in.readInt()], in.readLong());
+        }
+        entries.put(key, new Entry(path < 0 ? null : table[path], stamps.build(), false));
+      }
+    } catch (IOException | RuntimeException e) {
+      entries.clear();
+    }
+    return entries;
+  }
+}
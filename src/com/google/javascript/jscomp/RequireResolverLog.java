@@ -0,0 +1,279 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * The log of the require resolver (--require_resolve_log_location).
+ *
+ * <p>There is one log per file and level in a JVM. The file is opened once, messages are
+ * collected in memory and a background thread writes them out a few times a second, on {@link
+ * #flush} and when the JVM exits. Each message is one line: its level, the text and optionally
+ * the module name, the path it resolved to and how long the work took.
+ *
+ * <pre>
+ * [INFO] Wrapping required file module="./lib/a" path="/src/lib/a.js"
+ * [TRACE] Compiled in process path="/src/lib/a.js" duration=12.3ms
+ * </pre>
+ *
+ * <p>Messages below the level given with --rr_log_level are dropped before anything is formatted,
+ * and with {@code off} the file is never opened. Callers that have to build an expensive message
+ * should check {@link #isEnabled} first.
+ */
+final class RequireResolverLog {
+  /** Levels of the log, from the most to the least chatty. */
+  enum Level {
+    TRACE,
+    INFO,
+    IMPORTANT,
+    VERY_IMPORTANT,
+    /** Only used as a threshold: nothing is logged. */
+    OFF;
+
+    /** Parses the value of --rr_log_level; anything unknown logs everything, as before. */
+    static Level fromString(@Nullable String value) {
+      if (value != null) {
+        String name = value.trim().toUpperCase(Locale.ROOT).replace('-', '_').replace(' ', '_');
+        for (Level level : values()) {
+          if (level.name().equals(name)) {
+            return level;
+          }
+        }
+      }
+      return TRACE;
+    }
+  }
+
+  private static final long FLUSH_INTERVAL_MILLIS = 250;
+  // Past this many buffered chars a flush is requested without waiting for the next interval.
+  private static final int EAGER_FLUSH_SIZE = 1 << 16;
+
+  // The logs that are open, keyed by file and level, so every compilation in the JVM shares them.
+  private static final Map<String, RequireResolverLog> openLogs = new HashMap<>();
+
+  private final Level threshold;
+  @Nullable private final Writer out;
+  @Nullable private final PrintStream fallback;
+  private final Object writeLock = new Object();
+  @Nullable private final String key;
+  private StringBuilder pending = new StringBuilder();
+  @Nullable private final ScheduledExecutorService flusher;
+  private boolean closed = false;
+
+  private RequireResolverLog(
+      Level threshold,
+      @Nullable Writer out,
+      @Nullable PrintStream fallback,
+      @Nullable String key) {
+    this.threshold = threshold;
+    this.key = key;
+    this.out = out;
+    this.fallback = fallback;
+    if (threshold == Level.OFF) {
+      this.flusher = null;
+      return;
+    }
+    this.flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("require-resolver-log")
+                .build());
+    this.flusher.scheduleWithFixedDelay(
+        new Runnable() {
+          @Override
+          public void run() {
+            flush();
+          }
+        },
+        FLUSH_INTERVAL_MILLIS,
+        FLUSH_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread() {
+              @Override
+              public void run() {
+                close();
+              }
+            });
+  }
+
+  /**
+   * Opens the log at {@code location}, emptying it first if {@code reset} is set. If the log is
+   * already open in this JVM it is shared instead, and not emptied again. If the file cannot be
+   * opened the messages go to stderr.
+   */
+  static synchronized RequireResolverLog open(String location, boolean reset, Level threshold) {
+    if (threshold == Level.OFF) {
+      return new RequireResolverLog(threshold, null, null, null);
+    }
+    String key = new File(location).getAbsolutePath() + '\0' + threshold;
+    RequireResolverLog open = openLogs.get(key);
+    if (open != null) {
+      return open;
+    }
+    try {
+      if (reset) {
+        new FileOutputStream(location, false).close();
+      }
+      // Always in append mode, so writes land after whatever child processes added meanwhile.
+      Writer out =
+          new BufferedWriter(new OutputStreamWriter(new FileOutputStream(location, true), UTF_8));
+      RequireResolverLog log = new RequireResolverLog(threshold, out, null, key);
+      openLogs.put(key, log);
+      if (reset) {
+        log.log(Level.VERY_IMPORTANT, "Log file \"" + location + "\" has been reset.");
+      }
+      return log;
+    } catch (IOException e) {
+      System.err.println("Could not open the require resolver log " + location + ": " + e);
+      return toStream(System.err, threshold);
+    }
+  }
+
+  /** A log that writes to {@code stream}, used when there is no log file. */
+  static RequireResolverLog toStream(PrintStream stream, Level threshold) {
+    return new RequireResolverLog(threshold, null, stream, null);
+  }
+
+  boolean isEnabled(Level level) {
+    return level.compareTo(threshold) >= 0 && level != Level.OFF;
+  }
+
+  void log(Level level, String message) {
+    log(level, message, null, null, -1);
+  }
+
+  /**
+   * Logs a message with the fields that apply to it.
+   *
+   * @param module the name that was required, or null
+   * @param path the file it was resolved to, or null
+   * @param durationNanos how long it took, or a negative number
+   */
+  void log(
+      Level level,
+      String message,
+      @Nullable String module,
+      @Nullable String path,
+      long durationNanos) {
+    if (!isEnabled(level)) {
+      return;
+    }
+    StringBuilder line = new StringBuilder(message.length() + 64);
+    line.append('[').append(level.name()).append("] ").append(message.trim());
+    if (module != null) {
+      line.append(" module=\"").append(module).append('"');
+    }
+    if (path != null) {
+      line.append(" path=\"").append(path).append('"');
+    }
+    if (durationNanos >= 0) {
+      line.append(String.format(Locale.ROOT, " duration=%.1fms", durationNanos / 1e6));
+    }
+    line.append('\n');
+
+    boolean eager;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      pending.append(line);
+      eager = pending.length() > EAGER_FLUSH_SIZE;
+    }
+    if (eager) {
+      flusher.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              flush();
+            }
+          });
+    }
+  }
+
+  /** Writes out everything logged so far, e.g. before a child process appends to the same file. */
+  void flush() {
+    synchronized (writeLock) {
+      StringBuilder toWrite;
+      synchronized (this) {
+        if (pending.length() == 0) {
+          return;
+        }
+        toWrite = pending;
+        pending = new StringBuilder();
+      }
+      try {
+        if (out != null) {
+          out.append(toWrite);
+          out.flush();
+        } else if (fallback != null) {
+          fallback.print(toWrite);
+          fallback.flush();
+        }
+      } catch (IOException e) {
+        System.err.println("Could not write the require resolver log: " + e);
+      }
+    }
+  }
+
+  /** Flushes and closes the file. Messages logged afterwards are dropped. */
+  void close() {
+    flush();
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    if (key != null) {
+      synchronized (RequireResolverLog.class) {
+        openLogs.remove(key);
+      }
+    }
+    if (flusher != null) {
+      flusher.shutdown();
+    }
+    if (out != null) {
+      synchronized (writeLock) {
+        try {
+          out.close();
+        } catch (IOException e) {
+          // Nothing left to do with it.
+        }
+      }
+    }
+  }
+}
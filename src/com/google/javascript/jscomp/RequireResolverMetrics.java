@@ -0,0 +1,388 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.javascript.rhino.Node;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Where the time of a require resolution goes, per required file and in total
+ * (--require_resolve_report, or --tracer_mode).
+ *
+ * <p>One object is shared by the outermost compilation and every compilation of a required file
+ * in the same JVM, the way the {@link RequireResolverLog} is. For each file it records:
+ *
+ * <ul>
+ *   <li>depth: how many files were being inlined when it was first required, 1 for a file the
+ *       input requires itself;
+ *   <li>requires: how many requires named it, the first one included;
+ *   <li>resolve time: the time spent resolving those requires, and how many came from the {@link
+ *       RequireResolutionCache};
+ *   <li>compile time: the time spent compiling the file alone, without the files it requires, and
+ *       how it was compiled: by the module graph, in process, in a child process, taken from the
+ *       {@link RequireModuleStore} or the {@link CompiledModuleCache}, or as JSON;
+ *   <li>require time: the time it took to replace its first require, the files it requires
+ *       included;
+ *   <li>bytes read from its file, and the estimated size of the code it adds to the output,
+ *       without the files it requires.
+ * </ul>
+ *
+ * <p>A file compiled in a child process is one entry: the files it requires are resolved by
+ * another JVM, which only shows up in the number of subprocesses.
+ *
+ * <p>The report is written as JSON by {@link #writeReport} and added to the tracer report by
+ * {@link PerformanceTracker}.
+ */
+final class RequireResolverMetrics {
+  /** Version of the report format, changed whenever a field changes meaning. */
+  static final int REPORT_VERSION = 1;
+
+  static final String COMPILED_BY_GRAPH = "module graph";
+  static final String COMPILED_BY_STORE = "module store";
+  static final String COMPILED_BY_CACHE = "compiled module cache";
+  static final String COMPILED_BY_IN_PROCESS = "in process";
+  static final String COMPILED_BY_CHILD_PROCESS = "child process";
+  static final String COMPILED_BY_JSON = "json";
+
+  /** What was recorded about one required file. */
+  static final class Module {
+    private final String path;
+    private int depth = 0;
+    private int requires = 0;
+    private long resolveNanos = 0;
+    private int resolutionCacheHits = 0;
+    private long compileNanos = 0;
+    @Nullable private String compiledBy = null;
+    private long requireNanos = 0;
+    private long bytesRead = 0;
+    private long bytesEmitted = 0;
+
+    private Module(String path) {
+      this.path = path;
+    }
+
+    String getPath() {
+      return path;
+    }
+
+    int getDepth() {
+      return depth;
+    }
+
+    int getRequires() {
+      return requires;
+    }
+
+    long getResolveNanos() {
+      return resolveNanos;
+    }
+
+    long getCompileNanos() {
+      return compileNanos;
+    }
+
+    @Nullable
+    String getCompiledBy() {
+      return compiledBy;
+    }
+
+    long getRequireNanos() {
+      return requireNanos;
+    }
+
+    long getBytesRead() {
+      return bytesRead;
+    }
+
+    long getBytesEmitted() {
+      return bytesEmitted;
+    }
+  }
+
+  // A require being replaced, and what the requires inlined inside it took.
+  private static final class Frame {
+    private final String path;
+    private final long start = System.nanoTime();
+    private long childNanos = 0;
+    private long childBytes = 0;
+
+    Frame(String path) {
+      this.path = path;
+    }
+  }
+
+  private final long start = System.nanoTime();
+  private long wallNanos = -1;
+
+  // In the order the files were first seen. Guarded by this, the module graph records from its
+  // threads.
+  private final Map<String, Module> modules = new LinkedHashMap<>();
+  // Only used by the thread inlining the requires.
+  private final Deque<Frame> frames = new ArrayDeque<>();
+  private int maxDepth = 0;
+
+  private final AtomicInteger requires = new AtomicInteger();
+  private final AtomicInteger duplicateRequires = new AtomicInteger();
+  private final AtomicInteger unresolvedRequires = new AtomicInteger();
+  private final AtomicInteger resolutions = new AtomicInteger();
+  private final AtomicInteger resolutionCacheHits = new AtomicInteger();
+  private final AtomicInteger compiledModuleCacheHits = new AtomicInteger();
+  private final AtomicInteger compiledModuleCacheMisses = new AtomicInteger();
+  private final AtomicInteger subprocesses = new AtomicInteger();
+
+  private synchronized Module module(String path) {
+    Module module = modules.get(path);
+    if (module == null) {
+      module = new Module(path);
+      modules.put(path, module);
+    }
+    return module;
+  }
+
+  /** A require was resolved to {@code path}, null if it was not found. */
+  void recordResolution(@Nullable String path, long nanos, boolean fromCache) {
+    resolutions.incrementAndGet();
+    if (fromCache) {
+      resolutionCacheHits.incrementAndGet();
+    }
+    if (path == null) {
+      return;
+    }
+    Module module = module(path);
+    synchronized (this) {
+      module.resolveNanos += nanos;
+      if (fromCache) {
+        module.resolutionCacheHits++;
+      }
+    }
+  }
+
+  /**
+   * A require call is being replaced. {@code path} is null if it could not be resolved, and
+   * {@code duplicate} is set if the file already has a global variable.
+   */
+  void recordRequire(@Nullable String path, boolean duplicate) {
+    requires.incrementAndGet();
+    if (path == null) {
+      unresolvedRequires.incrementAndGet();
+      return;
+    }
+    if (duplicate) {
+      duplicateRequires.incrementAndGet();
+    }
+    Module module = module(path);
+    synchronized (this) {
+      module.requires++;
+    }
+  }
+
+  /** The first require of {@code path} is being replaced with the code of the file. */
+  void enterRequire(String path) {
+    frames.push(new Frame(path));
+    Module module = module(path);
+    synchronized (this) {
+      if (module.depth == 0) {
+        module.depth = frames.size();
+      }
+      maxDepth = Math.max(maxDepth, frames.size());
+    }
+  }
+
+  /** The first require of {@code path} was replaced with {@code replacement}. */
+  void exitRequire(String path, Node replacement) {
+    Frame frame = frames.pop();
+    if (!frame.path.equals(path)) {
+      throw new IllegalStateException("Left the require of " + path + " inside " + frame.path);
+    }
+    long nanos = System.nanoTime() - frame.start;
+    long bytes = PerformanceTrackerCodeSizeEstimator.estimate(replacement, false).getCodeSize();
+    Module module = module(path);
+    synchronized (this) {
+      module.requireNanos += nanos;
+      module.bytesEmitted += Math.max(0, bytes - frame.childBytes);
+    }
+    Frame parent = frames.peek();
+    if (parent != null) {
+      parent.childNanos += nanos;
+      parent.childBytes += bytes;
+    }
+  }
+
+  /** Time the requires inlined inside the one being replaced took so far. */
+  long childRequireNanos() {
+    Frame frame = frames.peek();
+    return frame == null ? 0 : frame.childNanos;
+  }
+
+  /** The file at {@code path} was compiled (or taken from somewhere) alone in {@code nanos}. */
+  void recordCompile(String path, String compiledBy, long nanos, long bytesRead) {
+    Module module = module(path);
+    synchronized (this) {
+      module.compiledBy = compiledBy;
+      module.compileNanos += nanos;
+      module.bytesRead = bytesRead;
+    }
+  }
+
+  void recordCompiledModuleCache(boolean hit) {
+    (hit ? compiledModuleCacheHits : compiledModuleCacheMisses).incrementAndGet();
+  }
+
+  void recordSubprocess() {
+    subprocesses.incrementAndGet();
+  }
+
+  /** Marks the end of the resolution, the report uses the time until then. */
+  void finish() {
+    if (wallNanos < 0) {
+      wallNanos = System.nanoTime() - start;
+    }
+  }
+
+  synchronized ImmutableList<Module> getModules() {
+    return ImmutableList.copyOf(modules.values());
+  }
+
+  int getRequires() {
+    return requires.get();
+  }
+
+  int getUniqueRequires() {
+    return requires.get() - duplicateRequires.get() - unresolvedRequires.get();
+  }
+
+  int getDuplicateRequires() {
+    return duplicateRequires.get();
+  }
+
+  int getSubprocesses() {
+    return subprocesses.get();
+  }
+
+  synchronized int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /** The report, as written by {@link #writeReport}. */
+  JsonObject toJson() {
+    JsonObject counters = new JsonObject();
+    counters.addProperty("requires", requires.get());
+    counters.addProperty("uniqueRequires", getUniqueRequires());
+    counters.addProperty("duplicateRequires", duplicateRequires.get());
+    counters.addProperty("unresolvedRequires", unresolvedRequires.get());
+    counters.addProperty("resolutions", resolutions.get());
+    counters.addProperty("resolutionCacheHits", resolutionCacheHits.get());
+    counters.addProperty("compiledModuleCacheHits", compiledModuleCacheHits.get());
+    counters.addProperty("compiledModuleCacheMisses", compiledModuleCacheMisses.get());
+    counters.addProperty("subprocesses", subprocesses.get());
+    counters.addProperty("maxDepth", getMaxDepth());
+
+    JsonArray files = new JsonArray();
+    for (Module module : getModules()) {
+      JsonObject file = new JsonObject();
+      file.addProperty("path", module.path);
+      file.addProperty("depth", module.depth);
+      file.addProperty("requires", module.requires);
+      file.addProperty("resolveNanos", module.resolveNanos);
+      file.addProperty("resolutionCacheHits", module.resolutionCacheHits);
+      file.addProperty("compileNanos", module.compileNanos);
+      file.addProperty("compiledBy", module.compiledBy);
+      file.addProperty("requireNanos", module.requireNanos);
+      file.addProperty("bytesRead", module.bytesRead);
+      file.addProperty("bytesEmitted", module.bytesEmitted);
+      files.add(file);
+    }
+
+    JsonObject report = new JsonObject();
+    report.addProperty("reportVersion", REPORT_VERSION);
+    report.addProperty("compilerVersion", Compiler.getReleaseVersion());
+    report.addProperty("wallNanos", wallNanos < 0 ? System.nanoTime() - start : wallNanos);
+    report.add("counters", counters);
+    report.add("modules", files);
+    return report;
+  }
+
+  /** Writes the report to {@code location} as JSON. */
+  void writeReport(String location) throws IOException {
+    String json = new GsonBuilder().setPrettyPrinting().create().toJson(toJson());
+    Files.asCharSink(new File(location), UTF_8).write(json + "\n");
+  }
+
+  /** Prints the report the way {@link PerformanceTracker#outputTracerReport} prints passes. */
+  void printSummary(PrintStream out) {
+    out.print(
+        String.format(
+            Locale.ROOT,
+            "Require resolution:\n"
+                + "#Requires: %d\n"
+                + "#Unique requires: %d\n"
+                + "#Duplicate requires: %d\n"
+                + "#Unresolved requires: %d\n"
+                + "#Resolutions: %d\n"
+                + "#Resolution cache hits: %d\n"
+                + "#Compiled module cache hits: %d\n"
+                + "#Compiled module cache misses: %d\n"
+                + "#Subprocesses: %d\n"
+                + "Max depth: %d\n\n",
+            requires.get(),
+            getUniqueRequires(),
+            duplicateRequires.get(),
+            unresolvedRequires.get(),
+            resolutions.get(),
+            resolutionCacheHits.get(),
+            compiledModuleCacheHits.get(),
+            compiledModuleCacheMisses.get(),
+            subprocesses.get(),
+            getMaxDepth()));
+    out.print(
+        "Required files:\n"
+            + "path,depth,requires,resolveTime,compileTime,requireTime,compiledBy,"
+            + "bytesRead,bytesEmitted\n");
+    for (Module module : getModules()) {
+      out.print(
+          String.format(
+              Locale.ROOT,
+              "%s,%d,%d,%.1f,%.1f,%.1f,%s,%d,%d\n",
+              module.path,
+              module.depth,
+              module.requires,
+              module.resolveNanos / 1e6,
+              module.compileNanos / 1e6,
+              module.requireNanos / 1e6,
+              module.compiledBy,
+              module.bytesRead,
+              module.bytesEmitted));
+    }
+    out.print("\n");
+  }
+}
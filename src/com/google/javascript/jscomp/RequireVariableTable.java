@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The files that were given a global variable by the require resolver, in DFS order.
+ *
+ * <p>The id of a file is its position in that order, which is also the number in its variable
+ * name and its line in the DFS mapping. Next to the list there is a hash index from normalized
+ * path to id, so finding the variable of a file that was already required does not depend on how
+ * many files were resolved before it.
+ */
+final class RequireVariableTable {
+  /** How two paths that only differ in case are treated. */
+  enum CaseFolding {
+    /** They are the same file, as on Windows and macOS. This is what the resolver always did. */
+    IGNORE,
+    /** They are different files, as on most Linux file systems. */
+    EXACT,
+    /** Ask the file system the DFS mapping is stored on. */
+    AUTO;
+
+    /** Parses the value of --var_path_case; anything unknown keeps the old behavior. */
+    static CaseFolding fromString(String value) {
+      if (value != null) {
+        for (CaseFolding folding : values()) {
+          if (folding.name().equalsIgnoreCase(value.trim())) {
+            return folding;
+          }
+        }
+      }
+      return IGNORE;
+    }
+  }
+
+  private final boolean ignoreCase;
+  private final List<String> paths = new ArrayList<>();
+  private final Map<String, Integer> ids = new HashMap<>();
+
+  RequireVariableTable(boolean ignoreCase) {
+    this.ignoreCase = ignoreCase;
+  }
+
+  /**
+   * Creates a table with the given policy. {@link CaseFolding#AUTO} is decided by looking at
+   * {@code directory}.
+   */
+  static RequireVariableTable create(CaseFolding folding, File directory) {
+    switch (folding) {
+      case EXACT:
+        return new RequireVariableTable(false);
+      case AUTO:
+        return new RequireVariableTable(isCaseInsensitive(directory));
+      default:
+        return new RequireVariableTable(true);
+    }
+  }
+
+  /**
+   * Whether the file system holding {@code directory} ignores case, found by looking the
+   * directory up again with the case of its letters swapped.
+   */
+  static boolean isCaseInsensitive(File directory) {
+    File existing = directory.getAbsoluteFile();
+    while (existing != null && !existing.exists()) {
+      existing = existing.getParentFile();
+    }
+    if (existing == null) {
+      return true;
+    }
+    String path = existing.getPath();
+    StringBuilder swapped = new StringBuilder(path.length());
+    boolean hasLetter = false;
+    for (int i = 0; i < path.length(); i++) {
+      char c = path.charAt(i);
+      if (Character.isUpperCase(c)) {
+        swapped.append(Character.toLowerCase(c));
+        hasLetter = true;
+      } else if (Character.isLowerCase(c)) {
+        swapped.append(Character.toUpperCase(c));
+        hasLetter = true;
+      } else {
+        swapped.append(c);
+      }
+    }
+    if (!hasLetter) {
+      return true;
+    }
+    File other = new File(swapped.toString());
+    try {
+      return other.exists() && Files.isSameFile(existing.toPath(), other.toPath());
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private String normalize(String path) {
+    String normalized = path.replace("\\\\", "\\").replace('\\', '/');
+    return ignoreCase ? normalized.toLowerCase(Locale.ROOT) : normalized;
+  }
+
+  /** Returns the id of {@code path}, or -1 if it has no variable yet. */
+  int indexOf(String path) {
+    Integer id = ids.get(normalize(path));
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Gives {@code path} the next id and returns it. A path that is added twice keeps answering
+   * with its first id, like the DFS mapping did when it was searched from the top.
+   */
+  int add(String path) {
+    int id = paths.size();
+    paths.add(path);
+    String key = normalize(path);
+    if (!ids.containsKey(key)) {
+      ids.put(key, id);
+    }
+    return id;
+  }
+
+  String get(int id) {
+    return paths.get(id);
+  }
+
+  int size() {
+    return paths.size();
+  }
+
+  /** The paths in DFS order, which is the order they are written to the DFS mapping in. */
+  List<String> getPaths() {
+    return Collections.unmodifiableList(paths);
+  }
+}
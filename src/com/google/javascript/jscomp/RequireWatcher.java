@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Waits for one of the files of a compilation to change (--watch).
+ *
+ * <p>The files are polled. Only a file whose modification time or length changed is read, and
+ * it only counts as changed if the hash of its content did too, so saving a file without
+ * changing it does not start a compilation. Like the {@link RequireResolutionCache} this relies
+ * on stamps rather than a {@link java.nio.file.WatchService}, which would have to register every
+ * folder of node_modules the required files are in.
+ */
+final class RequireWatcher {
+  /** What a file looked like when it was last checked. */
+  private static final class Stamp {
+    private final long lastModified;
+    private final long length;
+    // Null if the file could not be read.
+    @Nullable private final String digest;
+
+    Stamp(long lastModified, long length, @Nullable String digest) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.digest = digest;
+    }
+  }
+
+  private final long intervalMillis;
+  private final Map<String, Stamp> stamps = new LinkedHashMap<>();
+  // Files that already differed from what was compiled when they were recorded.
+  private final Set<String> pending = new LinkedHashSet<>();
+
+  RequireWatcher(long intervalMillis) {
+    this.intervalMillis = intervalMillis;
+  }
+
+  /**
+   * Records how {@code paths} look now, and stops watching any other file. A file that was
+   * compiled with a content other than it has now, according to {@code compiledDigests}, changed
+   * while the compilation was running and is reported right away.
+   */
+  void watch(Iterable<String> paths, Map<String, String> compiledDigests) {
+    stamps.clear();
+    pending.clear();
+    for (String path : paths) {
+      File file = new File(path);
+      String digest = digest(file);
+      stamps.put(path, new Stamp(file.lastModified(), file.length(), digest));
+      String compiled = compiledDigests.get(path);
+      if (compiled != null && !compiled.equals(digest)) {
+        pending.add(path);
+      }
+    }
+  }
+
+  /** The files whose content changed since they were recorded, and records them again. */
+  Set<String> changes() {
+    Set<String> changed = new LinkedHashSet<>(pending);
+    pending.clear();
+    for (Map.Entry<String, Stamp> entry : stamps.entrySet()) {
+      File file = new File(entry.getKey());
+      Stamp stamp = entry.getValue();
+      long lastModified = file.lastModified();
+      long length = file.length();
+      if (lastModified == stamp.lastModified && length == stamp.length) {
+        continue;
+      }
+      String digest = digest(file);
+      if (digest == null ? stamp.digest != null : !digest.equals(stamp.digest)) {
+        changed.add(entry.getKey());
+      }
+      entry.setValue(new Stamp(lastModified, length, digest));
+    }
+    return changed;
+  }
+
+  /** Blocks until the content of a file changes, and returns the files that did. */
+  Set<String> awaitChanges() throws InterruptedException {
+    while (true) {
+      Set<String> changed = changes();
+      if (!changed.isEmpty()) {
+        return changed;
+      }
+      Thread.sleep(intervalMillis);
+    }
+  }
+
+  int size() {
+    return stamps.size();
+  }
+
+  @Nullable
+  private static String digest(File file) {
+    try {
+      return RequireModuleStore.digest(Files.asCharSource(file, UTF_8).read());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
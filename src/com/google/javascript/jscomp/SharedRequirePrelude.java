@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * Moves the required files that several entry points share into one prelude (--multi_entry).
+ *
+ * <p>All entry points are compiled together, each in its own chunk after a prelude chunk, so a
+ * file that several of them require is resolved and compiled once and gets one global variable.
+ * {@link NodeRequireResolver} still inlines it at the first require in DFS order, which is only
+ * where it runs first for one of the entry points. So once the requires are inlined, every file
+ * whose variable is used by more than one chunk is turned into a function in the prelude that
+ * runs it the first time it is called:
+ *
+ * <pre>
+ * function globalRequire_SHYDNUTN_000() {
+ *   if (globalVariable_SHYDNUTN_000) return globalVariable_SHYDNUTN_000.exports;
+ *   var module = {exports: {}};
+ *   globalVariable_SHYDNUTN_000 = module;
+ *   ...
+ * }
+ * </pre>
+ *
+ * and both its wrapper and every {@code globalVariable_SHYDNUTN_000.exports} become a call of
+ * that function. Files only one chunk uses stay where they were inlined.
+ */
+final class SharedRequirePrelude {
+  private static final String VARIABLE_PREFIX = "globalVariable_SHYDNUTN_";
+  private static final String FUNCTION_PREFIX = "globalRequire_SHYDNUTN_";
+
+  // The numbers are only padded to three digits, so _1000 would sort before _999 as a string.
+  private static final Comparator<String> BY_NUMBER =
+      new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+          return Integer.compare(number(a), number(b));
+        }
+      };
+
+  private final AbstractCompiler compiler;
+
+  // Variable -> the wrapper that runs its file, and every use of its exports.
+  private final Map<String, Node> wrappers = new LinkedHashMap<>();
+  private final Map<String, List<Node>> uses = new LinkedHashMap<>();
+  // How many chunks use each variable.
+  private final Multiset<String> chunkCounts = HashMultiset.create();
+
+  SharedRequirePrelude(AbstractCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  /**
+   * Moves the shared files of the scripts under {@code root} into the last script of the first
+   * chunk.
+   */
+  void process(Node root) {
+    Map<JSModule, List<Node>> chunks = new LinkedHashMap<>();
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      JSModule chunk = compiler.getInput(script.getInputId()).getModule();
+      if (!chunks.containsKey(chunk)) {
+        chunks.put(chunk, new ArrayList<Node>());
+      }
+      chunks.get(chunk).add(script);
+    }
+    if (chunks.size() < 2) {
+      return;
+    }
+    for (List<Node> scripts : chunks.values()) {
+      Set<String> used = new HashSet<>();
+      for (Node script : scripts) {
+        collect(script, new HashSet<String>(), used);
+      }
+      chunkCounts.addAll(used);
+    }
+
+    List<Node> preludeScripts = chunks.values().iterator().next();
+    Node prelude = preludeScripts.get(preludeScripts.size() - 1);
+    // Sorted by the number of the variable, so the functions are in DFS order.
+    Map<String, Node> shared = new TreeMap<>(BY_NUMBER);
+    for (Map.Entry<String, Node> wrapper : wrappers.entrySet()) {
+      if (chunkCounts.count(wrapper.getKey()) > 1) {
+        shared.put(wrapper.getKey(), wrapper.getValue());
+      }
+    }
+    for (Map.Entry<String, Node> wrapper : shared.entrySet()) {
+      String variable = wrapper.getKey();
+      String function = FUNCTION_PREFIX + variable.substring(VARIABLE_PREFIX.length());
+      replaceWithCall(wrapper.getValue(), function);
+      if (uses.containsKey(variable)) {
+        for (Node use : uses.get(variable)) {
+          replaceWithCall(use, function);
+        }
+      }
+      prelude.addChildToBack(loader(wrapper.getValue().getFirstChild().detach(), variable, function));
+    }
+    if (!shared.isEmpty()) {
+      compiler.reportChangeToEnclosingScope(prelude);
+    }
+  }
+
+  /**
+   * Records the wrappers and exports under {@code n}. The exports of a file used inside its own
+   * wrapper are left alone, as they are only reached once its variable is set.
+   */
+  private void collect(Node n, Set<String> enclosingWrappers, Set<String> used) {
+    String variable = wrappedVariable(n);
+    if (variable != null) {
+      used.add(variable);
+      if (!wrappers.containsKey(variable)) {
+        wrappers.put(variable, n);
+      }
+      enclosingWrappers = new HashSet<>(enclosingWrappers);
+      enclosingWrappers.add(variable);
+    } else if (n.isGetProp()
+        && n.getFirstChild().isName()
+        && n.getFirstChild().getString().startsWith(VARIABLE_PREFIX)
+        && n.getLastChild().getString().equals("exports")
+        && !enclosingWrappers.contains(n.getFirstChild().getString())) {
+      variable = n.getFirstChild().getString();
+      used.add(variable);
+      if (!uses.containsKey(variable)) {
+        uses.put(variable, new ArrayList<Node>());
+      }
+      uses.get(variable).add(n);
+    }
+    for (Node c = n.getFirstChild(); c != null; c = c.getNext()) {
+      collect(c, enclosingWrappers, used);
+    }
+  }
+
+  private static int number(String variable) {
+    return Integer.parseInt(variable.substring(VARIABLE_PREFIX.length()));
+  }
+
+  /**
+   * The variable set by {@code n} if it is a wrapper made by {@link NodeRequireResolver}: a call
+   * of a function without parameters that starts with {@code VAR = {exports: {}}} (JSON) or with
+   * {@code var module = ...; VAR = module} (JavaScript).
+   */
+  @Nullable
+  private static String wrappedVariable(Node n) {
+    if (!n.isCall() || !n.hasOneChild() || !n.getFirstChild().isFunction()) {
+      return null;
+    }
+    Node function = n.getFirstChild();
+    if (function.getSecondChild().hasChildren()) {
+      return null;
+    }
+    Node body = function.getLastChild();
+    for (Node statement = body.getFirstChild();
+        statement != null && statement != body.getChildAtIndex(2);
+        statement = statement.getNext()) {
+      if (statement.isExprResult()
+          && statement.getFirstChild().isAssign()
+          && statement.getFirstFirstChild().isName()
+          && statement.getFirstFirstChild().getString().startsWith(VARIABLE_PREFIX)) {
+        return statement.getFirstFirstChild().getString();
+      }
+    }
+    return null;
+  }
+
+  private void replaceWithCall(Node n, String function) {
+    Node call = IR.call(IR.name(function)).useSourceInfoFromForTree(n);
+    call.putBooleanProp(Node.FREE_CALL, true);
+    n.replaceWith(call);
+    compiler.reportChangeToEnclosingScope(call);
+  }
+
+  /** Turns the function of a wrapper into a declaration that only runs it once. */
+  private Node loader(Node function, String variable, String name) {
+    function.getFirstChild().setString(name);
+    function
+        .getLastChild()
+        .addChildToFront(
+            IR.ifNode(
+                    IR.name(variable),
+                    IR.block(IR.returnNode(IR.getprop(IR.name(variable), "exports"))))
+                .useSourceInfoFromForTree(function));
+    compiler.reportChangeToChangeScope(function);
+    return function;
+  }
+}
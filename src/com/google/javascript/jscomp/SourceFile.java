@@ -36,11 +36,17 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -134,17 +140,26 @@ public class SourceFile implements StaticSourceFile, Serializable {
     if (lineOffsets != null) {
       return;
     }
+    lineOffsets = computeLineOffsets();
+  }
+
+  /** Returns the offsets in the code of the starts of the lines, found in one scan of the code. */
+  int[] computeLineOffsets() {
+    String js;
     try {
-      String[] sourceLines = getCode().split("\n", -1);
-      lineOffsets = new int[sourceLines.length];
-      for (int ii = 1; ii < sourceLines.length; ++ii) {
-        lineOffsets[ii] =
-            lineOffsets[ii - 1] + sourceLines[ii - 1].length() + 1;
-      }
+      js = getCode();
     } catch (IOException e) {
-      lineOffsets = new int[1];
-      lineOffsets[0] = 0;
+      return new int[] {0};
+    }
+    int[] offsets = new int[64];
+    int lines = 1;
+    for (int i = js.indexOf('\n'); i != -1; i = js.indexOf('\n', i + 1)) {
+      if (lines == offsets.length) {
+        offsets = Arrays.copyOf(offsets, lines * 2);
+      }
+      offsets[lines++] = i + 1;
     }
+    return Arrays.copyOf(offsets, lines);
   }
 
   private void resetLineOffsets() {
@@ -210,6 +225,39 @@ public class SourceFile implements StaticSourceFile, Serializable {
     return code != null;
   }
 
+  /**
+   * Called once the AST of this file is built. Drops the code if it can be read again when it is
+   * needed, such as for the source excerpts of the error messages.
+   */
+  void releaseCodeAfterParse() {
+    // By default, keep it.
+  }
+
+  /** Drops the cached code but keeps the line offsets, for a code that has not changed. */
+  final void dropCode() {
+    code = null;
+  }
+
+  /**
+   * Returns the length of the code if it is in memory, or an estimate of it that does not read the
+   * code, such as the size of the file, or 0 if there is none.
+   */
+  long getSizeEstimate() {
+    return code != null ? code.length() : 0;
+  }
+
+  /**
+   * Returns the code from offset start to offset end, or null if the range is not in the code. A
+   * file that does not keep its code in memory reads only the lines of the range.
+   */
+  public String getCodeRange(int start, int end) throws IOException {
+    String js = getCode();
+    if (js == null || start < 0 || end < start || end > js.length()) {
+      return null;
+    }
+    return js.substring(start, end);
+  }
+
   /** Returns a unique name for the source file. */
   @Override
   public String getName() {
@@ -472,6 +520,7 @@ public class SourceFile implements StaticSourceFile, Serializable {
   public static class Builder {
     private Charset charset = UTF_8;
     private String originalPath = null;
+    private boolean memoryMapped = false;
 
     public Builder() {}
 
@@ -486,6 +535,15 @@ public class SourceFile implements StaticSourceFile, Serializable {
       return this;
     }
 
+    /**
+     * Read the files through a memory mapping, and drop their code once they are parsed. Only
+     * UTF-8 files are mapped, the files of other charsets are read as usual.
+     */
+    public Builder withMemoryMapping(boolean memoryMapped) {
+      this.memoryMapped = memoryMapped;
+      return this;
+    }
+
     @GwtIncompatible("java.io.File")
     public SourceFile buildFromFile(String fileName) {
       return buildFromFile(new File(fileName));
@@ -505,6 +563,9 @@ public class SourceFile implements StaticSourceFile, Serializable {
       if (isZipEntry(path.toString())) {
         return fromZipEntry(path.toString(), charset);
       }
+      if (memoryMapped && UTF_8.equals(charset)) {
+        return new Mapped(path, originalPath);
+      }
       return new OnDisk(path, originalPath, charset);
     }
 
@@ -642,6 +703,18 @@ public class SourceFile implements StaticSourceFile, Serializable {
       }
     }
 
+    @Override
+    long getSizeEstimate() {
+      if (hasSourceInMemory()) {
+        return super.getSizeEstimate();
+      }
+      try {
+        return Files.size(path);
+      } catch (IOException e) {
+        return 0;
+      }
+    }
+
     // Flush the cached code after the compile; we can read it off disk
     // if we need it again.
     @Override
@@ -690,6 +763,310 @@ public class SourceFile implements StaticSourceFile, Serializable {
     }
   }
 
+  /**
+   * A UTF-8 source file that is read through a memory mapping of the file, so that its bytes are in
+   * the page cache of the file instead of the heap. The file is mapped once. The code is only
+   * decoded when it is needed and is dropped once the AST is built; after that it is decoded for
+   * every caller that asks for it and never kept again. The line offsets are found by one scan of
+   * the bytes, and the lines of the source excerpts of the error messages are decoded on their
+   * own, so that the code is not decoded again for them.
+   */
+  @GwtIncompatible("java.nio.MappedByteBuffer")
+  static class Mapped extends SourceFile {
+    private static final long serialVersionUID = 1L;
+    private transient Path path;
+
+    // The offsets in the file of the starts of the lines, found with the line offsets.
+    private transient int[] lineByteOffsets;
+    // The mapping of the file, made on first use and dropped by clearCachedSource.
+    private transient MappedByteBuffer mapping;
+    // Whether the AST was built, after which the code is not kept in memory any more.
+    private transient boolean released;
+    // Where the last range of getCodeRange started, as a char offset (-1 if none) and a byte offset.
+    private transient int rangeChar = -1;
+    private transient int rangeByte;
+
+    Mapped(Path path, String originalPath) {
+      super(path.toString());
+      this.path = path;
+      setOriginalPath(originalPath);
+    }
+
+    @Override
+    public synchronized String getCode() throws IOException {
+      String cachedCode = super.getCode();
+
+      if (cachedCode == null) {
+        ByteBuffer bytes = map();
+        cachedCode = decode(bytes, bomLength(bytes), bytes.limit());
+        if (!released) {
+          super.setCode(cachedCode);
+        }
+      }
+      return cachedCode;
+    }
+
+    /**
+     * Gets a reader for the code in this source file.
+     */
+    @Override
+    public Reader getCodeReader() throws IOException {
+      if (hasSourceInMemory()) {
+        return super.getCodeReader();
+      } else {
+        // If we haven't pulled the code into memory yet, don't.
+        return Files.newBufferedReader(path, UTF_8);
+      }
+    }
+
+    @Override
+    long getSizeEstimate() {
+      if (hasSourceInMemory()) {
+        return super.getSizeEstimate();
+      }
+      try {
+        return Files.size(path);
+      } catch (IOException e) {
+        return 0;
+      }
+    }
+
+    @Override
+    synchronized void releaseCodeAfterParse() {
+      dropCode();
+      released = true;
+    }
+
+    // Flush the cached code after the compile; we can map the file again
+    // if we need it.
+    @Override
+    public synchronized void clearCachedSource() {
+      super.setCode(null);
+      mapping = null;
+      rangeChar = -1;
+    }
+
+    /**
+     * Finds the offsets in one scan of the bytes of the file: a char of the code is a byte that
+     * does not continue a UTF-8 sequence, or two for the first byte of a 4-byte sequence.
+     */
+    @Override
+    synchronized int[] computeLineOffsets() {
+      ByteBuffer bytes;
+      try {
+        bytes = map();
+      } catch (IOException e) {
+        lineByteOffsets = null;
+        return new int[] {0};
+      }
+      int start = bomLength(bytes);
+      int[] offsets = new int[64];
+      int[] byteOffsets = new int[64];
+      byteOffsets[0] = start;
+      int lines = 1;
+      int chars = 0;
+      for (int i = start, limit = bytes.limit(); i < limit; i++) {
+        byte b = bytes.get(i);
+        if ((b & 0xC0) != 0x80) {
+          chars += (b & 0xF8) == 0xF0 ? 2 : 1;
+        }
+        if (b == '\n') {
+          if (lines == offsets.length) {
+            offsets = Arrays.copyOf(offsets, lines * 2);
+            byteOffsets = Arrays.copyOf(byteOffsets, lines * 2);
+          }
+          offsets[lines] = chars;
+          byteOffsets[lines] = i + 1;
+          lines++;
+        }
+      }
+      lineByteOffsets = Arrays.copyOf(byteOffsets, lines);
+      return Arrays.copyOf(offsets, lines);
+    }
+
+    /**
+     * Decodes only the bytes of the range. The printer asks for its number literals in the order of
+     * the file, so the bytes are counted from where the last range started rather than from the
+     * start of its line, which is the whole file for minified code.
+     */
+    @Override
+    public synchronized String getCodeRange(int start, int end) throws IOException {
+      if (hasSourceInMemory()) {
+        return super.getCodeRange(start, end);
+      }
+      if (start < 0 || end < start) {
+        return null;
+      }
+      ByteBuffer bytes = map();
+      int fromChar;
+      int fromByte;
+      if (rangeChar >= 0 && start >= rangeChar) {
+        fromChar = rangeChar;
+        fromByte = rangeByte;
+      } else {
+        getNumLines();
+        if (lineByteOffsets == null) {
+          return null;
+        }
+        int line = getLineOfOffset(start);
+        fromChar = getLineOffset(line);
+        fromByte = lineByteOffsets[line - 1];
+      }
+      int startByte = skipChars(bytes, fromByte, start - fromChar);
+      if (startByte < 0) {
+        return null;
+      }
+      rangeChar = start;
+      rangeByte = startByte;
+      int endByte = skipChars(bytes, startByte, end - start);
+      return endByte < 0 ? null : decode(bytes, startByte, endByte);
+    }
+
+    /**
+     * Returns the offset of the byte that is chars chars after the one at offset, or -1 if that is
+     * past the end of the file or inside a surrogate pair.
+     */
+    private static int skipChars(ByteBuffer bytes, int offset, int chars) {
+      int limit = bytes.limit();
+      while (chars > 0) {
+        if (offset >= limit) {
+          return -1;
+        }
+        byte b = bytes.get(offset);
+        if ((b & 0x80) == 0) {
+          offset++;
+          chars--;
+        } else if ((b & 0xE0) == 0xC0) {
+          offset += 2;
+          chars--;
+        } else if ((b & 0xF0) == 0xE0) {
+          offset += 3;
+          chars--;
+        } else {
+          // Two chars in the code.
+          offset += 4;
+          chars -= 2;
+        }
+      }
+      return chars < 0 || offset > limit ? -1 : offset;
+    }
+
+    @Override
+    public synchronized String getLine(int lineNumber) {
+      if (hasSourceInMemory()) {
+        return super.getLine(lineNumber);
+      }
+      int numLines = getNumLines();
+      if (lineNumber > numLines || lineByteOffsets == null) {
+        return null;
+      }
+      if (lineNumber < 1) {
+        lineNumber = 1;
+      }
+      try {
+        ByteBuffer bytes = map();
+        int start = lineByteOffsets[lineNumber - 1];
+        if (lineNumber < numLines) {
+          return decode(bytes, start, lineByteOffsets[lineNumber] - 1);
+        }
+        // The last line, which is null if it is empty.
+        return start >= bytes.limit() ? null : decode(bytes, start, bytes.limit());
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public synchronized Region getRegion(int lineNumber) {
+      if (hasSourceInMemory()) {
+        return super.getRegion(lineNumber);
+      }
+      int numLines = getNumLines();
+      if (lineByteOffsets == null) {
+        return null;
+      }
+      // The same region as SourceFile#getRegion finds in the code.
+      int startLine = Math.max(1, lineNumber - (SOURCE_EXCERPT_REGION_LENGTH + 1) / 2 + 1);
+      int endLine = startLine + Math.min(SOURCE_EXCERPT_REGION_LENGTH, numLines - startLine);
+      if (lineNumber >= endLine) {
+        return null;
+      }
+      try {
+        ByteBuffer bytes = map();
+        int start = lineByteOffsets[startLine - 1];
+        if (endLine - startLine == SOURCE_EXCERPT_REGION_LENGTH) {
+          return new SimpleRegion(
+              startLine, endLine, decode(bytes, start, lineByteOffsets[endLine - 1]));
+        }
+        // Up to the end of the file, without its last newline.
+        int end = bytes.limit();
+        if (end > start && bytes.get(end - 1) == '\n') {
+          end--;
+        }
+        return new SimpleRegion(startLine, endLine, decode(bytes, start, end));
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    private ByteBuffer map() throws IOException {
+      if (mapping == null) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+          long size = channel.size();
+          if (size > Integer.MAX_VALUE) {
+            // Too large for a mapping, and for a String too.
+            throw new IOException("Failed to read: " + path + ", it is larger than 2GB");
+          }
+          // The mapping stays valid once the channel is closed.
+          mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+      }
+      return mapping;
+    }
+
+    private static int bomLength(ByteBuffer bytes) {
+      return bytes.limit() >= 3
+              && bytes.get(0) == (byte) 0xEF
+              && bytes.get(1) == (byte) 0xBB
+              && bytes.get(2) == (byte) 0xBF
+          ? 3
+          : 0;
+    }
+
+    private String decode(ByteBuffer bytes, int start, int end) throws IOException {
+      ByteBuffer range = bytes.duplicate();
+      range.limit(end);
+      range.position(start);
+      try {
+        return UTF_8
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT)
+            .decode(range)
+            .toString();
+      } catch (CharacterCodingException e) {
+        throw new IOException("Failed to read: " + path + ", is this input UTF-8 encoded?", e);
+      }
+    }
+
+    @GwtIncompatible("ObjectOutputStream")
+    private void writeObject(java.io.ObjectOutputStream out) throws Exception {
+      out.defaultWriteObject();
+      out.writeObject(path != null ? path.toUri() : null);
+    }
+
+    @GwtIncompatible("ObjectInputStream")
+    private void readObject(java.io.ObjectInputStream in) throws Exception {
+      in.defaultReadObject();
+      URI uri = (URI) in.readObject();
+      path = uri != null ? Paths.get(uri) : null;
+
+      // Code will be reread or restored.
+      super.setCode(null);
+      rangeChar = -1;
+    }
+  }
+
   /**
    * A source file at a URL where the code is only read into memory if absolutely
    * necessary. We will try to delay loading the code into memory as long as
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * Node's {@code require.resolve} algorithm run directly against the file system. See
+ * https://nodejs.org/api/modules.html#modules_all_together
+ *
+ * <p>Unlike {@link NodeModuleResolver}, which only knows about the inputs of a compilation, this
+ * looks at the files on disk, the same way a {@code node} process resolving the require would.
+ * Returned paths are canonical and always use {@link ModuleLoader#MODULE_SLASH}.
+ */
+public final class FileSystemNodeModuleResolver {
+  private static final String[] FILE_EXTENSIONS_TO_SEARCH = {"", ".js", ".json", ".node"};
+  private static final String[] INDEX_FILES_TO_SEARCH = {"index.js", "index.json", "index.node"};
+  private static final String NODE_MODULES = "node_modules";
+
+  /**
+   * Modules compiled into the node binary, which {@code require.resolve} returns unchanged. This is
+   * {@code require('module').builtinModules} of Node.js 20. The modules that can only be loaded
+   * with the {@code node:} prefix, such as {@code node:test}, are core modules through the prefix.
+   */
+  public static final ImmutableSet<String> CORE_MODULES =
+      ImmutableSet.of(
+          "_http_agent", "_http_client", "_http_common", "_http_incoming", "_http_outgoing",
+          "_http_server", "_stream_duplex", "_stream_passthrough", "_stream_readable",
+          "_stream_transform", "_stream_wrap", "_stream_writable", "_tls_common", "_tls_wrap",
+          "assert", "assert/strict", "async_hooks", "buffer", "child_process", "cluster",
+          "console", "constants", "crypto", "dgram", "diagnostics_channel", "dns", "dns/promises",
+          "domain", "events", "fs", "fs/promises", "http", "http2", "https", "inspector",
+          "inspector/promises", "module", "net", "os", "path", "path/posix", "path/win32",
+          "perf_hooks", "process", "punycode", "querystring", "readline", "readline/promises",
+          "repl", "stream", "stream/consumers", "stream/promises", "stream/web", "string_decoder",
+          "sys", "timers", "timers/promises", "tls", "trace_events", "tty", "url", "util",
+          "util/types", "v8", "vm", "wasi", "worker_threads", "zlib");
+
+  /** Folders that are searched after the node_modules ancestors, from $NODE_PATH. */
+  private final ImmutableList<String> globalFolders;
+
+  /**
+   * The resolved "main" of each package.json that was read, absent if it has none. Concurrent, as
+   * the module graph resolves from several threads.
+   */
+  private final Map<String, Optional<String>> packageMainEntries = new ConcurrentHashMap<>();
+
+  public FileSystemNodeModuleResolver() {
+    this(ImmutableList.<String>of());
+  }
+
+  public FileSystemNodeModuleResolver(ImmutableList<String> globalFolders) {
+    this.globalFolders = globalFolders;
+  }
+
+  /** Creates a resolver that also searches the folders listed in the NODE_PATH variable. */
+  public static FileSystemNodeModuleResolver fromEnvironment() {
+    String nodePath = System.getenv("NODE_PATH");
+    if (nodePath == null || nodePath.isEmpty()) {
+      return new FileSystemNodeModuleResolver();
+    }
+    ImmutableList.Builder<String> folders = ImmutableList.builder();
+    for (String folder : nodePath.split(File.pathSeparator)) {
+      if (!folder.isEmpty()) {
+        folders.add(folder);
+      }
+    }
+    return new FileSystemNodeModuleResolver(folders.build());
+  }
+
+  /** Whether {@code require(moduleAddress)} loads a module compiled into node. */
+  public static boolean isCoreModule(String moduleAddress) {
+    if (moduleAddress.startsWith("node:")) {
+      return true;
+    }
+    return CORE_MODULES.contains(moduleAddress);
+  }
+
+  /**
+   * Resolves {@code require(moduleAddress)} for a script in {@code directory}.
+   *
+   * @return the canonical path of the file that would be loaded, {@code moduleAddress} itself
+   *     for core modules (just like {@code require.resolve}), or null if nothing is found
+   */
+  @Nullable
+  public String resolve(String directory, String moduleAddress) {
+    return resolve(directory, moduleAddress, new HashSet<String>());
+  }
+
+  /**
+   * Resolves {@code require(moduleAddress)} for a script in {@code directory}, and records in
+   * {@code dependencies} the directories and package.json files that the answer was derived from.
+   * As long as none of their modification times change, the answer stays the same.
+   */
+  @Nullable
+  public String resolve(String directory, String moduleAddress, Set<String> dependencies) {
+    if (isCoreModule(moduleAddress)) {
+      return moduleAddress;
+    }
+    File loaded;
+    if (isFileOrDirectoryIdentifier(moduleAddress)) {
+      File base = new File(moduleAddress);
+      if (!base.isAbsolute()) {
+        base = new File(directory, moduleAddress);
+      }
+      loaded = loadAsFile(base, dependencies);
+      if (loaded == null) {
+        loaded = loadAsDirectory(base, dependencies);
+      }
+    } else {
+      loaded =
+          loadNodeModules(moduleAddress, new File(directory).getAbsoluteFile(), dependencies);
+    }
+    return loaded == null ? null : canonicalize(loaded);
+  }
+
+  private static boolean isFileOrDirectoryIdentifier(String moduleAddress) {
+    return ModuleLoader.isRelativeIdentifier(moduleAddress)
+        || ModuleLoader.isAbsoluteIdentifier(moduleAddress)
+        || moduleAddress.equals(".")
+        || moduleAddress.equals("..")
+        || new File(moduleAddress).isAbsolute();
+  }
+
+  @Nullable
+  private static File loadAsFile(File base, Set<String> dependencies) {
+    File parent = base.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      dependencies.add(parent.getPath());
+    }
+    for (String extension : FILE_EXTENSIONS_TO_SEARCH) {
+      File candidate = new File(base.getPath() + extension);
+      if (candidate.isFile()) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static File loadIndex(File directory, Set<String> dependencies) {
+    dependencies.add(directory.getAbsolutePath());
+    for (String index : INDEX_FILES_TO_SEARCH) {
+      File candidate = new File(directory, index);
+      if (candidate.isFile()) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private File loadAsDirectory(File directory, Set<String> dependencies) {
+    File packageJson = new File(directory, "package.json");
+    dependencies.add(packageJson.getAbsolutePath());
+    Optional<String> main = getPackageMain(packageJson);
+    if (main.isPresent()) {
+      File mainFile = new File(directory, main.get());
+      File loaded = loadAsFile(mainFile, dependencies);
+      if (loaded == null) {
+        loaded = loadIndex(mainFile, dependencies);
+      }
+      if (loaded != null) {
+        return loaded;
+      }
+    }
+    return loadIndex(directory, dependencies);
+  }
+
+  @Nullable
+  private File loadNodeModules(String moduleAddress, File start, Set<String> dependencies) {
+    for (File dir = start; dir != null; dir = dir.getParentFile()) {
+      if (dir.getName().equals(NODE_MODULES)) {
+        continue;
+      }
+      // Creating a node_modules folder changes the modification time of its parent.
+      dependencies.add(dir.getPath());
+      File loaded = loadFromFolder(new File(dir, NODE_MODULES), moduleAddress, dependencies);
+      if (loaded != null) {
+        return loaded;
+      }
+    }
+    for (String folder : globalFolders) {
+      File loaded = loadFromFolder(new File(folder), moduleAddress, dependencies);
+      if (loaded != null) {
+        return loaded;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private File loadFromFolder(File folder, String moduleAddress, Set<String> dependencies) {
+    dependencies.add(folder.getAbsolutePath());
+    if (!folder.isDirectory()) {
+      return null;
+    }
+    File base = new File(folder, moduleAddress);
+    File loaded = loadAsFile(base, dependencies);
+    if (loaded == null) {
+      loaded = loadAsDirectory(base, dependencies);
+    }
+    return loaded;
+  }
+
+  /** Reads the "main" entry of a package.json, remembering it for the next lookup. */
+  private Optional<String> getPackageMain(File packageJson) {
+    String key = packageJson.getPath();
+    Optional<String> main = packageMainEntries.get(key);
+    if (main == null) {
+      main = readPackageMain(packageJson);
+      packageMainEntries.put(key, main);
+    }
+    return main;
+  }
+
+  private static Optional<String> readPackageMain(File packageJson) {
+    if (!packageJson.isFile()) {
+      return Optional.absent();
+    }
+    try (Reader reader = Files.newBufferedReader(packageJson.toPath(), UTF_8)) {
+      JsonElement json = new JsonParser().parse(reader);
+      if (json.isJsonObject()) {
+        JsonElement main = json.getAsJsonObject().get("main");
+        if (main != null && main.isJsonPrimitive() && !main.getAsString().isEmpty()) {
+          return Optional.of(main.getAsString());
+        }
+      }
+    } catch (IOException | JsonParseException | IllegalStateException e) {
+      // Node ignores a package.json it cannot parse when looking for "main" and falls back to
+      // the index files.
+    }
+    return Optional.absent();
+  }
+
+  private static String canonicalize(File file) {
+    String path;
+    try {
+      path = file.getCanonicalPath();
+    } catch (IOException e) {
+      path = file.getAbsolutePath();
+    }
+    return path.replace(File.separatorChar, '/');
+  }
+}
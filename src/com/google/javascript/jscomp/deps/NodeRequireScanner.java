@@ -0,0 +1,413 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Finds the Node.js {@code require("...")}, {@code module.require("...")} and {@code
+ * require.resolve("...")} calls of a file without parsing it, much like {@link JsFileParser} finds
+ * the goog.require calls of a Closure file.
+ *
+ * <p>The source is only split into tokens. Comments, strings, template literals and regular
+ * expressions are skipped, so a require inside them is not reported, and a call may span several
+ * lines. A require whose argument is not a single string literal (e.g. {@code require(name)} or
+ * {@code require('./' + name)}) cannot be answered from the tokens, so the file is marked as
+ * having {@link #hasDynamicRequires dynamic requires} and callers that need them all should look
+ * at its parsed AST instead.
+ */
+public final class NodeRequireScanner {
+  /** Names after which a slash starts a regular expression rather than a division. */
+  private static final ImmutableSet<String> KEYWORDS_BEFORE_EXPRESSION =
+      ImmutableSet.of(
+          "await", "case", "delete", "do", "else", "in", "instanceof", "new", "of", "return",
+          "throw", "typeof", "void", "yield");
+
+  private enum TokenType {
+    NAME,
+    PUNCTUATOR,
+    STRING,
+    OTHER
+  }
+
+  private final ImmutableList<String> requires;
+  private final ImmutableList<String> resolves;
+  private final boolean dynamicRequires;
+
+  private NodeRequireScanner(
+      ImmutableList<String> requires, ImmutableList<String> resolves, boolean dynamicRequires) {
+    this.requires = requires;
+    this.resolves = resolves;
+    this.dynamicRequires = dynamicRequires;
+  }
+
+  /** Scans the source of one file. */
+  public static NodeRequireScanner scan(String code) {
+    Tokenizer tokenizer = new Tokenizer(code);
+    tokenizer.run();
+    return new NodeRequireScanner(
+        ImmutableList.copyOf(tokenizer.requires),
+        ImmutableList.copyOf(tokenizer.resolves),
+        tokenizer.dynamicRequires);
+  }
+
+  /** The modules named by require and module.require calls, in source order. */
+  public ImmutableList<String> getRequires() {
+    return requires;
+  }
+
+  /** The modules named by require.resolve calls, in source order. */
+  public ImmutableList<String> getResolves() {
+    return resolves;
+  }
+
+  /** Whether a require or module.require call has an argument that is not a string literal. */
+  public boolean hasDynamicRequires() {
+    return dynamicRequires;
+  }
+
+  /**
+   * Splits the source into just enough tokens to recognize the calls, and matches every new token
+   * against the few before it.
+   */
+  private static final class Tokenizer {
+    // The last tokens seen, most recent at the end of the ring.
+    private static final int HISTORY = 8;
+
+    private final String code;
+    private final int length;
+    private int pos;
+
+    private final TokenType[] types = new TokenType[HISTORY];
+    private final String[] values = new String[HISTORY];
+    private int count;
+
+    // One entry per open brace, true for the ${ of a template literal.
+    private final List<Boolean> braces = new ArrayList<>();
+
+    private final List<String> requires = new ArrayList<>();
+    private final List<String> resolves = new ArrayList<>();
+    private boolean dynamicRequires;
+
+    Tokenizer(String code) {
+      this.code = code;
+      this.length = code.length();
+    }
+
+    void run() {
+      if (code.startsWith("#!")) {
+        skipLine();
+      }
+      while (pos < length) {
+        char c = code.charAt(pos);
+        if (c == '/' && pos + 1 < length && code.charAt(pos + 1) == '/') {
+          skipLine();
+        } else if (c == '/' && pos + 1 < length && code.charAt(pos + 1) == '*') {
+          int end = code.indexOf("*/", pos + 2);
+          pos = end == -1 ? length : end + 2;
+        } else if (Character.isWhitespace(c) || c == '\u00A0' || c == '\uFEFF') {
+          pos++;
+        } else if (c == '\'' || c == '"') {
+          String value = readString(c);
+          add(value == null ? TokenType.OTHER : TokenType.STRING, value);
+        } else if (c == '`') {
+          pos++;
+          readTemplate(true);
+        } else if (c == '/' && startsRegExp()) {
+          skipRegExp();
+          add(TokenType.OTHER, null);
+        } else if (Character.isJavaIdentifierStart(c) || Character.isDigit(c)) {
+          int start = pos;
+          while (pos < length && Character.isJavaIdentifierPart(code.charAt(pos))) {
+            pos++;
+          }
+          add(TokenType.NAME, code.substring(start, pos));
+        } else if (c == '{') {
+          pos++;
+          braces.add(false);
+          add(TokenType.PUNCTUATOR, "{");
+        } else if (c == '}') {
+          pos++;
+          if (!braces.isEmpty() && braces.remove(braces.size() - 1)) {
+            // The end of a ${...} substitution, the template literal goes on.
+            readTemplate(false);
+          } else {
+            add(TokenType.PUNCTUATOR, "}");
+          }
+        } else {
+          pos++;
+          add(TokenType.PUNCTUATOR, String.valueOf(c));
+        }
+      }
+    }
+
+    private void skipLine() {
+      while (pos < length && !isLineTerminator(code.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    /**
+     * Reads a template literal from just after its opening backquote, or after the closing brace
+     * of one of its substitutions. A whole template without substitutions is a string, anything
+     * else cannot be known before run time.
+     */
+    private void readTemplate(boolean head) {
+      StringBuilder value = new StringBuilder();
+      boolean plain = head;
+      while (pos < length) {
+        char c = code.charAt(pos);
+        if (c == '`') {
+          pos++;
+          add(plain ? TokenType.STRING : TokenType.OTHER, plain ? value.toString() : null);
+          return;
+        } else if (c == '$' && pos + 1 < length && code.charAt(pos + 1) == '{') {
+          pos += 2;
+          braces.add(true);
+          add(TokenType.OTHER, null);
+          return;
+        } else if (c == '\\') {
+          plain &= readEscape(value);
+        } else if (c == '\r') {
+          // Template literals normalize their line terminators.
+          value.append('\n');
+          pos += pos + 1 < length && code.charAt(pos + 1) == '\n' ? 2 : 1;
+        } else {
+          value.append(c);
+          pos++;
+        }
+      }
+      add(TokenType.OTHER, null);
+    }
+
+    /** Returns the value of the string literal at pos, null if it is not a plain one. */
+    @Nullable
+    private String readString(char quote) {
+      pos++;
+      StringBuilder value = new StringBuilder();
+      boolean plain = true;
+      while (pos < length) {
+        char c = code.charAt(pos);
+        if (c == quote) {
+          pos++;
+          return plain ? value.toString() : null;
+        } else if (c == '\\') {
+          plain &= readEscape(value);
+        } else if (c == '\n' || c == '\r') {
+          // Unterminated, the parser will complain about it.
+          return null;
+        } else {
+          value.append(c);
+          pos++;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Appends the character of the escape sequence at pos. Returns false for the legacy octal
+     * escapes, which are left to the parser.
+     */
+    private boolean readEscape(StringBuilder value) {
+      pos++;
+      if (pos >= length) {
+        return false;
+      }
+      char c = code.charAt(pos++);
+      switch (c) {
+        case 'n':
+          value.append('\n');
+          return true;
+        case 't':
+          value.append('\t');
+          return true;
+        case 'r':
+          value.append('\r');
+          return true;
+        case 'b':
+          value.append('\b');
+          return true;
+        case 'f':
+          value.append('\f');
+          return true;
+        case 'v':
+          value.append('\u000B');
+          return true;
+        case '\r':
+          if (pos < length && code.charAt(pos) == '\n') {
+            pos++;
+          }
+          return true;
+        case '\n':
+        case '\u2028':
+        case '\u2029':
+          // A line continuation adds nothing.
+          return true;
+        case 'x':
+          return readHex(value, 2);
+        case 'u':
+          if (pos < length && code.charAt(pos) == '{') {
+            int end = code.indexOf('}', pos);
+            if (end == -1 || end == pos + 1 || end > pos + 7) {
+              return false;
+            }
+            try {
+              value.appendCodePoint(Integer.parseInt(code.substring(pos + 1, end), 16));
+            } catch (IllegalArgumentException e) {
+              return false;
+            }
+            pos = end + 1;
+            return true;
+          }
+          return readHex(value, 4);
+        default:
+          if (c >= '0' && c <= '9') {
+            if (c == '0' && (pos >= length || !Character.isDigit(code.charAt(pos)))) {
+              value.append('\0');
+              return true;
+            }
+            return false;
+          }
+          value.append(c);
+          return true;
+      }
+    }
+
+    private boolean readHex(StringBuilder value, int digits) {
+      if (pos + digits > length) {
+        return false;
+      }
+      try {
+        value.append((char) Integer.parseInt(code.substring(pos, pos + digits), 16));
+      } catch (NumberFormatException e) {
+        return false;
+      }
+      pos += digits;
+      return true;
+    }
+
+    /** Whether the slash at pos starts a regular expression, judging by the token before it. */
+    private boolean startsRegExp() {
+      if (count == 0) {
+        return true;
+      }
+      TokenType type = type(0);
+      String value = value(0);
+      if (type == TokenType.NAME) {
+        return KEYWORDS_BEFORE_EXPRESSION.contains(value);
+      } else if (type == TokenType.PUNCTUATOR) {
+        return !value.equals(")") && !value.equals("]");
+      }
+      return false;
+    }
+
+    private void skipRegExp() {
+      pos++;
+      boolean inClass = false;
+      while (pos < length) {
+        char c = code.charAt(pos++);
+        if (c == '\\') {
+          pos++;
+        } else if (c == '[') {
+          inClass = true;
+        } else if (c == ']') {
+          inClass = false;
+        } else if (c == '/' && !inClass) {
+          break;
+        } else if (isLineTerminator(c)) {
+          return;
+        }
+      }
+      while (pos < length && Character.isJavaIdentifierPart(code.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    /** Records a token, then checks whether it completes a require call. */
+    private void add(TokenType type, @Nullable String value) {
+      int slot = count++ % HISTORY;
+      types[slot] = type;
+      values[slot] = value;
+
+      // require ( <token>
+      if (isPunctuator(1, "(") && isRequireCallee(2)) {
+        if (type != TokenType.STRING && !isPunctuator(0, ")")) {
+          dynamicRequires = true;
+        }
+        return;
+      }
+      // require ( "..." <token>
+      if (type(1) == TokenType.STRING && isPunctuator(2, "(")) {
+        boolean ends = isPunctuator(0, ")") || isPunctuator(0, ",");
+        if (isRequireCallee(3)) {
+          if (ends) {
+            requires.add(value(1));
+          } else {
+            dynamicRequires = true;
+          }
+        } else if (ends && isResolveCallee(3)) {
+          resolves.add(value(1));
+        }
+      }
+    }
+
+    /** Whether the token {@code back} tokens ago ends a require or module.require callee. */
+    private boolean isRequireCallee(int back) {
+      if (!isName(back, "require")) {
+        return false;
+      }
+      if (isPunctuator(back + 1, ".")) {
+        return isName(back + 2, "module") && !isPunctuator(back + 3, ".");
+      }
+      return !isName(back + 1, "function");
+    }
+
+    /** Whether the token {@code back} tokens ago ends a require.resolve callee. */
+    private boolean isResolveCallee(int back) {
+      return isName(back, "resolve")
+          && isPunctuator(back + 1, ".")
+          && isName(back + 2, "require")
+          && !isPunctuator(back + 3, ".");
+    }
+
+    private boolean isName(int back, String name) {
+      return type(back) == TokenType.NAME && name.equals(value(back));
+    }
+
+    private boolean isPunctuator(int back, String punctuator) {
+      return type(back) == TokenType.PUNCTUATOR && punctuator.equals(value(back));
+    }
+
+    @Nullable
+    private TokenType type(int back) {
+      return back < count && back < HISTORY ? types[(count - 1 - back) % HISTORY] : null;
+    }
+
+    @Nullable
+    private String value(int back) {
+      return back < count && back < HISTORY ? values[(count - 1 - back) % HISTORY] : null;
+    }
+
+    private static boolean isLineTerminator(char c) {
+      return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029';
+    }
+  }
+}
@@ -25,5 +25,11 @@ class PrebuildAst {
   PrebuildAst(AbstractCompiler compiler, int numParalleThreads) {
   }
 
+  static boolean bufferError(JSError error) {
+    return false;
+  }
+
   void prebuild(List<CompilerInput> inputList) {}
+
+  void close() {}
 }
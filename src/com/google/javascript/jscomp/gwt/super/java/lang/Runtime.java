@@ -22,6 +22,10 @@ public class Runtime {
     return new Runtime();
   }
 
+  public int availableProcessors() {
+    return 1;
+  }
+
   public long totalMemory() {
     return 0;
   }
@@ -72,14 +72,6 @@ public final class CheckMissingSemicolon extends AbstractPostOrderCallback imple
     if (staticSourceFile instanceof SourceFile) {
       SourceFile sourceFile = (SourceFile) staticSourceFile;
 
-      String code;
-      try {
-        code = sourceFile.getCode();
-      } catch (IOException e) {
-        // We can't read the original source file. Just skip this check.
-        return;
-      }
-
       int length = n.getLength();
       if (length == 0) {
         // This check needs node lengths to work correctly. If we're not in IDE mode, we don't have
@@ -87,7 +79,16 @@ public final class CheckMissingSemicolon extends AbstractPostOrderCallback imple
         return;
       }
       int position = n.getSourceOffset() + length - 1;
-      boolean endsWithSemicolon = code.charAt(position) == ';';
+
+      String lastChar;
+      try {
+        // Only the last char of the statement, not all the code for every statement.
+        lastChar = sourceFile.getCodeRange(position, position + 1);
+      } catch (IOException e) {
+        // We can't read the original source file. Just skip this check.
+        return;
+      }
+      boolean endsWithSemicolon = ";".equals(lastChar);
       if (!endsWithSemicolon) {
         t.report(n, MISSING_SEMICOLON);
       }
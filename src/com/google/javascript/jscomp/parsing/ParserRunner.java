@@ -24,6 +24,7 @@ import com.google.javascript.jscomp.parsing.Config.LanguageMode;
 import com.google.javascript.jscomp.parsing.Config.RunMode;
 import com.google.javascript.jscomp.parsing.Config.StrictMode;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
+import com.google.javascript.jscomp.parsing.parser.InternTable;
 import com.google.javascript.jscomp.parsing.parser.Parser;
 import com.google.javascript.jscomp.parsing.parser.Parser.Config.Mode;
 import com.google.javascript.jscomp.parsing.parser.SourceFile;
@@ -117,6 +118,19 @@ public final class ParserRunner {
       String sourceString,
       Config config,
       ErrorReporter errorReporter) {
+    return parse(sourceFile, sourceString, config, new InternTable(), errorReporter);
+  }
+
+  /**
+   * Parses the source, with the strings of its identifiers and literals taken from internTable,
+   * which is shared by the parses of a compilation.
+   */
+  public static ParseResult parse(
+      StaticSourceFile sourceFile,
+      String sourceString,
+      Config config,
+      InternTable internTable,
+      ErrorReporter errorReporter) {
     // TODO(johnlenz): unify "SourceFile", "Es6ErrorReporter" and "Config"
 
     String sourceName = sourceFile.getName();
@@ -124,7 +138,8 @@ public final class ParserRunner {
       SourceFile file = new SourceFile(sourceName, sourceString);
       boolean keepGoing = config.runMode() == Config.RunMode.KEEP_GOING;
       Es6ErrorReporter es6ErrorReporter = new Es6ErrorReporter(errorReporter, keepGoing);
-      com.google.javascript.jscomp.parsing.parser.Parser.Config es6config = newParserConfig(config);
+      com.google.javascript.jscomp.parsing.parser.Parser.Config es6config =
+          newParserConfig(config, internTable);
       Parser p = new Parser(es6config, es6ErrorReporter, file);
       ProgramTree tree = p.parseProgram();
       Node root = null;
@@ -148,7 +163,7 @@ public final class ParserRunner {
   }
 
   private static com.google.javascript.jscomp.parsing.parser.Parser.Config newParserConfig(
-      Config config) {
+      Config config, InternTable internTable) {
     LanguageMode languageMode = config.languageMode();
     boolean isStrictMode = config.strictMode().isStrict();
     Mode parserConfigLanguageMode;
@@ -182,7 +197,7 @@ public final class ParserRunner {
         throw new IllegalStateException("unexpected language mode: " + languageMode);
     }
     return new com.google.javascript.jscomp.parsing.parser.Parser.Config(
-        parserConfigLanguageMode, isStrictMode);
+        parserConfigLanguageMode, isStrictMode, internTable);
   }
 
   // TODO(sdh): this is less useful if we end up needing the node for library version detection
@@ -190,7 +205,7 @@ public final class ParserRunner {
     SourceFile file = new SourceFile(sourcePath, sourceString);
     ErrorReporter reporter = IRFactory.NULL_REPORTER;
     com.google.javascript.jscomp.parsing.parser.Parser.Config config =
-        newParserConfig(IRFactory.NULL_CONFIG);
+        newParserConfig(IRFactory.NULL_CONFIG, new InternTable());
     Parser p = new Parser(config, new Es6ErrorReporter(reporter, false), file);
     ProgramTree tree = p.parseProgram();
     StaticSourceFile simpleSourceFile = new SimpleSourceFile(sourcePath, false);
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.parsing.parser;
+
+/**
+ * The strings of the identifiers and literals that the {@link Scanner} has seen, so that a name
+ * that occurs a million times is one String. A lookup is by a range of the source, so a token
+ * whose string is already in the table costs no allocation.
+ *
+ * <p>This is a cache in front of the JVM's string pool, not a replacement for it: a string is
+ * {@link String#intern interned} once, when it is added. The string nodes of the AST intern their
+ * strings anyway, so this gives them the pooled instance, and the JVM pool is only asked once
+ * per distinct string instead of once per node.
+ *
+ * <p>One table is shared by all the parses of a compilation, which may run in parallel: lookups
+ * take no lock, additions are synchronized.
+ */
+public final class InternTable {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // Open addressing with linear probing, at most half full. Published whole when it grows, so a
+  // lookup without the lock either finds a string or misses and retries with the lock.
+  private volatile String[] table = new String[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /** Returns the string of source[start, end). */
+  public String intern(String source, int start, int end) {
+    int hash = hash(source, start, end);
+    String string = find(table, hash, source, start, end);
+    return string != null ? string : add(hash, source.substring(start, end));
+  }
+
+  public String intern(String string) {
+    int hash = string.hashCode();
+    String interned = find(table, hash, string);
+    return interned != null ? interned : add(hash, string);
+  }
+
+  /** The number of strings in the table. */
+  public synchronized int size() {
+    return size;
+  }
+
+  private synchronized String add(int hash, String string) {
+    String[] table = this.table;
+    String existing = find(table, hash, string);
+    if (existing != null) {
+      return existing;
+    }
+    if (2 * (size + 1) > table.length) {
+      String[] larger = new String[table.length * 2];
+      for (String s : table) {
+        if (s != null) {
+          insert(larger, s);
+        }
+      }
+      table = larger;
+      this.table = larger;
+    }
+    string = string.intern();
+    insert(table, string);
+    size++;
+    return string;
+  }
+
+  private static void insert(String[] table, String string) {
+    int mask = table.length - 1;
+    int i = spread(string.hashCode()) & mask;
+    while (table[i] != null) {
+      i = (i + 1) & mask;
+    }
+    table[i] = string;
+  }
+
+  private static String find(String[] table, int hash, String source, int start, int end) {
+    int mask = table.length - 1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      String candidate = table[i];
+      if (candidate == null) {
+        return null;
+      } else if (candidate.hashCode() == hash
+          && candidate.length() == end - start
+          && candidate.regionMatches(0, source, start, end - start)) {
+        return candidate;
+      }
+    }
+  }
+
+  private static String find(String[] table, int hash, String string) {
+    int mask = table.length - 1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      String candidate = table[i];
+      if (candidate == null) {
+        return null;
+      } else if (candidate.hashCode() == hash && candidate.equals(string)) {
+        return candidate;
+      }
+    }
+  }
+
+  // The hash of String#hashCode, so that it is the one of the string in the table.
+  private static int hash(String source, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + source.charAt(i);
+    }
+    return hash;
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
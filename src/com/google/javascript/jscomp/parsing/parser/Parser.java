@@ -194,7 +194,8 @@ public class Parser {
       boolean initialGeneratorContext) {
     this.config = config;
     this.errorReporter = errorReporter;
-    this.scanner = new Scanner(errorReporter, commentRecorder, source, offset);
+    this.scanner =
+        new Scanner(errorReporter, commentRecorder, source, offset, config.internTable);
     this.functionContextStack.addLast(
         initialGeneratorContext ? FunctionFlavor.GENERATOR : FunctionFlavor.NORMAL);
     lastSourcePosition = scanner.getPosition();
@@ -229,12 +230,19 @@ public class Parser {
     private final boolean atLeast8;
     private final boolean isStrictMode;
     private final boolean warnTrailingCommas;
+    /** The strings of the identifiers and literals, shared by the parsers of a compilation. */
+    private final InternTable internTable;
 
     public Config() {
       this(Mode.ES8_OR_GREATER, /* isStrictMode */ false);
     }
 
     public Config(Mode mode, boolean isStrictMode) {
+      this(mode, isStrictMode, new InternTable());
+    }
+
+    public Config(Mode mode, boolean isStrictMode, InternTable internTable) {
+      this.internTable = internTable;
       parseTypeSyntax = mode == Mode.TYPESCRIPT;
       atLeast6 = !(mode == Mode.ES3 || mode == Mode.ES5);
       atLeast8 = mode == Mode.ES8_OR_GREATER || mode == Mode.ES_NEXT;
@@ -34,6 +34,9 @@ import java.util.ArrayList;
 public class Scanner {
   private final ErrorReporter errorReporter;
   private final SourceFile source;
+  // The contents of the source. Read in place, a char[] copy would double the memory of a file.
+  private final String contents;
+  private final InternTable internTable;
   private final ArrayList<Token> currentTokens = new ArrayList<>();
   private int index;
   private final CommentRecorder commentRecorder;
@@ -46,9 +49,20 @@ public class Scanner {
 
   public Scanner(ErrorReporter errorReporter, CommentRecorder commentRecorder,
       SourceFile file, int offset) {
+    this(errorReporter, commentRecorder, file, offset, new InternTable());
+  }
+
+  /**
+   * Creates a scanner whose identifier and string literal tokens take their strings from
+   * internTable, which may be shared by the scanners of all the files of a compilation.
+   */
+  public Scanner(ErrorReporter errorReporter, CommentRecorder commentRecorder,
+      SourceFile file, int offset, InternTable internTable) {
     this.errorReporter = errorReporter;
     this.commentRecorder = commentRecorder;
     this.source = file;
+    this.contents = file.contents;
+    this.internTable = internTable;
     this.index = offset;
     this.typeParameterLevel = 0;
   }
@@ -242,7 +256,7 @@ public class Scanner {
   }
 
   private boolean isValidIndex(int index) {
-    return index >= 0 && index < source.contents.length();
+    return index >= 0 && index < contents.length();
   }
 
   // 7.2 White Space
@@ -365,7 +379,7 @@ public class Scanner {
       nextChar();
     }
     SourceRange range = getLineNumberTable().getSourceRange(startOffset, index);
-    String value = this.source.contents.substring(startOffset, index);
+    String value = contents.substring(startOffset, index);
     recordComment(type, range, value);
   }
 
@@ -386,16 +400,15 @@ public class Scanner {
       nextChar();
       Comment.Type type = Comment.Type.BLOCK;
       if (index - startOffset > 4) {
-        if (this.source.contents.charAt(startOffset + 2) == '*') {
+        if (contents.charAt(startOffset + 2) == '*') {
           type = Comment.Type.JSDOC;
-        } else if (this.source.contents.charAt(startOffset + 2) == '!') {
+        } else if (contents.charAt(startOffset + 2) == '!') {
           type = Comment.Type.IMPORTANT;
         }
       }
       SourceRange range = getLineNumberTable().getSourceRange(
           startOffset, index);
-      String value = this.source.contents.substring(
-          startOffset, index);
+      String value = contents.substring(startOffset, index);
       recordComment(type, range, value);
     } else {
       reportError("unterminated comment");
@@ -666,6 +679,24 @@ public class Scanner {
   }
 
   private Token scanIdentifierOrKeyword(int beginToken, char ch) {
+    if (isAsciiIdentifierStart(ch)) {
+      // The fast path of the identifiers made of ASCII letters, digits, $ and _, read in place.
+      int end = index;
+      while (end < contents.length() && isAsciiIdentifierPart(contents.charAt(end))) {
+        end++;
+      }
+      char next = end < contents.length() ? contents.charAt(end) : '\0';
+      if (next != '\\' && (next < 0x80 || !isIdentifierPart(next))) {
+        index = end;
+        String value = internTable.intern(contents, beginToken, end);
+        Keywords k = Keywords.get(value);
+        if (k != null) {
+          return new Token(k.type, getTokenRange(beginToken));
+        }
+        return new IdentifierToken(getTokenRange(beginToken), value);
+      }
+    }
+
     StringBuilder valueBuilder = new StringBuilder();
     valueBuilder.append(ch);
 
@@ -730,7 +761,15 @@ public class Scanner {
     }
 
     // Intern the value to avoid creating lots of copies of the same string.
-    return new IdentifierToken(getTokenRange(beginToken), value.intern());
+    return new IdentifierToken(getTokenRange(beginToken), internTable.intern(value));
+  }
+
+  private static boolean isAsciiIdentifierStart(char ch) {
+    return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '$' || ch == '_';
+  }
+
+  private static boolean isAsciiIdentifierPart(char ch) {
+    return isAsciiIdentifierStart(ch) || (ch >= '0' && ch <= '9');
   }
 
   /**
@@ -806,7 +845,7 @@ public class Scanner {
     while (peekStringLiteralChar(terminator)) {
       if (!skipStringLiteralChar()) {
         return new LiteralToken(
-            TokenType.STRING, getTokenString(beginIndex), getTokenRange(beginIndex));
+            TokenType.STRING, getStringLiteral(beginIndex), getTokenRange(beginIndex));
       }
     }
     if (peekChar() != terminator) {
@@ -815,7 +854,17 @@ public class Scanner {
       nextChar();
     }
     return new LiteralToken(
-        TokenType.STRING, getTokenString(beginIndex), getTokenRange(beginIndex));
+        TokenType.STRING, getStringLiteral(beginIndex), getTokenRange(beginIndex));
+  }
+
+  // Short literals are interned, like 'use strict' and the names of required modules. The long
+  // ones are rarely repeated, and the table would keep them for the whole compilation.
+  private static final int MAX_INTERNED_LITERAL_LENGTH = 64;
+
+  private String getStringLiteral(int beginIndex) {
+    return index - beginIndex <= MAX_INTERNED_LITERAL_LENGTH
+        ? internTable.intern(contents, beginIndex, index)
+        : getTokenString(beginIndex);
   }
 
   private Token scanTemplateLiteral(int beginIndex) {
@@ -850,7 +899,7 @@ public class Scanner {
   }
 
   private String getTokenString(int beginIndex) {
-    return this.source.contents.substring(beginIndex, index);
+    return contents.substring(beginIndex, index);
   }
 
   private boolean peekStringLiteralChar(char terminator) {
@@ -1074,7 +1123,7 @@ public class Scanner {
     if (isAtEnd()) {
       return '\0';
     }
-    return source.contents.charAt(index++);
+    return contents.charAt(index++);
   }
 
   private boolean peek(char ch) {
@@ -1086,7 +1135,7 @@ public class Scanner {
   }
 
   private char peekChar(int offset) {
-    return !isValidIndex(index + offset) ? '\0' : source.contents.charAt(index + offset);
+    return !isValidIndex(index + offset) ? '\0' : contents.charAt(index + offset);
   }
 
   @FormatMethod
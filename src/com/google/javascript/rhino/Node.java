@@ -402,77 +402,349 @@ public class Node implements Serializable {
     }
   }
 
-  private abstract static class PropListItem implements Serializable {
-    final @Nullable PropListItem next;
-    final byte propType;
+  /**
+   * The props that are kept in the bitset of {@link Props} when their value is 1, at the bit of
+   * their index. These are the common boolean props; the others are kept like the int props,
+   * which is correct for any prop but costs an array.
+   */
+  private static final byte[] BOOLEAN_PROPS = {
+    VAR_ARGS_NAME,
+    INCRDECR_PROP,
+    QUOTED_PROP,
+    OPT_ARG_NAME,
+    SYNTHETIC_BLOCK_PROP,
+    ADDED_BLOCK,
+    IS_CONSTANT_NAME,
+    IS_NAMESPACE,
+    DIRECT_EVAL,
+    FREE_CALL,
+    SLASH_V,
+    STATIC_MEMBER,
+    GENERATOR_FN,
+    ARROW_FN,
+    ASYNC_FN,
+    YIELD_ALL,
+    EXPORT_DEFAULT,
+    EXPORT_ALL_FROM,
+    IS_CONSTANT_VAR,
+    GENERATOR_MARKER,
+    GENERATOR_SAFE,
+    COMPUTED_PROP_METHOD,
+    COMPUTED_PROP_GETTER,
+    COMPUTED_PROP_SETTER,
+    GOOG_MODULE_REQUIRE,
+    IS_MODULE_NAME,
+    IS_ES6_CLASS,
+    DELETED,
+    MODULE_ALIAS,
+    IS_UNUSED_PARAMETER,
+    MODULE_EXPORT,
+    IS_SHORTHAND_PROPERTY
+  };
+
+  // The bit of each prop type in the bitset, or -1.
+  private static final byte[] BOOLEAN_PROP_BITS = new byte[Byte.MAX_VALUE + 1];
+
+  static {
+    checkState(BOOLEAN_PROPS.length <= Integer.SIZE);
+    Arrays.fill(BOOLEAN_PROP_BITS, (byte) -1);
+    for (int i = 0; i < BOOLEAN_PROPS.length; i++) {
+      BOOLEAN_PROP_BITS[BOOLEAN_PROPS[i]] = (byte) i;
+    }
+  }
+
+  /**
+   * The properties of a node. Props are never changed, a change of the props of a node gives it
+   * new Props, so nodes can share them: a clone shares the props of the node it was cloned from,
+   * all the nodes of a file share those of the template node of the parser, and nodes that make
+   * the same change to the same props share the result, see {@link #change}.
+   */
+  private static final class Props implements Serializable {
+    private static final long serialVersionUID = 1L;
 
-    PropListItem(byte propType, @Nullable PropListItem next) {
-      this.propType = propType;
-      this.next = next;
+    private static final Props EMPTY = new Props(0, null, null);
+
+    // The number of changes cached per Props, by prop type. A power of 2.
+    private static final int CACHED_CHANGES = 8;
+
+    // The common boolean props that are 1, as bits at their index in BOOLEAN_PROPS.
+    final int booleanProps;
+    // The other int props, as type and value pairs.
+    @Nullable final int[] intProps;
+    // The object props, as type and value pairs.
+    @Nullable final Object[] objectProps;
+    // Bit (type % 64) of every prop that is set, so that most lookups of a missing prop, the common
+    // case, are done without a scan.
+    private final long present;
+    // The last changes made to these props. Threads may race on it, which is fine as it is only a
+    // cache of immutable changes. Never set on EMPTY, which would keep the changes and the values
+    // they hold alive from one compilation to the next.
+    @Nullable private transient Change[] changes;
+    // These props with only their STATIC_SOURCE_FILE, for setStaticSourceFileFrom.
+    @Nullable private transient Props staticSourceFileOnly;
+
+    private Props(int booleanProps, @Nullable int[] intProps, @Nullable Object[] objectProps) {
+      this.booleanProps = booleanProps;
+      this.intProps = intProps;
+      this.objectProps = objectProps;
+      long present = 0;
+      for (int bit = 0; bit < BOOLEAN_PROPS.length; bit++) {
+        if ((booleanProps & (1 << bit)) != 0) {
+          present |= 1L << BOOLEAN_PROPS[bit];
+        }
+      }
+      for (int i = 0; intProps != null && i < intProps.length; i += 2) {
+        present |= 1L << intProps[i];
+      }
+      for (int i = 0; objectProps != null && i < objectProps.length; i += 2) {
+        present |= 1L << (Byte) objectProps[i];
+      }
+      this.present = present;
     }
 
-    public abstract int getIntValue();
-    public abstract Object getObjectValue();
-    public abstract PropListItem chain(@Nullable PropListItem next);
-  }
+    /**
+     * Returns the props with propType set to the int value, or to the object value if it is not
+     * null, or removed if both are unset. Returns null if there are no props left.
+     */
+    @Nullable
+    static Props change(
+        @Nullable Props props, byte propType, int intValue, @Nullable Object objectValue) {
+      Props base = props == null ? EMPTY : props;
+      int mask = booleanPropMask(propType);
+      if (objectValue == null) {
+        // Nothing changes, the common case of putBooleanProp(propType, false).
+        if (intValue == 0 && !base.has(propType)) {
+          return props;
+        } else if (intValue == 1 && (base.booleanProps & mask) != 0) {
+          return props;
+        }
+      }
 
-  // A base class for Object storing props
-  private static final class ObjectPropListItem extends PropListItem {
-    private final Object objectValue;
+      int slot = propType & (CACHED_CHANGES - 1);
+      Change[] changes = base == EMPTY ? null : base.changes;
+      if (changes != null) {
+        Change change = changes[slot];
+        if (change != null
+            && change.propType == propType
+            && change.intValue == intValue
+            && change.objectValue == objectValue) {
+          return change.result;
+        }
+      }
 
-    ObjectPropListItem(byte propType, Object objectValue, @Nullable PropListItem next) {
-      super(propType, next);
-      this.objectValue = objectValue;
+      int booleans = base.booleanProps & ~mask;
+      int[] ints = removeProp(base.intProps, propType);
+      Object[] objects = removeProp(base.objectProps, propType);
+      if (objectValue != null) {
+        objects = addProp(objects, propType, objectValue);
+      } else if (intValue == 1 && mask != 0) {
+        booleans |= mask;
+      } else if (intValue != 0) {
+        ints = addProp(ints, propType, intValue);
+      }
+      Props result =
+          booleans == 0 && ints == null && objects == null
+              ? null
+              : new Props(booleans, ints, objects);
+
+      if (base == EMPTY) {
+        return result;
+      }
+      if (changes == null) {
+        changes = new Change[CACHED_CHANGES];
+        base.changes = changes;
+      }
+      changes[slot] = new Change(propType, intValue, objectValue, result);
+      return result;
     }
 
-    @Override
-    public int getIntValue() {
-      throw new UnsupportedOperationException();
+    boolean has(byte propType) {
+      if ((present & (1L << propType)) == 0) {
+        return false;
+      }
+      return (booleanProps & booleanPropMask(propType)) != 0
+          || indexOfProp(intProps, propType) >= 0
+          || indexOfProp(objectProps, propType) >= 0;
     }
 
-    @Override
-    public Object getObjectValue() {
-      return objectValue;
+    /** Returns the value of the int prop, or 0. */
+    int getIntProp(byte propType) {
+      if ((present & (1L << propType)) == 0) {
+        return 0;
+      } else if ((booleanProps & booleanPropMask(propType)) != 0) {
+        return 1;
+      }
+      int index = indexOfProp(intProps, propType);
+      if (index < 0) {
+        if (indexOfProp(objectProps, propType) >= 0) {
+          throw new UnsupportedOperationException();
+        }
+        return 0;
+      }
+      return intProps[index + 1];
     }
 
-    @Override
-    public String toString() {
-      return String.valueOf(objectValue);
+    @Nullable
+    Object getProp(byte propType) {
+      if ((present & (1L << propType)) == 0) {
+        return null;
+      }
+      int index = indexOfProp(objectProps, propType);
+      if (index < 0) {
+        if ((booleanProps & booleanPropMask(propType)) != 0
+            || indexOfProp(intProps, propType) >= 0) {
+          throw new UnsupportedOperationException();
+        }
+        return null;
+      }
+      return objectProps[index + 1];
     }
 
-    @Override
-    public PropListItem chain(@Nullable PropListItem next) {
-      return new ObjectPropListItem(propType, objectValue, next);
+    boolean isOnlyStaticSourceFile() {
+      return booleanProps == 0
+          && intProps == null
+          && objectProps != null
+          && objectProps.length == 2
+          && (Byte) objectProps[0] == STATIC_SOURCE_FILE;
     }
-  }
 
-  // A base class for int storing props
-  private static final class IntPropListItem extends PropListItem {
-    final int intValue;
+    /**
+     * Returns props with only the STATIC_SOURCE_FILE of these, the same for every call, or null if
+     * they have none.
+     */
+    @Nullable
+    Props onlyStaticSourceFile() {
+      if (isOnlyStaticSourceFile()) {
+        return this;
+      }
+      Props result = staticSourceFileOnly;
+      if (result == null) {
+        int index = indexOfProp(objectProps, STATIC_SOURCE_FILE);
+        if (index < 0) {
+          return null;
+        }
+        result = new Props(0, null, new Object[] {STATIC_SOURCE_FILE, objectProps[index + 1]});
+        staticSourceFileOnly = result;
+      }
+      return result;
+    }
 
-    IntPropListItem(byte propType, int intValue, @Nullable PropListItem next) {
-      super(propType, next);
-      this.intValue = intValue;
+    /** Gets all the property types, in sorted order. */
+    byte[] getSortedPropTypes() {
+      int count = Integer.bitCount(booleanProps);
+      int intCount = intProps == null ? 0 : intProps.length / 2;
+      int objectCount = objectProps == null ? 0 : objectProps.length / 2;
+
+      byte[] keys = new byte[count + intCount + objectCount];
+      for (int i = 0, bit = 0; bit < BOOLEAN_PROPS.length; bit++) {
+        if ((booleanProps & (1 << bit)) != 0) {
+          keys[i++] = BOOLEAN_PROPS[bit];
+        }
+      }
+      for (int i = 0; i < intCount; i++) {
+        keys[count++] = (byte) intProps[2 * i];
+      }
+      for (int i = 0; i < objectCount; i++) {
+        keys[count++] = (Byte) objectProps[2 * i];
+      }
+
+      Arrays.sort(keys);
+      return keys;
     }
 
-    @Override
-    public int getIntValue() {
-      return intValue;
+    String toString(byte propType) {
+      int index = indexOfProp(objectProps, propType);
+      return index < 0
+          ? String.valueOf(getIntProp(propType))
+          : String.valueOf(objectProps[index + 1]);
     }
 
-    @Override
-    public Object getObjectValue() {
-      throw new UnsupportedOperationException();
+    private static int booleanPropMask(byte propType) {
+      int bit = BOOLEAN_PROP_BITS[propType];
+      return bit < 0 ? 0 : 1 << bit;
     }
 
-    @Override
-    public String toString() {
-      return String.valueOf(intValue);
+    /** Returns the index of the type of propType in the int props, or -1. */
+    private static int indexOfProp(@Nullable int[] props, byte propType) {
+      if (props != null) {
+        for (int i = 0; i < props.length; i += 2) {
+          if (props[i] == propType) {
+            return i;
+          }
+        }
+      }
+      return -1;
     }
 
-    @Override
-    public PropListItem chain(@Nullable PropListItem next) {
-      return new IntPropListItem(propType, intValue, next);
+    /** Returns the index of the type of propType in the object props, or -1. */
+    private static int indexOfProp(@Nullable Object[] props, byte propType) {
+      if (props != null) {
+        for (int i = 0; i < props.length; i += 2) {
+          if ((Byte) props[i] == propType) {
+            return i;
+          }
+        }
+      }
+      return -1;
+    }
+
+    private static int[] addProp(@Nullable int[] props, byte propType, int value) {
+      int length = props == null ? 0 : props.length;
+      int[] result = props == null ? new int[2] : Arrays.copyOf(props, length + 2);
+      result[length] = propType;
+      result[length + 1] = value;
+      return result;
+    }
+
+    private static Object[] addProp(@Nullable Object[] props, byte propType, Object value) {
+      int length = props == null ? 0 : props.length;
+      Object[] result = props == null ? new Object[2] : Arrays.copyOf(props, length + 2);
+      result[length] = propType;
+      result[length + 1] = value;
+      return result;
+    }
+
+    @Nullable
+    private static int[] removeProp(@Nullable int[] props, byte propType) {
+      int index = indexOfProp(props, propType);
+      if (index < 0) {
+        return props;
+      } else if (props.length == 2) {
+        return null;
+      }
+      int[] result = new int[props.length - 2];
+      System.arraycopy(props, 0, result, 0, index);
+      System.arraycopy(props, index + 2, result, index, props.length - index - 2);
+      return result;
+    }
+
+    @Nullable
+    private static Object[] removeProp(@Nullable Object[] props, byte propType) {
+      int index = indexOfProp(props, propType);
+      if (index < 0) {
+        return props;
+      } else if (props.length == 2) {
+        return null;
+      }
+      Object[] result = new Object[props.length - 2];
+      System.arraycopy(props, 0, result, 0, index);
+      System.arraycopy(props, index + 2, result, index, props.length - index - 2);
+      return result;
+    }
+  }
+
+  /** A put or a remove of a prop, and the props it gave. */
+  private static final class Change {
+    final byte propType;
+    final int intValue;
+    @Nullable final Object objectValue;
+    @Nullable final Props result;
+
+    Change(byte propType, int intValue, @Nullable Object objectValue, @Nullable Props result) {
+      this.propType = propType;
+      this.intValue = intValue;
+      this.objectValue = objectValue;
+      this.result = result;
     }
   }
 
@@ -939,13 +1211,8 @@ public class Node implements Serializable {
   }
 
   @VisibleForTesting
-  @Nullable
-  final PropListItem lookupProperty(byte propType) {
-    PropListItem x = propListHead;
-    while (x != null && propType != x.propType) {
-      x = x.next;
-    }
-    return x;
+  final boolean hasProp(byte propType) {
+    return props != null && props.has(propType);
   }
 
   /**
@@ -956,50 +1223,22 @@ public class Node implements Serializable {
    * @return this node.
    */
   public final Node clonePropsFrom(Node other) {
-    checkState(this.propListHead == null, "Node has existing properties.");
-    this.propListHead = other.propListHead;
+    checkState(this.props == null, "Node has existing properties.");
+    this.props = other.props;
     return this;
   }
 
   public final boolean hasProps() {
-    return propListHead != null;
+    return props != null;
   }
 
   public final void removeProp(byte propType) {
-    PropListItem result = removeProp(propListHead, propType);
-    if (result != propListHead) {
-      propListHead = result;
-    }
-  }
-
-  /**
-   * @param item The item to inspect
-   * @param propType The property to look for
-   * @return The replacement list if the property was removed, or 'item' otherwise.
-   */
-  @Nullable
-  private final PropListItem removeProp(@Nullable PropListItem item, byte propType) {
-    if (item == null) {
-      return null;
-    } else if (item.propType == propType) {
-      return item.next;
-    } else {
-      PropListItem result = removeProp(item.next, propType);
-      if (result != item.next) {
-        return item.chain(result);
-      } else {
-        return item;
-      }
-    }
+    props = Props.change(props, propType, 0, null);
   }
 
   @Nullable
   public final Object getProp(byte propType) {
-    PropListItem item = lookupProperty(propType);
-    if (item == null) {
-      return null;
-    }
-    return item.getObjectValue();
+    return props == null ? null : props.getProp(propType);
   }
 
   public final boolean getBooleanProp(byte propType) {
@@ -1011,26 +1250,19 @@ public class Node implements Serializable {
    * is not defined.
    */
   public final int getIntProp(byte propType) {
-    PropListItem item = lookupProperty(propType);
-    if (item == null) {
-      return 0;
-    }
-    return item.getIntValue();
+    return props == null ? 0 : props.getIntProp(propType);
   }
 
   public final int getExistingIntProp(byte propType) {
-    PropListItem item = lookupProperty(propType);
-    if (item == null) {
+    int value = getIntProp(propType);
+    if (value == 0) {
       throw new IllegalStateException("missing prop: " + propType);
     }
-    return item.getIntValue();
+    return value;
   }
 
   public final void putProp(byte propType, @Nullable Object value) {
-    removeProp(propType);
-    if (value != null) {
-      propListHead = createProp(propType, value, propListHead);
-    }
+    props = Props.change(props, propType, 0, value);
   }
 
   public final void putBooleanProp(byte propType, boolean value) {
@@ -1038,10 +1270,7 @@ public class Node implements Serializable {
   }
 
   public final void putIntProp(byte propType, int value) {
-    removeProp(propType);
-    if (value != 0) {
-      propListHead = createProp(propType, value, propListHead);
-    }
+    props = Props.change(props, propType, value, null);
   }
 
   /**
@@ -1061,14 +1290,6 @@ public class Node implements Serializable {
     return (TypeDeclarationNode) getProp(DECLARED_TYPE_EXPR);
   }
 
-  final PropListItem createProp(byte propType, Object value, @Nullable PropListItem next) {
-    return new ObjectPropListItem(propType, value, next);
-  }
-
-  final PropListItem createProp(byte propType, int value, @Nullable PropListItem next) {
-    return new IntPropListItem(propType, value, next);
-  }
-
   /**
    * Returns the type of this node before casting. This annotation will only exist on the first
    * child of a CAST node after type checking.
@@ -1085,19 +1306,7 @@ public class Node implements Serializable {
 
   // Gets all the property types, in sorted order.
   private byte[] getSortedPropTypes() {
-    int count = 0;
-    for (PropListItem x = propListHead; x != null; x = x.next) {
-      count++;
-    }
-
-    byte[] keys = new byte[count];
-    for (PropListItem x = propListHead; x != null; x = x.next) {
-      count--;
-      keys[count] = x.propType;
-    }
-
-    Arrays.sort(keys);
-    return keys;
+    return props == null ? new byte[0] : props.getSortedPropTypes();
   }
 
   /** Can only be called when <tt>getType() == TokenStream.NUMBER</tt> */
@@ -1124,6 +1333,11 @@ public class Node implements Serializable {
     }
   }
 
+  /** Whether the node was created with a string, see {@link #newString(Token, String)}. */
+  public final boolean hasString() {
+    return this instanceof StringNode;
+  }
+
   /** Can only be called when node has String context. */
   public String getString() {
     if (this.token == Token.STRING) {
@@ -1202,11 +1416,10 @@ public class Node implements Serializable {
       byte[] keys = getSortedPropTypes();
       for (int i = 0; i < keys.length; i++) {
         byte type = keys[i];
-        PropListItem x = lookupProperty(type);
         sb.append(" [");
         sb.append(propToString(type));
         sb.append(": ");
-        sb.append(x);
+        sb.append(props.toString(type));
         sb.append(']');
       }
     }
@@ -1258,11 +1471,12 @@ public class Node implements Serializable {
   // We get the last child as first.previous. But last.next is null, not first.
 
   /**
-   * Linked list of properties. Since vast majority of nodes would have no more than 2 properties,
-   * linked list saves memory and provides fast lookup. If this does not holds, propListHead can be
-   * replaced by UintMap.
+   * Properties, or null if there are none. The common boolean props are a bitset, the others are
+   * arrays of type and value pairs. Since the vast majority of nodes have no more than 2
+   * properties, a scan of the pairs is a fast lookup. Props are shared between nodes wherever
+   * possible, most nodes only have the props of the template node of their file.
    */
-  @Nullable private transient PropListItem propListHead;
+  @Nullable private transient Props props;
 
   /**
    * COLUMN_BITS represents how many of the lower-order bits of
@@ -1308,17 +1522,11 @@ public class Node implements Serializable {
 
   public final void setStaticSourceFileFrom(Node other) {
     // Make sure source file prop nodes are not duplicated.
-    if (other.propListHead != null
-        && (this.propListHead == null
-            || (this.propListHead.propType == STATIC_SOURCE_FILE
-               && this.propListHead.next == null))) {
-      // Either the node has only STATIC_SOURCE_FILE as a property or has not properties.
-      PropListItem tail = other.propListHead;
-      while (tail.next != null) {
-        tail = tail.next;
-      }
-      if (tail.propType == STATIC_SOURCE_FILE) {
-        propListHead = tail;
+    if (other.props != null && (this.props == null || this.props.isOnlyStaticSourceFile())) {
+      // Either the node has only STATIC_SOURCE_FILE as a property or has no properties.
+      Props sourceFileOnly = other.props.onlyStaticSourceFile();
+      if (sourceFileOnly != null) {
+        props = sourceFileOnly;
         return;
       }
     }
@@ -1576,12 +1784,12 @@ public class Node implements Serializable {
   // Accessors
 
   @Nullable
-  final PropListItem getPropListHeadForTesting() {
-    return propListHead;
+  final Object getPropsForTesting() {
+    return props;
   }
 
-  final void setPropListHead(@Nullable PropListItem propListHead) {
-    this.propListHead = propListHead;
+  final void setProps(@Nullable Props props) {
+    this.props = props;
   }
 
   @Nullable
@@ -2250,7 +2458,7 @@ public class Node implements Serializable {
     dst.setSourceEncodedPosition(this.sourcePosition);
     dst.setLength(this.getLength());
     dst.setTypeI(this.typei);
-    dst.setPropListHead(this.propListHead);
+    dst.setProps(this.props);
 
     // TODO(johnlenz): Remove this once JSTypeExpression are immutable
     if (cloneTypeExprs) {
@@ -3302,7 +3510,7 @@ public class Node implements Serializable {
     // Null marks the end of the children.
     out.writeObject(null);
     out.writeObject(typei);
-    out.writeObject(propListHead);
+    out.writeObject(props);
   }
 
   @GwtIncompatible("ObjectInputStream")
@@ -3338,7 +3546,7 @@ public class Node implements Serializable {
       first.previous = lastChild;
     }
     typei = (TypeI) in.readObject();
-    propListHead = (PropListItem) in.readObject();
+    props = (Props) in.readObject();
   }
 
   /**
@@ -25,6 +25,7 @@ import com.google.javascript.jscomp.TypeICompilerTestCase.TypeInferenceMode;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -832,6 +833,77 @@ public final class CodePrinterTest extends CodePrinterTestBase {
         })));
   }
 
+  public void testWriteTo() throws IOException {
+    // Enough code for several chunks, with lines cut at the preferred breaks.
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      js.append("function f").append(i).append("(a, b) { if (a) { return b + '")
+          .append(i).append("'; } var x = [a, b, ").append(i).append("]; return x; }\n");
+    }
+    js.append("f1(1, 2)");
+    assertThat(js.length()).isGreaterThan(2 * CodePrinter.OUTPUT_CHUNK_SIZE);
+
+    for (final boolean prettyPrint : new boolean[] {false, true}) {
+      for (final boolean preferLineBreakAtEndOfFile : new boolean[] {false, true}) {
+        CompilerOptions options = newCompilerOptions(new CompilerOptionBuilder() {
+          @Override
+          void setOptions(CompilerOptions options) {
+            options.setPrettyPrint(prettyPrint);
+            options.setLineBreak(true);
+            options.setLineLengthThreshold(70);
+            options.setPreferLineBreakAtEndOfFile(preferLineBreakAtEndOfFile);
+          }
+        });
+        Node root = parse(js.toString());
+        SourceMap builtMap = SourceMap.Format.V3.getInstance();
+        String built =
+            new CodePrinter.Builder(root)
+                .setCompilerOptions(options)
+                .setSourceMap(builtMap)
+                .build();
+        SourceMap writtenMap = SourceMap.Format.V3.getInstance();
+        StringBuilder written = new StringBuilder();
+        new CodePrinter.Builder(root)
+            .setCompilerOptions(options)
+            .setSourceMap(writtenMap)
+            .writeTo(written);
+
+        assertEquals(built, written.toString());
+        StringBuilder builtMapJson = new StringBuilder();
+        builtMap.appendTo(builtMapJson, "out.js");
+        StringBuilder writtenMapJson = new StringBuilder();
+        writtenMap.appendTo(writtenMapJson, "out.js");
+        assertEquals(builtMapJson.toString(), writtenMapJson.toString());
+      }
+    }
+  }
+
+  public void testWriteToFailure() {
+    final IOException failure = new IOException("disk full");
+    Appendable out = new Appendable() {
+      @Override
+      public Appendable append(CharSequence csq) throws IOException {
+        throw failure;
+      }
+
+      @Override
+      public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        throw failure;
+      }
+
+      @Override
+      public Appendable append(char c) throws IOException {
+        throw failure;
+      }
+    };
+    try {
+      new CodePrinter.Builder(parse("var x = 1;")).writeTo(out);
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertSame(failure, e);
+    }
+  }
+
   public void testPrettyPrinter() {
     // Ensure that the pretty printer inserts line breaks at appropriate
     // places.
@@ -1608,6 +1608,15 @@ public final class CommandLineRunnerTest extends TestCase {
     }
   }
 
+  public void testStreamOutput() {
+    useStringComparison = true;
+    args.add("--stream_output=true");
+    args.add("--output_wrapper=(function(){%output%})();");
+    String expected = "var x=1;alert(x);";
+    test("var x = 1; alert(x);", expected);
+    assertThat(outReader.toString()).isEqualTo("(function(){" + expected + "})();\n");
+  }
+
   public void testTransformAMD() {
     args.add("--transform_amd_modules");
     test("define({test: 1})", "module.exports = {test: 1}");
@@ -2120,6 +2129,20 @@ public final class CommandLineRunnerTest extends TestCase {
         + "\\n\\\"names\\\":[\\\"alert\\\"]\\n}\\n\"}]");
   }
 
+  public void testMultiEntryModules() {
+    assertThat(
+            CommandLineRunner.multiEntryModules(
+                ImmutableList.of(
+                    new FlagEntry<>(JsSourceType.JS, "src/app.js"),
+                    new FlagEntry<>(JsSourceType.JS, "lib/app.js"),
+                    new FlagEntry<>(JsSourceType.JS, "bin/1-cli.js"),
+                    new FlagEntry<>(JsSourceType.JS, "prelude.js"))))
+        .containsExactly(
+            "prelude:1", "app:1:prelude", "app_2:1:prelude", "_1-cli:1:prelude",
+            "prelude_2:1:prelude")
+        .inOrder();
+  }
+
   public void testAssumeFunctionWrapper() {
     args.add("--compilation_level=SIMPLE_OPTIMIZATIONS");
     args.add("--assume_function_wrapper");
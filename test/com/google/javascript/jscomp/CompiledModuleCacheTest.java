@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/** Tests for {@link CompiledModuleCache}. */
+
+public final class CompiledModuleCacheTest extends TestCase {
+  private File root;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDir().getCanonicalFile();
+  }
+
+  private static String settings(CompilerOptions options, String externs) throws IOException {
+    return CompiledModuleCache.settings(
+        options.serializeForCompiledModuleCache(),
+        ImmutableList.of(SourceFile.fromCode("externs.js", externs)));
+  }
+
+  public void testKeyCoversTheCodeAndTheOptions() throws Exception {
+    CompilerOptions options = new CompilerOptions();
+    options.setReqResLog("/project/resreqlog.txt");
+    String settings = settings(options, "");
+    String key = CompiledModuleCache.key("exports.a = 1;", settings);
+
+    // Another project with the same options.
+    CompilerOptions other = new CompilerOptions();
+    other.setReqResLog("/other/resreqlog.txt");
+    assertThat(CompiledModuleCache.key("exports.a = 1;", settings(other, ""))).isEqualTo(key);
+    assertThat(CompiledModuleCache.key("exports.a = 2;", settings)).isNotEqualTo(key);
+
+    other.setDefineToBooleanLiteral("DEBUG", false);
+    assertThat(CompiledModuleCache.key("exports.a = 1;", settings(other, ""))).isNotEqualTo(key);
+    other = new CompilerOptions();
+    other.setLanguageOut(CompilerOptions.LanguageMode.ECMASCRIPT5);
+    assertThat(CompiledModuleCache.key("exports.a = 1;", settings(other, ""))).isNotEqualTo(key);
+    assertThat(CompiledModuleCache.key("exports.a = 1;", settings(options, "var window;")))
+        .isNotEqualTo(key);
+  }
+
+  public void testSharedBetweenInstances() throws Exception {
+    CompiledModuleCache cache = new CompiledModuleCache(root, 1024);
+    assertNull(cache.get("a"));
+    cache.put("a", "exports.a = 1;");
+    assertThat(cache.get("a")).isEqualTo("exports.a = 1;");
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+
+    // What another process would see.
+    assertThat(new CompiledModuleCache(root, 1024).get("a")).isEqualTo("exports.a = 1;");
+  }
+
+  public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+    CompiledModuleCache cache = new CompiledModuleCache(root, 1000);
+    String code = Strings.repeat("x", 300);
+    cache.put("a", code);
+    cache.put("b", code);
+    cache.put("c", code);
+    long now = System.currentTimeMillis();
+    new File(root, "a.js").setLastModified(now - 30000);
+    new File(root, "b.js").setLastModified(now - 20000);
+    new File(root, "c.js").setLastModified(now - 10000);
+    assertThat(cache.get("a")).isEqualTo(code);
+
+    // Over the limit, so b and c go, leaving 600 bytes, below three quarters of it.
+    cache.put("d", code);
+    assertThat(cache.get("a")).isEqualTo(code);
+    assertNull(cache.get("b"));
+    assertNull(cache.get("c"));
+    assertThat(cache.get("d")).isEqualTo(code);
+  }
+
+  public void testSizeIsCountedInBytes() throws Exception {
+    CompiledModuleCache cache = new CompiledModuleCache(root, 1100);
+    // 200 characters, 400 bytes, so the third entry goes over the limit.
+    String code = Strings.repeat("\u00e9", 200);
+    cache.put("a", code);
+    new File(root, "a.js").setLastModified(System.currentTimeMillis() - 10000);
+    cache.put("b", code);
+    cache.put("c", code);
+    assertNull(cache.get("a"));
+    assertThat(cache.get("c")).isEqualTo(code);
+  }
+}
@@ -16,6 +16,8 @@
 
 package com.google.javascript.jscomp;
 
+import static com.google.common.truth.Truth.assertThat;
+
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
@@ -95,4 +97,24 @@ public final class CompilerOptionsTest extends TestCase {
     assertEquals(StandardCharsets.US_ASCII, options.getOutputCharset());
   }
 
+  public void testCopyForRequiredFile() {
+    CompilerOptions options = new CompilerOptions();
+    options.setDefineToNumberLiteral("threeVar", 3);
+    options.setCompLevel("ADVANCED_OPTIMIZATIONS");
+    RequireVariableTable filesToVar = new RequireVariableTable(false);
+    InProcessRequireCompiler inProcessCompiler =
+        new InProcessRequireCompiler(options, null, filesToVar);
+    options.setInProcessRequireCompiler(inProcessCompiler);
+
+    CompilerOptions copy = options.copyForRequiredFile();
+    new Compiler().initOptions(copy);
+
+    assertEquivalent(Node.newNumber(3), copy.getDefineReplacements().get("threeVar"));
+    assertEquals("ADVANCED_OPTIMIZATIONS", copy.getCompLevel());
+    assertSame(inProcessCompiler, copy.getInProcessRequireCompiler());
+    // The compilation added to the guard of the copy only.
+    assertEquals(0, ((ComposeWarningsGuard) options.getWarningsGuard()).getGuards().size());
+    assertThat(((ComposeWarningsGuard) copy.getWarningsGuard()).getGuards()).isNotEmpty();
+  }
+
 }
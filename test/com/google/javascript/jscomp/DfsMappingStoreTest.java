@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import junit.framework.TestCase;
+
+/** Tests for {@link DfsMappingStore}. */
+
+public final class DfsMappingStoreTest extends TestCase {
+  private File file;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    file = new File(Files.createTempDir(), "DFSMapping.txt");
+  }
+
+  public void testRoundTrip() throws Exception {
+    RequireVariableTable table = new RequireVariableTable(true);
+    table.add("/src/a.js");
+    table.add("C:\\src\\b.json");
+    DfsMappingStore store = new DfsMappingStore(file);
+    store.reset();
+    store.append(table);
+
+    RequireVariableTable read = new RequireVariableTable(true);
+    assertThat(new DfsMappingStore(file).load(read)).isEqualTo(2);
+    assertThat(read.getPaths()).containsExactly("/src/a.js", "C:/src/b.json").inOrder();
+  }
+
+  public void testParentSeesOnlyWhatTheChildAdded() throws Exception {
+    RequireVariableTable parentTable = new RequireVariableTable(true);
+    DfsMappingStore parent = new DfsMappingStore(file);
+    parent.reset();
+    parentTable.add("/src/main.js");
+    parent.append(parentTable);
+
+    // The child process starts from the mapping and appends its own files.
+    RequireVariableTable childTable = new RequireVariableTable(true);
+    DfsMappingStore child = new DfsMappingStore(file);
+    child.load(childTable);
+    childTable.add("/src/dep.js");
+    childTable.add("/src/dep2.js");
+    child.append(childTable);
+
+    assertThat(parent.load(parentTable)).isEqualTo(2);
+    assertThat(parent.getSynced()).isEqualTo(3);
+    assertThat(parentTable.getPaths())
+        .containsExactly("/src/main.js", "/src/dep.js", "/src/dep2.js")
+        .inOrder();
+    assertThat(parent.load(parentTable)).isEqualTo(0);
+
+    parentTable.add("/src/last.js");
+    parent.append(parentTable);
+    assertThat(header()).isEqualTo(4);
+  }
+
+  public void testAppendOnlyWritesNewEntries() throws Exception {
+    RequireVariableTable table = new RequireVariableTable(true);
+    DfsMappingStore store = new DfsMappingStore(file);
+    store.reset();
+    table.add("/a.js");
+    store.append(table);
+    long length = file.length();
+    store.append(table);
+    assertThat(file.length()).isEqualTo(length);
+    table.add("/b.js");
+    store.append(table);
+    assertThat(file.length()).isEqualTo(length + 4 + "/b.js".length());
+  }
+
+  public void testUncommittedEntriesAreIgnored() throws Exception {
+    RequireVariableTable table = new RequireVariableTable(true);
+    table.add("/a.js");
+    DfsMappingStore store = new DfsMappingStore(file);
+    store.reset();
+    store.append(table);
+    // A writer that died after writing an entry but before updating the count.
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.seek(raf.length());
+      raf.writeInt(5);
+      raf.write("/b.js".getBytes(UTF_8));
+    }
+    RequireVariableTable read = new RequireVariableTable(true);
+    new DfsMappingStore(file).load(read);
+    assertThat(read.getPaths()).containsExactly("/a.js");
+  }
+
+  public void testResetEmptiesTheMapping() throws Exception {
+    RequireVariableTable table = new RequireVariableTable(true);
+    table.add("/a.js");
+    new DfsMappingStore(file).append(table);
+    new DfsMappingStore(file).reset();
+    assertThat(file.length()).isEqualTo((long) DfsMappingStore.HEADER_SIZE);
+    assertThat(new DfsMappingStore(file).load(new RequireVariableTable(true))).isEqualTo(0);
+  }
+
+  public void testOldTextFormat() throws Exception {
+    Files.asCharSink(file, UTF_8).write("1\n/a.js\n");
+    DfsMappingStore store = new DfsMappingStore(file);
+    try {
+      store.load(new RequireVariableTable(true));
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(e.getMessage()).contains("not a DFS mapping");
+    }
+    // Writing starts a new mapping in place of the old one.
+    RequireVariableTable table = new RequireVariableTable(true);
+    table.add("/b.js");
+    store.append(table);
+    RequireVariableTable read = new RequireVariableTable(true);
+    new DfsMappingStore(file).load(read);
+    assertThat(read.getPaths()).containsExactly("/b.js");
+  }
+
+  public void testConcurrentChangeIsDetected() throws Exception {
+    DfsMappingStore first = new DfsMappingStore(file);
+    first.reset();
+    RequireVariableTable other = new RequireVariableTable(true);
+    other.add("/other.js");
+    DfsMappingStore second = new DfsMappingStore(file);
+    second.append(other);
+
+    RequireVariableTable table = new RequireVariableTable(true);
+    table.add("/mine.js");
+    try {
+      first.append(table);
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(e.getMessage()).contains("changed by another process");
+    }
+  }
+
+  private int header() throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      assertThat(raf.readInt()).isEqualTo(DfsMappingStore.MAGIC);
+      return raf.readInt();
+    }
+  }
+}
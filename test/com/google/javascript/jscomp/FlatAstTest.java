@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.javascript.jscomp.FlatAst.NO_NODE;
+
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import junit.framework.TestCase;
+
+/** Tests for {@link FlatAst}. */
+
+public final class FlatAstTest extends TestCase {
+  public void testCopiesTheTree() {
+    Node script =
+        parse("var a = 1;\nfunction f(x) { return a + x; }\nf('a');\nif (a) { a++; } else {}");
+    FlatAst ast = FlatAst.build(script);
+    assertEquals(NodeUtil.countAstSize(script), ast.size());
+
+    Map<Node, Integer> indices = new IdentityHashMap<>();
+    for (int i = 0; i < ast.size(); i++) {
+      indices.put(ast.getNode(i), i);
+    }
+    assertEquals(ast.size(), indices.size());
+    for (int i = 0; i < ast.size(); i++) {
+      Node n = ast.getNode(i);
+      assertEquals(n.getToken(), ast.getToken(i));
+      assertEquals(n.getLineno(), ast.getLineno(i));
+      assertEquals(n.getCharno(), ast.getCharno(i));
+      assertEquals(i == 0 ? NO_NODE : (int) indices.get(n.getParent()), ast.getParent(i));
+      assertEquals(index(indices, n.getFirstChild()), ast.getFirstChild(i));
+      assertEquals(i == 0 ? NO_NODE : index(indices, n.getNext()), ast.getNext(i));
+      if (n.hasChildren()) {
+        // Pre-order: the first child comes right after its parent.
+        assertEquals(i + 1, ast.getFirstChild(i));
+      }
+    }
+  }
+
+  public void testStrings() {
+    Node script = parse("var a = 'a'; a.b = 3;");
+    FlatAst ast = FlatAst.build(script);
+
+    assertEquals("input.js", ast.getString(0));
+    int var = ast.getFirstChild(0);
+    int name = ast.getFirstChild(var);
+    int string = ast.getFirstChild(name);
+    assertEquals(Token.VAR, ast.getToken(var));
+    assertNull(ast.getString(var));
+    assertEquals("a", ast.getString(name));
+    assertEquals(Token.STRING, ast.getToken(string));
+    // The same string is pooled once.
+    assertSame(ast.getString(name), ast.getString(string));
+    int number = ast.size() - 1;
+    assertEquals(Token.NUMBER, ast.getToken(number));
+    assertNull(ast.getString(number));
+  }
+
+  public void testSubtree() {
+    Node first = IR.exprResult(IR.call(IR.name("f"), IR.number(1)));
+    Node second = IR.exprResult(IR.name("g"));
+    IR.block(first, second);
+
+    FlatAst ast = FlatAst.build(first);
+    assertEquals(4, ast.size());
+    assertEquals(NO_NODE, ast.getParent(0));
+    assertEquals(NO_NODE, ast.getNext(0));
+    assertEquals(Token.NAME, ast.getToken(2));
+    assertEquals(3, ast.getNext(2));
+    assertFalse(ast.hasChildren(3));
+    assertEquals(-1, ast.getLineno(3));
+  }
+
+  public void testSingleNode() {
+    FlatAst ast = FlatAst.build(IR.name("a"));
+    assertEquals(1, ast.size());
+    assertEquals(NO_NODE, ast.getFirstChild(0));
+    assertEquals("a", ast.getString(0));
+  }
+
+  private static int index(Map<Node, Integer> indices, Node n) {
+    return n == null ? NO_NODE : indices.get(n);
+  }
+
+  private static Node parse(String js) {
+    Compiler compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    return compiler.parse(SourceFile.fromCode("input.js", js));
+  }
+}
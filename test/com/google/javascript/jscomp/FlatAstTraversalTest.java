@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link FlatAstTraversal}. */
+
+public final class FlatAstTraversalTest extends TestCase {
+  private Compiler compiler;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+  }
+
+  public void testOrderMatchesNodeTraversal() {
+    // No function declarations, whose name NodeTraversal visits first.
+    Node script =
+        parse("var f = function(x) { return x ? [x, 1] : {a: x}; };\nfor (;;) { f(2); break; }");
+    final List<String> expected = new ArrayList<>();
+    NodeTraversal.traverseEs6(
+        compiler,
+        script,
+        new NodeTraversal.Callback() {
+          @Override
+          public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
+            expected.add("enter " + n.getToken());
+            return true;
+          }
+
+          @Override
+          public void visit(NodeTraversal t, Node n, Node parent) {
+            expected.add("visit " + n.getToken() + " in " + tokenOf(parent));
+          }
+        });
+
+    final List<String> actual = new ArrayList<>();
+    FlatAstTraversal.traverse(
+        compiler,
+        FlatAst.build(script),
+        new FlatAstTraversal.Callback() {
+          @Override
+          public boolean shouldTraverse(FlatAstTraversal t, int n, int parent) {
+            actual.add("enter " + t.getAst().getToken(n));
+            return true;
+          }
+
+          @Override
+          public void visit(FlatAstTraversal t, int n, int parent) {
+            FlatAst ast = t.getAst();
+            String parentToken = parent == FlatAst.NO_NODE ? "null" : "" + ast.getToken(parent);
+            actual.add("visit " + ast.getToken(n) + " in " + parentToken);
+          }
+        });
+
+    assertEquals(expected, actual);
+  }
+
+  public void testShallowCallback() {
+    Node script = parse("function f(a) { var b; }\nvar c;");
+    final List<String> names = new ArrayList<>();
+    FlatAstTraversal.traverse(
+        compiler,
+        FlatAst.build(script),
+        new FlatAstTraversal.AbstractShallowCallback() {
+          @Override
+          public void visit(FlatAstTraversal t, int n, int parent) {
+            if (t.getAst().getToken(n) == Token.NAME) {
+              names.add(t.getAst().getString(n));
+            }
+          }
+        });
+    assertThat(names).containsExactly("f", "c").inOrder();
+  }
+
+  public void testPrunedSubtreeIsNotVisited() {
+    Node script = parse("if (a) { b(); } c();");
+    final List<Token> visited = new ArrayList<>();
+    FlatAstTraversal.traverse(
+        compiler,
+        FlatAst.build(script),
+        new FlatAstTraversal.Callback() {
+          @Override
+          public boolean shouldTraverse(FlatAstTraversal t, int n, int parent) {
+            return t.getAst().getToken(n) != Token.IF;
+          }
+
+          @Override
+          public void visit(FlatAstTraversal t, int n, int parent) {
+            visited.add(t.getAst().getToken(n));
+          }
+        });
+    assertThat(visited)
+        .containsExactly(Token.NAME, Token.CALL, Token.EXPR_RESULT, Token.SCRIPT)
+        .inOrder();
+  }
+
+  public void testSourcePositionAndReport() {
+    Node script = parse("var a;\nvar b = a;");
+    final DiagnosticType warning = DiagnosticType.warning("JSC_TEST", "found {0}");
+    FlatAstTraversal.traverse(
+        compiler,
+        FlatAst.build(script),
+        new FlatAstTraversal.AbstractPostOrderCallback() {
+          @Override
+          public void visit(FlatAstTraversal t, int n, int parent) {
+            FlatAst ast = t.getAst();
+            if (ast.getToken(n) == Token.NAME && ast.getToken(parent) == Token.NAME) {
+              assertEquals("input.js", t.getSourceName());
+              assertEquals(2, t.getLineNumber());
+              assertEquals(8, t.getCharno());
+              t.report(n, warning, ast.getString(n));
+            }
+          }
+        });
+
+    assertThat(compiler.getWarnings()).hasLength(1);
+    JSError error = compiler.getWarnings()[0];
+    assertEquals("found a", error.description);
+    assertEquals("input.js", error.sourceName);
+    assertEquals(2, error.lineNumber);
+  }
+
+  public void testUnexpectedException() {
+    Node script = parse("a;");
+    try {
+      FlatAstTraversal.traverse(
+          compiler,
+          FlatAst.build(script),
+          new FlatAstTraversal.AbstractPostOrderCallback() {
+            @Override
+            public void visit(FlatAstTraversal t, int n, int parent) {
+              throw new RuntimeException("test me");
+            }
+          });
+      fail("Expected RuntimeException");
+    } catch (RuntimeException e) {
+      assertThat(e)
+          .hasMessageThat()
+          .startsWith("INTERNAL COMPILER ERROR.\nPlease report this problem.\n\ntest me");
+    }
+  }
+
+  private static String tokenOf(Node n) {
+    return n == null ? "null" : "" + n.getToken();
+  }
+
+  private Node parse(String js) {
+    return compiler.parse(SourceFile.fromCode("input.js", js));
+  }
+}
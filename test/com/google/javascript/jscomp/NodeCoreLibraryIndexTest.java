@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/** Tests for {@link NodeCoreLibraryIndex}. */
+
+public final class NodeCoreLibraryIndexTest extends TestCase {
+  private File root;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDir().getCanonicalFile();
+  }
+
+  public void testModulesAreNamedAsTheyAreRequired() throws Exception {
+    write("lib/fs.js");
+    write("lib/internal/util.js");
+    write("lib/internal/streams/legacy.js");
+    write("lib/README.md");
+    write("src/node.cc");
+
+    NodeCoreLibraryIndex index = NodeCoreLibraryIndex.of(root.getPath());
+    assertThat(index.size()).isEqualTo(3);
+    assertThat(index.getPath("fs")).isEqualTo(path("lib/fs.js"));
+    assertThat(index.getPath("internal/util")).isEqualTo(path("lib/internal/util.js"));
+    assertThat(index.getPath("internal/streams/legacy"))
+        .isEqualTo(path("lib/internal/streams/legacy.js"));
+    assertNull(index.getPath("http"));
+    assertNull(index.getPath("fs.js"));
+
+    // The tree is only walked once.
+    write("lib/http.js");
+    assertSame(index, NodeCoreLibraryIndex.of(root.getPath()));
+    assertNull(index.getPath("http"));
+  }
+
+  public void testMissingSourceTree() {
+    assertThat(NodeCoreLibraryIndex.build(new File(root, "lib")).size()).isEqualTo(0);
+  }
+
+  private String path(String relative) {
+    return new File(root, relative).getPath();
+  }
+
+  private void write(String relative) throws IOException {
+    File file = new File(root, relative);
+    file.getParentFile().mkdirs();
+    Files.asCharSink(file, UTF_8).write("");
+  }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Tests for {@link NodeRequireInliningPass}. */
+
+public final class NodeRequireInliningPassTest extends CompilerTestCase {
+  private File root;
+  private boolean parallelResolve;
+  private boolean jsonAsLiteral;
+  private boolean multiEntry;
+  private boolean declareGlobals;
+  private boolean resolveNodeSource;
+  private String report;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDir().getCanonicalFile();
+    write("a.js", "exports.x = 1;");
+    write("data.json", "{\"path\": \"C:\\\\src\"}");
+    parallelResolve = false;
+    jsonAsLiteral = false;
+    multiEntry = false;
+    declareGlobals = true;
+    resolveNodeSource = false;
+    report = "";
+  }
+
+  @Override
+  protected CompilerPass getProcessor(Compiler compiler) {
+    return new NodeRequireInliningPass(compiler);
+  }
+
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setDFSLog(path("DFSMapping.txt"));
+    options.setReqResLog(path("resreqlog.txt"));
+    options.setResetRRL("true");
+    options.setNJSSource(root.getPath());
+    options.setResolveInProcess("true");
+    options.setParallelResolve(String.valueOf(parallelResolve));
+    options.setJsonAsLiteral(String.valueOf(jsonAsLiteral));
+    options.setMultiEntry(String.valueOf(multiEntry));
+    options.setDeclareGlobals(String.valueOf(declareGlobals));
+    options.setNJSSBoolean(String.valueOf(resolveNodeSource));
+    options.setRequireResolveReport(report);
+    // The required files are compiled with these options, without externs.
+    options.setPolymerVersion(null);
+    options.setCheckSymbols(false);
+    return options;
+  }
+
+  @Override
+  protected int getNumRepetitions() {
+    // The DFS mapping remembers the files of the first run.
+    return 1;
+  }
+
+  public void testFirstRequireIsWrappedLaterOnesUseTheVariable() {
+    testMain(
+        "var a = require('./a'); var b = module.require('./a.js');",
+        "var globalVariable_SHYDNUTN_000;"
+            + "var a = function() {"
+            + "  var module = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_000 = module;"
+            + "  (function(exports, module, __filename, __dirname) {"
+            + "    exports.x = 1;"
+            + "  })(module.exports, module, '" + path("a.js") + "', '" + root.getPath() + "');"
+            + "  return module.exports;"
+            + "}();"
+            + "var b = globalVariable_SHYDNUTN_000.exports;");
+  }
+
+  public void testJsonIsParsedFromTheFileText() {
+    testMain(
+        "var data = require('./data.json');",
+        "var globalVariable_SHYDNUTN_000;"
+            + "var data = function() {"
+            + "  globalVariable_SHYDNUTN_000 = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_000.exports = JSON.parse('{\"path\": \"C:\\\\\\\\src\"}');"
+            + "  return globalVariable_SHYDNUTN_000.exports;"
+            + "}();");
+  }
+
+  public void testJsonLineBreaksAreJoinedWithNewlines() throws Exception {
+    write("lines.json", "{\r\n\"a\": 1\r\r\n}\n");
+    testMain(
+        "var data = require('./lines.json');",
+        "var globalVariable_SHYDNUTN_000;"
+            + "var data = function() {"
+            + "  globalVariable_SHYDNUTN_000 = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_000.exports = JSON.parse('{\\n\"a\": 1\\n\\n}');"
+            + "  return globalVariable_SHYDNUTN_000.exports;"
+            + "}();");
+  }
+
+  public void testJsonAsLiteral() throws Exception {
+    write("proto.json", "{\"__proto__\": {\"a\": 1}}");
+    jsonAsLiteral = true;
+    testMain(
+        "var data = require('./data.json'); var proto = require('./proto.json');",
+        "var globalVariable_SHYDNUTN_000, globalVariable_SHYDNUTN_001;"
+            + "var data = function() {"
+            + "  globalVariable_SHYDNUTN_000 = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_000.exports = {'path': 'C:\\\\src'};"
+            + "  return globalVariable_SHYDNUTN_000.exports;"
+            + "}();"
+            // A literal would set the prototype instead of adding a property.
+            + "var proto = function() {"
+            + "  globalVariable_SHYDNUTN_001 = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_001.exports = JSON.parse('{\"__proto__\": {\"a\": 1}}');"
+            + "  return globalVariable_SHYDNUTN_001.exports;"
+            + "}();");
+  }
+
+  public void testParallelResolveNumbersVariablesInDfsOrder() throws Exception {
+    write("b.js", "var c = require('./c'); exports.b = c;");
+    write("c.js", "exports.c = 2;");
+    write("d.js", "var c = require('./c'); exports.d = c;");
+    parallelResolve = true;
+    testMain(
+        "var b = require('./b'); var d = require('./d');",
+        "var globalVariable_SHYDNUTN_000, globalVariable_SHYDNUTN_001, globalVariable_SHYDNUTN_002;"
+            + "var b = function() {"
+            + "  var module = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_000 = module;"
+            + "  (function(exports, module, __filename, __dirname) {"
+            + "    var c = function() {"
+            + "      var module = {exports: {}};"
+            + "      globalVariable_SHYDNUTN_001 = module;"
+            + "      (function(exports, module, __filename, __dirname) {"
+            + "        exports.c = 2;"
+            + "      })(module.exports, module, '" + path("c.js") + "', '" + root.getPath() + "');"
+            + "      return module.exports;"
+            + "    }();"
+            + "    exports.b = c;"
+            + "  })(module.exports, module, '" + path("b.js") + "', '" + root.getPath() + "');"
+            + "  return module.exports;"
+            + "}();"
+            + "var d = function() {"
+            + "  var module = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_002 = module;"
+            + "  (function(exports, module, __filename, __dirname) {"
+            + "    var c = globalVariable_SHYDNUTN_001.exports;"
+            + "    exports.d = c;"
+            + "  })(module.exports, module, '" + path("d.js") + "', '" + root.getPath() + "');"
+            + "  return module.exports;"
+            + "}();");
+  }
+
+  public void testMultiEntryMovesSharedFilesToThePrelude() throws Exception {
+    write("b.js", "exports.b = require('./a').x;");
+    multiEntry = true;
+    JSModule prelude = new JSModule("prelude");
+    prelude.add(SourceFile.fromCode(path("prelude$fillFile"), ""));
+    JSModule one = new JSModule("one");
+    one.add(SourceFile.fromCode(path("one.js"), "var b = require('./b');"));
+    one.addDependency(prelude);
+    JSModule two = new JSModule("two");
+    two.add(
+        SourceFile.fromCode(
+            path("two.js"), "var a = require('./a'); var d = require('./data.json');"));
+    two.addDependency(prelude);
+
+    test(
+        new JSModule[] {prelude, one, two},
+        new String[] {
+          // a is required by both entry points, so it is only run by whichever calls it first.
+          "var globalVariable_SHYDNUTN_000, globalVariable_SHYDNUTN_001,"
+              + "    globalVariable_SHYDNUTN_002;"
+              + "function globalRequire_SHYDNUTN_001() {"
+              + "  if (globalVariable_SHYDNUTN_001) return globalVariable_SHYDNUTN_001.exports;"
+              + "  var module = {exports: {}};"
+              + "  globalVariable_SHYDNUTN_001 = module;"
+              + "  (function(exports, module, __filename, __dirname) {"
+              + "    exports.x = 1;"
+              + "  })(module.exports, module, '" + path("a.js") + "', '" + root.getPath() + "');"
+              + "  return module.exports;"
+              + "}",
+          "var b = function() {"
+              + "  var module = {exports: {}};"
+              + "  globalVariable_SHYDNUTN_000 = module;"
+              + "  (function(exports, module, __filename, __dirname) {"
+              + "    exports.b = globalRequire_SHYDNUTN_001().x;"
+              + "  })(module.exports, module, '" + path("b.js") + "', '" + root.getPath() + "');"
+              + "  return module.exports;"
+              + "}();",
+          "var a = globalRequire_SHYDNUTN_001();"
+              + "var d = function() {"
+              + "  globalVariable_SHYDNUTN_002 = {exports: {}};"
+              + "  globalVariable_SHYDNUTN_002.exports = JSON.parse('{\"path\": \"C:\\\\\\\\src\"}');"
+              + "  return globalVariable_SHYDNUTN_002.exports;"
+              + "}();"
+        });
+  }
+
+  public void testSharedFilesAreMovedInTheOrderOfTheirNumbers() {
+    multiEntry = true;
+    // The wrappers are in the opposite order of their numbers, which a string sort keeps.
+    String wrappers =
+        "var x = function() {"
+            + "  globalVariable_SHYDNUTN_1000 = {exports: {}};"
+            + "  return globalVariable_SHYDNUTN_1000.exports;"
+            + "}();"
+            + "var y = function() {"
+            + "  globalVariable_SHYDNUTN_999 = {exports: {}};"
+            + "  return globalVariable_SHYDNUTN_999.exports;"
+            + "}();";
+    JSModule prelude = new JSModule("prelude");
+    prelude.add(SourceFile.fromCode(path("prelude$fillFile"), ""));
+    JSModule one = new JSModule("one");
+    one.add(SourceFile.fromCode(path("one.js"), wrappers));
+    one.addDependency(prelude);
+    JSModule two = new JSModule("two");
+    two.add(
+        SourceFile.fromCode(
+            path("two.js"),
+            "var x = globalVariable_SHYDNUTN_1000.exports;"
+                + "var y = globalVariable_SHYDNUTN_999.exports;"));
+    two.addDependency(prelude);
+
+    String calls = "var x = globalRequire_SHYDNUTN_1000(); var y = globalRequire_SHYDNUTN_999();";
+    test(
+        new JSModule[] {prelude, one, two},
+        new String[] {
+          "function globalRequire_SHYDNUTN_999() {"
+              + "  if (globalVariable_SHYDNUTN_999) return globalVariable_SHYDNUTN_999.exports;"
+              + "  globalVariable_SHYDNUTN_999 = {exports: {}};"
+              + "  return globalVariable_SHYDNUTN_999.exports;"
+              + "}"
+              + "function globalRequire_SHYDNUTN_1000() {"
+              + "  if (globalVariable_SHYDNUTN_1000) return globalVariable_SHYDNUTN_1000.exports;"
+              + "  globalVariable_SHYDNUTN_1000 = {exports: {}};"
+              + "  return globalVariable_SHYDNUTN_1000.exports;"
+              + "}",
+          calls,
+          calls
+        });
+  }
+
+  public void testChildCompilationsDoNotDeclareGlobals() {
+    declareGlobals = false;
+    testMain(
+        "var a = require('./a');",
+        "var a = function() {"
+            + "  var module = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_000 = module;"
+            + "  (function(exports, module, __filename, __dirname) {"
+            + "    exports.x = 1;"
+            + "  })(module.exports, module, '" + path("a.js") + "', '" + root.getPath() + "');"
+            + "  return module.exports;"
+            + "}();");
+  }
+
+  public void testCoreModulesAreTakenFromTheNodeSource() throws Exception {
+    write("lib/events.js", "module.exports = require('internal/util').x;");
+    write("lib/internal/util.js", "exports.x = 1;");
+    resolveNodeSource = true;
+    testMain(
+        "var events = require('events'); var missing = require('zlib');",
+        "var globalVariable_SHYDNUTN_000, globalVariable_SHYDNUTN_001;"
+            + "var events = function() {"
+            + "  var module = {exports: {}};"
+            + "  globalVariable_SHYDNUTN_000 = module;"
+            + "  (function(exports, module, __filename, __dirname) {"
+            + "    module.exports = function() {"
+            + "      var module = {exports: {}};"
+            + "      globalVariable_SHYDNUTN_001 = module;"
+            + "      (function(exports, module, __filename, __dirname) {"
+            + "        exports.x = 1;"
+            + "      })(module.exports, module, '" + path("lib/internal/util.js") + "',"
+            + "          '" + path("lib/internal") + "');"
+            + "      return module.exports;"
+            + "    }().x;"
+            + "  })(module.exports, module, '" + path("lib/events.js") + "', '" + path("lib") + "');"
+            + "  return module.exports;"
+            + "}();"
+            + "var missing = require('zlib');");
+  }
+
+  public void testRequireResolveReport() throws Exception {
+    write("b.js", "exports.b = require('./a').x + require('./data.json').path;");
+    report = path("report.json");
+    testNoWarning(
+        ImmutableList.of(
+            SourceFile.fromCode(
+                path("main.js"),
+                "var b = require('./b'); var a = require('./a'); var c = require('./missing');")));
+
+    JsonObject json =
+        new JsonParser()
+            .parse(Files.asCharSource(new File(report), UTF_8).read())
+            .getAsJsonObject();
+    JsonObject counters = json.getAsJsonObject("counters");
+    assertEquals(5, counters.get("requires").getAsInt());
+    assertEquals(3, counters.get("uniqueRequires").getAsInt());
+    assertEquals(1, counters.get("duplicateRequires").getAsInt());
+    assertEquals(1, counters.get("unresolvedRequires").getAsInt());
+    assertEquals(0, counters.get("subprocesses").getAsInt());
+    assertEquals(2, counters.get("maxDepth").getAsInt());
+
+    Map<String, JsonObject> modules = new HashMap<>();
+    for (JsonElement module : json.getAsJsonArray("modules")) {
+      modules.put(module.getAsJsonObject().get("path").getAsString(), module.getAsJsonObject());
+    }
+    JsonObject b = modules.get(path("b.js"));
+    assertEquals(1, b.get("depth").getAsInt());
+    assertEquals("in process", b.get("compiledBy").getAsString());
+    assertEquals(new File(root, "b.js").length(), b.get("bytesRead").getAsLong());
+    JsonObject a = modules.get(path("a.js"));
+    assertEquals(2, a.get("depth").getAsInt());
+    assertEquals(2, a.get("requires").getAsInt());
+    assertThat(a.get("bytesEmitted").getAsLong()).isGreaterThan(0L);
+    assertEquals("json", modules.get(path("data.json")).get("compiledBy").getAsString());
+  }
+
+  public void testUnresolvedRequiresAreLeftAlone() {
+    testMainSame("var a = require('./missing'); var b = require(name); var c = require.resolve('./a');");
+  }
+
+  private void testMain(String js, String expected) {
+    test(
+        ImmutableList.of(SourceFile.fromCode(path("main.js"), js)),
+        ImmutableList.of(SourceFile.fromCode(path("main.js"), expected)));
+  }
+
+  private void testMainSame(String js) {
+    testMain(js, js);
+  }
+
+  private String path(String relative) {
+    return new File(root, relative).getPath();
+  }
+
+  private void write(String relative, String content) throws IOException {
+    new File(root, relative).getParentFile().mkdirs();
+    Files.asCharSink(new File(root, relative), UTF_8).write(content);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link NodeResolverProcess}. The tests that talk to node do nothing when there is no
+ * {@code node} on the PATH.
+ */
+public final class NodeResolverProcessTest extends TestCase {
+  private File root;
+  private NodeResolverProcess process;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDir().getCanonicalFile();
+    process = new NodeResolverProcess("node");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    process.close();
+    super.tearDown();
+  }
+
+  private static boolean isNodeOnPath() {
+    try {
+      Process version = new ProcessBuilder("node", "--version").start();
+      return version.waitFor() == 0;
+    } catch (IOException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void write(String path, String content) throws IOException {
+    File file = new File(root, path);
+    file.getParentFile().mkdirs();
+    Files.write(content, file, UTF_8);
+  }
+
+  public void testResolve() throws Exception {
+    if (!isNodeOnPath()) {
+      return;
+    }
+    write("lib/a.js", "");
+    String lib = new File(root, "lib").getPath();
+    assertThat(process.resolve(root.getPath(), "./lib/a")).isEqualTo(lib + File.separator + "a.js");
+    assertThat(process.resolve(root.getPath(), "fs")).isEqualTo("fs");
+    assertThat(process.resolve(root.getPath(), "./missing")).isNull();
+  }
+
+  public void testResolveAllIsOneBatch() throws Exception {
+    if (!isNodeOnPath()) {
+      return;
+    }
+    write("a.js", "");
+    write("node_modules/b/index.js", "");
+    Map<String, List<String>> requests = new LinkedHashMap<>();
+    requests.put(root.getPath(), ImmutableList.of("./a", "b", "./missing", "path"));
+    process.resolveAll(requests);
+
+    assertTrue(process.isKnown(root.getPath(), "./a"));
+    assertTrue(process.isKnown(root.getPath(), "./missing"));
+    assertFalse(process.isKnown(root.getPath(), "./c"));
+    assertThat(process.resolve(root.getPath(), "./a")).isEqualTo(new File(root, "a.js").getPath());
+    assertThat(process.resolve(root.getPath(), "b"))
+        .isEqualTo(new File(root, "node_modules/b/index.js").getPath());
+    assertThat(process.resolve(root.getPath(), "./missing")).isNull();
+    assertThat(process.resolve(root.getPath(), "path")).isEqualTo("path");
+  }
+
+  public void testRestartsAfterClose() throws Exception {
+    if (!isNodeOnPath()) {
+      return;
+    }
+    write("a.js", "");
+    write("b.js", "");
+    assertThat(process.resolve(root.getPath(), "./a")).isNotNull();
+    process.close();
+    assertThat(process.resolve(root.getPath(), "./b")).isNotNull();
+  }
+
+  public void testMissingExecutable() throws Exception {
+    NodeResolverProcess missing =
+        new NodeResolverProcess(new File(root, "no-such-node").getPath());
+    try {
+      missing.resolve(root.getPath(), "./a");
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      // The start and the restart both failed.
+    }
+    try {
+      missing.resolve(root.getPath(), "./b");
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains("no longer running");
+    }
+  }
+}
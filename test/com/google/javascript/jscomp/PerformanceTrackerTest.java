@@ -144,4 +144,36 @@ public final class PerformanceTrackerTest extends TestCase {
     String outputString = output.toString();
     assertThat(outputString).matches(p);
   }
+
+  public void testParallelParseOutput() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (PrintStream outstream = new PrintStream(output)) {
+      PerformanceTracker tracker =
+          new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.ALL, outstream);
+      tracker.recordParallelParse(2, 2, 100, 60);
+      tracker.recordParallelParse(4, 4, 200, 40);
+      tracker.outputTracerReport();
+    }
+    assertThat(output.toString()).contains(Joiner.on("\n").join(
+        "Parallel parse:",
+        "#Inputs: 6",
+        "#Threads: 4",
+        "Wall time(ms): 100",
+        "CPU time(ms): 300",
+        "Speedup: 3.0",
+        ""));
+  }
+
+  public void testParallelParseOutputWithoutCpuTime() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (PrintStream outstream = new PrintStream(output)) {
+      PerformanceTracker tracker =
+          new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.ALL, outstream);
+      tracker.recordParallelParse(2, 2, 100, 60);
+      tracker.recordParallelParse(4, 4, -1, 40);
+      tracker.outputTracerReport();
+    }
+    assertThat(output.toString()).contains("Wall time(ms): 100\n\n");
+    assertThat(output.toString()).doesNotContain("Speedup");
+  }
 }
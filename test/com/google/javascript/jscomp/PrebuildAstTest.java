@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.CompilerOptions.TracerMode;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link PrebuildAst}. */
+public final class PrebuildAstTest extends TestCase {
+
+  private static List<SourceFile> inputsWithErrors() {
+    List<SourceFile> inputs = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      // Inputs of very different sizes, so that they are not parsed in order.
+      StringBuilder code = new StringBuilder();
+      for (int j = 0; j < (i % 3) * 500; j++) {
+        code.append("var v").append(j).append(" = ").append(j).append(";\n");
+      }
+      code.append(i % 2 == 0 ? "var;\n" : "var ok;\n");
+      inputs.add(SourceFile.fromCode("input" + i + ".js", code.toString()));
+    }
+    return inputs;
+  }
+
+  private static List<String> parseErrors(int numParallelThreads) {
+    return parseErrors(numParallelThreads, new ByteArrayOutputStream());
+  }
+
+  private static List<String> parseErrors(int numParallelThreads, ByteArrayOutputStream report) {
+    final List<String> reported = new ArrayList<>();
+    CompilerOptions options = new CompilerOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    options.setTracerMode(TracerMode.TIMING_ONLY);
+    options.setTracerOutput(new PrintStream(report));
+    options.setErrorHandler(new ErrorHandler() {
+      @Override
+      public void report(CheckLevel level, JSError error) {
+        reported.add(error.sourceName + ":" + error.lineNumber);
+      }
+    });
+    Compiler compiler = new Compiler();
+    compiler.compile(
+        ImmutableList.of(SourceFile.fromCode("externs.js", "")), inputsWithErrors(), options);
+    assertThat(compiler.getErrors()).hasLength(10);
+    // The compilation stops on the errors, before it prints the report.
+    compiler.getPerformanceTracker().outputTracerReport();
+    return reported;
+  }
+
+  public void testErrorsAreReportedInTheOrderOfTheInputs() {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i += 2) {
+      expected.add("input" + i + ".js:" + ((i % 3) * 500 + 1));
+    }
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+    assertThat(parseErrors(4, report)).containsExactlyElementsIn(expected).inOrder();
+    // The inputs were parsed by the threads, each of them once.
+    assertThat(report.toString()).contains("Parallel parse:\n#Inputs: 20\n#Threads: 4\n");
+    assertThat(parseErrors(1)).containsExactlyElementsIn(expected).inOrder();
+  }
+
+  public void testInputsAreOnlyPrebuiltOnce() {
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+    CompilerOptions options = new CompilerOptions();
+    options.setTracerMode(TracerMode.TIMING_ONLY);
+    options.setTracerOutput(new PrintStream(report));
+    Compiler compiler = new Compiler();
+    compiler.init(ImmutableList.<SourceFile>of(), ImmutableList.<SourceFile>of(), options);
+    compiler.maybeSetTracker();
+    List<CompilerInput> inputs = new ArrayList<>();
+    for (SourceFile file : inputsWithErrors()) {
+      inputs.add(new CompilerInput(file));
+    }
+
+    PrebuildAst prebuildAst = new PrebuildAst(compiler, 4);
+    prebuildAst.prebuild(inputs.subList(0, 5));
+    prebuildAst.prebuild(inputs);
+    prebuildAst.close();
+    compiler.getPerformanceTracker().outputTracerReport();
+
+    assertThat(report.toString()).contains("Parallel parse:\n#Inputs: 20\n");
+  }
+
+  public void testAllInputsAreParsed() {
+    final List<JSError> reported = new ArrayList<>();
+    CompilerOptions options = new CompilerOptions();
+    options.setErrorHandler(new ErrorHandler() {
+      @Override
+      public void report(CheckLevel level, JSError error) {
+        reported.add(error);
+      }
+    });
+    Compiler compiler = new Compiler();
+    compiler.init(ImmutableList.<SourceFile>of(), ImmutableList.<SourceFile>of(), options);
+    List<CompilerInput> inputs = new ArrayList<>();
+    for (SourceFile file : inputsWithErrors()) {
+      inputs.add(new CompilerInput(file));
+    }
+
+    PrebuildAst prebuildAst = new PrebuildAst(compiler, 4);
+    prebuildAst.prebuild(inputs);
+    prebuildAst.close();
+
+    assertThat(reported).hasSize(10);
+    // The ASTs are there: getting them does not parse the inputs again.
+    for (CompilerInput input : inputs) {
+      assertThat(input.getAstRoot(compiler).isScript()).isTrue();
+    }
+    assertThat(reported).hasSize(10);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/** Tests for {@link RequireExterns}. */
+
+public final class RequireExternsTest extends TestCase {
+  private int reads;
+
+  public void testExternsAreParsedOnce() {
+    SourceFile extern =
+        new SourceFile.Preloaded("externs.js", "externs.js", "/** @externs */ var ext;") {
+          @Override
+          public String getCode() throws IOException {
+            reads++;
+            return super.getCode();
+          }
+        };
+    RequireExterns externs = new RequireExterns(ImmutableList.of(extern));
+
+    Compiler first = compile(externs, "ext = 1;");
+    int readsOfTheFirstCompilation = reads;
+    Compiler second = compile(externs, "ext = 2;");
+
+    assertThat(readsOfTheFirstCompilation).isGreaterThan(0);
+    assertThat(reads).isEqualTo(readsOfTheFirstCompilation);
+    assertThat(first.toSource()).endsWith("ext=1;");
+    assertThat(second.toSource()).endsWith("ext=2;");
+  }
+
+  public void testEveryCompilationGetsItsOwnCopy() {
+    RequireExterns externs =
+        new RequireExterns(ImmutableList.of(SourceFile.fromCode("externs.js", "var ext;")));
+
+    Compiler first = compile(externs, "ext = 1;");
+    Compiler second = compile(externs, "ext = 2;");
+
+    assertNotSame(first.getExternsRoot().getFirstChild(), second.getExternsRoot().getFirstChild());
+  }
+
+  private static Compiler compile(RequireExterns externs, String code) {
+    Compiler compiler = new Compiler();
+    externs.addTo(compiler);
+    CompilerOptions options = new CompilerOptions();
+    // Without the externs, ext would be an undefined variable.
+    options.setWarningLevel(DiagnosticGroups.UNDEFINED_VARIABLES, CheckLevel.ERROR);
+    options.setCheckSymbols(true);
+    Result result =
+        compiler.compile(
+            ImmutableList.<SourceFile>of(),
+            ImmutableList.of(SourceFile.fromCode("in.js", code)),
+            options);
+    assertTrue(result.success);
+    return compiler;
+  }
+}
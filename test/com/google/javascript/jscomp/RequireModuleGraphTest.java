@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.javascript.jscomp.deps.NodeRequireScanner;
+import com.google.javascript.rhino.Node;
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/** Tests for {@link RequireModuleGraph}. */
+
+public final class RequireModuleGraphTest extends TestCase {
+  private File root;
+  private CompilerOptions options;
+  private RequireModuleGraph graph;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDir().getCanonicalFile();
+    options = new CompilerOptions();
+    options.setDFSLog(path("DFSMapping.txt"));
+    options.setReqResLog(path("resreqlog.txt"));
+    options.setResetRRL("true");
+    options.setNJSSource(root.getPath());
+    options.setRequireResolveCache("false");
+    graph = new RequireModuleGraph(new NodeRequireResolver(options), options, null, 4);
+  }
+
+  public void testDynamicRequiresAreTakenFromTheCompiledOutput() throws Exception {
+    options.setFoldConstants(true);
+    write("a.js", "require('./' + 'b');");
+    write("b.js", "require('./c');");
+    write("c.js", "exports.c = 1;");
+    build("require('./a');");
+
+    // The scanner cannot tell what a requires, but folding turns it into './b'.
+    assertThat(graph.size()).isEqualTo(3);
+    assertThat(graph.getResolved(root.getPath() + "/", "./b")).isEqualTo(path("b.js"));
+  }
+
+  public void testEveryFileIsCompiledOnce() throws Exception {
+    write("a.js", "require('./b'); require('./c');");
+    write("b.js", "require('./d');");
+    write("c.js", "module.require('./d.js');");
+    write("d.js", "exports.d = 1;");
+    build("require('./a');");
+
+    assertThat(graph.size()).isEqualTo(4);
+    assertThat(graph.getResolved(root.getPath() + "/", "./a")).isEqualTo(path("a.js"));
+    assertThat(graph.getResolved(root.getPath() + "/", "./d.js")).isEqualTo(path("d.js"));
+    for (String file : new String[] {"a.js", "b.js", "c.js", "d.js"}) {
+      assertTrue(file, graph.contains(path(file)));
+    }
+  }
+
+  public void testTakeCompiledRemovesTheFile() throws Exception {
+    write("a.js", "exports.a = 1;");
+    build("require('./a');");
+
+    Node compiled = graph.takeCompiled(path("a.js"));
+    assertThat(compiled.getFirstChild().getSourceFileName()).isEqualTo(path("a.js"));
+    assertFalse(graph.contains(path("a.js")));
+    assertNull(graph.takeCompiled(path("a.js")));
+  }
+
+  public void testMissingAndDynamicRequires() throws Exception {
+    write("bad.js", "exports.a = ;");
+    write("data.json", "{}");
+    build("require('./missing'); require(name); require('./bad'); require('./data.json');");
+
+    assertTrue(graph.isResolved(root.getPath() + "/", "./missing"));
+    assertNull(graph.getResolved(root.getPath() + "/", "./missing"));
+    // Files that do not compile are remembered as such, JSON files are not compiled at all.
+    assertTrue(graph.contains(path("bad.js")));
+    assertNull(graph.takeCompiled(path("bad.js")));
+    assertFalse(graph.contains(path("data.json")));
+    assertThat(graph.size()).isEqualTo(0);
+  }
+
+  public void testUnchangedFilesAreTakenFromTheStore() throws Exception {
+    RequireModuleStore store = new RequireModuleStore();
+    options.setRequireModuleStore(store);
+    write("a.js", "require('./b'); exports.a = 1;");
+    write("b.js", "exports.b = 1;");
+    rebuild("require('./a');");
+    assertThat(store.getDigests().keySet()).containsExactly(path("a.js"), path("b.js"));
+
+    // What is kept for b is used as long as its content is the same.
+    store.put(
+        path("b.js"),
+        RequireModuleStore.digest("exports.b = 1;"),
+        NodeRequireScanner.scan(""),
+        new Compiler().parse(SourceFile.fromCode(path("b.js"), "exports.kept = 1;")));
+    rebuild("require('./a');");
+    assertThat(graph.takeCompiled(path("b.js")).getFirstChild().getFirstChild().toStringTree())
+        .contains("kept");
+
+    write("a.js", "exports.a = 2;");
+    rebuild("require('./a');");
+    assertThat(graph.takeCompiled(path("a.js")).getFirstChild().getFirstChild().toStringTree())
+        .contains("NUMBER 2.0");
+    assertThat(store.getDigests().keySet()).containsExactly(path("a.js"));
+  }
+
+  public void testRequiredJsonFilesAreWatched() throws Exception {
+    RequireModuleStore store = new RequireModuleStore();
+    options.setRequireModuleStore(store);
+    write("a.js", "exports.a = require('./data.json');");
+    write("data.json", "{\"a\": 1}");
+    rebuild("require('./a');");
+    assertThat(store.getDigests())
+        .containsEntry(path("data.json"), RequireModuleStore.digest("{\"a\": 1}"));
+
+    // a is unchanged and taken from the store, but data.json is still read again.
+    rebuild("require('./a');");
+    RequireWatcher watcher = new RequireWatcher(10);
+    watcher.watch(store.getDigests().keySet(), store.getDigests());
+    assertThat(watcher.changes()).isEmpty();
+
+    write("data.json", "{\"a\": 2}");
+    new File(root, "data.json").setLastModified(new File(root, "data.json").lastModified() + 2000);
+    assertThat(watcher.changes()).containsExactly(path("data.json"));
+  }
+
+  public void testCompiledFilesAreSharedThroughTheCache() throws Exception {
+    options.setCompiledModuleCache(path("cache"));
+    options.setCompLevel("WHITESPACE_ONLY");
+    write("a.js", "exports.a = 1;");
+    rebuild("require('./a');");
+    assertThat(new File(root, "cache").list()).hasLength(1);
+
+    // Another project with the same file takes it from the cache.
+    CompiledModuleCache cache = CompiledModuleCache.open(path("cache"), 1024);
+    String key =
+        CompiledModuleCache.key(
+            "exports.a = 1;",
+            CompiledModuleCache.settings(
+                options.serializeForCompiledModuleCache(), ImmutableList.<SourceFile>of()));
+    cache.put(key, "exports.cached = 1;");
+    write("other/a.js", "exports.a = 1;");
+    rebuild("require('./other/a');");
+    Node compiled = graph.takeCompiled(path("other/a.js"));
+    assertThat(compiled.getFirstChild().getSourceFileName()).isEqualTo(path("other/a.js"));
+    assertThat(compiled.getFirstChild().getFirstChild().toStringTree()).contains("cached");
+  }
+
+  private void rebuild(String main) {
+    graph = new RequireModuleGraph(new NodeRequireResolver(options), options, null, 4);
+    build(main);
+  }
+
+  private void build(String main) {
+    graph.build(new Compiler().parse(SourceFile.fromCode(path("main.js"), main)));
+  }
+
+  private String path(String relative) {
+    return new File(root, relative).getPath();
+  }
+
+  private void write(String relative, String content) throws IOException {
+    new File(root, relative).getParentFile().mkdirs();
+    Files.asCharSink(new File(root, relative), UTF_8).write(content);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import com.google.javascript.jscomp.deps.FileSystemNodeModuleResolver;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/** Tests for {@link RequireResolutionCache}. */
+
+public final class RequireResolutionCacheTest extends TestCase {
+  private File root;
+  private File dfsLog;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDir().getCanonicalFile();
+    dfsLog = new File(root, "DFSMapping.txt");
+  }
+
+  public void testLookupCountsHitsAndMisses() {
+    RequireResolutionCache cache = open();
+    assertNull(cache.lookup("/src", "./a"));
+    cache.put("/src", "./a", "/src/a.js", ImmutableSet.<String>of());
+    cache.put("/src", "fs", "fs", ImmutableSet.<String>of());
+
+    assertThat(cache.lookup("/src", "./a").getPath()).isEqualTo("/src/a.js");
+    assertThat(cache.lookup("/src", "fs").getPath()).isEqualTo("fs");
+    assertNull(cache.lookup("/other", "./a"));
+    assertThat(cache.getHits()).isEqualTo(2);
+    assertThat(cache.getMisses()).isEqualTo(2);
+  }
+
+  public void testMissingModulesAreCachedToo() {
+    RequireResolutionCache cache = open();
+    cache.put("/src", "./missing", null, ImmutableSet.<String>of());
+    assertTrue(cache.contains("/src", "./missing"));
+    assertNull(cache.lookup("/src", "./missing").getPath());
+  }
+
+  public void testSavedAnswersAreReadBack() throws Exception {
+    write("src/a.js");
+    String src = new File(root, "src").getPath();
+    RequireResolutionCache cache = open();
+    cache.put(src, "./a", path("src/a.js"), resolve(src, "./a"));
+    cache.put(src, "./missing", null, resolve(src, "./missing"));
+    cache.save();
+    assertTrue(new File(root, RequireResolutionCache.FILE_NAME).isFile());
+
+    RequireResolutionCache reloaded = open();
+    assertThat(reloaded.size()).isEqualTo(2);
+    assertThat(reloaded.lookup(src, "./a").getPath()).isEqualTo(path("src/a.js"));
+    assertNull(reloaded.lookup(src, "./missing").getPath());
+    assertThat(reloaded.getMisses()).isEqualTo(0);
+  }
+
+  public void testChangedDependencyInvalidatesAnswer() throws Exception {
+    write("src/a.js");
+    String src = new File(root, "src").getPath();
+    RequireResolutionCache cache = open();
+    cache.put(src, "./a", path("src/a.js"), resolve(src, "./a"));
+    cache.save();
+
+    // Adding a file changes the directory the answer was found in.
+    File srcDir = new File(root, "src");
+    assertTrue(srcDir.setLastModified(srcDir.lastModified() - 10000));
+
+    RequireResolutionCache reloaded = open();
+    assertNull(reloaded.lookup(src, "./a"));
+    assertThat(reloaded.size()).isEqualTo(0);
+  }
+
+  public void testSaveKeepsEntriesWrittenByOtherProcesses() throws Exception {
+    RequireResolutionCache first = open();
+    RequireResolutionCache second = open();
+    first.put("/one", "./a", "/one/a.js", ImmutableSet.<String>of());
+    second.put("/two", "./b", "/two/b.js", ImmutableSet.<String>of());
+    first.save();
+    second.save();
+
+    RequireResolutionCache reloaded = open();
+    assertThat(reloaded.lookup("/one", "./a").getPath()).isEqualTo("/one/a.js");
+    assertThat(reloaded.lookup("/two", "./b").getPath()).isEqualTo("/two/b.js");
+  }
+
+  public void testDamagedFileIsIgnored() throws Exception {
+    Files.asCharSink(new File(root, RequireResolutionCache.FILE_NAME), UTF_8).write("garbage");
+    RequireResolutionCache cache = open();
+    assertThat(cache.size()).isEqualTo(0);
+    cache.put("/src", "fs", "fs", ImmutableSet.<String>of());
+    cache.save();
+    assertThat(open().size()).isEqualTo(1);
+  }
+
+  public void testNodeLookupDependencies() {
+    Set<String> dependencies =
+        RequireResolutionCache.nodeLookupDependencies(
+            new File(root, "src").getPath(), path("node_modules/lib/index.js"));
+    assertThat(dependencies).contains(new File(root, "src").getPath());
+    assertThat(dependencies).contains(new File(root, "node_modules").getPath());
+    assertThat(dependencies).contains(new File(root, "src/node_modules").getPath());
+    assertThat(dependencies).contains(new File(root, "node_modules/lib/package.json").getPath());
+  }
+
+  public void testNextToIsSharedAndStoredNextToTheLog() {
+    RequireResolutionCache cache = RequireResolutionCache.nextTo(dfsLog.getPath());
+    assertSame(cache, RequireResolutionCache.nextTo(new File(root, "other.dfs").getPath()));
+    cache.put("/src", "fs", "fs", ImmutableSet.<String>of());
+    assertThat(open().size()).isEqualTo(0);
+  }
+
+  /** A cache reading the index file the way another process would. */
+  private RequireResolutionCache open() {
+    RequireResolutionCache cache =
+        new RequireResolutionCache(new File(root, RequireResolutionCache.FILE_NAME));
+    cache.load();
+    return cache;
+  }
+
+  private Set<String> resolve(String directory, String moduleName) {
+    Set<String> dependencies = new HashSet<>();
+    new FileSystemNodeModuleResolver().resolve(directory, moduleName, dependencies);
+    return dependencies;
+  }
+
+  private String path(String relative) {
+    return new File(root, relative).getPath();
+  }
+
+  private void write(String relative) throws IOException {
+    File file = new File(root, relative);
+    Files.createParentDirs(file);
+    Files.asCharSink(file, UTF_8).write("");
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.FileWriteMode;
+import com.google.common.io.Files;
+import com.google.javascript.jscomp.RequireResolverLog.Level;
+import java.io.File;
+import junit.framework.TestCase;
+
+/** Tests for {@link RequireResolverLog}. */
+
+public final class RequireResolverLogTest extends TestCase {
+  private File file;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    file = new File(Files.createTempDir(), "resreqlog.txt");
+  }
+
+  public void testLevelFromString() {
+    assertThat(Level.fromString("info")).isEqualTo(Level.INFO);
+    assertThat(Level.fromString("Very-Important")).isEqualTo(Level.VERY_IMPORTANT);
+    assertThat(Level.fromString("very important")).isEqualTo(Level.VERY_IMPORTANT);
+    assertThat(Level.fromString("OFF")).isEqualTo(Level.OFF);
+    assertThat(Level.fromString("loud")).isEqualTo(Level.TRACE);
+    assertThat(Level.fromString(null)).isEqualTo(Level.TRACE);
+  }
+
+  public void testStructuredFields() throws Exception {
+    RequireResolverLog log = RequireResolverLog.open(file.getPath(), true, Level.TRACE);
+    log.log(Level.INFO, "Replace require was called", "./a", "/src/a.js", 1500000);
+    log.log(Level.TRACE, "Just a message\n");
+    log.close();
+
+    assertThat(read())
+        .isEqualTo(
+            "[VERY_IMPORTANT] Log file \"" + file.getPath() + "\" has been reset.\n"
+                + "[INFO] Replace require was called module=\"./a\" path=\"/src/a.js\""
+                + " duration=1.5ms\n"
+                + "[TRACE] Just a message\n");
+  }
+
+  public void testThreshold() throws Exception {
+    RequireResolverLog log = RequireResolverLog.open(file.getPath(), false, Level.IMPORTANT);
+    assertFalse(log.isEnabled(Level.INFO));
+    assertTrue(log.isEnabled(Level.VERY_IMPORTANT));
+    log.log(Level.TRACE, "trace");
+    log.log(Level.INFO, "info");
+    log.log(Level.IMPORTANT, "important");
+    log.log(Level.VERY_IMPORTANT, "very important");
+    log.close();
+    assertThat(read()).isEqualTo("[IMPORTANT] important\n[VERY_IMPORTANT] very important\n");
+  }
+
+  public void testOffDoesNotTouchTheFile() {
+    RequireResolverLog log = RequireResolverLog.open(file.getPath(), true, Level.OFF);
+    assertFalse(log.isEnabled(Level.VERY_IMPORTANT));
+    log.log(Level.VERY_IMPORTANT, "dropped");
+    log.close();
+    assertFalse(file.exists());
+  }
+
+  public void testFlushWritesBufferedMessages() throws Exception {
+    RequireResolverLog log = RequireResolverLog.open(file.getPath(), false, Level.TRACE);
+    log.log(Level.INFO, "first");
+    log.flush();
+    assertThat(read()).isEqualTo("[INFO] first\n");
+
+    // Another process appending in between ends up in order.
+    Files.asCharSink(file, UTF_8, FileWriteMode.APPEND).write("child\n");
+    log.log(Level.INFO, "second");
+    log.close();
+    assertThat(read()).isEqualTo("[INFO] first\nchild\n[INFO] second\n");
+  }
+
+  public void testOpenLogsAreShared() throws Exception {
+    RequireResolverLog log = RequireResolverLog.open(file.getPath(), true, Level.INFO);
+    assertSame(log, RequireResolverLog.open(file.getPath(), true, Level.INFO));
+    assertNotSame(log, RequireResolverLog.open(file.getPath(), false, Level.TRACE));
+    log.log(Level.INFO, "kept");
+    log.close();
+    // Closed logs are not handed out again.
+    RequireResolverLog reopened = RequireResolverLog.open(file.getPath(), false, Level.INFO);
+    assertNotSame(log, reopened);
+    reopened.close();
+    assertThat(read()).endsWith("[INFO] kept\n");
+  }
+
+  public void testAppendsUnlessReset() throws Exception {
+    Files.asCharSink(file, UTF_8).write("earlier run\n");
+    RequireResolverLog log = RequireResolverLog.open(file.getPath(), false, Level.TRACE);
+    log.log(Level.INFO, "this run");
+    log.close();
+    assertThat(read()).isEqualTo("earlier run\n[INFO] this run\n");
+  }
+
+  private String read() throws Exception {
+    return Files.asCharSource(file, UTF_8).read();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gson.JsonObject;
+import com.google.javascript.jscomp.CompilerOptions.TracerMode;
+import com.google.javascript.jscomp.RequireResolverMetrics.Module;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import junit.framework.TestCase;
+
+/** Tests for {@link RequireResolverMetrics}. */
+
+public final class RequireResolverMetricsTest extends TestCase {
+  private RequireResolverMetrics metrics;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    metrics = new RequireResolverMetrics();
+  }
+
+  public void testCounters() {
+    metrics.recordResolution("/a.js", 5, false);
+    metrics.recordResolution("/a.js", 3, true);
+    metrics.recordResolution(null, 1, false);
+    metrics.recordRequire("/a.js", false);
+    metrics.recordRequire("/a.js", true);
+    metrics.recordRequire(null, false);
+    metrics.recordCompiledModuleCache(true);
+    metrics.recordSubprocess();
+    metrics.finish();
+
+    JsonObject counters = metrics.toJson().getAsJsonObject("counters");
+    assertEquals(3, counters.get("requires").getAsInt());
+    assertEquals(1, counters.get("uniqueRequires").getAsInt());
+    assertEquals(1, counters.get("duplicateRequires").getAsInt());
+    assertEquals(1, counters.get("unresolvedRequires").getAsInt());
+    assertEquals(3, counters.get("resolutions").getAsInt());
+    assertEquals(1, counters.get("resolutionCacheHits").getAsInt());
+    assertEquals(1, counters.get("compiledModuleCacheHits").getAsInt());
+    assertEquals(0, counters.get("compiledModuleCacheMisses").getAsInt());
+    assertEquals(1, counters.get("subprocesses").getAsInt());
+
+    Module a = metrics.getModules().get(0);
+    assertEquals("/a.js", a.getPath());
+    assertEquals(2, a.getRequires());
+    assertEquals(8, a.getResolveNanos());
+  }
+
+  public void testNestedRequiresAreNotCountedTwice() {
+    metrics.enterRequire("/a.js");
+    metrics.enterRequire("/b.js");
+    Node b = IR.exprResult(IR.name("bbbbbbbbbb"));
+    metrics.exitRequire("/b.js", b);
+    Node a = IR.block(IR.exprResult(IR.name("a")), b.cloneTree());
+    metrics.exitRequire("/a.js", a);
+
+    Module moduleA = metrics.getModules().get(0);
+    Module moduleB = metrics.getModules().get(1);
+    assertEquals(1, moduleA.getDepth());
+    assertEquals(2, moduleB.getDepth());
+    assertEquals(2, metrics.getMaxDepth());
+    assertThat(moduleA.getRequireNanos()).isAtLeast(moduleB.getRequireNanos());
+    // Only the code of a itself, without the statement of b.
+    long total = PerformanceTrackerCodeSizeEstimator.estimate(a, false).getCodeSize();
+    assertEquals(total - moduleB.getBytesEmitted(), moduleA.getBytesEmitted());
+  }
+
+  public void testTracerReport() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PerformanceTracker tracker =
+        new PerformanceTracker(
+            new Node(Token.BLOCK), new Node(Token.BLOCK), TracerMode.TIMING_ONLY,
+            new PrintStream(output));
+    metrics.recordRequire("/a.js", false);
+    metrics.recordCompile("/a.js", RequireResolverMetrics.COMPILED_BY_GRAPH, 2000000, 14);
+    tracker.recordRequireResolution(metrics);
+    tracker.outputTracerReport();
+
+    String report = output.toString();
+    assertThat(report).contains("Require resolution:\n#Requires: 1\n#Unique requires: 1\n");
+    assertThat(report).contains("/a.js,0,1,0.0,2.0,0.0,module graph,14,0\n");
+  }
+}
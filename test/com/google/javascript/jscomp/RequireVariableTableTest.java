@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.io.Files;
+import com.google.javascript.jscomp.RequireVariableTable.CaseFolding;
+import java.io.File;
+import junit.framework.TestCase;
+
+/** Tests for {@link RequireVariableTable}. */
+
+public final class RequireVariableTableTest extends TestCase {
+
+  public void testIdsFollowInsertionOrder() {
+    RequireVariableTable table = new RequireVariableTable(true);
+    assertThat(table.add("/src/a.js")).isEqualTo(0);
+    assertThat(table.add("/src/b.js")).isEqualTo(1);
+    assertThat(table.add("/src/c.json")).isEqualTo(2);
+
+    assertThat(table.size()).isEqualTo(3);
+    assertThat(table.indexOf("/src/b.js")).isEqualTo(1);
+    assertThat(table.indexOf("/src/d.js")).isEqualTo(-1);
+    assertThat(table.getPaths()).containsExactly("/src/a.js", "/src/b.js", "/src/c.json").inOrder();
+  }
+
+  public void testSlashesAreNormalized() {
+    RequireVariableTable table = new RequireVariableTable(false);
+    table.add("C:\\src\\a.js");
+    assertThat(table.indexOf("C:/src/a.js")).isEqualTo(0);
+    assertThat(table.indexOf("C:\\\\src\\\\a.js")).isEqualTo(0);
+    // The original spelling is what goes to the DFS mapping.
+    assertThat(table.get(0)).isEqualTo("C:\\src\\a.js");
+  }
+
+  public void testIgnoreCase() {
+    RequireVariableTable table = new RequireVariableTable(true);
+    table.add("/Src/App.js");
+    assertThat(table.indexOf("/src/app.js")).isEqualTo(0);
+  }
+
+  public void testExactCase() {
+    RequireVariableTable table = new RequireVariableTable(false);
+    table.add("/Src/App.js");
+    assertThat(table.indexOf("/src/app.js")).isEqualTo(-1);
+    assertThat(table.add("/src/app.js")).isEqualTo(1);
+    assertThat(table.indexOf("/src/app.js")).isEqualTo(1);
+  }
+
+  public void testDuplicateKeepsFirstId() {
+    RequireVariableTable table = new RequireVariableTable(true);
+    table.add("/src/a.js");
+    table.add("/src/b.js");
+    assertThat(table.add("/SRC/A.js")).isEqualTo(2);
+    assertThat(table.indexOf("/src/a.js")).isEqualTo(0);
+    assertThat(table.size()).isEqualTo(3);
+  }
+
+  public void testCaseFoldingFromString() {
+    assertThat(CaseFolding.fromString("exact")).isEqualTo(CaseFolding.EXACT);
+    assertThat(CaseFolding.fromString(" AUTO ")).isEqualTo(CaseFolding.AUTO);
+    assertThat(CaseFolding.fromString("ignore")).isEqualTo(CaseFolding.IGNORE);
+    assertThat(CaseFolding.fromString("something else")).isEqualTo(CaseFolding.IGNORE);
+    assertThat(CaseFolding.fromString(null)).isEqualTo(CaseFolding.IGNORE);
+  }
+
+  public void testAutoMatchesFileSystem() throws Exception {
+    File dir = new File(Files.createTempDir(), "CaseProbe");
+    assertTrue(dir.mkdir());
+    boolean insensitive = new File(dir.getParentFile(), "caseprobe").exists();
+    assertThat(RequireVariableTable.isCaseInsensitive(dir)).isEqualTo(insensitive);
+
+    RequireVariableTable table = RequireVariableTable.create(CaseFolding.AUTO, dir);
+    table.add("/Src/App.js");
+    assertThat(table.indexOf("/src/app.js") == 0).isEqualTo(insensitive);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/** Tests for {@link RequireWatcher}. */
+
+public final class RequireWatcherTest extends TestCase {
+  private File root;
+  private RequireWatcher watcher;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDir().getCanonicalFile();
+    watcher = new RequireWatcher(10);
+  }
+
+  public void testOnlyContentChangesCount() throws Exception {
+    File a = write("a.js", "exports.a = 1;");
+    File b = write("b.js", "exports.b = 1;");
+    watcher.watch(ImmutableList.of(a.getPath(), b.getPath()), ImmutableMap.<String, String>of());
+    assertThat(watcher.changes()).isEmpty();
+
+    // Saved again without a change.
+    write("a.js", "exports.a = 1;");
+    a.setLastModified(a.lastModified() + 2000);
+    assertThat(watcher.changes()).isEmpty();
+
+    write("b.js", "exports.b = 2;");
+    b.setLastModified(b.lastModified() + 2000);
+    assertThat(watcher.changes()).containsExactly(b.getPath());
+    assertThat(watcher.changes()).isEmpty();
+
+    assertTrue(a.delete());
+    assertThat(watcher.changes()).containsExactly(a.getPath());
+  }
+
+  public void testAwaitChanges() throws Exception {
+    final File a = write("a.js", "exports.a = 1;");
+    watcher.watch(ImmutableList.of(a.getPath()), ImmutableMap.<String, String>of());
+    Thread writer =
+        new Thread() {
+          @Override
+          public void run() {
+            try {
+              Thread.sleep(50);
+              write("a.js", "exports.a = 22;");
+            } catch (InterruptedException | IOException e) {
+              throw new RuntimeException(e);
+            }
+          }
+        };
+    writer.start();
+    assertThat(watcher.awaitChanges()).containsExactly(a.getPath());
+    writer.join();
+  }
+
+  public void testFilesChangedDuringTheCompilation() throws Exception {
+    File a = write("a.js", "exports.a = 2;");
+    File b = write("b.js", "exports.b = 1;");
+    watcher.watch(
+        ImmutableList.of(a.getPath(), b.getPath()),
+        ImmutableMap.of(
+            a.getPath(), RequireModuleStore.digest("exports.a = 1;"),
+            b.getPath(), RequireModuleStore.digest("exports.b = 1;")));
+    assertThat(watcher.changes()).containsExactly(a.getPath());
+    assertThat(watcher.changes()).isEmpty();
+  }
+
+  private File write(String relative, String content) throws IOException {
+    File file = new File(root, relative);
+    Files.asCharSink(file, UTF_8).write(content);
+    return file;
+  }
+}
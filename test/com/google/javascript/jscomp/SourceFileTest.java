@@ -18,9 +18,11 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.MoreFiles;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -74,6 +76,16 @@ public final class SourceFileTest extends TestCase {
     assertEquals(newExpectedContent, sourceFile.getCode());
   }
 
+  public void testSizeEstimateOfFileNotRead() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write("var x = 1;");
+    SourceFile sourceFile = SourceFile.fromFile(jsFile.toFile());
+
+    assertThat(sourceFile.getSizeEstimate()).isEqualTo(10);
+    assertThat(sourceFile.hasSourceInMemory()).isFalse();
+    assertThat(SourceFile.fromCode("a.js", "var y;").getSizeEstimate()).isEqualTo(6);
+  }
+
   public void testCachingZipFile() throws IOException {
     // Setup environment.
     String expectedContent = "// content content content";
@@ -148,4 +160,159 @@ public final class SourceFileTest extends TestCase {
     zos.closeEntry();
     zos.close();
   }
+
+  public void testMappedFileMatchesCode() throws IOException {
+    String[] contents = {
+      "",
+      "\n",
+      "var x = 1;",
+      "var x = 1;\n",
+      "\uFEFFvar bom = 'x';\nvar y;\n",
+      "a;\nb;\nc;\nd;\ne;\nf;\n",
+      "a;\nb;\nc;\nd;\ne;\nf;\ng",
+      "var caf\u00e9 = '\u4e2d\u6587';\n// \ud83d\ude00 smile\n\nvar \u00e0 = 1; // end\r\nlast",
+    };
+    for (String content : contents) {
+      Path jsFile = Files.createTempFile("test", ".js");
+      Files.write(jsFile, content.getBytes(StandardCharsets.UTF_8));
+      SourceFile mapped =
+          SourceFile.builder().withMemoryMapping(true).buildFromPath(jsFile);
+      assertThat(mapped).isInstanceOf(SourceFile.Mapped.class);
+      SourceFile preloaded =
+          SourceFile.fromCode("expected.js", content.replace("\uFEFF", ""));
+
+      assertThat(mapped.getCode()).isEqualTo(preloaded.getCode());
+      mapped.releaseCodeAfterParse();
+      assertThat(mapped.hasSourceInMemory()).isFalse();
+      int numLines = preloaded.getNumLines();
+      assertThat(mapped.getNumLines()).isEqualTo(numLines);
+      for (int line = 1; line <= numLines; line++) {
+        assertThat(mapped.getLineOffset(line)).isEqualTo(preloaded.getLineOffset(line));
+      }
+      for (int line = 0; line <= numLines + 1; line++) {
+        assertThat(mapped.getLine(line)).isEqualTo(preloaded.getLine(line));
+      }
+      for (int line = 1; line <= numLines + 1; line++) {
+        Region expected = preloaded.getRegion(line);
+        Region region = mapped.getRegion(line);
+        if (expected == null) {
+          assertThat(region).isNull();
+        } else {
+          assertThat(region.getSourceExcerpt()).isEqualTo(expected.getSourceExcerpt());
+          assertThat(region.getBeginningLineNumber())
+              .isEqualTo(expected.getBeginningLineNumber());
+          assertThat(region.getEndingLineNumber()).isEqualTo(expected.getEndingLineNumber());
+        }
+      }
+      // The excerpts are decoded on their own.
+      assertThat(mapped.hasSourceInMemory()).isFalse();
+    }
+  }
+
+  public void testMappedFileCodeIsReleasedAfterParse() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write("var x = 1;\nvar y = x;\n");
+    SourceFile sourceFile = SourceFile.builder().withMemoryMapping(true).buildFromPath(jsFile);
+
+    Compiler compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    assertThat(compiler.parse(sourceFile).getChildCount()).isEqualTo(2);
+
+    assertThat(sourceFile.hasSourceInMemory()).isFalse();
+    assertThat(sourceFile.getLine(2)).isEqualTo("var y = x;");
+    assertThat(sourceFile.getCode()).isEqualTo("var x = 1;\nvar y = x;\n");
+    // Decoded for the caller, but not kept.
+    assertThat(sourceFile.hasSourceInMemory()).isFalse();
+  }
+
+  public void testNumbersArePrintedWithoutDecodingTheReleasedCode() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8)
+        .write("var a = 1.50;\nvar b = 2.0;\nvar c = [\"\u00e9\", 3.250, 4.10];\n");
+    final int[] getCodeCalls = {0};
+    SourceFile sourceFile =
+        new SourceFile.Mapped(jsFile, jsFile.toString()) {
+          @Override
+          public synchronized String getCode() throws IOException {
+            getCodeCalls[0]++;
+            return super.getCode();
+          }
+        };
+
+    CompilerOptions options = new CompilerOptions();
+    CompilationLevel.WHITESPACE_ONLY.setOptionsForCompilationLevel(options);
+    options.setPrettyPrint(true);
+    // Keeps the lengths of the nodes, which the numbers are read from the source with.
+    options.setPreserveDetailedSourceInfo(true);
+    Compiler compiler = new Compiler();
+    compiler.compile(ImmutableList.<SourceFile>of(), ImmutableList.of(sourceFile), options);
+    assertThat(sourceFile.hasSourceInMemory()).isFalse();
+
+    int callsBeforePrinting = getCodeCalls[0];
+    String printed = compiler.toSource();
+    assertThat(getCodeCalls[0]).isEqualTo(callsBeforePrinting);
+    // The numbers are printed the way they are written, after a multi-byte char too.
+    assertThat(printed).contains("var a = 1.50;");
+    assertThat(printed).contains("var b = 2.0;");
+    assertThat(printed).contains("3.250, 4.10]");
+  }
+
+  public void testMappedCodeRangeMatchesCode() throws IOException {
+    String code = "var a = 1;\nvar \u00e9 = '\uD83D\uDE00', b = [1.50, 2];\n\nvar \u4e2d = 3;";
+    Path jsFile = Files.createTempFile("test", ".js");
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write(code);
+    SourceFile mapped = SourceFile.builder().withMemoryMapping(true).buildFromPath(jsFile);
+
+    // Backwards and forwards, so that the range does not always start after the last one.
+    for (int length = 0; length < 6; length++) {
+      for (int start = code.length() - length; start >= 0; start -= 3) {
+        int end = start + length;
+        if (Character.isLowSurrogate(code.charAt(Math.min(start, code.length() - 1)))
+            || (end < code.length() && Character.isLowSurrogate(code.charAt(end)))) {
+          continue;
+        }
+        assertThat(mapped.getCodeRange(start, end)).isEqualTo(code.substring(start, end));
+      }
+    }
+    assertThat(mapped.getCodeRange(code.length() - 2, code.length() + 1)).isNull();
+    assertThat(mapped.hasSourceInMemory()).isFalse();
+  }
+
+  public void testMappedFileIsMappedOnce() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    MoreFiles.asCharSink(jsFile, StandardCharsets.UTF_8).write("var x = 1;\n");
+    SourceFile sourceFile = SourceFile.builder().withMemoryMapping(true).buildFromPath(jsFile);
+    assertThat(sourceFile.getLine(1)).isEqualTo("var x = 1;");
+
+    // The mapping made for the line is still there for the code, even without the file.
+    Files.delete(jsFile);
+    assertThat(sourceFile.getCode()).isEqualTo("var x = 1;\n");
+  }
+
+  public void testMappedFileLargerThan2Gb() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    try (RandomAccessFile file = new RandomAccessFile(jsFile.toFile(), "rw")) {
+      // A sparse file, it takes no space on disk.
+      file.setLength(Integer.MAX_VALUE + 1L);
+    }
+    SourceFile sourceFile = SourceFile.builder().withMemoryMapping(true).buildFromPath(jsFile);
+    try {
+      sourceFile.getCode();
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().contains("larger than 2GB");
+    } finally {
+      Files.delete(jsFile);
+    }
+  }
+
+  public void testOnlyUtf8FilesAreMapped() throws IOException {
+    Path jsFile = Files.createTempFile("test", ".js");
+    SourceFile sourceFile =
+        SourceFile.builder()
+            .withCharset(StandardCharsets.ISO_8859_1)
+            .withMemoryMapping(true)
+            .buildFromPath(jsFile);
+    assertThat(sourceFile).isInstanceOf(SourceFile.OnDisk.class);
+  }
 }
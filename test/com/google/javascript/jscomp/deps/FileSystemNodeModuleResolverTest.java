@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import junit.framework.TestCase;
+
+/** Tests for {@link FileSystemNodeModuleResolver}. */
+
+public final class FileSystemNodeModuleResolverTest extends TestCase {
+  private File root;
+  private FileSystemNodeModuleResolver resolver;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    root = Files.createTempDir().getCanonicalFile();
+    resolver = new FileSystemNodeModuleResolver();
+  }
+
+  public void testCoreModules() {
+    assertThat(resolver.resolve(root.getPath(), "fs")).isEqualTo("fs");
+    assertThat(resolver.resolve(root.getPath(), "child_process")).isEqualTo("child_process");
+    assertThat(resolver.resolve(root.getPath(), "node:path")).isEqualTo("node:path");
+    assertFalse(FileSystemNodeModuleResolver.isCoreModule("internal/util"));
+  }
+
+  public void testNewerCoreModules() {
+    assertTrue(FileSystemNodeModuleResolver.isCoreModule("diagnostics_channel"));
+    assertTrue(FileSystemNodeModuleResolver.isCoreModule("fs/promises"));
+    assertTrue(FileSystemNodeModuleResolver.isCoreModule("node:test"));
+    assertFalse(FileSystemNodeModuleResolver.isCoreModule("test"));
+  }
+
+  public void testRelativeFile() throws Exception {
+    write("app.js", "");
+    write("lib/a.js", "");
+    write("lib/b.json", "{}");
+    write("lib/c.node", "");
+
+    assertResolved("lib/a.js", root, "./lib/a");
+    assertResolved("lib/a.js", root, "./lib/a.js");
+    assertResolved("lib/b.json", root, "./lib/b");
+    assertResolved("lib/c.node", root, "./lib/c");
+    assertResolved("app.js", new File(root, "lib"), "../app");
+    assertNull(resolver.resolve(root.getPath(), "./missing"));
+  }
+
+  public void testAbsoluteFile() throws Exception {
+    write("lib/a.js", "");
+    String absolute = new File(root, "lib/a").getPath();
+    assertResolved("lib/a.js", new File(root, "somewhere/else"), absolute);
+  }
+
+  public void testFileWinsOverDirectory() throws Exception {
+    write("dep.js", "");
+    write("dep/index.js", "");
+    assertResolved("dep.js", root, "./dep");
+  }
+
+  public void testDirectoryIndex() throws Exception {
+    write("js/index.js", "");
+    write("json/index.json", "{}");
+    write("node/index.node", "");
+
+    assertResolved("js/index.js", root, "./js");
+    assertResolved("js/index.js", root, "./js/");
+    assertResolved("json/index.json", root, "./json");
+    assertResolved("node/index.node", root, "./node");
+    assertResolved("js/index.js", new File(root, "js"), ".");
+  }
+
+  public void testPackageJsonMain() throws Exception {
+    write("pkg/package.json", "{\"main\": \"lib/main\"}");
+    write("pkg/lib/main.js", "");
+    write("dirmain/package.json", "{\"main\": \"./lib\"}");
+    write("dirmain/lib/index.js", "");
+    write("badmain/package.json", "{\"main\": \"nothing-here.js\"}");
+    write("badmain/index.js", "");
+    write("broken/package.json", "{ this is not json");
+    write("broken/index.js", "");
+
+    assertResolved("pkg/lib/main.js", root, "./pkg");
+    assertResolved("dirmain/lib/index.js", root, "./dirmain");
+    assertResolved("badmain/index.js", root, "./badmain");
+    assertResolved("broken/index.js", root, "./broken");
+  }
+
+  public void testNodeModulesAncestorWalk() throws Exception {
+    write("node_modules/lodash/package.json", "{\"main\": \"lodash.js\"}");
+    write("node_modules/lodash/lodash.js", "");
+    write("node_modules/lodash/fp.js", "");
+    write("node_modules/foo/node_modules/bar/index.js", "");
+    write("node_modules/bar/index.js", "");
+    write("node_modules/node_modules/bar/index.js", "");
+    write("src/deep/nested/app.js", "");
+
+    File nested = new File(root, "src/deep/nested");
+    assertResolved("node_modules/lodash/lodash.js", nested, "lodash");
+    assertResolved("node_modules/lodash/fp.js", nested, "lodash/fp");
+
+    // The closest node_modules wins, and node_modules/node_modules is never searched.
+    File foo = new File(root, "node_modules/foo");
+    assertResolved("node_modules/foo/node_modules/bar/index.js", foo, "bar");
+    assertResolved("node_modules/bar/index.js", nested, "bar");
+    assertResolved("node_modules/bar/index.js", new File(root, "node_modules"), "bar");
+    assertResolved(
+        "node_modules/foo/node_modules/bar/index.js",
+        new File(root, "node_modules/foo/node_modules"),
+        "bar");
+
+    assertNull(resolver.resolve(nested.getPath(), "does-not-exist"));
+  }
+
+  public void testGlobalFolders() throws Exception {
+    write("global/shared/index.js", "");
+    FileSystemNodeModuleResolver withGlobals =
+        new FileSystemNodeModuleResolver(
+            ImmutableList.of(new File(root, "global").getPath()));
+    assertThat(withGlobals.resolve(new File(root, "src").getPath(), "shared"))
+        .isEqualTo(path("global/shared/index.js"));
+    assertNull(resolver.resolve(new File(root, "src").getPath(), "shared"));
+  }
+
+  private void assertResolved(String expected, File directory, String moduleAddress) {
+    assertThat(resolver.resolve(directory.getPath(), moduleAddress)).isEqualTo(path(expected));
+  }
+
+  private String path(String relative) {
+    return new File(root, relative).getPath().replace(File.separatorChar, '/');
+  }
+
+  private void write(String relative, String content) throws IOException {
+    File file = new File(root, relative);
+    Files.createParentDirs(file);
+    Files.asCharSink(file, UTF_8).write(content);
+  }
+}
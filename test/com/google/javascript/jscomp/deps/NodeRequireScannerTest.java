@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import junit.framework.TestCase;
+
+/** Tests for {@link NodeRequireScanner}. */
+
+public final class NodeRequireScannerTest extends TestCase {
+
+  public void testRequireCalls() {
+    NodeRequireScanner scanner =
+        NodeRequireScanner.scan(
+            "#!/usr/bin/env node\n"
+                + "var a = require('./a'), b = require(\"b\");\n"
+                + "var c = module.require('./c.js');\n"
+                + "var d = require(\n  './d' // why not\n);\n"
+                + "var p = require.resolve('./e', {paths: []});\n");
+    assertThat(scanner.getRequires()).containsExactly("./a", "b", "./c.js", "./d").inOrder();
+    assertThat(scanner.getResolves()).containsExactly("./e");
+    assertFalse(scanner.hasDynamicRequires());
+  }
+
+  public void testStringsAreUnescaped() {
+    NodeRequireScanner scanner =
+        NodeRequireScanner.scan(
+            "require('.\\\\lib\\x2fa'); require('./\\u{62}'); require(`./c`); require('./d\\\n');");
+    assertThat(scanner.getRequires()).containsExactly(".\\lib/a", "./b", "./c", "./d").inOrder();
+  }
+
+  public void testRequiresThatAreNotCodeAreIgnored() {
+    NodeRequireScanner scanner =
+        NodeRequireScanner.scan(
+            "// require('./a')\n"
+                + "/* require('./b') */\n"
+                + "var s = \"require('./c')\" + 'http://x' + `${require('./d')} require('./e')`;\n"
+                + "var r = /require\\('.\\/f'\\)[/]/g, q = a / b / require('./g');\n"
+                + "foo.require('./h'); x.module.require('./i'); function require(name) {}\n");
+    assertThat(scanner.getRequires()).containsExactly("./d", "./g").inOrder();
+    assertFalse(scanner.hasDynamicRequires());
+  }
+
+  public void testDynamicRequires() {
+    assertTrue(NodeRequireScanner.scan("require(name);").hasDynamicRequires());
+    assertTrue(NodeRequireScanner.scan("require('./' + name);").hasDynamicRequires());
+    assertTrue(NodeRequireScanner.scan("module.require(`./${name}`);").hasDynamicRequires());
+    assertTrue(NodeRequireScanner.scan("require('\\1');").hasDynamicRequires());
+    assertFalse(NodeRequireScanner.scan("require(); require.resolve(name);").hasDynamicRequires());
+  }
+}
@@ -29,6 +29,7 @@ import com.google.javascript.jscomp.parsing.Config.LanguageMode;
 import com.google.javascript.jscomp.parsing.ParserRunner.ParseResult;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet.Feature;
+import com.google.javascript.jscomp.parsing.parser.InternTable;
 import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.SimpleSourceFile;
@@ -2669,6 +2670,43 @@ public final class ParserTest extends BaseJSTypeTestCase {
     parse("if(true){foo=\\u03b5}else bar()");
   }
 
+  public void testIdentifiersWithAsciiPrefix() {
+    Node script = parse("var a\u00e9 = ab$_1; a\\u0062; x\u00e9\\u0062;");
+    Node a = script.getFirstChild().getFirstChild();
+    assertThat(a.getString()).isEqualTo("a\u00e9");
+    assertThat(a.getFirstChild().getString()).isEqualTo("ab$_1");
+    assertThat(script.getSecondChild().getFirstChild().getString()).isEqualTo("ab");
+    assertThat(script.getLastChild().getFirstChild().getString()).isEqualTo("x\u00e9b");
+  }
+
+  public void testSharedInternTable() {
+    InternTable internTable = new InternTable();
+    Node first = parseWithInternTable("exports.x = require('./x');", internTable);
+    Node second = parseWithInternTable(
+        "var exports = {}; exports.y = require('./x');", internTable);
+
+    Node firstExports = first.getFirstChild().getFirstChild().getFirstChild().getFirstChild();
+    Node secondExports = second.getFirstChild().getFirstChild();
+    assertThat(secondExports.getString()).isEqualTo("exports");
+    assertThat(secondExports.getString()).isSameAs(firstExports.getString());
+    // exports, x, require, './x', var, y
+    assertThat(internTable.size()).isEqualTo(6);
+  }
+
+  private Node parseWithInternTable(String source, InternTable internTable) {
+    TestErrorReporter testErrorReporter = new TestErrorReporter(null, null);
+    Node script =
+        ParserRunner.parse(
+                new SimpleSourceFile("input", false),
+                source,
+                createConfig(),
+                internTable,
+                testErrorReporter)
+            .ast;
+    testErrorReporter.assertHasEncounteredAllErrors();
+    return script;
+  }
+
   public void testUnicodePointEscapeInIdentifiers() {
     parse("var \\u{0043}");
     parse("var \\u{0043}test\\u{0043}");
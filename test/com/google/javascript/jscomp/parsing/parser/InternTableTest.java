@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.javascript.jscomp.parsing.parser;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link InternTable}.
+ */
+public final class InternTableTest extends TestCase {
+  public void testInternRange() {
+    InternTable table = new InternTable();
+    String chars = "var exports = exports;";
+
+    String first = table.intern(chars, 4, 11);
+    String second = table.intern(chars, 14, 21);
+    assertEquals("exports", first);
+    assertSame(first, second);
+    assertSame(first, table.intern(new String("exports")));
+    assertEquals("var", table.intern(chars, 0, 3));
+    assertEquals(2, table.size());
+  }
+
+  public void testStringsAreInterned() {
+    InternTable table = new InternTable();
+    String module = new String("module");
+    assertSame("module", table.intern(module));
+    assertSame("module", table.intern("a module", 2, 8));
+  }
+
+  public void testEmptyString() {
+    InternTable table = new InternTable();
+    assertSame("", table.intern("x", 1, 1));
+    assertSame("", table.intern(""));
+  }
+
+  public void testGrows() {
+    InternTable table = new InternTable();
+    String[] names = new String[5000];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = table.intern("name" + i, 0, ("name" + i).length());
+    }
+    assertEquals(names.length, table.size());
+    for (int i = 0; i < names.length; i++) {
+      assertSame(names[i], table.intern("name" + i));
+    }
+  }
+
+  public void testSameHash() {
+    InternTable table = new InternTable();
+    // "Aa" and "BB" have the same hash code.
+    String aa = table.intern("Aa");
+    String bb = table.intern("BB");
+    assertEquals("Aa", aa);
+    assertEquals("BB", bb);
+    assertSame(aa, table.intern(new String("Aa"), 0, 2));
+    assertSame(bb, table.intern(new String("BB"), 0, 2));
+  }
+}
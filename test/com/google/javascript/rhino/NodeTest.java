@@ -380,7 +380,7 @@ public class NodeTest extends TestCase {
     n.putIntProp(Node.SIDE_EFFECT_FLAGS, 5);
     Node m = new Node(Token.TRUE);
     m.clonePropsFrom(n);
-    assertEquals(m.getPropListHeadForTesting(), n.getPropListHeadForTesting());
+    assertSame(m.getPropsForTesting(), n.getPropsForTesting());
     assertEquals(5, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
     assertEquals(5, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
   }
@@ -394,8 +394,7 @@ public class NodeTest extends TestCase {
     n.putIntProp(Node.SIDE_EFFECT_FLAGS, 6);
     assertEquals(6, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
     assertEquals(5, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
-    assertFalse(
-        m.getPropListHeadForTesting() == n.getPropListHeadForTesting());
+    assertNotSame(m.getPropsForTesting(), n.getPropsForTesting());
 
     m.putIntProp(Node.SIDE_EFFECT_FLAGS, 7);
     assertEquals(6, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
@@ -419,20 +418,147 @@ public class NodeTest extends TestCase {
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, false);
 
-    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertFalse(n.hasProp(Node.IS_CONSTANT_NAME));
     assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
 
-    assertNotNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertTrue(n.hasProp(Node.IS_CONSTANT_NAME));
     assertTrue(n.getBooleanProp(Node.IS_CONSTANT_NAME));
 
     n.putBooleanProp(Node.IS_CONSTANT_NAME, false);
 
-    assertNull(n.lookupProperty(Node.IS_CONSTANT_NAME));
+    assertFalse(n.hasProp(Node.IS_CONSTANT_NAME));
     assertFalse(n.getBooleanProp(Node.IS_CONSTANT_NAME));
   }
 
+  public void testIntValueOfBooleanProp() {
+    Node n = getVarRef("a");
+
+    n.putIntProp(Node.IS_CONSTANT_NAME, 2);
+    assertEquals(2, n.getIntProp(Node.IS_CONSTANT_NAME));
+    assertTrue(n.getBooleanProp(Node.IS_CONSTANT_NAME));
+
+    n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+    assertEquals(1, n.getIntProp(Node.IS_CONSTANT_NAME));
+
+    n.putIntProp(Node.IS_CONSTANT_NAME, 3);
+    assertEquals(3, n.getExistingIntProp(Node.IS_CONSTANT_NAME));
+
+    n.removeProp(Node.IS_CONSTANT_NAME);
+    assertFalse(n.hasProps());
+  }
+
+  public void testBooleanPropOutsideBitset() {
+    Node n = getVarRef("a");
+    n.putBooleanProp(Node.INFERRED_FUNCTION, true);
+    n.putBooleanProp(Node.FREE_CALL, true);
+
+    assertTrue(n.getBooleanProp(Node.INFERRED_FUNCTION));
+    assertTrue(n.getBooleanProp(Node.FREE_CALL));
+
+    n.putBooleanProp(Node.INFERRED_FUNCTION, false);
+    assertFalse(n.getBooleanProp(Node.INFERRED_FUNCTION));
+    assertTrue(n.getBooleanProp(Node.FREE_CALL));
+  }
+
+  public void testIntAndObjectPropsAreDistinct() {
+    Node n = getVarRef("a");
+    n.putIntProp(Node.SIDE_EFFECT_FLAGS, 5);
+    n.putProp(Node.ORIGINALNAME_PROP, "b");
+
+    try {
+      n.getProp(Node.SIDE_EFFECT_FLAGS);
+      fail("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      n.getIntProp(Node.ORIGINALNAME_PROP);
+      fail("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException expected) {
+    }
+
+    // A put replaces the prop of the other kind.
+    n.putProp(Node.SIDE_EFFECT_FLAGS, "flags");
+    assertEquals("flags", n.getProp(Node.SIDE_EFFECT_FLAGS));
+    n.removeProp(Node.SIDE_EFFECT_FLAGS);
+    n.removeProp(Node.ORIGINALNAME_PROP);
+    assertFalse(n.hasProps());
+  }
+
+  public void testSameChangeSharesProps() {
+    Node template = getVarRef("a");
+    template.putIntProp(Node.SIDE_EFFECT_FLAGS, 5);
+    Node m = getVarRef("b");
+    m.clonePropsFrom(template);
+    Node n = getVarRef("c");
+    n.clonePropsFrom(template);
+
+    m.putBooleanProp(Node.FREE_CALL, true);
+    n.putBooleanProp(Node.FREE_CALL, true);
+    assertSame(m.getPropsForTesting(), n.getPropsForTesting());
+    assertNotSame(template.getPropsForTesting(), n.getPropsForTesting());
+    assertFalse(template.getBooleanProp(Node.FREE_CALL));
+
+    // A change of no prop keeps the props.
+    Object props = n.getPropsForTesting();
+    n.putBooleanProp(Node.FREE_CALL, true);
+    n.putBooleanProp(Node.QUOTED_PROP, false);
+    assertSame(props, n.getPropsForTesting());
+
+    n.putIntProp(Node.SIDE_EFFECT_FLAGS, 6);
+    assertEquals(5, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
+    assertEquals(6, n.getIntProp(Node.SIDE_EFFECT_FLAGS));
+  }
+
+  public void testPropsToString() {
+    Node n = getVarRef("a");
+    n.putProp(Node.ORIGINALNAME_PROP, "b");
+    n.putIntProp(Node.SIDE_EFFECT_FLAGS, 5);
+    n.putBooleanProp(Node.QUOTED_PROP, true);
+    n.putBooleanProp(Node.INFERRED_FUNCTION, true);
+
+    assertThat(n.toString())
+        .isEqualTo(
+            "NAME a [quoted: 1] [originalname: b] [side_effect_flags: 5] [inferred: 1]");
+  }
+
+  public void testSharedStaticSourceFile() {
+    Node template = new Node(Token.SCRIPT);
+    template.setSourceFileForTesting("foo.js");
+    Node n = new Node(Token.NAME).clonePropsFrom(template);
+    n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+
+    Node m = new Node(Token.NAME);
+    m.putIntProp(Node.SIDE_EFFECT_FLAGS, 5);
+    m.setStaticSourceFileFrom(n);
+    assertEquals("foo.js", m.getSourceFileName());
+    assertEquals(5, m.getIntProp(Node.SIDE_EFFECT_FLAGS));
+    assertFalse(m.getBooleanProp(Node.IS_CONSTANT_NAME));
+
+    // m shares the source file of the template, a change of it does not change the others.
+    m.putProp(Node.ORIGINALNAME_PROP, "b");
+    assertNull(n.getProp(Node.ORIGINALNAME_PROP));
+    assertNull(template.getProp(Node.ORIGINALNAME_PROP));
+    assertEquals("foo.js", m.getSourceFileName());
+  }
+
+  public void testStaticSourceFileSharedFromNodeWithMoreProps() {
+    Node n = new Node(Token.NAME);
+    n.setSourceFileForTesting("foo.js");
+    n.putBooleanProp(Node.IS_CONSTANT_NAME, true);
+
+    // Only the source file is taken, and every node that takes it shares it.
+    Node m = new Node(Token.NAME);
+    m.setStaticSourceFileFrom(n);
+    Node o = new Node(Token.NAME);
+    o.setStaticSourceFileFrom(n);
+    assertSame(m.getPropsForTesting(), o.getPropsForTesting());
+    assertEquals("foo.js", m.getSourceFileName());
+    assertFalse(m.getBooleanProp(Node.IS_CONSTANT_NAME));
+    assertTrue(n.getBooleanProp(Node.IS_CONSTANT_NAME));
+  }
+
   // Verify that annotations on cloned nodes are properly handled.
   public void testCloneAnnontations2() {
     Node n = getVarRef("a");
@@ -1,4 +1,4 @@
-import sys
+import sys,struct
 
 # Global Variable
 baseVarName = "globalVariable_SHYDNUTN_"
@@ -12,11 +12,27 @@ def var_name(x):
   elif(x >= 100):
     name = baseVarName+str(x)
   return name
-def getNumberOfVars(dfs_loc):
-  f = open(dfs_loc,'r')
-  t = int(f.readline())
+# DFS mapping: 8 byte header (magic "DFS1" and the number of entries) followed by
+# the entries, each a big-endian int length and a UTF-8 path. Only the first
+# <number of entries> are used, anything after them was never committed.
+DFS_MAGIC = 0x44465331
+def readDFSMapping(dfs_loc):
+  f = open(dfs_loc,'rb')
+  data = f.read()
   f.close()
-  return t
+  if(len(data) < 8 or struct.unpack(">i",data[0:4])[0] != DFS_MAGIC):
+    # Older versions wrote the number of variables and then one path per line
+    lines = data.decode("utf-8").split("\n")
+    return [int(lines[0]), [l for l in lines[1:] if l != ""]]
+  count = struct.unpack(">i",data[4:8])[0]
+  paths = []; pos = 8
+  for i in range(count):
+    length = struct.unpack(">i",data[pos:pos+4])[0]
+    paths.append(data[pos+4:pos+4+length].decode("utf-8"))
+    pos += 4+length
+  return [count, paths]
+def getNumberOfVars(dfs_loc):
+  return readDFSMapping(dfs_loc)[0]
 def appendVarNames(x):
   line0=""
   if(x!=0): line0 = "var "
@@ -27,11 +43,8 @@ def appendVarNames(x):
 # Require Function
 def appendRequires(dfs_loc):
   requires = "";
-  f = open(dfs_loc,'r')
-  t = f.readline();t = f.readline()
-  while(t!=""):
-    requires = requires+"require(\""+t.replace("\n","")+"\");\n"
-    t = f.readline()
+  for t in readDFSMapping(dfs_loc)[1]:
+    requires = requires+"require(\""+t+"\");\n"
   return requires
 
 # PREPENDER